@@ -0,0 +1,102 @@
+package com.jut.redis.benchmark;
+
+import com.jut.redis.SingleRedisManager;
+import com.jut.redis.embedded.EmbeddedRedisServer;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * 基准测试公共状态
+ * 默认启动进程内的EmbeddedRedisServer, 指定-Dredis.host/-Dredis.port时改为连接真实redis
+ * 每轮测试前预先写入KEYS个key, 测试方法随机选择key访问
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public abstract class AbstractRedisBenchmark {
+    protected static final int KEYS = 1024;
+
+    /**
+     * value字节数
+     */
+    @Param({"16", "1024", "16384"})
+    public int valueSize;
+
+    protected EmbeddedRedisServer server;
+    protected JedisPool jedisPool;
+    protected SingleRedisManager redisManager;
+    protected String value;
+
+    @Setup(Level.Trial)
+    public void setUpServer() throws IOException {
+        String host = System.getProperty("redis.host");
+        int port;
+        if (host == null) {
+            server = new EmbeddedRedisServer();
+            server.start();
+            host = server.getHost();
+            port = server.getPort();
+        } else {
+            port = Integer.getInteger("redis.port", 6379);
+        }
+        JedisPoolConfig config = new JedisPoolConfig();
+        config.setMaxTotal(64);
+        config.setMaxIdle(64);
+        jedisPool = new JedisPool(config, host, port);
+        redisManager = new SingleRedisManager();
+        redisManager.setJedisPool(jedisPool);
+        redisManager.setDbIndex(0);
+        value = randomValue(valueSize);
+        prepare();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownServer() {
+        jedisPool.close();
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    /**
+     * 预先写入测试数据
+     */
+    protected abstract void prepare();
+
+    protected static String key(String prefix, int index) {
+        return prefix + index;
+    }
+
+    protected static int randomIndex() {
+        return ThreadLocalRandom.current().nextInt(KEYS);
+    }
+
+    protected static String randomValue(int size) {
+        Random random = new Random(size);
+        StringBuilder sb = new StringBuilder(size);
+        for (int i = 0; i < size; i++) {
+            sb.append((char) ('a' + random.nextInt(26)));
+        }
+        return sb.toString();
+    }
+}
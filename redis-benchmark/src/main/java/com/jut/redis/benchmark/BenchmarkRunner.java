@@ -0,0 +1,29 @@
+package com.jut.redis.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/***
+ * 基准测试入口
+ * 分别以单线程和多线程运行匹配的基准测试, 并开启GC分析器输出分配速率
+ * 用法: java -cp target/benchmarks.jar com.jut.redis.benchmark.BenchmarkRunner [正则] [多线程数]
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : "com.jut.redis.benchmark.*";
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        for (int t : new int[]{1, threads}) {
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(t)
+                    .addProfiler(GCProfiler.class)
+                    .result("jmh-result-" + t + "t.json")
+                    .resultFormat(org.openjdk.jmh.results.format.ResultFormatType.JSON)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
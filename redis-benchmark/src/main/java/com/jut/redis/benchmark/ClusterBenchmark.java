@@ -0,0 +1,101 @@
+package com.jut.redis.benchmark;
+
+import com.jut.redis.ClusterRedisManager;
+import com.jut.redis.embedded.EmbeddedRedisCluster;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPoolConfig;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * 集群基准测试
+ * 在进程内的3主节点集群上对比跨槽位mget按节点并行批量执行与逐个get, 通过latencyMicros注入网络往返延迟
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClusterBenchmark {
+    private static final int KEYS = 1024;
+    private static final int BATCH = 64;
+
+    /**
+     * 每次往返注入的延迟(微秒)
+     */
+    @Param({"0", "200"})
+    public int latencyMicros;
+
+    private EmbeddedRedisCluster cluster;
+    private JedisCluster jedisCluster;
+    private ClusterRedisManager redisManager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        cluster = new EmbeddedRedisCluster(3);
+        cluster.start();
+        JedisPoolConfig config = new JedisPoolConfig();
+        config.setMaxTotal(64);
+        config.setMaxIdle(64);
+        jedisCluster = new JedisCluster(cluster.getHostAndPorts(), config);
+        redisManager = new ClusterRedisManager();
+        redisManager.setJedisCluster(jedisCluster);
+        for (int i = 0; i < KEYS; i++) {
+            redisManager.set("str:" + i, String.valueOf(i));
+        }
+        cluster.setLatency(latencyMicros, TimeUnit.MICROSECONDS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jedisCluster.close();
+        cluster.close();
+    }
+
+    private static String[] randomKeys() {
+        int start = ThreadLocalRandom.current().nextInt(KEYS);
+        String[] keys = new String[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            keys[i] = "str:" + (start + i) % KEYS;
+        }
+        return keys;
+    }
+
+    @Benchmark
+    public String get() {
+        return redisManager.get("str:" + ThreadLocalRandom.current().nextInt(KEYS));
+    }
+
+    @Benchmark
+    public List<String> crossSlotMget() {
+        return redisManager.mget(randomKeys());
+    }
+
+    @Benchmark
+    public int perKeyGets() {
+        int found = 0;
+        for (String key : randomKeys()) {
+            if (redisManager.get(key) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,52 @@
+package com.jut.redis.benchmark;
+
+import com.jut.redis.codec.ByteArrayCodec;
+import com.jut.redis.codec.StringCodec;
+import com.jut.redis.codec.TypedRedisManager;
+import org.openjdk.jmh.annotations.Benchmark;
+
+import java.nio.charset.StandardCharsets;
+
+/***
+ * String接口与二进制接口对比
+ * 配合-prof gc查看每次操作的分配字节数
+ */
+public class CodecBenchmark extends AbstractRedisBenchmark {
+    private TypedRedisManager<byte[]> bytesManager;
+    private TypedRedisManager<String> stringCodecManager;
+    private byte[] bytes;
+
+    protected void prepare() {
+        bytesManager = new TypedRedisManager<byte[]>(redisManager, ByteArrayCodec.INSTANCE);
+        stringCodecManager = new TypedRedisManager<String>(redisManager, StringCodec.INSTANCE);
+        bytes = value.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < KEYS; i++) {
+            redisManager.set(key("str:", i), value);
+        }
+    }
+
+    @Benchmark
+    public String stringGet() {
+        return redisManager.get(key("str:", randomIndex()));
+    }
+
+    @Benchmark
+    public byte[] binaryGet() {
+        return bytesManager.get(key("str:", randomIndex()));
+    }
+
+    @Benchmark
+    public String stringCodecGet() {
+        return stringCodecManager.get(key("str:", randomIndex()));
+    }
+
+    @Benchmark
+    public String stringSet() {
+        return redisManager.set(key("str:", randomIndex()), value);
+    }
+
+    @Benchmark
+    public String binarySet() {
+        return bytesManager.set(key("str:", randomIndex()), bytes);
+    }
+}
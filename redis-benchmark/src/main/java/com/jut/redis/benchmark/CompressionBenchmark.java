@@ -0,0 +1,124 @@
+package com.jut.redis.benchmark;
+
+import com.jut.redis.compress.CompressingCodec;
+import com.jut.redis.compress.CompressingRedisManager;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/***
+ * 值压缩基准测试
+ * value为JSON文档, 对比直接读写与经CompressingRedisManager压缩读写的吞吐, 以及单独压缩、解压的CPU开销
+ * 辅助计数wireBytes为每秒传输的value字节数, 按redis中实际存储的长度计, 除以吞吐即每个value占用的字节数,
+ * plain*与compressed*对比即为带宽和内存的节省
+ */
+public class CompressionBenchmark extends AbstractRedisBenchmark {
+    private static final String[] WORDS = {"order", "paid", "shipped", "pending", "beijing", "shanghai",
+            "express", "standard", "coupon", "member", "refund", "warehouse"};
+
+    /**
+     * 替换公共的取值, 只测超过压缩阈值的文档; 低于阈值的value不压缩, 与直接读写相同
+     */
+    @Param({"16384", "102400"})
+    public int valueSize;
+
+    private CompressingRedisManager compressingManager;
+    private CompressingCodec codec;
+    private String document;
+    private byte[] documentBytes;
+    private byte[] compressed;
+    private int plainLength;
+    private int storedLength;
+
+    protected void prepare() {
+        compressingManager = new CompressingRedisManager(redisManager);
+        codec = compressingManager.getCodec();
+        document = jsonValue(valueSize);
+        documentBytes = document.getBytes(StandardCharsets.UTF_8);
+        compressed = codec.encode(documentBytes);
+        for (int i = 0; i < KEYS; i++) {
+            redisManager.set(key("plain:", i), document);
+            compressingManager.set(key("zip:", i), document);
+        }
+        plainLength = redisManager.serlen(key("plain:", 0)).intValue();
+        storedLength = redisManager.serlen(key("zip:", 0)).intValue();
+    }
+
+    @Benchmark
+    public String plainGet(WireBytes wire) {
+        wire.wireBytes += plainLength;
+        return redisManager.get(key("plain:", randomIndex()));
+    }
+
+    @Benchmark
+    public String compressedGet(WireBytes wire) {
+        wire.wireBytes += storedLength;
+        return compressingManager.get(key("zip:", randomIndex()));
+    }
+
+    @Benchmark
+    public String plainSet(WireBytes wire) {
+        wire.wireBytes += plainLength;
+        return redisManager.set(key("plain:", randomIndex()), document);
+    }
+
+    @Benchmark
+    public String compressedSet(WireBytes wire) {
+        wire.wireBytes += storedLength;
+        return compressingManager.set(key("zip:", randomIndex()), document);
+    }
+
+    @Benchmark
+    public byte[] compress() {
+        return codec.encode(documentBytes);
+    }
+
+    @Benchmark
+    public byte[] decompress() {
+        return codec.decompress(compressed);
+    }
+
+    /**
+     * 传输的value字节数, 按吞吐换算为每秒字节数
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class WireBytes {
+        public long wireBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            wireBytes = 0;
+        }
+    }
+
+    /**
+     * 生成约size字节的JSON数组, 字段名重复、取值有限, 接近业务中的订单类文档
+     */
+    protected static String jsonValue(int size) {
+        Random random = new Random(size);
+        StringBuilder sb = new StringBuilder(size + 256);
+        sb.append('[');
+        for (int i = 0; sb.length() < size - 1; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"id\":").append(100000000 + random.nextInt(900000000))
+                    .append(",\"status\":\"").append(WORDS[random.nextInt(4)])
+                    .append("\",\"city\":\"").append(WORDS[4 + random.nextInt(2)])
+                    .append("\",\"amount\":").append(random.nextInt(100000) / 100.0)
+                    .append(",\"tags\":[\"").append(WORDS[6 + random.nextInt(6)]).append("\",\"")
+                    .append(WORDS[6 + random.nextInt(6)]).append("\"],\"createdAt\":")
+                    .append(1700000000000L + random.nextInt(1000000000)).append('}');
+        }
+        sb.append(']');
+        return sb.length() <= size ? sb.toString() : sb.substring(0, size);
+    }
+}
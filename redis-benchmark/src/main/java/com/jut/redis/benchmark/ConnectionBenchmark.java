@@ -0,0 +1,102 @@
+package com.jut.redis.benchmark;
+
+import com.jut.redis.RedisDatabasePools;
+import com.jut.redis.SingleRedisManager;
+import com.jut.redis.pipeline.PipelineCallback;
+import com.jut.redis.pipeline.RedisPipeline;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.TearDown;
+import redis.clients.jedis.Jedis;
+
+import java.util.List;
+
+/***
+ * 连接开销基准测试
+ * 对比直接使用jedis, 通过SingleRedisManager, 非0号库在共享连接池上的select开销, 按库划分子连接池,
+ * 以及逐条执行与管道批量执行
+ */
+public class ConnectionBenchmark extends AbstractRedisBenchmark {
+    private static final int BATCH = 30;
+
+    private SingleRedisManager sharedPoolManager;
+    private SingleRedisManager databasePoolsManager;
+    private RedisDatabasePools databasePools;
+
+    protected void prepare() {
+        sharedPoolManager = new SingleRedisManager();
+        sharedPoolManager.setJedisPool(jedisPool);
+        sharedPoolManager.setDbIndex(1);
+
+        databasePools = new RedisDatabasePools();
+        Jedis jedis = jedisPool.getResource();
+        try {
+            databasePools.setHost(jedis.getClient().getHost());
+            databasePools.setPort(jedis.getClient().getPort());
+        } finally {
+            jedis.close();
+        }
+        databasePoolsManager = new SingleRedisManager();
+        databasePoolsManager.setDatabasePools(databasePools);
+        databasePoolsManager.setDbIndex(1);
+
+        for (int i = 0; i < KEYS; i++) {
+            redisManager.set(key("str:", i), value);
+            databasePoolsManager.set(key("str:", i), value);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownPools() {
+        databasePools.destroy();
+    }
+
+    @Benchmark
+    public String rawJedisGet() {
+        Jedis jedis = jedisPool.getResource();
+        try {
+            return jedis.get(key("str:", randomIndex()));
+        } finally {
+            jedis.close();
+        }
+    }
+
+    @Benchmark
+    public String managerGet() {
+        return redisManager.get(key("str:", randomIndex()));
+    }
+
+    @Benchmark
+    public String sharedPoolOtherDbGet() {
+        return sharedPoolManager.get(key("str:", randomIndex()));
+    }
+
+    @Benchmark
+    public String databasePoolsOtherDbGet() {
+        return databasePoolsManager.get(key("str:", randomIndex()));
+    }
+
+    @Benchmark
+    public int sequentialGets() {
+        int start = randomIndex();
+        int found = 0;
+        for (int i = 0; i < BATCH; i++) {
+            if (redisManager.get(key("str:", (start + i) % KEYS)) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public List<Object> pipelinedGets() {
+        final int start = randomIndex();
+        return redisManager.pipelined(new PipelineCallback() {
+            public void doInPipeline(RedisPipeline pipeline) {
+                for (int i = 0; i < BATCH; i++) {
+                    pipeline.get(key("str:", (start + i) % KEYS));
+                }
+            }
+        });
+    }
+}
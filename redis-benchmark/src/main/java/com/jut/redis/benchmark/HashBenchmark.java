@@ -0,0 +1,57 @@
+package com.jut.redis.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/***
+ * hash命令基准测试
+ * 每个hash包含FIELDS个字段
+ */
+public class HashBenchmark extends AbstractRedisBenchmark {
+    private static final int FIELDS = 16;
+
+    private Map<String, String> hash;
+
+    protected void prepare() {
+        hash = new HashMap<String, String>();
+        for (int i = 0; i < FIELDS; i++) {
+            hash.put("field" + i, value);
+        }
+        for (int i = 0; i < KEYS; i++) {
+            redisManager.hmset(key("hash:", i), hash);
+        }
+    }
+
+    @Benchmark
+    public String hget() {
+        return redisManager.hget(key("hash:", randomIndex()), "field" + (randomIndex() % FIELDS));
+    }
+
+    @Benchmark
+    public Long hset() {
+        return redisManager.hset(key("hash:", randomIndex()), "field" + (randomIndex() % FIELDS), value);
+    }
+
+    @Benchmark
+    public List<String> hmget() {
+        return redisManager.hmget(key("hash:", randomIndex()), "field0", "field1", "field2", "field3");
+    }
+
+    @Benchmark
+    public String hmset() {
+        return redisManager.hmset(key("hash:", randomIndex()), hash);
+    }
+
+    @Benchmark
+    public Map<String, String> hgetall() {
+        return redisManager.hgetall(key("hash:", randomIndex()));
+    }
+
+    @Benchmark
+    public Long hincrby() {
+        return redisManager.hincrby(key("counter:", randomIndex()), "count", 1L);
+    }
+}
@@ -0,0 +1,38 @@
+package com.jut.redis.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import java.util.List;
+
+/***
+ * list命令基准测试
+ * 写入类测试成对执行push和pop, 保持列表长度稳定
+ */
+public class ListBenchmark extends AbstractRedisBenchmark {
+    private static final int LENGTH = 32;
+
+    protected void prepare() {
+        for (int i = 0; i < KEYS; i++) {
+            for (int j = 0; j < LENGTH; j++) {
+                redisManager.rpush(key("list:", i), value);
+            }
+        }
+    }
+
+    @Benchmark
+    public String lpushRpop() {
+        String key = key("list:", randomIndex());
+        redisManager.lpush(key, value);
+        return redisManager.rpop(key);
+    }
+
+    @Benchmark
+    public List<String> lrange() {
+        return redisManager.lrange(key("list:", randomIndex()), 0, 9);
+    }
+
+    @Benchmark
+    public Long llen() {
+        return redisManager.llen(key("list:", randomIndex()));
+    }
+}
@@ -0,0 +1,36 @@
+package com.jut.redis.benchmark;
+
+import com.jut.redis.SingleRedisManager;
+import com.jut.redis.metrics.MetricsRedisManager;
+import com.jut.redis.metrics.RedisMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/***
+ * 指标记录开销基准测试
+ * 对比直接调用与经MetricsRedisManager记录指标的调用, 配合GC分析器确认记录路径不分配对象
+ */
+public class MetricsBenchmark extends AbstractRedisBenchmark {
+    private MetricsRedisManager meteredManager;
+
+    protected void prepare() {
+        RedisMetrics metrics = new RedisMetrics();
+        SingleRedisManager metered = new SingleRedisManager();
+        metered.setJedisPool(jedisPool);
+        metered.setDbIndex(0);
+        metered.setMetrics(metrics);
+        meteredManager = new MetricsRedisManager(metered, metrics);
+        for (int i = 0; i < KEYS; i++) {
+            redisManager.set(key("str:", i), value);
+        }
+    }
+
+    @Benchmark
+    public String get() {
+        return redisManager.get(key("str:", randomIndex()));
+    }
+
+    @Benchmark
+    public String meteredGet() {
+        return meteredManager.get(key("str:", randomIndex()));
+    }
+}
@@ -0,0 +1,43 @@
+package com.jut.redis.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import java.util.Set;
+
+/***
+ * set命令基准测试
+ * 每个set包含MEMBERS个长度为valueSize的成员
+ */
+public class SetBenchmark extends AbstractRedisBenchmark {
+    private static final int MEMBERS = 16;
+
+    protected void prepare() {
+        for (int i = 0; i < KEYS; i++) {
+            for (int j = 0; j < MEMBERS; j++) {
+                redisManager.sadd(key("set:", i), j + value);
+            }
+        }
+    }
+
+    @Benchmark
+    public Long saddSrem() {
+        String key = key("set:", randomIndex());
+        redisManager.sadd(key, "tmp" + value);
+        return redisManager.srem(key, "tmp" + value);
+    }
+
+    @Benchmark
+    public Boolean sismember() {
+        return redisManager.sismember(key("set:", randomIndex()), (randomIndex() % MEMBERS) + value);
+    }
+
+    @Benchmark
+    public Set<String> smembers() {
+        return redisManager.smembers(key("set:", randomIndex()));
+    }
+
+    @Benchmark
+    public Long scard() {
+        return redisManager.scard(key("set:", randomIndex()));
+    }
+}
@@ -0,0 +1,75 @@
+package com.jut.redis.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+import java.util.List;
+
+/***
+ * 字符串命令基准测试
+ */
+public class StringBenchmark extends AbstractRedisBenchmark {
+    private static final int BATCH = 10;
+
+    protected void prepare() {
+        for (int i = 0; i < KEYS; i++) {
+            redisManager.set(key("str:", i), value);
+            redisManager.set(key("counter:", i), "0");
+        }
+    }
+
+    @Benchmark
+    public String get() {
+        return redisManager.get(key("str:", randomIndex()));
+    }
+
+    @Benchmark
+    public String getMissing() {
+        return redisManager.get(key("missing:", randomIndex()));
+    }
+
+    @Benchmark
+    public String set() {
+        return redisManager.set(key("str:", randomIndex()), value);
+    }
+
+    @Benchmark
+    public String setex() {
+        return redisManager.setex(key("str:", randomIndex()), 3600, value);
+    }
+
+    @Benchmark
+    public List<String> mget() {
+        String[] keys = new String[BATCH];
+        int start = randomIndex();
+        for (int i = 0; i < BATCH; i++) {
+            keys[i] = key("str:", (start + i) % KEYS);
+        }
+        return redisManager.mget(keys);
+    }
+
+    @Benchmark
+    public String mset() {
+        String[] keysvalues = new String[BATCH * 2];
+        int start = randomIndex();
+        for (int i = 0; i < BATCH; i++) {
+            keysvalues[i * 2] = key("str:", (start + i) % KEYS);
+            keysvalues[i * 2 + 1] = value;
+        }
+        return redisManager.mset(keysvalues);
+    }
+
+    @Benchmark
+    public Long incr() {
+        return redisManager.incr(key("counter:", randomIndex()));
+    }
+
+    @Benchmark
+    public Boolean exists() {
+        return redisManager.exists(key("str:", randomIndex()));
+    }
+
+    @Benchmark
+    public Long expire() {
+        return redisManager.expire(key("str:", randomIndex()), 3600);
+    }
+}
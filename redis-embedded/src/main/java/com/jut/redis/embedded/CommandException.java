@@ -0,0 +1,28 @@
+package com.jut.redis.embedded;
+
+/***
+ * 命令执行错误, 消息以redis错误前缀开头(ERR/WRONGTYPE等), 原样作为错误回复返回客户端
+ */
+class CommandException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    CommandException(String message) {
+        super(message);
+    }
+
+    static CommandException wrongType() {
+        return new CommandException("WRONGTYPE Operation against a key holding the wrong kind of value");
+    }
+
+    static CommandException syntax() {
+        return new CommandException("ERR syntax error");
+    }
+
+    static CommandException notInteger() {
+        return new CommandException("ERR value is not an integer or out of range");
+    }
+
+    static CommandException arity(String name) {
+        return new CommandException("ERR wrong number of arguments for '" + name.toLowerCase() + "' command");
+    }
+}
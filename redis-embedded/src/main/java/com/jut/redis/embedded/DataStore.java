@@ -0,0 +1,1540 @@
+package com.jut.redis.embedded;
+
+import redis.clients.jedis.util.JedisClusterCRC16;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/***
+ * 内存数据与命令实现
+ * 所有命令在同一把锁下串行执行, 与redis的单线程模型一致; 集群从节点与主节点共享同一个DataStore
+ * key和成员按ISO-8859-1与字节一一对应, 保证二进制安全
+ * 值类型: 字符串byte[], 哈希HashMap, 列表LinkedList, 集合HashSet, 有序集合ZSet
+ */
+class DataStore {
+    static final int DATABASES = 16;
+
+    private final Database[] databases;
+
+    /**
+     * SHA1 -> 登记的脚本实现
+     */
+    private final Map<String, EmbeddedScript> scripts = new HashMap<String, EmbeddedScript>();
+
+    /**
+     * 已通过SCRIPT LOAD或EVAL加载的脚本SHA1, SCRIPT FLUSH清空
+     */
+    private final Set<String> loadedScripts = new HashSet<String>();
+
+    DataStore() {
+        databases = new Database[DATABASES];
+        for (int i = 0; i < DATABASES; i++) {
+            databases[i] = new Database();
+        }
+    }
+
+    private static class Database {
+        final Map<String, Object> data = new HashMap<String, Object>();
+        final Map<String, Long> expires = new HashMap<String, Long>();
+
+        Object live(String key) {
+            Long expireAt = expires.get(key);
+            if (expireAt != null && expireAt <= System.currentTimeMillis()) {
+                data.remove(key);
+                expires.remove(key);
+                return null;
+            }
+            return data.get(key);
+        }
+
+        void put(String key, Object value) {
+            data.put(key, value);
+        }
+
+        boolean remove(String key) {
+            expires.remove(key);
+            return data.remove(key) != null;
+        }
+
+        void removeIfEmpty(String key, Object value) {
+            if (value instanceof Map && ((Map<?, ?>) value).isEmpty()
+                    || value instanceof Collection && ((Collection<?>) value).isEmpty()) {
+                remove(key);
+            }
+        }
+
+        void purge() {
+            long now = System.currentTimeMillis();
+            Iterator<Map.Entry<String, Long>> it = expires.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Long> entry = it.next();
+                if (entry.getValue() <= now) {
+                    data.remove(entry.getKey());
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * 有序集合, 成员到分值的映射, 排序在读取时进行
+     */
+    private static class ZSet extends HashMap<String, Double> {
+        private static final long serialVersionUID = 1L;
+
+        List<Map.Entry<String, Double>> sorted() {
+            List<Map.Entry<String, Double>> entries = new ArrayList<Map.Entry<String, Double>>(entrySet());
+            Collections.sort(entries, new Comparator<Map.Entry<String, Double>>() {
+                public int compare(Map.Entry<String, Double> a, Map.Entry<String, Double> b) {
+                    int c = Double.compare(a.getValue(), b.getValue());
+                    return c != 0 ? c : a.getKey().compareTo(b.getKey());
+                }
+            });
+            return entries;
+        }
+    }
+
+    synchronized void flushAll() {
+        for (Database database : databases) {
+            database.data.clear();
+            database.expires.clear();
+        }
+    }
+
+    synchronized int size(int db) {
+        Database database = databases[db];
+        database.purge();
+        return database.data.size();
+    }
+
+    /**
+     * 将db中属于该槽位的key迁移到另一个节点, 用于模拟集群槽位迁移
+     *
+     * @return 迁移的key数量
+     */
+    int migrateSlot(int db, int slot, DataStore target) {
+        Map<String, Object> values = new HashMap<String, Object>();
+        Map<String, Long> expires = new HashMap<String, Long>();
+        synchronized (this) {
+            Database source = databases[db];
+            source.purge();
+            Iterator<Map.Entry<String, Object>> it = source.data.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Object> entry = it.next();
+                if (JedisClusterCRC16.getSlot(bytes(entry.getKey())) == slot) {
+                    values.put(entry.getKey(), entry.getValue());
+                    Long expireAt = source.expires.remove(entry.getKey());
+                    if (expireAt != null) {
+                        expires.put(entry.getKey(), expireAt);
+                    }
+                    it.remove();
+                }
+            }
+        }
+        synchronized (target) {
+            Database database = target.databases[db];
+            database.data.putAll(values);
+            database.expires.putAll(expires);
+        }
+        return values.size();
+    }
+
+    synchronized int countKeysInSlot(int db, int slot) {
+        Database database = databases[db];
+        database.purge();
+        int count = 0;
+        for (String key : database.data.keySet()) {
+            if (JedisClusterCRC16.getSlot(bytes(key)) == slot) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    synchronized void registerScript(String source, EmbeddedScript script) {
+        scripts.put(sha1(source.getBytes(StandardCharsets.UTF_8)), script);
+    }
+
+    synchronized boolean exists(int db, String key) {
+        return databases[db].live(key) != null;
+    }
+
+    synchronized Object execute(Session session, String name, List<byte[]> args) {
+        Database db = databases[session.db];
+        switch (name) {
+            case "PING":
+                return args.size() > 1 ? args.get(1) : Resp.PONG;
+            case "ECHO":
+                arity(name, args, 2);
+                return args.get(1);
+            case "SELECT": {
+                arity(name, args, 2);
+                int index = intArg(args, 1);
+                if (index < 0 || index >= DATABASES) {
+                    throw new CommandException("ERR DB index is out of range");
+                }
+                session.db = index;
+                return Resp.OK;
+            }
+            case "FLUSHDB":
+                db.data.clear();
+                db.expires.clear();
+                return Resp.OK;
+            case "FLUSHALL":
+                for (Database database : databases) {
+                    database.data.clear();
+                    database.expires.clear();
+                }
+                return Resp.OK;
+            case "DBSIZE":
+                db.purge();
+                return (long) db.data.size();
+            case "TIME": {
+                long micros = System.currentTimeMillis() * 1000;
+                return Arrays.asList(String.valueOf(micros / 1000000), String.valueOf(micros % 1000000));
+            }
+            case "INFO":
+                return "# Server\r\nredis_version:5.0.0\r\nredis_mode:embedded\r\n";
+
+            //key
+            case "DEL":
+            case "UNLINK": {
+                arity(name, args, 2);
+                long count = 0;
+                for (int i = 1; i < args.size(); i++) {
+                    String key = key(args, i);
+                    if (db.live(key) != null) {
+                        db.remove(key);
+                        count++;
+                    }
+                }
+                return count;
+            }
+            case "EXISTS": {
+                arity(name, args, 2);
+                long count = 0;
+                for (int i = 1; i < args.size(); i++) {
+                    if (db.live(key(args, i)) != null) {
+                        count++;
+                    }
+                }
+                return count;
+            }
+            case "EXPIRE":
+                arity(name, args, 3);
+                return expireAt(db, key(args, 1), System.currentTimeMillis() + longArg(args, 2) * 1000);
+            case "PEXPIRE":
+                arity(name, args, 3);
+                return expireAt(db, key(args, 1), System.currentTimeMillis() + longArg(args, 2));
+            case "EXPIREAT":
+                arity(name, args, 3);
+                return expireAt(db, key(args, 1), longArg(args, 2) * 1000);
+            case "PEXPIREAT":
+                arity(name, args, 3);
+                return expireAt(db, key(args, 1), longArg(args, 2));
+            case "PERSIST": {
+                arity(name, args, 2);
+                String key = key(args, 1);
+                return db.live(key) != null && db.expires.remove(key) != null ? 1L : 0L;
+            }
+            case "TTL":
+            case "PTTL": {
+                arity(name, args, 2);
+                String key = key(args, 1);
+                if (db.live(key) == null) {
+                    return -2L;
+                }
+                Long expireAt = db.expires.get(key);
+                if (expireAt == null) {
+                    return -1L;
+                }
+                long millis = expireAt - System.currentTimeMillis();
+                return "PTTL".equals(name) ? millis : (millis + 500) / 1000;
+            }
+            case "TYPE": {
+                arity(name, args, 2);
+                return new Resp.Status(typeOf(db.live(key(args, 1))));
+            }
+            case "SCRIPT":
+                return script(args);
+            case "EVAL":
+            case "EVALSHA": {
+                if (args.size() < 3) {
+                    throw CommandException.arity(name);
+                }
+                String sha1 = "EVAL".equals(name) ? sha1(args.get(1)) : str(args, 1).toLowerCase();
+                EmbeddedScript script = scripts.get(sha1);
+                if ("EVAL".equals(name)) {
+                    if (script == null) {
+                        throw new CommandException("ERR embedded redis has no java implementation for script " + sha1);
+                    }
+                    loadedScripts.add(sha1);
+                } else if (script == null || !loadedScripts.contains(sha1)) {
+                    throw new CommandException("NOSCRIPT No matching script. Please use EVAL.");
+                }
+                return runScript(session, script, args);
+            }
+            case "DUMP": {
+                arity(name, args, 2);
+                Object value = db.live(key(args, 1));
+                return value == null ? null : dump(value);
+            }
+            case "RESTORE": {
+                arity(name, args, 4);
+                String key = key(args, 1);
+                long ttl = longArg(args, 2);
+                boolean replace = false;
+                for (int i = 4; i < args.size(); i++) {
+                    if (!"REPLACE".equalsIgnoreCase(str(args, i))) {
+                        throw CommandException.syntax();
+                    }
+                    replace = true;
+                }
+                if (ttl < 0) {
+                    throw new CommandException("ERR Invalid TTL value, must be >= 0");
+                }
+                if (!replace && db.live(key) != null) {
+                    throw new CommandException("BUSYKEY Target key name already exists.");
+                }
+                Object value = restore(args.get(3));
+                db.remove(key);
+                db.put(key, value);
+                if (ttl > 0) {
+                    db.expires.put(key, System.currentTimeMillis() + ttl);
+                }
+                return Resp.OK;
+            }
+            case "KEYS": {
+                arity(name, args, 2);
+                Pattern pattern = glob(str(args, 1));
+                db.purge();
+                List<String> keys = new ArrayList<String>();
+                for (String key : db.data.keySet()) {
+                    if (pattern.matcher(key).matches()) {
+                        keys.add(key);
+                    }
+                }
+                return keys;
+            }
+            case "SCAN": {
+                arity(name, args, 2);
+                db.purge();
+                ScanArgs scan = new ScanArgs(args, 2);
+                List<String> candidates = new ArrayList<String>();
+                for (Map.Entry<String, Object> entry : db.data.entrySet()) {
+                    if (scan.type == null || scan.type.equals(typeOf(entry.getValue()))) {
+                        candidates.add(entry.getKey());
+                    }
+                }
+                List<String> page = new ArrayList<String>();
+                long next = scanPage(candidates, longArg(args, 1), scan, page);
+                List<Object> keys = new ArrayList<Object>(page);
+                return Arrays.<Object>asList(String.valueOf(next), keys);
+            }
+
+            //string
+            case "GET":
+                arity(name, args, 2);
+                return string(db, key(args, 1));
+            case "SET":
+                arity(name, args, 3);
+                return set(db, args);
+            case "SETEX":
+            case "PSETEX": {
+                arity(name, args, 4);
+                long ttl = longArg(args, 2);
+                if (ttl <= 0) {
+                    throw new CommandException("ERR invalid expire time in " + name.toLowerCase());
+                }
+                String key = key(args, 1);
+                db.put(key, args.get(3));
+                db.expires.put(key, System.currentTimeMillis() + ("SETEX".equals(name) ? ttl * 1000 : ttl));
+                return Resp.OK;
+            }
+            case "SETNX": {
+                arity(name, args, 3);
+                String key = key(args, 1);
+                if (db.live(key) != null) {
+                    return 0L;
+                }
+                db.put(key, args.get(2));
+                return 1L;
+            }
+            case "GETSET": {
+                arity(name, args, 3);
+                String key = key(args, 1);
+                byte[] old = string(db, key);
+                db.put(key, args.get(2));
+                db.expires.remove(key);
+                return old;
+            }
+            case "MGET": {
+                arity(name, args, 2);
+                List<byte[]> values = new ArrayList<byte[]>();
+                for (int i = 1; i < args.size(); i++) {
+                    Object value = db.live(key(args, i));
+                    values.add(value instanceof byte[] ? (byte[]) value : null);
+                }
+                return values;
+            }
+            case "MSET":
+                pairs(name, args, 1);
+                for (int i = 1; i + 1 < args.size(); i += 2) {
+                    db.put(key(args, i), args.get(i + 1));
+                    db.expires.remove(key(args, i));
+                }
+                return Resp.OK;
+            case "MSETNX":
+                pairs(name, args, 1);
+                for (int i = 1; i + 1 < args.size(); i += 2) {
+                    if (db.live(key(args, i)) != null) {
+                        return 0L;
+                    }
+                }
+                for (int i = 1; i + 1 < args.size(); i += 2) {
+                    db.put(key(args, i), args.get(i + 1));
+                }
+                return 1L;
+            case "APPEND": {
+                arity(name, args, 3);
+                String key = key(args, 1);
+                byte[] old = string(db, key);
+                byte[] value = concat(old == null ? new byte[0] : old, args.get(2));
+                db.put(key, value);
+                return (long) value.length;
+            }
+            case "STRLEN": {
+                arity(name, args, 2);
+                byte[] value = string(db, key(args, 1));
+                return value == null ? 0L : (long) value.length;
+            }
+            case "SETRANGE": {
+                arity(name, args, 4);
+                String key = key(args, 1);
+                int offset = intArg(args, 2);
+                if (offset < 0) {
+                    throw new CommandException("ERR offset is out of range");
+                }
+                byte[] old = string(db, key);
+                byte[] patch = args.get(3);
+                byte[] value = old == null ? new byte[0] : old;
+                if (patch.length > 0) {
+                    value = Arrays.copyOf(value, Math.max(value.length, offset + patch.length));
+                    System.arraycopy(patch, 0, value, offset, patch.length);
+                    db.put(key, value);
+                }
+                return (long) value.length;
+            }
+            case "GETRANGE": {
+                arity(name, args, 4);
+                byte[] value = string(db, key(args, 1));
+                if (value == null) {
+                    return new byte[0];
+                }
+                int[] range = range(longArg(args, 2), longArg(args, 3), value.length);
+                return range == null ? new byte[0] : Arrays.copyOfRange(value, range[0], range[1] + 1);
+            }
+            case "INCR":
+                arity(name, args, 2);
+                return incrBy(db, key(args, 1), 1);
+            case "INCRBY":
+                arity(name, args, 3);
+                return incrBy(db, key(args, 1), longArg(args, 2));
+            case "DECR":
+                arity(name, args, 2);
+                return incrBy(db, key(args, 1), -1);
+            case "DECRBY":
+                arity(name, args, 3);
+                return incrBy(db, key(args, 1), -longArg(args, 2));
+
+            //hash
+            case "HSET":
+            case "HMSET": {
+                pairs(name, args, 2);
+                Map<String, byte[]> hash = hash(db, key(args, 1), true);
+                long added = 0;
+                for (int i = 2; i + 1 < args.size(); i += 2) {
+                    if (hash.put(key(args, i), args.get(i + 1)) == null) {
+                        added++;
+                    }
+                }
+                return "HSET".equals(name) ? (Object) added : Resp.OK;
+            }
+            case "HSETNX": {
+                arity(name, args, 4);
+                Map<String, byte[]> hash = hash(db, key(args, 1), true);
+                String field = key(args, 2);
+                if (hash.containsKey(field)) {
+                    return 0L;
+                }
+                hash.put(field, args.get(3));
+                return 1L;
+            }
+            case "HGET": {
+                arity(name, args, 3);
+                Map<String, byte[]> hash = hash(db, key(args, 1), false);
+                return hash == null ? null : hash.get(key(args, 2));
+            }
+            case "HMGET": {
+                arity(name, args, 3);
+                Map<String, byte[]> hash = hash(db, key(args, 1), false);
+                List<byte[]> values = new ArrayList<byte[]>();
+                for (int i = 2; i < args.size(); i++) {
+                    values.add(hash == null ? null : hash.get(key(args, i)));
+                }
+                return values;
+            }
+            case "HGETALL": {
+                arity(name, args, 2);
+                Map<String, byte[]> hash = hash(db, key(args, 1), false);
+                List<Object> values = new ArrayList<Object>();
+                if (hash != null) {
+                    for (Map.Entry<String, byte[]> entry : hash.entrySet()) {
+                        values.add(entry.getKey());
+                        values.add(entry.getValue());
+                    }
+                }
+                return values;
+            }
+            case "HKEYS": {
+                arity(name, args, 2);
+                Map<String, byte[]> hash = hash(db, key(args, 1), false);
+                return hash == null ? Collections.emptyList() : new ArrayList<String>(hash.keySet());
+            }
+            case "HVALS": {
+                arity(name, args, 2);
+                Map<String, byte[]> hash = hash(db, key(args, 1), false);
+                return hash == null ? Collections.emptyList() : new ArrayList<byte[]>(hash.values());
+            }
+            case "HDEL": {
+                arity(name, args, 3);
+                String key = key(args, 1);
+                Map<String, byte[]> hash = hash(db, key, false);
+                long count = 0;
+                for (int i = 2; hash != null && i < args.size(); i++) {
+                    if (hash.remove(key(args, i)) != null) {
+                        count++;
+                    }
+                }
+                db.removeIfEmpty(key, hash);
+                return count;
+            }
+            case "HINCRBY": {
+                arity(name, args, 4);
+                Map<String, byte[]> hash = hash(db, key(args, 1), true);
+                String field = key(args, 2);
+                byte[] old = hash.get(field);
+                long value = (old == null ? 0 : parseLong(old)) + longArg(args, 3);
+                hash.put(field, bytes(String.valueOf(value)));
+                return value;
+            }
+            case "HEXISTS": {
+                arity(name, args, 3);
+                Map<String, byte[]> hash = hash(db, key(args, 1), false);
+                return hash != null && hash.containsKey(key(args, 2)) ? 1L : 0L;
+            }
+            case "HLEN": {
+                arity(name, args, 2);
+                Map<String, byte[]> hash = hash(db, key(args, 1), false);
+                return hash == null ? 0L : (long) hash.size();
+            }
+            case "HSCAN": {
+                arity(name, args, 3);
+                Map<String, byte[]> hash = hash(db, key(args, 1), false);
+                ScanArgs scan = new ScanArgs(args, 3);
+                List<String> page = new ArrayList<String>();
+                long next = hash == null ? 0 : scanPage(hash.keySet(), longArg(args, 2), scan, page);
+                List<Object> values = new ArrayList<Object>();
+                for (String field : page) {
+                    values.add(field);
+                    values.add(hash.get(field));
+                }
+                return Arrays.<Object>asList(String.valueOf(next), values);
+            }
+
+            //list
+            case "LPUSH":
+            case "RPUSH": {
+                arity(name, args, 3);
+                LinkedList<byte[]> list = list(db, key(args, 1), true);
+                for (int i = 2; i < args.size(); i++) {
+                    if ("LPUSH".equals(name)) {
+                        list.addFirst(args.get(i));
+                    } else {
+                        list.addLast(args.get(i));
+                    }
+                }
+                return (long) list.size();
+            }
+            case "LPOP":
+            case "RPOP": {
+                arity(name, args, 2);
+                String key = key(args, 1);
+                LinkedList<byte[]> list = list(db, key, false);
+                if (list == null) {
+                    return null;
+                }
+                byte[] value = "LPOP".equals(name) ? list.removeFirst() : list.removeLast();
+                db.removeIfEmpty(key, list);
+                return value;
+            }
+            case "RPOPLPUSH": {
+                arity(name, args, 3);
+                String source = key(args, 1);
+                String destination = key(args, 2);
+                LinkedList<byte[]> list = list(db, source, false);
+                if (list == null) {
+                    return null;
+                }
+                //目标类型错误时不弹出
+                list(db, destination, false);
+                byte[] value = list.removeLast();
+                db.removeIfEmpty(source, list);
+                list(db, destination, true).addFirst(value);
+                return value;
+            }
+            case "LINSERT": {
+                arity(name, args, 5);
+                String where = str(args, 2).toUpperCase();
+                if (!"BEFORE".equals(where) && !"AFTER".equals(where)) {
+                    throw CommandException.syntax();
+                }
+                LinkedList<byte[]> list = list(db, key(args, 1), false);
+                if (list == null) {
+                    return 0L;
+                }
+                ListIterator<byte[]> it = list.listIterator();
+                while (it.hasNext()) {
+                    if (Arrays.equals(it.next(), args.get(3))) {
+                        if ("BEFORE".equals(where)) {
+                            it.previous();
+                        }
+                        it.add(args.get(4));
+                        return (long) list.size();
+                    }
+                }
+                return -1L;
+            }
+            case "LSET": {
+                arity(name, args, 4);
+                LinkedList<byte[]> list = list(db, key(args, 1), false);
+                if (list == null) {
+                    throw new CommandException("ERR no such key");
+                }
+                long index = longArg(args, 2);
+                if (index < 0) {
+                    index += list.size();
+                }
+                if (index < 0 || index >= list.size()) {
+                    throw new CommandException("ERR index out of range");
+                }
+                list.set((int) index, args.get(3));
+                return Resp.OK;
+            }
+            case "LREM": {
+                arity(name, args, 4);
+                String key = key(args, 1);
+                LinkedList<byte[]> list = list(db, key, false);
+                if (list == null) {
+                    return 0L;
+                }
+                long count = longArg(args, 2);
+                long limit = count == 0 ? Long.MAX_VALUE : Math.abs(count);
+                Iterator<byte[]> it = count < 0 ? list.descendingIterator() : list.iterator();
+                long removed = 0;
+                while (removed < limit && it.hasNext()) {
+                    if (Arrays.equals(it.next(), args.get(3))) {
+                        it.remove();
+                        removed++;
+                    }
+                }
+                db.removeIfEmpty(key, list);
+                return removed;
+            }
+            case "LTRIM": {
+                arity(name, args, 4);
+                String key = key(args, 1);
+                LinkedList<byte[]> list = list(db, key, false);
+                if (list == null) {
+                    return Resp.OK;
+                }
+                int[] range = range(longArg(args, 2), longArg(args, 3), list.size());
+                if (range == null) {
+                    list.clear();
+                } else {
+                    List<byte[]> kept = new ArrayList<byte[]>(list.subList(range[0], range[1] + 1));
+                    list.clear();
+                    list.addAll(kept);
+                }
+                db.removeIfEmpty(key, list);
+                return Resp.OK;
+            }
+            case "LINDEX": {
+                arity(name, args, 3);
+                LinkedList<byte[]> list = list(db, key(args, 1), false);
+                if (list == null) {
+                    return null;
+                }
+                long index = longArg(args, 2);
+                if (index < 0) {
+                    index += list.size();
+                }
+                return index < 0 || index >= list.size() ? null : list.get((int) index);
+            }
+            case "LLEN": {
+                arity(name, args, 2);
+                LinkedList<byte[]> list = list(db, key(args, 1), false);
+                return list == null ? 0L : (long) list.size();
+            }
+            case "LRANGE": {
+                arity(name, args, 4);
+                LinkedList<byte[]> list = list(db, key(args, 1), false);
+                if (list == null) {
+                    return Collections.emptyList();
+                }
+                int[] range = range(longArg(args, 2), longArg(args, 3), list.size());
+                return range == null ? Collections.emptyList()
+                        : new ArrayList<byte[]>(list.subList(range[0], range[1] + 1));
+            }
+
+            //set
+            case "SADD": {
+                arity(name, args, 3);
+                Set<String> set = set(db, key(args, 1), true);
+                long added = 0;
+                for (int i = 2; i < args.size(); i++) {
+                    if (set.add(key(args, i))) {
+                        added++;
+                    }
+                }
+                return added;
+            }
+            case "SREM": {
+                arity(name, args, 3);
+                String key = key(args, 1);
+                Set<String> set = set(db, key, false);
+                long removed = 0;
+                for (int i = 2; set != null && i < args.size(); i++) {
+                    if (set.remove(key(args, i))) {
+                        removed++;
+                    }
+                }
+                db.removeIfEmpty(key, set);
+                return removed;
+            }
+            case "SPOP": {
+                arity(name, args, 2);
+                String key = key(args, 1);
+                Set<String> set = set(db, key, false);
+                if (set == null) {
+                    return null;
+                }
+                String member = random(set);
+                set.remove(member);
+                db.removeIfEmpty(key, set);
+                return member;
+            }
+            case "SRANDMEMBER": {
+                arity(name, args, 2);
+                Set<String> set = set(db, key(args, 1), false);
+                if (args.size() == 2) {
+                    return set == null ? null : random(set);
+                }
+                long count = longArg(args, 2);
+                List<String> members = set == null ? new ArrayList<String>() : new ArrayList<String>(set);
+                if (count >= 0) {
+                    Collections.shuffle(members, ThreadLocalRandom.current());
+                    return members.subList(0, (int) Math.min(count, members.size()));
+                }
+                List<String> picked = new ArrayList<String>();
+                for (long i = 0; !members.isEmpty() && i < -count; i++) {
+                    picked.add(members.get(ThreadLocalRandom.current().nextInt(members.size())));
+                }
+                return picked;
+            }
+            case "SDIFF":
+            case "SINTER":
+            case "SUNION":
+                arity(name, args, 2);
+                return new ArrayList<String>(setOperation(db, name, args, 1));
+            case "SDIFFSTORE":
+            case "SINTERSTORE":
+            case "SUNIONSTORE": {
+                arity(name, args, 3);
+                Set<String> result = setOperation(db, name.substring(0, name.length() - "STORE".length()), args, 2);
+                String destination = key(args, 1);
+                db.remove(destination);
+                if (!result.isEmpty()) {
+                    db.put(destination, new HashSet<String>(result));
+                }
+                return (long) result.size();
+            }
+            case "SMOVE": {
+                arity(name, args, 4);
+                String source = key(args, 1);
+                String destination = key(args, 2);
+                String member = key(args, 3);
+                Set<String> set = set(db, source, false);
+                set(db, destination, false);
+                if (set == null || !set.remove(member)) {
+                    return 0L;
+                }
+                db.removeIfEmpty(source, set);
+                set(db, destination, true).add(member);
+                return 1L;
+            }
+            case "SCARD": {
+                arity(name, args, 2);
+                Set<String> set = set(db, key(args, 1), false);
+                return set == null ? 0L : (long) set.size();
+            }
+            case "SISMEMBER": {
+                arity(name, args, 3);
+                Set<String> set = set(db, key(args, 1), false);
+                return set != null && set.contains(key(args, 2)) ? 1L : 0L;
+            }
+            case "SMEMBERS": {
+                arity(name, args, 2);
+                Set<String> set = set(db, key(args, 1), false);
+                return set == null ? Collections.emptyList() : new ArrayList<String>(set);
+            }
+            case "SSCAN": {
+                arity(name, args, 3);
+                Set<String> set = set(db, key(args, 1), false);
+                ScanArgs scan = new ScanArgs(args, 3);
+                List<String> page = new ArrayList<String>();
+                long next = set == null ? 0 : scanPage(set, longArg(args, 2), scan, page);
+                return Arrays.<Object>asList(String.valueOf(next), new ArrayList<Object>(page));
+            }
+
+            //sorted set
+            case "ZADD": {
+                pairs(name, args, 2);
+                ZSet zset = zset(db, key(args, 1), true);
+                long added = 0;
+                for (int i = 2; i + 1 < args.size(); i += 2) {
+                    if (zset.put(key(args, i + 1), score(args, i, false)) == null) {
+                        added++;
+                    }
+                }
+                return added;
+            }
+            case "ZINCRBY": {
+                arity(name, args, 4);
+                ZSet zset = zset(db, key(args, 1), true);
+                String member = key(args, 3);
+                Double old = zset.get(member);
+                double value = (old == null ? 0 : old) + score(args, 2, false);
+                zset.put(member, value);
+                return formatScore(value);
+            }
+            case "ZREM": {
+                arity(name, args, 3);
+                String key = key(args, 1);
+                ZSet zset = zset(db, key, false);
+                long removed = 0;
+                for (int i = 2; zset != null && i < args.size(); i++) {
+                    if (zset.remove(key(args, i)) != null) {
+                        removed++;
+                    }
+                }
+                db.removeIfEmpty(key, zset);
+                return removed;
+            }
+            case "ZSCORE": {
+                arity(name, args, 3);
+                ZSet zset = zset(db, key(args, 1), false);
+                Double score = zset == null ? null : zset.get(key(args, 2));
+                return score == null ? null : formatScore(score);
+            }
+            case "ZCARD": {
+                arity(name, args, 2);
+                ZSet zset = zset(db, key(args, 1), false);
+                return zset == null ? 0L : (long) zset.size();
+            }
+            case "ZRANK":
+            case "ZREVRANK": {
+                arity(name, args, 3);
+                ZSet zset = zset(db, key(args, 1), false);
+                String member = key(args, 2);
+                if (zset == null || !zset.containsKey(member)) {
+                    return null;
+                }
+                List<Map.Entry<String, Double>> sorted = zset.sorted();
+                for (int i = 0; i < sorted.size(); i++) {
+                    if (sorted.get(i).getKey().equals(member)) {
+                        return "ZRANK".equals(name) ? (long) i : (long) (sorted.size() - 1 - i);
+                    }
+                }
+                return null;
+            }
+            case "ZRANGE":
+            case "ZREVRANGE": {
+                arity(name, args, 4);
+                boolean withScores = args.size() > 4 && "WITHSCORES".equalsIgnoreCase(str(args, 4));
+                ZSet zset = zset(db, key(args, 1), false);
+                List<Object> values = new ArrayList<Object>();
+                if (zset == null) {
+                    return values;
+                }
+                List<Map.Entry<String, Double>> sorted = zset.sorted();
+                if ("ZREVRANGE".equals(name)) {
+                    Collections.reverse(sorted);
+                }
+                int[] range = range(longArg(args, 2), longArg(args, 3), sorted.size());
+                for (int i = 0; range != null && i + range[0] <= range[1]; i++) {
+                    Map.Entry<String, Double> entry = sorted.get(range[0] + i);
+                    values.add(entry.getKey());
+                    if (withScores) {
+                        values.add(formatScore(entry.getValue()));
+                    }
+                }
+                return values;
+            }
+            case "ZREMRANGEBYRANK": {
+                arity(name, args, 4);
+                String key = key(args, 1);
+                ZSet zset = zset(db, key, false);
+                if (zset == null) {
+                    return 0L;
+                }
+                List<Map.Entry<String, Double>> sorted = zset.sorted();
+                int[] range = range(longArg(args, 2), longArg(args, 3), sorted.size());
+                long removed = 0;
+                for (int i = 0; range != null && i + range[0] <= range[1]; i++) {
+                    zset.remove(sorted.get(range[0] + i).getKey());
+                    removed++;
+                }
+                db.removeIfEmpty(key, zset);
+                return removed;
+            }
+            case "ZREMRANGEBYSCORE": {
+                arity(name, args, 4);
+                String key = key(args, 1);
+                ZSet zset = zset(db, key, false);
+                if (zset == null) {
+                    return 0L;
+                }
+                boolean minExclusive = args.get(2).length > 0 && args.get(2)[0] == '(';
+                boolean maxExclusive = args.get(3).length > 0 && args.get(3)[0] == '(';
+                double min = score(args, 2, true);
+                double max = score(args, 3, true);
+                long removed = 0;
+                Iterator<Map.Entry<String, Double>> it = zset.entrySet().iterator();
+                while (it.hasNext()) {
+                    double score = it.next().getValue();
+                    if ((minExclusive ? score > min : score >= min) && (maxExclusive ? score < max : score <= max)) {
+                        it.remove();
+                        removed++;
+                    }
+                }
+                db.removeIfEmpty(key, zset);
+                return removed;
+            }
+            case "ZSCAN": {
+                arity(name, args, 3);
+                ZSet zset = zset(db, key(args, 1), false);
+                ScanArgs scan = new ScanArgs(args, 3);
+                List<String> page = new ArrayList<String>();
+                long next = zset == null ? 0 : scanPage(zset.keySet(), longArg(args, 2), scan, page);
+                List<Object> values = new ArrayList<Object>();
+                for (String member : page) {
+                    values.add(member);
+                    values.add(formatScore(zset.get(member)));
+                }
+                return Arrays.<Object>asList(String.valueOf(next), values);
+            }
+            default:
+                throw new CommandException("ERR unknown command '" + name + "'");
+        }
+    }
+
+    /**
+     * SET key value [EX seconds|PX milliseconds] [NX|XX] [KEEPTTL] [GET]
+     */
+    private static Object set(Database db, List<byte[]> args) {
+        String key = key(args, 1);
+        Long expireAt = null;
+        boolean nx = false;
+        boolean xx = false;
+        boolean keepTtl = false;
+        boolean get = false;
+        for (int i = 3; i < args.size(); i++) {
+            String option = str(args, i).toUpperCase();
+            if (("EX".equals(option) || "PX".equals(option)) && i + 1 < args.size() && expireAt == null && !keepTtl) {
+                long ttl = longArg(args, ++i);
+                if (ttl <= 0) {
+                    throw new CommandException("ERR invalid expire time in set");
+                }
+                expireAt = System.currentTimeMillis() + ("EX".equals(option) ? ttl * 1000 : ttl);
+            } else if ("NX".equals(option) && !xx) {
+                nx = true;
+            } else if ("XX".equals(option) && !nx) {
+                xx = true;
+            } else if ("KEEPTTL".equals(option) && expireAt == null) {
+                keepTtl = true;
+            } else if ("GET".equals(option)) {
+                get = true;
+            } else {
+                throw CommandException.syntax();
+            }
+        }
+        Object current = db.live(key);
+        if (get && current != null && !(current instanceof byte[])) {
+            throw CommandException.wrongType();
+        }
+        byte[] old = get ? (byte[]) current : null;
+        if (nx && current != null || xx && current == null) {
+            return old;
+        }
+        db.put(key, args.get(2));
+        if (expireAt != null) {
+            db.expires.put(key, expireAt);
+        } else if (!keepTtl) {
+            db.expires.remove(key);
+        }
+        return get ? old : Resp.OK;
+    }
+
+    private static long expireAt(Database db, String key, long expireAt) {
+        if (db.live(key) == null) {
+            return 0;
+        }
+        if (expireAt <= System.currentTimeMillis()) {
+            db.remove(key);
+        } else {
+            db.expires.put(key, expireAt);
+        }
+        return 1;
+    }
+
+    private static long incrBy(Database db, String key, long delta) {
+        byte[] old = string(db, key);
+        long value = (old == null ? 0 : parseLong(old)) + delta;
+        db.put(key, bytes(String.valueOf(value)));
+        return value;
+    }
+
+    private static Set<String> setOperation(Database db, String name, List<byte[]> args, int from) {
+        Set<String> result = null;
+        for (int i = from; i < args.size(); i++) {
+            Set<String> set = set(db, key(args, i), false);
+            Set<String> members = set == null ? Collections.<String>emptySet() : set;
+            if (result == null) {
+                result = new LinkedHashSet<String>(members);
+            } else if ("SUNION".equals(name)) {
+                result.addAll(members);
+            } else if ("SINTER".equals(name)) {
+                result.retainAll(members);
+            } else {
+                result.removeAll(members);
+            }
+        }
+        return result;
+    }
+
+    private static final int DUMP_VERSION = 0xE1;
+
+    /**
+     * DUMP的序列化格式: 版本, 类型, 元素个数, 按长度前缀写出的元素, 只能由本实现RESTORE
+     */
+    @SuppressWarnings("unchecked")
+    private static byte[] dump(Object value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeByte(DUMP_VERSION);
+            String type = typeOf(value);
+            out.writeUTF(type);
+            if (value instanceof byte[]) {
+                writeBytes(out, (byte[]) value);
+            } else if (value instanceof ZSet) {
+                ZSet zset = (ZSet) value;
+                out.writeInt(zset.size());
+                for (Map.Entry<String, Double> entry : zset.entrySet()) {
+                    writeBytes(out, bytes(entry.getKey()));
+                    out.writeDouble(entry.getValue());
+                }
+            } else if (value instanceof HashMap) {
+                Map<String, byte[]> hash = (Map<String, byte[]>) value;
+                out.writeInt(hash.size());
+                for (Map.Entry<String, byte[]> entry : hash.entrySet()) {
+                    writeBytes(out, bytes(entry.getKey()));
+                    writeBytes(out, entry.getValue());
+                }
+            } else if (value instanceof LinkedList) {
+                List<byte[]> list = (List<byte[]>) value;
+                out.writeInt(list.size());
+                for (byte[] element : list) {
+                    writeBytes(out, element);
+                }
+            } else {
+                Set<String> set = (Set<String>) value;
+                out.writeInt(set.size());
+                for (String member : set) {
+                    writeBytes(out, bytes(member));
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object restore(byte[] payload) {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        try {
+            if (in.readUnsignedByte() != DUMP_VERSION) {
+                throw new CommandException("ERR DUMP payload version or checksum are wrong");
+            }
+            String type = in.readUTF();
+            if ("string".equals(type)) {
+                return readBytes(in);
+            }
+            int size = in.readInt();
+            switch (type) {
+                case "zset": {
+                    ZSet zset = new ZSet();
+                    for (int i = 0; i < size; i++) {
+                        zset.put(new String(readBytes(in), StandardCharsets.ISO_8859_1), in.readDouble());
+                    }
+                    return zset;
+                }
+                case "hash": {
+                    Map<String, byte[]> hash = new HashMap<String, byte[]>();
+                    for (int i = 0; i < size; i++) {
+                        hash.put(new String(readBytes(in), StandardCharsets.ISO_8859_1), readBytes(in));
+                    }
+                    return hash;
+                }
+                case "list": {
+                    LinkedList<byte[]> list = new LinkedList<byte[]>();
+                    for (int i = 0; i < size; i++) {
+                        list.add(readBytes(in));
+                    }
+                    return list;
+                }
+                case "set": {
+                    Set<String> set = new HashSet<String>();
+                    for (int i = 0; i < size; i++) {
+                        set.add(new String(readBytes(in), StandardCharsets.ISO_8859_1));
+                    }
+                    return set;
+                }
+                default:
+                    throw new CommandException("ERR Bad data format");
+            }
+        } catch (IOException e) {
+            throw new CommandException("ERR Bad data format");
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available()) {
+            throw new CommandException("ERR Bad data format");
+        }
+        byte[] value = new byte[length];
+        in.readFully(value);
+        return value;
+    }
+
+    private static String typeOf(Object value) {
+        if (value == null) {
+            return "none";
+        } else if (value instanceof byte[]) {
+            return "string";
+        } else if (value instanceof ZSet) {
+            return "zset";
+        } else if (value instanceof HashMap) {
+            return "hash";
+        } else if (value instanceof LinkedList) {
+            return "list";
+        }
+        return "set";
+    }
+
+    private static byte[] string(Database db, String key) {
+        Object value = db.live(key);
+        if (value != null && !(value instanceof byte[])) {
+            throw CommandException.wrongType();
+        }
+        return (byte[]) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, byte[]> hash(Database db, String key, boolean create) {
+        Object value = db.live(key);
+        if (value == null && create) {
+            value = new HashMap<String, byte[]>();
+            db.put(key, value);
+        }
+        if (value != null && (!(value instanceof HashMap) || value instanceof ZSet)) {
+            throw CommandException.wrongType();
+        }
+        return (Map<String, byte[]>) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static LinkedList<byte[]> list(Database db, String key, boolean create) {
+        Object value = db.live(key);
+        if (value == null && create) {
+            value = new LinkedList<byte[]>();
+            db.put(key, value);
+        }
+        if (value != null && !(value instanceof LinkedList)) {
+            throw CommandException.wrongType();
+        }
+        return (LinkedList<byte[]>) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<String> set(Database db, String key, boolean create) {
+        Object value = db.live(key);
+        if (value == null && create) {
+            value = new HashSet<String>();
+            db.put(key, value);
+        }
+        if (value != null && !(value instanceof HashSet)) {
+            throw CommandException.wrongType();
+        }
+        return (Set<String>) value;
+    }
+
+    private static ZSet zset(Database db, String key, boolean create) {
+        Object value = db.live(key);
+        if (value == null && create) {
+            value = new ZSet();
+            db.put(key, value);
+        }
+        if (value != null && !(value instanceof ZSet)) {
+            throw CommandException.wrongType();
+        }
+        return (ZSet) value;
+    }
+
+    private static String random(Set<String> set) {
+        int index = ThreadLocalRandom.current().nextInt(set.size());
+        Iterator<String> it = set.iterator();
+        for (int i = 0; i < index; i++) {
+            it.next();
+        }
+        return it.next();
+    }
+
+    /**
+     * 按redis规则将可为负数的闭区间转换为[start, end]下标, 区间为空时返回null
+     */
+    private static int[] range(long start, long end, int size) {
+        if (start < 0) {
+            start = Math.max(0, size + start);
+        }
+        if (end < 0) {
+            end = size + end;
+        }
+        end = Math.min(end, size - 1);
+        if (start > end || start >= size) {
+            return null;
+        }
+        return new int[]{(int) start, (int) end};
+    }
+
+    /**
+     * SCAN/HSCAN/SSCAN/ZSCAN的可选参数
+     */
+    private static class ScanArgs {
+        Pattern match;
+        int count = 10;
+        String type;
+
+        ScanArgs(List<byte[]> args, int from) {
+            for (int i = from; i < args.size(); i++) {
+                String option = str(args, i).toUpperCase();
+                if (i + 1 >= args.size()) {
+                    throw CommandException.syntax();
+                }
+                if ("MATCH".equals(option)) {
+                    match = glob(str(args, ++i));
+                } else if ("COUNT".equals(option)) {
+                    count = intArg(args, ++i);
+                    if (count < 1) {
+                        throw CommandException.syntax();
+                    }
+                } else if ("TYPE".equals(option)) {
+                    type = str(args, ++i).toLowerCase();
+                } else {
+                    throw CommandException.syntax();
+                }
+            }
+        }
+    }
+
+    /**
+     * 游标为元素哈希值的位置, 每页从游标位置开始按哈希值顺序取count个元素, 并带上与最后一个元素哈希值相同的元素,
+     * 下一页从最后一个哈希值之后开始
+     * 与redis相同, 迭代期间一直存在的元素至少返回一次, 迭代期间增删的元素可能返回也可能不返回
+     *
+     * @return 下一页游标, 0表示迭代结束
+     */
+    private static long scanPage(Collection<String> items, long cursor, ScanArgs scan, List<String> page) {
+        List<String> candidates = new ArrayList<String>();
+        for (String item : items) {
+            if (position(item) >= cursor) {
+                candidates.add(item);
+            }
+        }
+        Collections.sort(candidates, new Comparator<String>() {
+            public int compare(String a, String b) {
+                int c = Long.compare(position(a), position(b));
+                return c != 0 ? c : a.compareTo(b);
+            }
+        });
+        int taken = 0;
+        long last = -1;
+        for (String item : candidates) {
+            long position = position(item);
+            if (taken >= scan.count && position != last) {
+                return position;
+            }
+            taken++;
+            last = position;
+            if (scan.match == null || scan.match.matcher(item).matches()) {
+                page.add(item);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 元素在游标空间中的位置, 从1开始, 0保留给迭代开始和结束
+     */
+    private static long position(String item) {
+        return (item.hashCode() & 0xffffffffL) + 1;
+    }
+
+    /**
+     * redis的glob模式转为正则: * ? [abc] [^a] [a-z] 以及\转义
+     */
+    static Pattern glob(String pattern) {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*') {
+                regex.append(".*");
+            } else if (c == '?') {
+                regex.append('.');
+            } else if (c == '\\' && i + 1 < pattern.length()) {
+                regex.append(Pattern.quote(String.valueOf(pattern.charAt(++i))));
+            } else if (c == '[' && pattern.indexOf(']', i + 1) > 0) {
+                int end = pattern.indexOf(']', i + 1);
+                regex.append('[');
+                for (int j = i + 1; j < end; j++) {
+                    char ch = pattern.charAt(j);
+                    if (ch == '^' && j == i + 1 || ch == '-' && j > i + 1 && j < end - 1
+                            || Character.isLetterOrDigit(ch)) {
+                        regex.append(ch);
+                    } else {
+                        regex.append('\\').append(ch);
+                    }
+                }
+                regex.append(']');
+                i = end;
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    private static double score(List<byte[]> args, int index, boolean range) {
+        String value = str(args, index);
+        if (range && value.startsWith("(")) {
+            value = value.substring(1);
+        }
+        if ("+inf".equalsIgnoreCase(value) || "inf".equalsIgnoreCase(value)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if ("-inf".equalsIgnoreCase(value)) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new CommandException(range ? "ERR min or max is not a float" : "ERR value is not a valid float");
+        }
+    }
+
+    private static String formatScore(double score) {
+        if (score == Math.rint(score) && Math.abs(score) < 1e15) {
+            return String.valueOf((long) score);
+        }
+        if (Double.isInfinite(score)) {
+            return score > 0 ? "inf" : "-inf";
+        }
+        return String.valueOf(score);
+    }
+
+    static long parseLong(byte[] bytes) {
+        try {
+            return Long.parseLong(new String(bytes, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            throw CommandException.notInteger();
+        }
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    private static void arity(String name, List<byte[]> args, int min) {
+        if (args.size() < min) {
+            throw CommandException.arity(name);
+        }
+    }
+
+    /**
+     * 从from开始为成对的参数
+     */
+    private static void pairs(String name, List<byte[]> args, int from) {
+        if (args.size() < from + 2 || (args.size() - from) % 2 != 0) {
+            throw CommandException.arity(name);
+        }
+    }
+
+    private Object script(List<byte[]> args) {
+        if (args.size() < 2) {
+            throw CommandException.arity("SCRIPT");
+        }
+        String sub = str(args, 1).toUpperCase();
+        switch (sub) {
+            case "LOAD": {
+                arity("SCRIPT", args, 3);
+                String sha1 = sha1(args.get(2));
+                if (!scripts.containsKey(sha1)) {
+                    throw new CommandException("ERR embedded redis has no java implementation for script " + sha1);
+                }
+                loadedScripts.add(sha1);
+                return sha1;
+            }
+            case "EXISTS": {
+                List<Long> exists = new ArrayList<Long>();
+                for (int i = 2; i < args.size(); i++) {
+                    exists.add(loadedScripts.contains(str(args, i).toLowerCase()) ? 1L : 0L);
+                }
+                return exists;
+            }
+            case "FLUSH":
+                loadedScripts.clear();
+                return Resp.OK;
+            default:
+                throw new CommandException("ERR Unknown SCRIPT subcommand '" + sub + "'");
+        }
+    }
+
+    /**
+     * EVAL/EVALSHA sha numkeys key... arg..., 在当前锁内执行, 命令经由execute使用同一个连接状态
+     */
+    private Object runScript(final Session session, EmbeddedScript script, List<byte[]> args) {
+        int numkeys = intArg(args, 2);
+        if (numkeys < 0 || numkeys > args.size() - 3) {
+            throw new CommandException("ERR Number of keys can't be greater than number of args");
+        }
+        List<String> keys = new ArrayList<String>(numkeys);
+        List<String> argv = new ArrayList<String>(args.size() - 3 - numkeys);
+        for (int i = 3; i < args.size(); i++) {
+            (i < 3 + numkeys ? keys : argv).add(key(args, i));
+        }
+        return script.run(new EmbeddedScript.Context() {
+            public Object call(String... command) {
+                List<byte[]> commandArgs = new ArrayList<byte[]>(command.length);
+                for (String arg : command) {
+                    commandArgs.add(bytes(arg));
+                }
+                return scriptValue(execute(session, command[0].toUpperCase(), commandArgs));
+            }
+        }, keys, argv);
+    }
+
+    private static Object scriptValue(Object reply) {
+        if (reply instanceof byte[]) {
+            return new String((byte[]) reply, StandardCharsets.ISO_8859_1);
+        } else if (reply instanceof Resp.Status) {
+            return ((Resp.Status) reply).value;
+        } else if (reply == Resp.NIL_ARRAY) {
+            return null;
+        } else if (reply instanceof Collection) {
+            List<Object> values = new ArrayList<Object>();
+            for (Object value : (Collection<?>) reply) {
+                values.add(scriptValue(value));
+            }
+            return values;
+        }
+        return reply;
+    }
+
+    static String sha1(byte[] source) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(source);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String key(List<byte[]> args, int index) {
+        return new String(args.get(index), StandardCharsets.ISO_8859_1);
+    }
+
+    static String str(List<byte[]> args, int index) {
+        return new String(args.get(index), StandardCharsets.US_ASCII);
+    }
+
+    static long longArg(List<byte[]> args, int index) {
+        return parseLong(args.get(index));
+    }
+
+    static int intArg(List<byte[]> args, int index) {
+        long value = longArg(args, index);
+        if (value > Integer.MAX_VALUE || value < Integer.MIN_VALUE) {
+            throw CommandException.notInteger();
+        }
+        return (int) value;
+    }
+
+    static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
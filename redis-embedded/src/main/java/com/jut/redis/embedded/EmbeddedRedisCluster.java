@@ -0,0 +1,320 @@
+package com.jut.redis.embedded;
+
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.util.JedisClusterCRC16;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/***
+ * 进程内的redis集群
+ * 由若干EmbeddedRedisServer组成, 槽位平均分配给各主节点, 从节点与其主节点共享数据
+ * 节点应答CLUSTER SLOTS/NODES, 对不属于自己的槽位返回MOVED, 迁移中的槽位对本地不存在的key返回ASK
+ *
+ * 槽位迁移分三步, 可在任意一步之间观察客户端的重定向处理:
+ * beginMigration 标记迁移, 源节点对本地不存在的key返回ASK
+ * migrateKeys 将槽位中的key移动到目标节点
+ * finishMigration 槽位归属目标节点, 源节点对该槽位返回MOVED
+ */
+public class EmbeddedRedisCluster implements Closeable {
+    public static final int SLOTS = 16384;
+
+    private final List<EmbeddedRedisServer> masters = new ArrayList<EmbeddedRedisServer>();
+    private final List<EmbeddedRedisServer> replicas = new ArrayList<EmbeddedRedisServer>();
+    private final AtomicReferenceArray<EmbeddedRedisServer> slotMasters = new AtomicReferenceArray<EmbeddedRedisServer>(SLOTS);
+    private final AtomicReferenceArray<EmbeddedRedisServer> migrations = new AtomicReferenceArray<EmbeddedRedisServer>(SLOTS);
+
+    public EmbeddedRedisCluster(int masters) {
+        this(masters, 0);
+    }
+
+    /**
+     * @param masters           主节点数
+     * @param replicasPerMaster 每个主节点的从节点数
+     */
+    public EmbeddedRedisCluster(int masters, int replicasPerMaster) {
+        if (masters < 1 || replicasPerMaster < 0) {
+            throw new IllegalArgumentException("masters must be positive and replicasPerMaster not negative");
+        }
+        int id = 0;
+        for (int i = 0; i < masters; i++) {
+            EmbeddedRedisServer master = new EmbeddedRedisServer();
+            master.joinCluster(this, nodeId(++id), null);
+            this.masters.add(master);
+            for (int j = 0; j < replicasPerMaster; j++) {
+                EmbeddedRedisServer replica = new EmbeddedRedisServer(0, master.getStore());
+                replica.joinCluster(this, nodeId(++id), master);
+                this.replicas.add(replica);
+            }
+        }
+        for (int slot = 0; slot < SLOTS; slot++) {
+            slotMasters.set(slot, this.masters.get((int) ((long) slot * masters / SLOTS)));
+        }
+    }
+
+    private static String nodeId(int id) {
+        return String.format("%040x", id);
+    }
+
+    public synchronized void start() throws IOException {
+        for (EmbeddedRedisServer server : getNodes()) {
+            server.start();
+        }
+    }
+
+    public synchronized void close() {
+        for (EmbeddedRedisServer server : getNodes()) {
+            server.close();
+        }
+    }
+
+    /**
+     * 所有节点的地址, 可直接用于构造JedisCluster
+     */
+    public Set<HostAndPort> getHostAndPorts() {
+        Set<HostAndPort> nodes = new LinkedHashSet<HostAndPort>();
+        for (EmbeddedRedisServer server : getNodes()) {
+            nodes.add(server.getHostAndPort());
+        }
+        return nodes;
+    }
+
+    public List<EmbeddedRedisServer> getNodes() {
+        List<EmbeddedRedisServer> nodes = new ArrayList<EmbeddedRedisServer>(masters);
+        nodes.addAll(replicas);
+        return nodes;
+    }
+
+    public List<EmbeddedRedisServer> getMasters() {
+        return Collections.unmodifiableList(masters);
+    }
+
+    public List<EmbeddedRedisServer> getReplicas(EmbeddedRedisServer master) {
+        List<EmbeddedRedisServer> result = new ArrayList<EmbeddedRedisServer>();
+        for (EmbeddedRedisServer replica : replicas) {
+            if (replica.getMaster() == master) {
+                result.add(replica);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 槽位当前所属的主节点
+     */
+    public EmbeddedRedisServer getMaster(int slot) {
+        return slotMasters.get(slot);
+    }
+
+    public EmbeddedRedisServer getMasterForKey(String key) {
+        return getMaster(JedisClusterCRC16.getSlot(key));
+    }
+
+    EmbeddedRedisServer getMigrationTarget(int slot) {
+        return migrations.get(slot);
+    }
+
+    public void setLatency(long latency, TimeUnit unit) {
+        for (EmbeddedRedisServer server : getNodes()) {
+            server.setLatency(latency, unit);
+        }
+    }
+
+    public void setCommandLatency(long latency, TimeUnit unit) {
+        for (EmbeddedRedisServer server : getNodes()) {
+            server.setCommandLatency(latency, unit);
+        }
+    }
+
+    public void flushAll() {
+        for (EmbeddedRedisServer master : masters) {
+            master.flushAll();
+        }
+    }
+
+    /**
+     * 在所有节点上为lua脚本登记Java实现
+     */
+    public void registerScript(String source, EmbeddedScript script) {
+        for (EmbeddedRedisServer master : masters) {
+            master.registerScript(source, script);
+        }
+    }
+
+    public long getCommandCount(String command) {
+        long total = 0;
+        for (EmbeddedRedisServer server : getNodes()) {
+            total += server.getCommandCount(command);
+        }
+        return total;
+    }
+
+    public long getRoundTripCount() {
+        long total = 0;
+        for (EmbeddedRedisServer server : getNodes()) {
+            total += server.getRoundTripCount();
+        }
+        return total;
+    }
+
+    public void resetStats() {
+        for (EmbeddedRedisServer server : getNodes()) {
+            server.resetStats();
+        }
+    }
+
+    /**
+     * 开始将槽位迁移到目标主节点
+     */
+    public void beginMigration(int slot, EmbeddedRedisServer target) {
+        if (!masters.contains(target)) {
+            throw new IllegalArgumentException("migration target must be a master of this cluster");
+        }
+        if (slotMasters.get(slot) == target) {
+            throw new IllegalArgumentException("slot " + slot + " already served by " + target);
+        }
+        migrations.set(slot, target);
+    }
+
+    /**
+     * 将迁移中槽位的key移动到目标节点
+     *
+     * @return 移动的key数量
+     */
+    public int migrateKeys(int slot) {
+        EmbeddedRedisServer target = migrations.get(slot);
+        if (target == null) {
+            throw new IllegalStateException("slot " + slot + " is not migrating");
+        }
+        return slotMasters.get(slot).getStore().migrateSlot(0, slot, target.getStore());
+    }
+
+    /**
+     * 槽位归属目标节点, 结束迁移
+     */
+    public void finishMigration(int slot) {
+        EmbeddedRedisServer target = migrations.get(slot);
+        if (target == null) {
+            throw new IllegalStateException("slot " + slot + " is not migrating");
+        }
+        migrateKeys(slot);
+        slotMasters.set(slot, target);
+        migrations.set(slot, null);
+    }
+
+    /**
+     * 一次完成槽位迁移
+     */
+    public void moveSlot(int slot, EmbeddedRedisServer target) {
+        beginMigration(slot, target);
+        finishMigration(slot);
+    }
+
+    Object clusterCommand(EmbeddedRedisServer self, List<byte[]> args) {
+        if (args.size() < 2) {
+            throw CommandException.arity("cluster");
+        }
+        String subcommand = DataStore.str(args, 1).toUpperCase();
+        switch (subcommand) {
+            case "SLOTS":
+                return slots();
+            case "NODES":
+                return nodes(self);
+            case "MYID":
+                return self.getNodeId();
+            case "KEYSLOT":
+                if (args.size() != 3) {
+                    throw CommandException.arity("cluster|keyslot");
+                }
+                return (long) JedisClusterCRC16.getSlot(args.get(2));
+            case "COUNTKEYSINSLOT": {
+                if (args.size() != 3) {
+                    throw CommandException.arity("cluster|countkeysinslot");
+                }
+                return (long) self.getStore().countKeysInSlot(0, DataStore.intArg(args, 2));
+            }
+            case "INFO":
+                return "cluster_state:ok\r\n"
+                        + "cluster_slots_assigned:" + SLOTS + "\r\n"
+                        + "cluster_slots_ok:" + SLOTS + "\r\n"
+                        + "cluster_known_nodes:" + (masters.size() + replicas.size()) + "\r\n"
+                        + "cluster_size:" + masters.size() + "\r\n";
+            default:
+                throw new CommandException("ERR Unknown subcommand or wrong number of arguments for '"
+                        + subcommand.toLowerCase() + "'");
+        }
+    }
+
+    /**
+     * CLUSTER SLOTS: 每个连续槽位区间为[start, end, master, replica...], 节点为[host, port, id]
+     */
+    private List<Object> slots() {
+        List<Object> result = new ArrayList<Object>();
+        int start = 0;
+        for (int slot = 1; slot <= SLOTS; slot++) {
+            if (slot == SLOTS || slotMasters.get(slot) != slotMasters.get(start)) {
+                EmbeddedRedisServer master = slotMasters.get(start);
+                List<Object> range = new ArrayList<Object>();
+                range.add((long) start);
+                range.add((long) slot - 1);
+                range.add(node(master));
+                for (EmbeddedRedisServer replica : getReplicas(master)) {
+                    range.add(node(replica));
+                }
+                result.add(range);
+                start = slot;
+            }
+        }
+        return result;
+    }
+
+    private static List<Object> node(EmbeddedRedisServer server) {
+        return Arrays.<Object>asList(server.getHost(), (long) server.getPort(), server.getNodeId());
+    }
+
+    /**
+     * CLUSTER NODES: id host:port@cport flags master ping-sent pong-recv epoch link-state slot...
+     */
+    private String nodes(EmbeddedRedisServer self) {
+        StringBuilder sb = new StringBuilder();
+        for (EmbeddedRedisServer server : getNodes()) {
+            boolean replica = server.getMaster() != null;
+            sb.append(server.getNodeId()).append(' ')
+                    .append(server.getHost()).append(':').append(server.getPort())
+                    .append('@').append(server.getPort() + 10000).append(' ')
+                    .append(server == self ? "myself," : "").append(replica ? "slave" : "master").append(' ')
+                    .append(replica ? server.getMaster().getNodeId() : "-")
+                    .append(" 0 0 0 ").append(server.isRunning() ? "connected" : "disconnected");
+            if (!replica) {
+                int start = -1;
+                for (int slot = 0; slot <= SLOTS; slot++) {
+                    boolean owned = slot < SLOTS && slotMasters.get(slot) == server;
+                    if (owned && start < 0) {
+                        start = slot;
+                    } else if (!owned && start >= 0) {
+                        sb.append(' ').append(start);
+                        if (slot - 1 > start) {
+                            sb.append('-').append(slot - 1);
+                        }
+                        start = -1;
+                    }
+                }
+                for (int slot = 0; slot < SLOTS; slot++) {
+                    if (migrations.get(slot) != null && slotMasters.get(slot) == server) {
+                        sb.append(" [").append(slot).append("->-").append(migrations.get(slot).getNodeId()).append(']');
+                    }
+                }
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,155 @@
+package com.jut.redis.embedded;
+
+import redis.clients.jedis.HostAndPort;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/***
+ * 进程内的redis sentinel
+ * 监控一组共享数据的单节点主从(由EmbeddedRedisServer.createReplica创建), 只应答PING和
+ * SENTINEL get-master-addr-by-name/slaves/replicas, 不做自动故障检测
+ * failover将一个运行中的从节点提升为主节点, 其余节点(包括原主节点)成为它的从节点
+ */
+public class EmbeddedRedisSentinel implements Closeable {
+    private final String masterName;
+    private final List<EmbeddedRedisServer> nodes;
+    private final EmbeddedRedisServer server;
+
+    /**
+     * @param masterName 监控的主节点名
+     * @param nodes      主节点及其从节点
+     */
+    public EmbeddedRedisSentinel(String masterName, EmbeddedRedisServer... nodes) {
+        this.masterName = masterName;
+        this.nodes = Collections.unmodifiableList(new ArrayList<EmbeddedRedisServer>(Arrays.asList(nodes)));
+        this.server = new EmbeddedRedisServer();
+        this.server.runAsSentinel(this);
+    }
+
+    public void start() throws IOException {
+        server.start();
+    }
+
+    public void close() {
+        server.close();
+    }
+
+    public HostAndPort getHostAndPort() {
+        return server.getHostAndPort();
+    }
+
+    public String getMasterName() {
+        return masterName;
+    }
+
+    /**
+     * 当前主节点
+     */
+    public EmbeddedRedisServer getMaster() {
+        for (EmbeddedRedisServer node : nodes) {
+            if (!node.isReplica()) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 当前主节点的从节点
+     */
+    public List<EmbeddedRedisServer> getReplicas() {
+        EmbeddedRedisServer master = getMaster();
+        List<EmbeddedRedisServer> replicas = new ArrayList<EmbeddedRedisServer>();
+        for (EmbeddedRedisServer node : nodes) {
+            if (node != master) {
+                replicas.add(node);
+            }
+        }
+        return replicas;
+    }
+
+    /**
+     * 将第一个运行中的从节点提升为主节点
+     *
+     * @return 新的主节点
+     */
+    public synchronized EmbeddedRedisServer failover() {
+        EmbeddedRedisServer promoted = null;
+        for (EmbeddedRedisServer replica : getReplicas()) {
+            if (replica.isRunning()) {
+                promoted = replica;
+                break;
+            }
+        }
+        if (promoted == null) {
+            throw new IllegalStateException("no running replica to promote");
+        }
+        promoted.promote();
+        for (EmbeddedRedisServer node : nodes) {
+            if (node != promoted) {
+                node.replicaOf(promoted);
+            }
+        }
+        return promoted;
+    }
+
+    Object command(List<byte[]> args) {
+        if (args.size() < 2) {
+            throw CommandException.arity("sentinel");
+        }
+        String subcommand = DataStore.str(args, 1).toUpperCase();
+        switch (subcommand) {
+            case "GET-MASTER-ADDR-BY-NAME": {
+                if (args.size() != 3) {
+                    throw CommandException.arity("sentinel|get-master-addr-by-name");
+                }
+                EmbeddedRedisServer master = getMaster();
+                if (!masterName.equals(DataStore.str(args, 2)) || master == null) {
+                    return Resp.NIL_ARRAY;
+                }
+                return Arrays.asList(master.getHost(), String.valueOf(master.getPort()));
+            }
+            case "SLAVES":
+            case "REPLICAS": {
+                if (args.size() != 3) {
+                    throw CommandException.arity("sentinel|" + subcommand.toLowerCase());
+                }
+                if (!masterName.equals(DataStore.str(args, 2))) {
+                    throw new CommandException("ERR No such master with that name");
+                }
+                EmbeddedRedisServer master = getMaster();
+                List<Object> result = new ArrayList<Object>();
+                for (EmbeddedRedisServer replica : getReplicas()) {
+                    result.add(replicaInfo(replica, master));
+                }
+                return result;
+            }
+            default:
+                throw new CommandException("ERR Unknown sentinel subcommand '" + subcommand.toLowerCase() + "'");
+        }
+    }
+
+    /**
+     * 与redis sentinel相同的扁平键值列表
+     */
+    private static List<Object> replicaInfo(EmbeddedRedisServer replica, EmbeddedRedisServer master) {
+        boolean up = replica.isRunning();
+        return Arrays.<Object>asList(
+                "name", replica.getHost() + ":" + replica.getPort(),
+                "ip", replica.getHost(),
+                "port", String.valueOf(replica.getPort()),
+                "flags", up ? "slave" : "slave,s_down,disconnected",
+                "master-link-status", up && master != null && master.isRunning() ? "ok" : "err",
+                "master-host", master == null ? "?" : master.getHost(),
+                "master-port", master == null ? "0" : String.valueOf(master.getPort()));
+    }
+
+    public String toString() {
+        return "embedded-sentinel(" + masterName + ")";
+    }
+}
@@ -0,0 +1,660 @@
+package com.jut.redis.embedded;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.util.JedisClusterCRC16;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/***
+ * 进程内的redis服务
+ * 实现RedisManager用到的RESP命令, 数据全部保存在内存中, 使隔离的构建机无需真实redis也能运行测试和基准测试
+ * 每个连接一个线程, 所有命令在同一把锁下串行执行, 与redis的单线程模型一致
+ * 可单独作为单节点运行, 也可由EmbeddedRedisCluster作为集群节点运行, 此时按槽位返回MOVED/ASK重定向
+ * 单节点可通过createReplica创建共享数据的从节点, 配合EmbeddedRedisSentinel模拟主从切换
+ *
+ * 延迟注入:
+ * latency模拟网络往返, 每读到一批命令(一次往返)等待一次, 不占用服务端锁, 管道中的多条命令只等待一次
+ * commandLatency模拟服务端执行耗时, 在锁内对每条命令等待, 会串行化所有连接
+ *
+ * 命令计数可用于确定性地断言往返次数, 例如验证管道和批量命令是否生效
+ */
+public class EmbeddedRedisServer implements Closeable {
+    private final static Logger logger = LoggerFactory.getLogger(EmbeddedRedisServer.class);
+
+    private final int requestedPort;
+    private final DataStore store;
+    private final Set<Socket> connections = Collections.newSetFromMap(new ConcurrentHashMap<Socket, Boolean>());
+    private final ConcurrentHashMap<String, LongAdder> commandCounts = new ConcurrentHashMap<String, LongAdder>();
+    private final AtomicLong roundTrips = new AtomicLong();
+    private ServerSocket serverSocket;
+    private volatile boolean running;
+    private volatile long latencyNanos;
+    private volatile long commandLatencyNanos;
+    private volatile String password;
+
+    /**
+     * 集群模式下所属的集群, 单节点时为null
+     */
+    private EmbeddedRedisCluster cluster;
+    /**
+     * 从节点对应的主节点, 主节点为null; 集群中由EmbeddedRedisCluster设置, 单节点时由createReplica/promote/replicaOf设置
+     */
+    private volatile EmbeddedRedisServer master;
+    private String nodeId;
+    /**
+     * 作为sentinel运行时所属的EmbeddedRedisSentinel
+     */
+    private EmbeddedRedisSentinel sentinel;
+
+    public EmbeddedRedisServer() {
+        this(0);
+    }
+
+    /**
+     * @param port 监听端口, 0表示随机端口
+     */
+    public EmbeddedRedisServer(int port) {
+        this(port, new DataStore());
+    }
+
+    EmbeddedRedisServer(int port, DataStore store) {
+        this.requestedPort = port;
+        this.store = store;
+    }
+
+    void joinCluster(EmbeddedRedisCluster cluster, String nodeId, EmbeddedRedisServer master) {
+        this.cluster = cluster;
+        this.nodeId = nodeId;
+        this.master = master;
+    }
+
+    void runAsSentinel(EmbeddedRedisSentinel sentinel) {
+        this.sentinel = sentinel;
+    }
+
+    /**
+     * 创建与本节点共享数据的从节点(单节点模式), 需另行start
+     * 从节点执行只读命令, 对写命令返回READONLY错误
+     */
+    public EmbeddedRedisServer createReplica() {
+        standalone();
+        EmbeddedRedisServer replica = new EmbeddedRedisServer(0, store);
+        replica.master = master == null ? this : master;
+        return replica;
+    }
+
+    /**
+     * 从节点提升为主节点, 用于模拟故障转移
+     */
+    public void promote() {
+        standalone();
+        master = null;
+    }
+
+    /**
+     * 成为另一个节点的从节点, 两者需共享数据(由createReplica创建)
+     */
+    public void replicaOf(EmbeddedRedisServer newMaster) {
+        standalone();
+        if (newMaster == this || newMaster.store != store) {
+            throw new IllegalArgumentException("replica must share data with its master: " + newMaster);
+        }
+        master = newMaster;
+    }
+
+    public boolean isReplica() {
+        return master != null;
+    }
+
+    private void standalone() {
+        if (cluster != null) {
+            throw new IllegalStateException("replication of cluster nodes is managed by EmbeddedRedisCluster");
+        }
+    }
+
+    public synchronized void start() throws IOException {
+        serverSocket = new ServerSocket(requestedPort, 128, InetAddress.getLoopbackAddress());
+        running = true;
+        Thread acceptor = new Thread(new Runnable() {
+            public void run() {
+                while (running) {
+                    try {
+                        final Socket socket = serverSocket.accept();
+                        socket.setTcpNoDelay(true);
+                        connections.add(socket);
+                        Thread handler = new Thread(new Runnable() {
+                            public void run() {
+                                serve(socket);
+                            }
+                        }, "embedded-redis-" + getPort());
+                        handler.setDaemon(true);
+                        handler.start();
+                    } catch (IOException e) {
+                        if (running) {
+                            logger.error("accept failed", e);
+                        }
+                    }
+                }
+            }
+        }, "embedded-redis-acceptor-" + getPort());
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public String getHost() {
+        return serverSocket.getInetAddress().getHostAddress();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public HostAndPort getHostAndPort() {
+        return new HostAndPort(getHost(), getPort());
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 停止监听并断开所有连接, 可用于模拟节点宕机
+     */
+    public synchronized void close() {
+        running = false;
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            logger.error("close failed", e);
+        }
+        for (Socket socket : connections) {
+            closeQuietly(socket);
+        }
+        connections.clear();
+    }
+
+    /**
+     * 网络往返延迟, 每批命令等待一次
+     */
+    public void setLatency(long latency, TimeUnit unit) {
+        this.latencyNanos = unit.toNanos(latency);
+    }
+
+    /**
+     * 服务端执行每条命令的耗时
+     */
+    public void setCommandLatency(long latency, TimeUnit unit) {
+        this.commandLatencyNanos = unit.toNanos(latency);
+    }
+
+    /**
+     * 设置后客户端需先AUTH
+     */
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    /**
+     * 为lua脚本登记Java实现, 之后EVAL/EVALSHA/SCRIPT LOAD可以执行该脚本; 共享数据的从节点同时生效
+     *
+     * @param source 脚本源码, 与客户端发送的完全一致
+     */
+    public void registerScript(String source, EmbeddedScript script) {
+        store.registerScript(source, script);
+    }
+
+    public void flushAll() {
+        store.flushAll();
+    }
+
+    public int dbSize(int db) {
+        return store.size(db);
+    }
+
+    /**
+     * 执行过的命令总数
+     */
+    public long getCommandCount() {
+        long total = 0;
+        for (LongAdder count : commandCounts.values()) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    /**
+     * 执行过的某个命令的次数, 命令名不区分大小写
+     */
+    public long getCommandCount(String command) {
+        LongAdder count = commandCounts.get(command.toUpperCase());
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * 往返次数, 即回复被刷出的次数, 管道中的多条命令计为一次
+     */
+    public long getRoundTripCount() {
+        return roundTrips.get();
+    }
+
+    /**
+     * 当前连接数
+     */
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    public void resetStats() {
+        commandCounts.clear();
+        roundTrips.set(0);
+    }
+
+    String getNodeId() {
+        return nodeId;
+    }
+
+    EmbeddedRedisServer getMaster() {
+        return master;
+    }
+
+    DataStore getStore() {
+        return store;
+    }
+
+    private void serve(Socket socket) {
+        Session session = new Session();
+        session.authenticated = password == null;
+        try {
+            InputStream in = new BufferedInputStream(socket.getInputStream(), 16 * 1024);
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 16 * 1024);
+            boolean batchStart = true;
+            while (running) {
+                List<byte[]> command = Resp.readCommand(in);
+                if (command == null) {
+                    break;
+                }
+                if (batchStart) {
+                    pause(latencyNanos);
+                    batchStart = false;
+                }
+                String name = new String(command.get(0), StandardCharsets.US_ASCII).toUpperCase();
+                count(name);
+                if ("QUIT".equals(name)) {
+                    Resp.write(out, Resp.OK);
+                    out.flush();
+                    break;
+                }
+                Object reply;
+                try {
+                    reply = execute(session, name, command);
+                } catch (CommandException e) {
+                    reply = new Resp.ErrorReply(e.getMessage());
+                }
+                Resp.write(out, reply);
+                //管道中的后续命令已到达时继续处理, 读空后再统一刷出
+                if (in.available() == 0) {
+                    out.flush();
+                    roundTrips.incrementAndGet();
+                    batchStart = true;
+                }
+            }
+        } catch (EOFException e) {
+            //客户端断开
+        } catch (IOException e) {
+            if (running) {
+                logger.debug("connection closed: " + e);
+            }
+        } finally {
+            connections.remove(socket);
+            closeQuietly(socket);
+        }
+    }
+
+    private Object execute(Session session, String name, List<byte[]> args) {
+        if ("AUTH".equals(name)) {
+            if (args.size() != 2) {
+                throw CommandException.arity(name);
+            }
+            if (password == null) {
+                throw new CommandException("ERR Client sent AUTH, but no password is set");
+            }
+            if (!password.equals(DataStore.str(args, 1))) {
+                throw new CommandException("ERR invalid password");
+            }
+            session.authenticated = true;
+            return Resp.OK;
+        }
+        if (!session.authenticated) {
+            throw new CommandException("NOAUTH Authentication required.");
+        }
+        if (sentinel != null) {
+            return sentinelCommand(name, args);
+        }
+        switch (name) {
+            case "ROLE":
+                return role();
+            case "INFO": {
+                Object info;
+                synchronized (store) {
+                    info = store.execute(session, name, args);
+                }
+                return info + replicationInfo();
+            }
+            case "CLIENT":
+                if (args.size() > 1 && "GETNAME".equalsIgnoreCase(DataStore.str(args, 1))) {
+                    return null;
+                }
+                return Resp.OK;
+            case "CLUSTER":
+                return cluster().clusterCommand(this, args);
+            case "ASKING":
+                cluster();
+                session.asking = true;
+                return Resp.OK;
+            case "READONLY":
+            case "READWRITE":
+                cluster();
+                session.readonly = "READONLY".equals(name);
+                return Resp.OK;
+            default:
+                break;
+        }
+        boolean asking = session.asking;
+        session.asking = false;
+        if (cluster != null) {
+            if ("SELECT".equals(name) && args.size() > 1 && DataStore.intArg(args, 1) != 0) {
+                throw new CommandException("ERR SELECT is not allowed in cluster mode");
+            }
+            Object redirect = route(session, asking, name, args);
+            if (redirect != null) {
+                return redirect;
+            }
+        }
+        EmbeddedRedisServer currentMaster = master;
+        if (cluster == null && currentMaster != null && Commands.isWrite(name, args)) {
+            throw new CommandException("READONLY You can't write against a read only replica.");
+        }
+        if ("BLPOP".equals(name) || "BRPOP".equals(name)) {
+            return blockingPop(session, name, args);
+        }
+        synchronized (store) {
+            pause(commandLatencyNanos);
+            Object reply = store.execute(session, name, args);
+            if (Commands.isWrite(name, args)) {
+                //唤醒阻塞在BLPOP/BRPOP上的连接
+                store.notifyAll();
+            }
+            return reply;
+        }
+    }
+
+    /**
+     * BLPOP/BRPOP key [key ...] timeout: 按顺序弹出第一个非空列表, 都为空时在store上等待写命令唤醒
+     * timeout为秒(可为小数), 0为一直等待, 超时返回空回复
+     */
+    private Object blockingPop(Session session, String name, List<byte[]> args) {
+        if (args.size() < 3) {
+            throw CommandException.arity(name);
+        }
+        double timeout;
+        try {
+            timeout = Double.parseDouble(DataStore.str(args, args.size() - 1));
+        } catch (NumberFormatException e) {
+            throw new CommandException("ERR timeout is not a float or out of range");
+        }
+        long deadline = timeout > 0 ? System.nanoTime() + (long) (timeout * 1e9) : Long.MAX_VALUE;
+        String pop = "BLPOP".equals(name) ? "LPOP" : "RPOP";
+        byte[] popName = pop.getBytes(StandardCharsets.US_ASCII);
+        synchronized (store) {
+            pause(commandLatencyNanos);
+            while (running) {
+                for (int i = 1; i < args.size() - 1; i++) {
+                    Object value = store.execute(session, pop, Arrays.asList(popName, args.get(i)));
+                    if (value != null) {
+                        return Arrays.asList(args.get(i), value);
+                    }
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return null;
+                }
+                try {
+                    //定期醒来检查服务是否已关闭
+                    TimeUnit.NANOSECONDS.timedWait(store, Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(100)));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+            return null;
+        }
+    }
+
+    private Object sentinelCommand(String name, List<byte[]> args) {
+        switch (name) {
+            case "PING":
+                return Resp.PONG;
+            case "SENTINEL":
+                return sentinel.command(args);
+            default:
+                throw new CommandException("ERR unknown command '" + name.toLowerCase() + "'");
+        }
+    }
+
+    /**
+     * ROLE: 主节点为[master, offset, [[host, port, offset]...]], 从节点为[slave, host, port, state, offset]
+     */
+    private List<Object> role() {
+        EmbeddedRedisServer currentMaster = master;
+        if (currentMaster != null) {
+            return Arrays.<Object>asList("slave", currentMaster.getHost(), (long) currentMaster.getPort(),
+                    currentMaster.isRunning() ? "connected" : "connect", 0L);
+        }
+        List<Object> replicas = new ArrayList<Object>();
+        if (cluster != null) {
+            for (EmbeddedRedisServer replica : cluster.getReplicas(this)) {
+                replicas.add(Arrays.<Object>asList(replica.getHost(), String.valueOf(replica.getPort()), "0"));
+            }
+        }
+        return Arrays.<Object>asList("master", 0L, replicas);
+    }
+
+    private String replicationInfo() {
+        EmbeddedRedisServer currentMaster = master;
+        if (currentMaster == null) {
+            return "# Replication\r\nrole:master\r\n";
+        }
+        return "# Replication\r\nrole:slave\r\n"
+                + "master_host:" + currentMaster.getHost() + "\r\n"
+                + "master_port:" + currentMaster.getPort() + "\r\n"
+                + "master_link_status:" + (currentMaster.isRunning() ? "up" : "down") + "\r\n";
+    }
+
+    /**
+     * 集群模式下检查命令的key是否由本节点负责
+     *
+     * @return 需要返回的重定向错误, 由本节点执行时返回null
+     */
+    private Object route(Session session, boolean asking, String name, List<byte[]> args) {
+        int[] keys = Commands.keyIndexes(name, args);
+        if (keys.length == 0) {
+            return null;
+        }
+        int slot = JedisClusterCRC16.getSlot(args.get(keys[0]));
+        for (int i = 1; i < keys.length; i++) {
+            if (JedisClusterCRC16.getSlot(args.get(keys[i])) != slot) {
+                return new Resp.ErrorReply("CROSSSLOT Keys in request don't hash to the same slot");
+            }
+        }
+        EmbeddedRedisServer owner = cluster.getMaster(slot);
+        if (owner == this || owner == master) {
+            if (master != null && !(session.readonly && Commands.isReadOnly(name))) {
+                return moved(slot, owner);
+            }
+            EmbeddedRedisServer target = cluster.getMigrationTarget(slot);
+            if (target != null && master == null) {
+                //迁移中的槽位, 本地不存在的key由目标节点处理
+                int missing = 0;
+                for (int key : keys) {
+                    if (!store.exists(0, DataStore.key(args, key))) {
+                        missing++;
+                    }
+                }
+                if (missing == keys.length) {
+                    return new Resp.ErrorReply("ASK " + slot + " " + target.getHost() + ":" + target.getPort());
+                }
+                if (missing > 0) {
+                    return new Resp.ErrorReply("TRYAGAIN Multiple keys request during rehashing of slot");
+                }
+            }
+            return null;
+        }
+        if (asking && cluster.getMigrationTarget(slot) == this) {
+            return null;
+        }
+        return moved(slot, owner);
+    }
+
+    private static Resp.ErrorReply moved(int slot, EmbeddedRedisServer owner) {
+        return new Resp.ErrorReply("MOVED " + slot + " " + owner.getHost() + ":" + owner.getPort());
+    }
+
+    private EmbeddedRedisCluster cluster() {
+        if (cluster == null) {
+            throw new CommandException("ERR This instance has cluster support disabled");
+        }
+        return cluster;
+    }
+
+    private void count(String name) {
+        LongAdder count = commandCounts.get(name);
+        if (count == null) {
+            count = new LongAdder();
+            LongAdder previous = commandCounts.putIfAbsent(name, count);
+            if (previous != null) {
+                count = previous;
+            }
+        }
+        count.increment();
+    }
+
+    private static void pause(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        long deadline = System.nanoTime() + nanos;
+        long remaining = nanos;
+        while (remaining > 0) {
+            LockSupport.parkNanos(remaining);
+            remaining = deadline - System.nanoTime();
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            //ignore
+        }
+    }
+
+    public String toString() {
+        return serverSocket == null ? "embedded-redis(not started)" : getHost() + ":" + getPort();
+    }
+
+    /**
+     * 命令的key位置以及是否只读
+     */
+    private static final class Commands {
+        private static final Map<String, Integer> KEY_COUNT = new HashMap<String, Integer>();
+        private static final Set<String> NO_KEY = new HashSet<String>();
+        private static final Set<String> ALL_KEYS = new HashSet<String>();
+        private static final Set<String> READ_ONLY = new HashSet<String>();
+
+        static {
+            Collections.addAll(NO_KEY, "PING", "ECHO", "SELECT", "FLUSHDB", "FLUSHALL", "DBSIZE", "TIME", "INFO",
+                    "KEYS", "SCAN", "SCRIPT");
+            Collections.addAll(ALL_KEYS, "DEL", "UNLINK", "EXISTS", "MGET", "SDIFF", "SINTER", "SUNION",
+                    "SDIFFSTORE", "SINTERSTORE", "SUNIONSTORE");
+            KEY_COUNT.put("RPOPLPUSH", 2);
+            KEY_COUNT.put("SMOVE", 2);
+            Collections.addAll(READ_ONLY, "GET", "MGET", "EXISTS", "TTL", "PTTL", "TYPE", "STRLEN", "GETRANGE",
+                    "HGET", "HMGET", "HGETALL", "HKEYS", "HVALS", "HEXISTS", "HLEN", "HSCAN",
+                    "LINDEX", "LLEN", "LRANGE", "SCARD", "SISMEMBER", "SMEMBERS", "SRANDMEMBER", "SSCAN",
+                    "SDIFF", "SINTER", "SUNION", "ZSCORE", "ZCARD", "ZRANK", "ZREVRANK", "ZRANGE", "ZREVRANGE",
+                    "ZSCAN", "DUMP", "DBSIZE", "KEYS", "SCAN");
+        }
+
+        static int[] keyIndexes(String name, List<byte[]> args) {
+            if (NO_KEY.contains(name) || args.size() < 2) {
+                return new int[0];
+            }
+            if (ALL_KEYS.contains(name)) {
+                return range(1, args.size(), 1);
+            }
+            if ("EVAL".equals(name) || "EVALSHA".equals(name)) {
+                //EVAL script numkeys key...
+                long numkeys = args.size() > 2 ? DataStore.parseLong(args.get(2)) : 0;
+                return numkeys > 0 && numkeys <= args.size() - 3 ? range(3, 3 + (int) numkeys, 1) : new int[0];
+            }
+            if ("BLPOP".equals(name) || "BRPOP".equals(name)) {
+                //BLPOP key... timeout
+                return range(1, args.size() - 1, 1);
+            }
+            if ("MSET".equals(name) || "MSETNX".equals(name)) {
+                return range(1, args.size(), 2);
+            }
+            Integer count = KEY_COUNT.get(name);
+            return count != null && args.size() > count ? range(1, count + 1, 1) : new int[]{1};
+        }
+
+        static boolean isReadOnly(String name) {
+            return READ_ONLY.contains(name);
+        }
+
+        /**
+         * 修改数据的命令, 单节点从节点据此拒绝写入
+         */
+        static boolean isWrite(String name, List<byte[]> args) {
+            if ("FLUSHDB".equals(name) || "FLUSHALL".equals(name)) {
+                return true;
+            }
+            return !READ_ONLY.contains(name) && keyIndexes(name, args).length > 0;
+        }
+
+        private static int[] range(int from, int to, int step) {
+            int[] indexes = new int[(to - from + step - 1) / step];
+            for (int i = 0; i < indexes.length; i++) {
+                indexes[i] = from + i * step;
+            }
+            return indexes;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.jut.redis.embedded;
+
+import java.util.List;
+
+/***
+ * 嵌入式服务中lua脚本的Java实现
+ * 嵌入式服务不包含lua解释器, 需要用EmbeddedRedisServer.registerScript为脚本源码登记等价的Java实现,
+ * 之后EVAL/EVALSHA/SCRIPT LOAD按源码的SHA1找到该实现; 未登记的脚本返回错误
+ * 脚本在服务端锁内执行, 与redis一样对其他命令是原子的
+ * 字符串与字节按ISO-8859-1一一对应
+ */
+public interface EmbeddedScript {
+    /**
+     * 相当于lua中的redis.call
+     */
+    interface Context {
+        /**
+         * 执行一条命令, 出错时抛出异常并中止脚本
+         *
+         * @return 整数为Long, 字符串和状态回复为String, 多条回复为List, 空值为null
+         */
+        Object call(String... command);
+    }
+
+    /**
+     * @return 回复, 可以是Long、String、List或null
+     */
+    Object run(Context context, List<String> keys, List<String> args);
+}
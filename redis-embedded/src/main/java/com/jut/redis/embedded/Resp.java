@@ -0,0 +1,138 @@
+package com.jut.redis.embedded;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/***
+ * RESP协议编解码
+ * 命令执行结果以普通对象表示, 由write按类型写出:
+ * byte[]/String为bulk, Long/Integer为整数, Collection为数组, null为空bulk, Status为状态行, ErrorReply为错误
+ */
+final class Resp {
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] NULL_BULK = "$-1\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL_ARRAY = "*-1\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    static final Status OK = new Status("OK");
+    static final Status PONG = new Status("PONG");
+
+    /**
+     * 空数组回复, 区别于空列表
+     */
+    static final Object NIL_ARRAY = new Object();
+
+    private Resp() {
+    }
+
+    static final class Status {
+        final String value;
+
+        Status(String value) {
+            this.value = value;
+        }
+    }
+
+    static final class ErrorReply {
+        final String message;
+
+        ErrorReply(String message) {
+            this.message = message;
+        }
+    }
+
+    static List<byte[]> readCommand(InputStream in) throws IOException {
+        int b = in.read();
+        if (b == -1) {
+            return null;
+        }
+        if (b != '*') {
+            throw new IOException("unsupported request type: " + (char) b);
+        }
+        int count = (int) readLong(in);
+        List<byte[]> args = new ArrayList<byte[]>(count);
+        for (int i = 0; i < count; i++) {
+            if (in.read() != '$') {
+                throw new IOException("bulk string expected");
+            }
+            int len = (int) readLong(in);
+            byte[] arg = new byte[len];
+            int read = 0;
+            while (read < len) {
+                int n = in.read(arg, read, len - read);
+                if (n == -1) {
+                    throw new EOFException();
+                }
+                read += n;
+            }
+            in.read();
+            in.read();
+            args.add(arg);
+        }
+        return args;
+    }
+
+    private static long readLong(InputStream in) throws IOException {
+        long value = 0;
+        boolean negative = false;
+        int b;
+        while ((b = in.read()) != '\r') {
+            if (b == -1) {
+                throw new EOFException();
+            }
+            if (b == '-') {
+                negative = true;
+            } else {
+                value = value * 10 + (b - '0');
+            }
+        }
+        in.read();
+        return negative ? -value : value;
+    }
+
+    static void write(OutputStream out, Object reply) throws IOException {
+        if (reply == null) {
+            out.write(NULL_BULK);
+        } else if (reply == NIL_ARRAY) {
+            out.write(NULL_ARRAY);
+        } else if (reply instanceof byte[]) {
+            byte[] value = (byte[]) reply;
+            out.write('$');
+            writeNumber(out, value.length);
+            out.write(value);
+            out.write(CRLF);
+        } else if (reply instanceof String) {
+            write(out, ((String) reply).getBytes(StandardCharsets.ISO_8859_1));
+        } else if (reply instanceof Long || reply instanceof Integer) {
+            out.write(':');
+            writeNumber(out, ((Number) reply).longValue());
+        } else if (reply instanceof Status) {
+            out.write('+');
+            out.write(((Status) reply).value.getBytes(StandardCharsets.US_ASCII));
+            out.write(CRLF);
+        } else if (reply instanceof ErrorReply) {
+            out.write('-');
+            out.write(((ErrorReply) reply).message.getBytes(StandardCharsets.UTF_8));
+            out.write(CRLF);
+        } else if (reply instanceof Collection) {
+            Collection<?> values = (Collection<?>) reply;
+            out.write('*');
+            writeNumber(out, values.size());
+            for (Object value : values) {
+                write(out, value);
+            }
+        } else {
+            throw new IllegalArgumentException("unsupported reply type: " + reply.getClass());
+        }
+    }
+
+    private static void writeNumber(OutputStream out, long value) throws IOException {
+        out.write(String.valueOf(value).getBytes(StandardCharsets.US_ASCII));
+        out.write(CRLF);
+    }
+}
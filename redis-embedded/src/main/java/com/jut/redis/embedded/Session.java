@@ -0,0 +1,26 @@
+package com.jut.redis.embedded;
+
+/***
+ * 连接状态
+ */
+class Session {
+    /**
+     * 当前库
+     */
+    int db;
+
+    /**
+     * 已通过AUTH
+     */
+    boolean authenticated;
+
+    /**
+     * 收到ASKING后仅对下一条命令有效
+     */
+    boolean asking;
+
+    /**
+     * 集群从节点上执行过READONLY, 允许读取
+     */
+    boolean readonly;
+}
@@ -0,0 +1,126 @@
+package com.jut.redis.embedded;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.exceptions.JedisAskDataException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisMovedDataException;
+import redis.clients.jedis.util.JedisClusterCRC16;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class EmbeddedRedisClusterTest {
+    private EmbeddedRedisCluster cluster;
+    private JedisCluster jedisCluster;
+
+    @Before
+    public void setUp() throws Exception {
+        cluster = new EmbeddedRedisCluster(3, 1);
+        cluster.start();
+        jedisCluster = new JedisCluster(cluster.getHostAndPorts());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        jedisCluster.close();
+        cluster.close();
+    }
+
+    @Test
+    public void clientFollowsSlotOwnership() {
+        for (int i = 0; i < 100; i++) {
+            jedisCluster.set("k" + i, "v" + i);
+        }
+        long total = 0;
+        for (EmbeddedRedisServer master : cluster.getMasters()) {
+            int size = master.dbSize(0);
+            assertTrue(size > 0);
+            total += size;
+        }
+        assertEquals(100L, total);
+        for (int i = 0; i < 100; i++) {
+            assertEquals("v" + i, jedisCluster.get("k" + i));
+        }
+    }
+
+    @Test
+    public void foreignSlotAnswersMoved() {
+        EmbeddedRedisServer owner = cluster.getMasterForKey("k");
+        EmbeddedRedisServer other = other(owner);
+        try (Jedis jedis = new Jedis(other.getHost(), other.getPort())) {
+            jedis.get("k");
+            fail("expected MOVED");
+        } catch (JedisMovedDataException e) {
+            assertEquals(JedisClusterCRC16.getSlot("k"), e.getSlot());
+            assertEquals(owner.getPort(), e.getTargetNode().getPort());
+        }
+    }
+
+    @Test
+    public void crossSlotCommandRejected() {
+        EmbeddedRedisServer owner = cluster.getMasterForKey("{t}a");
+        try (Jedis jedis = new Jedis(owner.getHost(), owner.getPort())) {
+            assertEquals(Arrays.asList(null, null), jedis.mget("{t}a", "{t}b"));
+            jedis.mget("{t}a", "{u}b");
+            fail("expected CROSSSLOT");
+        } catch (JedisDataException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("CROSSSLOT"));
+        }
+    }
+
+    @Test
+    public void migratingSlotAnswersAsk() {
+        String key = "migrating";
+        int slot = JedisClusterCRC16.getSlot(key);
+        jedisCluster.set(key, "before");
+        EmbeddedRedisServer source = cluster.getMasterForKey(key);
+        EmbeddedRedisServer target = other(source);
+        cluster.beginMigration(slot, target);
+        assertEquals("before", jedisCluster.get(key));
+        assertEquals(1, cluster.migrateKeys(slot));
+        try (Jedis jedis = new Jedis(source.getHost(), source.getPort())) {
+            jedis.get(key);
+            fail("expected ASK");
+        } catch (JedisAskDataException e) {
+            assertEquals(target.getPort(), e.getTargetNode().getPort());
+        }
+        assertEquals("before", jedisCluster.get(key));
+        cluster.finishMigration(slot);
+        jedisCluster.set(key, "after");
+        assertEquals(target, cluster.getMasterForKey(key));
+        assertEquals("after", jedisCluster.get(key));
+    }
+
+    @Test
+    public void replicaServesReadsAfterReadonly() {
+        jedisCluster.set("replicated", "v");
+        EmbeddedRedisServer master = cluster.getMasterForKey("replicated");
+        EmbeddedRedisServer replica = cluster.getReplicas(master).get(0);
+        try (Jedis jedis = new Jedis(replica.getHost(), replica.getPort())) {
+            try {
+                jedis.get("replicated");
+                fail("expected MOVED before READONLY");
+            } catch (JedisMovedDataException e) {
+                assertEquals(master.getPort(), e.getTargetNode().getPort());
+            }
+            jedis.readonly();
+            assertEquals("v", jedis.get("replicated"));
+        }
+    }
+
+    private EmbeddedRedisServer other(EmbeddedRedisServer master) {
+        for (EmbeddedRedisServer candidate : cluster.getMasters()) {
+            if (candidate != master) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("cluster has a single master");
+    }
+}
@@ -0,0 +1,78 @@
+package com.jut.redis;
+
+import com.jut.redis.pipeline.PipelineCallback;
+import redis.clients.jedis.ListPosition;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/***
+ * 异步redis管理接口
+ * 方法与RedisManager一一对应, 立即返回CompletableFuture, 多个独立命令可以同时发起再一起等待
+ */
+public interface AsyncRedisManager {
+    public CompletableFuture<String> get(String key);
+    public CompletableFuture<String> set(String key,String value);
+    public CompletableFuture<String> setex(String key,int seconds,String value);
+    public CompletableFuture<Long> setrange(String key,int offset,String value);
+    public CompletableFuture<List<String>> mget(String...keys);
+    public CompletableFuture<String> mset(String...keysvalues);
+    public CompletableFuture<Long> append(String key,String value);
+    public CompletableFuture<Boolean> exists(String key);
+    public CompletableFuture<Long> setnx(String key,String value);
+    public CompletableFuture<Long> expire(String key,int seconds);
+    public CompletableFuture<Long> del(String...keys);
+    public CompletableFuture<Long> timetolive(String key);
+    public CompletableFuture<Long> msetnx(String...keysvalues);
+    public CompletableFuture<String> getset(String key,String value);
+    public CompletableFuture<String> getrange(String key, int startOffset ,int endOffset);
+    public CompletableFuture<Long> incr(String key);
+    public CompletableFuture<Long> incrBy(String key,Long integer);
+    public CompletableFuture<Long> decr(String key);
+    public CompletableFuture<Long> decrBy(String key,Long integer);
+    public CompletableFuture<Long> serlen(String key);
+    public CompletableFuture<Long> hset(String key,String field,String value);
+    public CompletableFuture<Long> hsetnx(String key,String field,String value);
+    public CompletableFuture<String> hmset(String key, Map<String, String> hash);
+    public CompletableFuture<String> hget(String key, String field);
+    public CompletableFuture<List<String>> hmget(String key,String...fields);
+    public CompletableFuture<Long> hincrby(String key ,String field ,Long value);
+    public CompletableFuture<Boolean> hexists(String key , String field);
+    public CompletableFuture<Long> hlen(String key);
+    public CompletableFuture<Long> hdel(String key ,String...fields);
+    public CompletableFuture<Set<String>> hkeys(String key);
+    public CompletableFuture<List<String>> hvals(String key);
+    public CompletableFuture<Map<String, String>> hgetall(String key);
+    public CompletableFuture<Long> lpush(String key ,String...strs);
+    public CompletableFuture<Long> rpush(String key ,String...strs);
+    public CompletableFuture<Long> linsert(String key, ListPosition where,String pivot, String value);
+    public CompletableFuture<String> lset(String key ,Long index, String value);
+    public CompletableFuture<Long> lrem(String key,long count,String value);
+    public CompletableFuture<String> ltrim(String key ,long start ,long end);
+    public CompletableFuture<String> lpop(String key);
+    public CompletableFuture<String> rpop(String key);
+    public CompletableFuture<String> rpoplpush(String srckey, String dstkey);
+    public CompletableFuture<String> lindex(String key,long index);
+    public CompletableFuture<Long> llen(String key);
+    public CompletableFuture<List<String>> lrange(String key, long start, long end);
+    public CompletableFuture<Long> sadd(String key,String...members);
+    public CompletableFuture<Long> srem(String key,String...members);
+    public CompletableFuture<String> spop(String key);
+    public CompletableFuture<Set<String>> sdiff(String...keys);
+    public CompletableFuture<Long> sdiffstore(String dstkey,String... keys);
+    public CompletableFuture<Set<String>> sinter(String...keys);
+    public CompletableFuture<Long> sinterstore(String dstkey,String...keys);
+    public CompletableFuture<Set<String>> sunion(String... keys);
+    public CompletableFuture<Long> sunionstore(String dstkey,String...keys);
+    public CompletableFuture<Long> smove(String srckey, String dstkey, String member);
+    public CompletableFuture<Long> scard(String key);
+    public CompletableFuture<Boolean> sismember(String key,String member);
+    public CompletableFuture<String> srandmember(String key);
+    public CompletableFuture<Set<String>> smembers(String key);
+    public CompletableFuture<Long> zremrangeByRank(String key ,long start, long end);
+    public CompletableFuture<Long> zremrangeByScore(String key,double start,double end);
+    public CompletableFuture<String> type(String key);
+    public CompletableFuture<List<Object>> pipelined(PipelineCallback callback);
+}
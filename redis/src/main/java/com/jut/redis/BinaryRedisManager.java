@@ -0,0 +1,38 @@
+package com.jut.redis;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/***
+ * 二进制redis管理接口
+ * key和value均为byte[], 序列化后的对象直接写入, 不经过String中转
+ * 方法语义与RedisManager的同名方法一致
+ */
+public interface BinaryRedisManager {
+    public byte[] get(byte[] key);
+    public String set(byte[] key,byte[] value);
+    public String setex(byte[] key,int seconds,byte[] value);
+    public List<byte[]> mget(byte[]...keys);
+    public String mset(byte[]...keysvalues);
+    public Boolean exists(byte[] key);
+    public Long expire(byte[] key,int seconds);
+    public Long del(byte[]...keys);
+    public byte[] getset(byte[] key,byte[] value);
+    public Long hset(byte[] key,byte[] field,byte[] value);
+    public byte[] hget(byte[] key,byte[] field);
+    public String hmset(byte[] key,Map<byte[], byte[]> hash);
+    public List<byte[]> hmget(byte[] key,byte[]...fields);
+    public Long hdel(byte[] key,byte[]...fields);
+    public Map<byte[], byte[]> hgetall(byte[] key);
+    public List<byte[]> hvals(byte[] key);
+    public Long lpush(byte[] key,byte[]...strs);
+    public Long rpush(byte[] key,byte[]...strs);
+    public byte[] lpop(byte[] key);
+    public byte[] rpop(byte[] key);
+    public List<byte[]> lrange(byte[] key,long start,long end);
+    public Long sadd(byte[] key,byte[]...members);
+    public Long srem(byte[] key,byte[]...members);
+    public Set<byte[]> smembers(byte[] key);
+    public Boolean sismember(byte[] key,byte[] member);
+}
@@ -0,0 +1,1736 @@
+package com.jut.redis;
+
+import com.jut.redis.breaker.CircuitBreakers;
+import com.jut.redis.cluster.ClusterSetAlgebra;
+import com.jut.redis.cluster.ClusterTopology;
+import com.jut.redis.cluster.ReadPreference;
+import com.jut.redis.cluster.ReplicaReadRouter;
+import com.jut.redis.pipeline.ClusterFanout;
+import com.jut.redis.pipeline.ClusterRedisPipeline;
+import com.jut.redis.metrics.RedisMetrics;
+import com.jut.redis.pipeline.PipelineCallback;
+import com.jut.redis.scan.CloseableIterator;
+import com.jut.redis.scan.ClusterScanIterator;
+import com.jut.redis.scan.ScanIterator;
+import com.jut.redis.scan.ScanOptions;
+import com.jut.redis.script.RedisScript;
+import com.jut.redis.script.Scripts;
+import com.jut.redis.utils.NamedThreadFactory;
+import com.jut.redis.utils.StringUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import redis.clients.jedis.*;
+import redis.clients.jedis.exceptions.JedisAskDataException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.exceptions.JedisMovedDataException;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+import redis.clients.jedis.util.JedisClusterCRC16;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/***
+ * redis管理接口集群实现
+ * 同时实现二进制接口, 两套接口共用同一个JedisCluster
+ */
+public class ClusterRedisManager implements RedisManager, BinaryRedisManager {
+    private final static Logger logger = LoggerFactory.getLogger(ClusterRedisManager.class);
+
+    @Autowired
+    JedisCluster jedisCluster;
+
+    /**
+     * 跨槽位命令按节点并行执行的线程池, 未设置时使用默认的有界线程池
+     */
+    private volatile ExecutorService executor;
+
+    /**
+     * 指标, 设置后上报被吞掉的异常; 连接由JedisCluster内部借出, 不记录连接池等待时间
+     */
+    private RedisMetrics metrics;
+
+    /**
+     * 熔断器, 设置后上报被吞掉的异常
+     */
+    private CircuitBreakers circuitBreakers;
+
+    /**
+     * 从节点读取路由, 设置后只读命令按读取偏好在从节点上执行
+     */
+    private ReplicaReadRouter replicaReadRouter;
+
+    /**
+     * 跨槽位集合运算, 未设置时使用默认参数
+     */
+    private volatile ClusterSetAlgebra setAlgebra;
+
+    public JedisCluster getJedisCluster() {
+        return jedisCluster;
+    }
+    public void setJedisCluster(JedisCluster jedisCluster) {
+        this.jedisCluster = jedisCluster;
+    }
+    public ExecutorService getExecutor() {
+        if (executor == null) {
+            synchronized (this) {
+                if (executor == null) {
+                    int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+                    executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                            new ArrayBlockingQueue<Runnable>(1024), new NamedThreadFactory("jut-redis-cluster"),
+                            new ThreadPoolExecutor.CallerRunsPolicy());
+                }
+            }
+        }
+        return executor;
+    }
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+    public RedisMetrics getMetrics() {
+        return metrics;
+    }
+    public void setMetrics(RedisMetrics metrics) {
+        this.metrics = metrics;
+    }
+    public CircuitBreakers getCircuitBreakers() {
+        return circuitBreakers;
+    }
+    public void setCircuitBreakers(CircuitBreakers circuitBreakers) {
+        this.circuitBreakers = circuitBreakers;
+    }
+    public ReplicaReadRouter getReplicaReadRouter() {
+        return replicaReadRouter;
+    }
+    public void setReplicaReadRouter(ReplicaReadRouter replicaReadRouter) {
+        this.replicaReadRouter = replicaReadRouter;
+    }
+    public ClusterSetAlgebra getSetAlgebra() {
+        if (setAlgebra == null) {
+            synchronized (this) {
+                if (setAlgebra == null) {
+                    setAlgebra = new ClusterSetAlgebra(jedisCluster, getExecutor());
+                }
+            }
+        }
+        return setAlgebra;
+    }
+    public void setSetAlgebra(ClusterSetAlgebra setAlgebra) {
+        this.setAlgebra = setAlgebra;
+    }
+
+    /**
+     * 从连接池中获取一个redis连接
+     */
+    private JedisCluster getJedis(){
+        return  jedisCluster;
+    }
+    /**
+     * 异常处理方法
+     */
+    private void exceptionProcess(Exception e) {
+        if (metrics != null) {
+            metrics.recordError();
+        }
+        if (circuitBreakers != null) {
+            circuitBreakers.recordError();
+        }
+        logger.error(StringUtil.logException(e));
+    }
+    /**
+     * 回收一个redis连接
+     */
+    private void returnResource(JedisCluster jedis) {
+
+    }
+    /**
+     * 执行只读命令: 读取路由选中从节点时在从节点上执行, 否则由JedisCluster在主节点上执行
+     * 从节点返回MOVED(槽位已迁移)时刷新拓扑后改读主节点; 连接失败时暂停选择该从节点,
+     * 读取偏好为REPLICA时抛出异常, 否则改读主节点
+     */
+    private <T> T read(String key, Function<Jedis, T> replicaCommand, Function<JedisCluster, T> masterCommand) {
+        ReplicaReadRouter router = replicaReadRouter;
+        return read(router, router == null || key == null ? null : router.select(key), replicaCommand, masterCommand);
+    }
+
+    private <T> T read(byte[] key, Function<Jedis, T> replicaCommand, Function<JedisCluster, T> masterCommand) {
+        ReplicaReadRouter router = replicaReadRouter;
+        return read(router, router == null || key == null ? null : router.select(key), replicaCommand, masterCommand);
+    }
+
+    private <T> T read(ReplicaReadRouter router, String replica, Function<Jedis, T> replicaCommand,
+                       Function<JedisCluster, T> masterCommand) {
+        if (replica != null) {
+            Jedis jedis = null;
+            try {
+                jedis = router.getResource(replica);
+                return replicaCommand.apply(jedis);
+            } catch (JedisMovedDataException e) {
+                router.refresh();
+            } catch (JedisDataException e) {
+                throw e;
+            } catch (JedisException e) {
+                router.markFailed(replica);
+                if (router.getReadPreference() == ReadPreference.REPLICA) {
+                    throw e;
+                }
+                logger.warn("read from replica " + replica + " failed, fall back to master: " + e);
+            } finally {
+                if (jedis != null) {
+                    jedis.close();
+                }
+            }
+        }
+        JedisCluster jedis = getJedis();
+        try {
+            return masterCommand.apply(jedis);
+        } finally {
+            returnResource(jedis);
+        }
+    }
+
+    /**
+     * 在key所在的主节点上直接执行, 用于JedisCluster不支持的命令和管道
+     * 槽位已迁移(MOVED/ASK)时按重定向目标重试一次
+     */
+    private <T> T onNode(String key, Function<Jedis, T> command) {
+        Jedis jedis = jedisCluster.getConnectionFromSlot(JedisClusterCRC16.getSlot(key));
+        try {
+            return command.apply(jedis);
+        } catch (JedisRedirectionException e) {
+            JedisPool pool = jedisCluster.getClusterNodes().get(e.getTargetNode().toString());
+            if (pool == null) {
+                throw e;
+            }
+            try (Jedis target = pool.getResource()) {
+                if (e instanceof JedisAskDataException) {
+                    target.asking();
+                }
+                return command.apply(target);
+            }
+        } finally {
+            jedis.close();
+        }
+    }
+
+    private static String first(String[] keys) {
+        return keys == null || keys.length == 0 ? null : keys[0];
+    }
+
+    public  String get(String key){
+        String value = null;
+        try {
+            value = read(key, r -> r.get(key), c -> c.get(key));
+        } catch(Exception e){
+            exceptionProcess(e);
+        }
+        return value;
+    }
+
+    public  String set(String key,String value){
+        JedisCluster jedis = null;
+        String ans = null;
+        try {
+            jedis = getJedis();
+            ans = jedis.set(key,value);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            //返还到连接池
+            returnResource(jedis);
+        }
+        return ans;
+    }
+
+    /**
+     * 未设置get时, 写入返回OK, 条件不满足返回null; 设置get时返回写入前的值
+     */
+    public String set(String key, String value, SetOptions options){
+        JedisCluster jedis = null;
+        String ans = null;
+        try {
+            jedis = getJedis();
+            if (options.isRaw()) {
+                ans = onNode(key, r -> options.set(r, key, value));
+            } else {
+                ans = jedis.set(key, value, options.toSetParams());
+            }
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return ans;
+    }
+
+    public  String setex(String key,int seconds,String value){
+        JedisCluster jedis = null;
+        String ans = null;
+        try {
+            jedis = getJedis();
+            ans = jedis.setex(key,seconds,value);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            //返还到连接池
+            returnResource(jedis);
+        }
+        return ans;
+    }
+
+    public  Long setrange(String key,int offset,String value){
+        JedisCluster jedis = null;
+
+        try {
+            jedis = getJedis();
+            return jedis.setrange(key, offset, value);
+        } catch (Exception e) {
+            exceptionProcess(e);
+            return 0L;
+        } finally {
+            //返还到连接池
+            returnResource(jedis);
+        }
+    }
+
+    public List<String> mget(String...keys){
+        JedisCluster jedis = null;
+        List<String> values = null;
+        try {
+            jedis = getJedis();
+            if (ClusterFanout.sameSlot(keys, 1)) {
+                values = jedis.mget(keys);
+            } else {
+                values = fanoutMget(keys);
+            }
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            //返还到连接池
+            returnResource(jedis);
+        }
+        return values;
+    }
+
+    public  String mset(String...keysvalues){
+        JedisCluster jedis = null;
+        String ans = null;
+        try{
+            jedis = getJedis();
+            if (ClusterFanout.sameSlot(keysvalues, 2)) {
+                ans = jedis.mset(keysvalues);
+            } else {
+                ans = fanoutMset(keysvalues);
+            }
+        }catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            //返还到连接池
+            returnResource(jedis);
+        }
+        return ans;
+    }
+
+    public  Long append(String key,String value){
+        JedisCluster jedis = null;
+
+        try {
+            jedis = getJedis();
+            return jedis.append(key, value);
+        } catch (Exception e) {
+            exceptionProcess(e);
+            return 0L;
+        } finally {
+            //返还到连接池
+            returnResource(jedis);
+        }
+    }
+
+    public  Boolean exists(String key){
+        try {
+            return read(key, r -> r.exists(key), c -> c.exists(key));
+        } catch (Exception e) {
+            exceptionProcess(e);
+            return false;
+        }
+    }
+
+    public  Long setnx(String key,String value){
+        JedisCluster jedis = null;
+        try {
+            jedis = getJedis();
+            return jedis.setnx(key,value);
+        } catch (Exception e) {
+            exceptionProcess(e);
+            return 0l;
+        } finally {
+            //返还到连接池
+            returnResource(jedis);
+        }
+    }
+
+    public Long expire(String key,int seconds){
+
+        JedisCluster jedis = null;
+        Long res = 0l;
+        try {
+            jedis = getJedis();
+            res = jedis.expire(key, seconds);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            //返还到连接池
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Long del(String...keys){
+
+        JedisCluster jedis = null;
+        Long res = 0l;
+        try {
+            jedis = getJedis();
+            if (ClusterFanout.sameSlot(keys, 1)) {
+                res = jedis.del(keys);
+            } else {
+                res = fanoutDel(keys);
+            }
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            //返还到连接池
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Long timetolive(String key){
+        Long res = 0l;
+        try {
+            res = read(key, r -> r.ttl(key), c -> c.ttl(key));
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    public Long msetnx(String...keysvalues){
+        JedisCluster jedis = null;
+        Long res = 0L;
+        try {
+            jedis = getJedis();
+            if (ClusterFanout.sameSlot(keysvalues, 2)) {
+                res =jedis.msetnx(keysvalues);
+            } else {
+                res = fanoutMsetnx(keysvalues);
+            }
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public String getset(String key,String value){
+        JedisCluster jedis = null;
+        String res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.getSet(key, value);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public String getrange(String key, int startOffset ,int endOffset){
+        String res = null;
+        try {
+            res = read(key, r -> r.getrange(key, startOffset, endOffset), c -> c.getrange(key, startOffset, endOffset));
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    public Long incr(String key){
+        JedisCluster jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.incr(key);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Long incrBy(String key,Long integer){
+        JedisCluster jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.incrBy(key, integer);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Long incrByEx(String key, Long integer, int seconds){
+        if (seconds <= 0) {
+            throw new IllegalArgumentException("seconds must be positive, got " + seconds);
+        }
+        return eval(Scripts.INCRBY_EXPIRE, Collections.singletonList(key),
+                Arrays.asList(String.valueOf(integer), String.valueOf(seconds)));
+    }
+
+    public Long decr(String key) {
+        JedisCluster jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.decr(key);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Long decrBy(String key,Long integer){
+        JedisCluster jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.decrBy(key, integer);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Long serlen(String key){
+        Long res = null;
+        try {
+            res = read(key, r -> r.strlen(key), c -> c.strlen(key));
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    public Long hset(String key,String field,String value) {
+        JedisCluster jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.hset(key, field, value);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Long hsetnx(String key,String field,String value){
+        JedisCluster jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.hsetnx(key, field, value);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public String hmset(String key, Map<String, String> hash){
+        JedisCluster jedis = null;
+        String res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.hmset(key, hash);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public String hget(String key, String field){
+        String res = null;
+        try {
+            res = read(key, r -> r.hget(key, field), c -> c.hget(key, field));
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    public List<String> hmget(String key,String...fields){
+        List<String> res = null;
+        try {
+            res = read(key, r -> r.hmget(key, fields), c -> c.hmget(key, fields));
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    public Long hincrby(String key ,String field ,Long value){
+        JedisCluster jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.hincrBy(key, field, value);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Long hincrbyEx(String key, String field, Long value, int seconds){
+        if (seconds <= 0) {
+            throw new IllegalArgumentException("seconds must be positive, got " + seconds);
+        }
+        return eval(Scripts.HINCRBY_EXPIRE_NX, Collections.singletonList(key),
+                Arrays.asList(field, String.valueOf(value), String.valueOf(seconds)));
+    }
+
+    public Boolean hexists(String key , String field){
+        Boolean res = false;
+        try {
+            res = read(key, r -> r.hexists(key, field), c -> c.hexists(key, field));
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    public Long hlen(String key){
+        Long res = null;
+        try {
+            res = read(key, r -> r.hlen(key), c -> c.hlen(key));
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+
+    }
+
+    public Long hdel(String key ,String...fields){
+        JedisCluster jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.hdel(key, fields);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Set<String> hkeys(String key){
+        Set<String> res = null;
+        try {
+            res = read(key, r -> r.hkeys(key), c -> c.hkeys(key));
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    public List<String> hvals(String key){
+        List<String> res = null;
+        try {
+            res = read(key, r -> r.hvals(key), c -> c.hvals(key));
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    public Map<String, String> hgetall(String key){
+        Map<String, String> res = null;
+        try {
+            res = read(key, r -> r.hgetAll(key), c -> c.hgetAll(key));
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    public Long lpush(String key ,String...strs){
+        JedisCluster jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.lpush(key, strs);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Long rpush(String key ,String...strs){
+        JedisCluster jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.rpush(key, strs);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Long linsert(String key, ListPosition where,
+                        String pivot, String value){
+        JedisCluster jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.linsert(key, where, pivot, value);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public String lset(String key ,Long index, String value){
+        JedisCluster jedis = null;
+        String res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.lset(key, index, value);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Long lrem(String key,long count,String value){
+        JedisCluster jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.lrem(key, count, value);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public String ltrim(String key ,long start ,long end){
+        JedisCluster jedis = null;
+        String res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.ltrim(key, start, end);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public String lpop(String key){
+        JedisCluster jedis = null;
+        String res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.lpop(key);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public String rpop(String key){
+        JedisCluster jedis = null;
+        String res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.rpop(key);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public String rpoplpush(String srckey, String dstkey){
+        JedisCluster jedis = null;
+        String res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.rpoplpush(srckey, dstkey);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public List<String> blpop(int timeout, String key){
+        JedisCluster jedis = null;
+        List<String> res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.blpop(timeout, key);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public String lindex(String key,long index){
+        String res = null;
+        try {
+            res = read(key, r -> r.lindex(key, index), c -> c.lindex(key, index));
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    public Long llen(String key){
+        Long res = null;
+        try {
+            res = read(key, r -> r.llen(key), c -> c.llen(key));
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    public List<String> lrange(String key,long start,long end){
+        List<String> res = null;
+        try {
+            res = read(key, r -> r.lrange(key, start, end), c -> c.lrange(key, start, end));
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    public Long sadd(String key,String...members){
+        JedisCluster jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.sadd(key, members);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Long srem(String key,String...members){
+        JedisCluster jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.srem(key, members);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public String spop(String key){
+        JedisCluster jedis = null;
+        String res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.spop(key);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Set<String> sdiff(String...keys){
+        Set<String> res = null;
+        try {
+            if (ClusterFanout.sameSlot(keys, 1)) {
+                res = read(first(keys), r -> r.sdiff(keys), c -> c.sdiff(keys));
+            } else {
+                res = getSetAlgebra().diff(keys);
+            }
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    public Long sdiffstore(String dstkey,String... keys){
+        JedisCluster jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            if (sameSlot(dstkey, keys)) {
+                res = jedis.sdiffstore(dstkey, keys);
+            } else {
+                ClusterSetAlgebra algebra = getSetAlgebra();
+                res = algebra.store(dstkey, algebra.diff(keys));
+            }
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Set<String> sinter(String...keys){
+        Set<String> res = null;
+        try {
+            if (ClusterFanout.sameSlot(keys, 1)) {
+                res = read(first(keys), r -> r.sinter(keys), c -> c.sinter(keys));
+            } else {
+                res = getSetAlgebra().inter(keys);
+            }
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    public Long sinterstore(String dstkey,String...keys){
+        JedisCluster jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            if (sameSlot(dstkey, keys)) {
+                res = jedis.sinterstore(dstkey, keys);
+            } else {
+                ClusterSetAlgebra algebra = getSetAlgebra();
+                res = algebra.store(dstkey, algebra.inter(keys));
+            }
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Set<String> sunion(String... keys){
+        Set<String> res = null;
+        try {
+            if (ClusterFanout.sameSlot(keys, 1)) {
+                res = read(first(keys), r -> r.sunion(keys), c -> c.sunion(keys));
+            } else {
+                res = getSetAlgebra().union(keys);
+            }
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    public Long sunionstore(String dstkey,String...keys){
+        JedisCluster jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            if (sameSlot(dstkey, keys)) {
+                res = jedis.sunionstore(dstkey, keys);
+            } else {
+                ClusterSetAlgebra algebra = getSetAlgebra();
+                res = algebra.store(dstkey, algebra.union(keys));
+            }
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Long smove(String srckey, String dstkey, String member){
+        JedisCluster jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.smove(srckey, dstkey, member);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Long scard(String key){
+        Long res = null;
+        try {
+            res = read(key, r -> r.scard(key), c -> c.scard(key));
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    public Boolean sismember(String key,String member){
+        Boolean res = null;
+        try {
+            res = read(key, r -> r.sismember(key, member), c -> c.sismember(key, member));
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    public String srandmember(String key){
+        String res = null;
+        try {
+            res = read(key, r -> r.srandmember(key), c -> c.srandmember(key));
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    public Set<String> smembers(String key){
+        Set<String> res = null;
+        try {
+            res = read(key, r -> r.smembers(key), c -> c.smembers(key));
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    public Long zremrangeByRank(String key ,long start, long end){
+        JedisCluster jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.zremrangeByRank(key, start, end);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Long zremrangeByScore(String key,double start,double end){
+        JedisCluster jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.zremrangeByScore(key, start, end);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    /**
+     * 在所有主节点上并行scan匹配的key, 避免keys命令阻塞各分片; 任一节点失败时返回null
+     */
+    public Set<String> keys(String pattern){
+        Set<String> res = new HashSet<String>();
+        CloseableIterator<String> it = null;
+        try {
+            it = scan(ScanOptions.scanOptions().match(pattern).count(1000));
+            while (it.hasNext()) {
+                res.add(it.next());
+            }
+        } catch (Exception e) {
+            //异常已在scan中记录, 不返回部分结果
+            res = null;
+        } finally {
+            if (it != null) {
+                it.close();
+            }
+        }
+        return res;
+    }
+
+    public String type(String key){
+        String res = null;
+        try {
+            res = read(key, r -> r.type(key), c -> c.type(key));
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    /**
+     * 只遍历主节点, 各主节点并行scan; 获取主节点失败时返回的迭代器在hasNext时抛出异常
+     */
+    public CloseableIterator<String> scan(ScanOptions options){
+        Map<String, JedisPool> masters;
+        try {
+            masters = ClusterTopology.discover(jedisCluster).getMasterPools(jedisCluster);
+        } catch (Exception e) {
+            exceptionProcess(e);
+            return new ScanIterator<String>() {
+                protected ScanResult<String> scan(String cursor) throws Exception {
+                    throw e;
+                }
+            };
+        }
+        return new ClusterScanIterator(masters, options);
+    }
+
+    public List<Object> pipelined(PipelineCallback callback){
+        ClusterRedisPipeline pipeline = null;
+        List<Object> res = null;
+        try {
+            pipeline = new ClusterRedisPipeline(getJedis());
+            callback.doInPipeline(pipeline);
+            res = pipeline.sync();
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            if (pipeline != null) {
+                pipeline.close();
+            }
+        }
+        return res;
+    }
+
+    /**
+     * 目标key与所有源key是否位于同一槽位
+     */
+    private static boolean sameSlot(String dstkey, String[] keys) {
+        String[] all = new String[keys.length + 1];
+        all[0] = dstkey;
+        System.arraycopy(keys, 0, all, 1, keys.length);
+        return ClusterFanout.sameSlot(all, 1);
+    }
+
+    /**
+     * 跨槽位mget: 按节点并行获取, 按调用方传入的key顺序组装结果
+     */
+    private List<String> fanoutMget(String...keys) throws Exception {
+        List<ClusterFanout.SlotResult<List<String>>> results = new ClusterFanout(jedisCluster, getExecutor())
+                .execute(keys, 1, new ClusterFanout.SlotCommand<String, List<String>>() {
+            public Response<List<String>> queue(Pipeline pipeline, String[] args) {
+                return pipeline.mget(args);
+            }
+            public List<String> redirect(JedisCluster jedisCluster, String[] args) {
+                return jedisCluster.mget(args);
+            }
+        });
+        String[] values = new String[keys.length];
+        for (ClusterFanout.SlotResult<List<String>> result : results) {
+            for (int i = 0; i < result.positions.length; i++) {
+                values[result.positions[i]] = result.result.get(i);
+            }
+        }
+        return new ArrayList<String>(Arrays.asList(values));
+    }
+
+    /**
+     * 跨槽位mset: 每个槽位一条mset, 全部成功时返回OK
+     */
+    private String fanoutMset(String...keysvalues) throws Exception {
+        List<ClusterFanout.SlotResult<String>> results = new ClusterFanout(jedisCluster, getExecutor())
+                .execute(keysvalues, 2, new ClusterFanout.SlotCommand<String, String>() {
+            public Response<String> queue(Pipeline pipeline, String[] args) {
+                return pipeline.mset(args);
+            }
+            public String redirect(JedisCluster jedisCluster, String[] args) {
+                return jedisCluster.mset(args);
+            }
+        });
+        for (ClusterFanout.SlotResult<String> result : results) {
+            if (!"OK".equals(result.result)) {
+                return result.result;
+            }
+        }
+        return "OK";
+    }
+
+    /**
+     * 跨槽位del: 每个槽位一条del, 返回删除总数
+     */
+    private Long fanoutDel(String...keys) throws Exception {
+        List<ClusterFanout.SlotResult<Long>> results = new ClusterFanout(jedisCluster, getExecutor())
+                .execute(keys, 1, new ClusterFanout.SlotCommand<String, Long>() {
+            public Response<Long> queue(Pipeline pipeline, String[] args) {
+                return pipeline.del(args);
+            }
+            public Long redirect(JedisCluster jedisCluster, String[] args) {
+                return jedisCluster.del(args);
+            }
+        });
+        long count = 0;
+        for (ClusterFanout.SlotResult<Long> result : results) {
+            count += result.result;
+        }
+        return count;
+    }
+
+    /**
+     * 跨槽位msetnx: 先并行检查所有key都不存在, 再按槽位执行msetnx
+     * 注意跨槽位时无法保证原子性, 检查与写入之间被其他客户端写入的槽位会写入失败并返回0
+     */
+    private Long fanoutMsetnx(String...keysvalues) throws Exception {
+        ClusterFanout fanout = new ClusterFanout(jedisCluster, getExecutor());
+        String[] keys = new String[keysvalues.length / 2];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = keysvalues[i * 2];
+        }
+        List<ClusterFanout.SlotResult<Long>> exists = fanout.execute(keys, 1, new ClusterFanout.SlotCommand<String, Long>() {
+            public Response<Long> queue(Pipeline pipeline, String[] args) {
+                return pipeline.exists(args);
+            }
+            public Long redirect(JedisCluster jedisCluster, String[] args) {
+                return jedisCluster.exists(args);
+            }
+        });
+        for (ClusterFanout.SlotResult<Long> result : exists) {
+            if (result.result > 0) {
+                return 0L;
+            }
+        }
+        List<ClusterFanout.SlotResult<Long>> results = fanout.execute(keysvalues, 2, new ClusterFanout.SlotCommand<String, Long>() {
+            public Response<Long> queue(Pipeline pipeline, String[] args) {
+                return pipeline.msetnx(args);
+            }
+            public Long redirect(JedisCluster jedisCluster, String[] args) {
+                return jedisCluster.msetnx(args);
+            }
+        });
+        for (ClusterFanout.SlotResult<Long> result : results) {
+            if (result.result != 1L) {
+                logger.warn("msetnx across slots partially failed, keys: " + Arrays.toString(keys));
+                return 0L;
+            }
+        }
+        return 1L;
+    }
+
+    public CloseableIterator<Map.Entry<String, String>> hscan(final String key, final ScanOptions options){
+        return new ScanIterator<Map.Entry<String, String>>() {
+            protected ScanResult<Map.Entry<String, String>> scan(String cursor) throws Exception {
+                try {
+                    //JedisCluster的字符串版本hscan不支持ScanParams, 使用二进制版本
+                    ScanResult<Map.Entry<byte[], byte[]>> page = getJedis().hscan(SafeEncoder.encode(key),
+                            SafeEncoder.encode(cursor), options.toScanParams());
+                    List<Map.Entry<String, String>> entries = new ArrayList<Map.Entry<String, String>>(page.getResult().size());
+                    for (Map.Entry<byte[], byte[]> entry : page.getResult()) {
+                        entries.add(new AbstractMap.SimpleImmutableEntry<String, String>(
+                                SafeEncoder.encode(entry.getKey()), SafeEncoder.encode(entry.getValue())));
+                    }
+                    return new ScanResult<Map.Entry<String, String>>(page.getCursorAsBytes(), entries);
+                } catch (Exception e) {
+                    exceptionProcess(e);
+                    throw e;
+                }
+            }
+        };
+    }
+
+    public CloseableIterator<String> sscan(final String key, final ScanOptions options){
+        return new ScanIterator<String>() {
+            protected ScanResult<String> scan(String cursor) throws Exception {
+                try {
+                    ScanResult<byte[]> page = getJedis().sscan(SafeEncoder.encode(key),
+                            SafeEncoder.encode(cursor), options.toScanParams());
+                    List<String> members = new ArrayList<String>(page.getResult().size());
+                    for (byte[] member : page.getResult()) {
+                        members.add(SafeEncoder.encode(member));
+                    }
+                    return new ScanResult<String>(page.getCursorAsBytes(), members);
+                } catch (Exception e) {
+                    exceptionProcess(e);
+                    throw e;
+                }
+            }
+        };
+    }
+
+    public CloseableIterator<Tuple> zscan(final String key, final ScanOptions options){
+        return new ScanIterator<Tuple>() {
+            protected ScanResult<Tuple> scan(String cursor) throws Exception {
+                try {
+                    return getJedis().zscan(SafeEncoder.encode(key), SafeEncoder.encode(cursor), options.toScanParams());
+                } catch (Exception e) {
+                    exceptionProcess(e);
+                    throw e;
+                }
+            }
+        };
+    }
+
+    public <T> T eval(RedisScript<T> script, List<String> keys, List<String> args){
+        JedisCluster jedis = null;
+        T res = null;
+        try {
+            if (keys.isEmpty()) {
+                throw new IllegalArgumentException("script " + script.getName() + " needs at least one key in cluster mode");
+            }
+            jedis = getJedis();
+            Object result;
+            try {
+                result = jedis.evalsha(script.getSha1(), keys, args);
+            } catch (JedisNoScriptException e) {
+                jedis.scriptLoad(script.getSource(), keys.get(0));
+                result = jedis.evalsha(script.getSha1(), keys, args);
+            }
+            res = script.convert(result);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public byte[] get(byte[] key){
+        byte[] res = null;
+        try {
+            res = read(key, r -> r.get(key), c -> c.get(key));
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    public String set(byte[] key,byte[] value){
+        JedisCluster jedis = null;
+        String res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.set(key, value);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public String setex(byte[] key,int seconds,byte[] value){
+        JedisCluster jedis = null;
+        String res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.setex(key, seconds, value);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public List<byte[]> mget(byte[]...keys){
+        JedisCluster jedis = null;
+        List<byte[]> res = null;
+        try {
+            jedis = getJedis();
+            if (ClusterFanout.sameSlot(keys, 1)) {
+                res = jedis.mget(keys);
+            } else {
+                res = fanoutMget(keys);
+            }
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public String mset(byte[]...keysvalues){
+        JedisCluster jedis = null;
+        String res = null;
+        try {
+            jedis = getJedis();
+            if (ClusterFanout.sameSlot(keysvalues, 2)) {
+                res = jedis.mset(keysvalues);
+            } else {
+                res = fanoutMset(keysvalues);
+            }
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Boolean exists(byte[] key){
+        Boolean res = null;
+        try {
+            res = read(key, r -> r.exists(key), c -> c.exists(key));
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    public Long expire(byte[] key,int seconds){
+        JedisCluster jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.expire(key, seconds);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Long del(byte[]...keys){
+        JedisCluster jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            if (ClusterFanout.sameSlot(keys, 1)) {
+                res = jedis.del(keys);
+            } else {
+                res = fanoutDel(keys);
+            }
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public byte[] getset(byte[] key,byte[] value){
+        JedisCluster jedis = null;
+        byte[] res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.getSet(key, value);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Long hset(byte[] key,byte[] field,byte[] value){
+        JedisCluster jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.hset(key, field, value);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public byte[] hget(byte[] key,byte[] field){
+        byte[] res = null;
+        try {
+            res = read(key, r -> r.hget(key, field), c -> c.hget(key, field));
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    public String hmset(byte[] key,Map<byte[], byte[]> hash){
+        JedisCluster jedis = null;
+        String res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.hmset(key, hash);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public List<byte[]> hmget(byte[] key,byte[]...fields){
+        List<byte[]> res = null;
+        try {
+            res = read(key, r -> r.hmget(key, fields), c -> c.hmget(key, fields));
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    public Long hdel(byte[] key,byte[]...fields){
+        JedisCluster jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.hdel(key, fields);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Map<byte[], byte[]> hgetall(byte[] key){
+        Map<byte[], byte[]> res = null;
+        try {
+            res = read(key, r -> r.hgetAll(key), c -> c.hgetAll(key));
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    public List<byte[]> hvals(byte[] key){
+        List<byte[]> res = null;
+        try {
+            res = read(key, r -> r.hvals(key), c -> new ArrayList<byte[]>(c.hvals(key)));
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    public Long lpush(byte[] key,byte[]...strs){
+        JedisCluster jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.lpush(key, strs);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Long rpush(byte[] key,byte[]...strs){
+        JedisCluster jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.rpush(key, strs);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public byte[] lpop(byte[] key){
+        JedisCluster jedis = null;
+        byte[] res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.lpop(key);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public byte[] rpop(byte[] key){
+        JedisCluster jedis = null;
+        byte[] res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.rpop(key);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public List<byte[]> lrange(byte[] key,long start,long end){
+        List<byte[]> res = null;
+        try {
+            res = read(key, r -> r.lrange(key, start, end), c -> c.lrange(key, start, end));
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    public Long sadd(byte[] key,byte[]...members){
+        JedisCluster jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.sadd(key, members);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Long srem(byte[] key,byte[]...members){
+        JedisCluster jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.srem(key, members);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Set<byte[]> smembers(byte[] key){
+        Set<byte[]> res = null;
+        try {
+            res = read(key, r -> r.smembers(key), c -> c.smembers(key));
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    public Boolean sismember(byte[] key,byte[] member){
+        Boolean res = null;
+        try {
+            res = read(key, r -> r.sismember(key, member), c -> c.sismember(key, member));
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    /**
+     * 二进制跨槽位mget
+     */
+    private List<byte[]> fanoutMget(byte[]...keys) throws Exception {
+        List<ClusterFanout.SlotResult<List<byte[]>>> results = new ClusterFanout(jedisCluster, getExecutor())
+                .execute(keys, 1, new ClusterFanout.SlotCommand<byte[], List<byte[]>>() {
+            public Response<List<byte[]>> queue(Pipeline pipeline, byte[][] args) {
+                return pipeline.mget(args);
+            }
+            public List<byte[]> redirect(JedisCluster jedisCluster, byte[][] args) {
+                return jedisCluster.mget(args);
+            }
+        });
+        byte[][] values = new byte[keys.length][];
+        for (ClusterFanout.SlotResult<List<byte[]>> result : results) {
+            for (int i = 0; i < result.positions.length; i++) {
+                values[result.positions[i]] = result.result.get(i);
+            }
+        }
+        return new ArrayList<byte[]>(Arrays.asList(values));
+    }
+
+    /**
+     * 二进制跨槽位mset
+     */
+    private String fanoutMset(byte[]...keysvalues) throws Exception {
+        List<ClusterFanout.SlotResult<String>> results = new ClusterFanout(jedisCluster, getExecutor())
+                .execute(keysvalues, 2, new ClusterFanout.SlotCommand<byte[], String>() {
+            public Response<String> queue(Pipeline pipeline, byte[][] args) {
+                return pipeline.mset(args);
+            }
+            public String redirect(JedisCluster jedisCluster, byte[][] args) {
+                return jedisCluster.mset(args);
+            }
+        });
+        for (ClusterFanout.SlotResult<String> result : results) {
+            if (!"OK".equals(result.result)) {
+                return result.result;
+            }
+        }
+        return "OK";
+    }
+
+    /**
+     * 二进制跨槽位del
+     */
+    private Long fanoutDel(byte[]...keys) throws Exception {
+        List<ClusterFanout.SlotResult<Long>> results = new ClusterFanout(jedisCluster, getExecutor())
+                .execute(keys, 1, new ClusterFanout.SlotCommand<byte[], Long>() {
+            public Response<Long> queue(Pipeline pipeline, byte[][] args) {
+                return pipeline.del(args);
+            }
+            public Long redirect(JedisCluster jedisCluster, byte[][] args) {
+                return jedisCluster.del(args);
+            }
+        });
+        long count = 0;
+        for (ClusterFanout.SlotResult<Long> result : results) {
+            count += result.result;
+        }
+        return count;
+    }
+}
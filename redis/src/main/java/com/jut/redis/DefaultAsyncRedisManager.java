@@ -0,0 +1,329 @@
+package com.jut.redis;
+
+import com.jut.redis.pipeline.PipelineCallback;
+import com.jut.redis.utils.NamedThreadFactory;
+import redis.clients.jedis.ListPosition;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/***
+ * 异步redis管理接口默认实现
+ * 在有界线程池上执行SingleRedisManager或ClusterRedisManager的同步命令
+ * 线程池队列满时由调用线程直接执行, 以此对调用方形成背压
+ */
+public class DefaultAsyncRedisManager implements AsyncRedisManager {
+    private RedisManager redisManager;
+
+    /**
+     * 执行命令的线程池, 未设置时使用默认的有界线程池
+     */
+    private volatile ExecutorService executor;
+
+    /**
+     * 线程池是否由本类创建, 创建的线程池在destroy时关闭
+     */
+    private boolean ownExecutor;
+
+    public DefaultAsyncRedisManager() {
+    }
+    public DefaultAsyncRedisManager(RedisManager redisManager) {
+        this.redisManager = redisManager;
+    }
+    public DefaultAsyncRedisManager(RedisManager redisManager, ExecutorService executor) {
+        this.redisManager = redisManager;
+        this.executor = executor;
+    }
+
+    public RedisManager getRedisManager() {
+        return redisManager;
+    }
+    public void setRedisManager(RedisManager redisManager) {
+        this.redisManager = redisManager;
+    }
+    public ExecutorService getExecutor() {
+        if (executor == null) {
+            synchronized (this) {
+                if (executor == null) {
+                    int threads = Math.max(8, Runtime.getRuntime().availableProcessors() * 2);
+                    executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                            new ArrayBlockingQueue<Runnable>(4096), new NamedThreadFactory("jut-redis-async"),
+                            new ThreadPoolExecutor.CallerRunsPolicy());
+                    ownExecutor = true;
+                }
+            }
+        }
+        return executor;
+    }
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * 关闭默认创建的线程池
+     */
+    public void destroy() {
+        if (ownExecutor && executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private <T> CompletableFuture<T> supply(Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(supplier, getExecutor());
+    }
+
+    public CompletableFuture<String> get(String key){
+        return supply(() -> redisManager.get(key));
+    }
+
+    public CompletableFuture<String> set(String key,String value){
+        return supply(() -> redisManager.set(key, value));
+    }
+
+    public CompletableFuture<String> setex(String key,int seconds,String value){
+        return supply(() -> redisManager.setex(key, seconds, value));
+    }
+
+    public CompletableFuture<Long> setrange(String key,int offset,String value){
+        return supply(() -> redisManager.setrange(key, offset, value));
+    }
+
+    public CompletableFuture<List<String>> mget(String...keys){
+        return supply(() -> redisManager.mget(keys));
+    }
+
+    public CompletableFuture<String> mset(String...keysvalues){
+        return supply(() -> redisManager.mset(keysvalues));
+    }
+
+    public CompletableFuture<Long> append(String key,String value){
+        return supply(() -> redisManager.append(key, value));
+    }
+
+    public CompletableFuture<Boolean> exists(String key){
+        return supply(() -> redisManager.exists(key));
+    }
+
+    public CompletableFuture<Long> setnx(String key,String value){
+        return supply(() -> redisManager.setnx(key, value));
+    }
+
+    public CompletableFuture<Long> expire(String key,int seconds){
+        return supply(() -> redisManager.expire(key, seconds));
+    }
+
+    public CompletableFuture<Long> del(String...keys){
+        return supply(() -> redisManager.del(keys));
+    }
+
+    public CompletableFuture<Long> timetolive(String key){
+        return supply(() -> redisManager.timetolive(key));
+    }
+
+    public CompletableFuture<Long> msetnx(String...keysvalues){
+        return supply(() -> redisManager.msetnx(keysvalues));
+    }
+
+    public CompletableFuture<String> getset(String key,String value){
+        return supply(() -> redisManager.getset(key, value));
+    }
+
+    public CompletableFuture<String> getrange(String key, int startOffset ,int endOffset){
+        return supply(() -> redisManager.getrange(key, startOffset, endOffset));
+    }
+
+    public CompletableFuture<Long> incr(String key){
+        return supply(() -> redisManager.incr(key));
+    }
+
+    public CompletableFuture<Long> incrBy(String key,Long integer){
+        return supply(() -> redisManager.incrBy(key, integer));
+    }
+
+    public CompletableFuture<Long> decr(String key){
+        return supply(() -> redisManager.decr(key));
+    }
+
+    public CompletableFuture<Long> decrBy(String key,Long integer){
+        return supply(() -> redisManager.decrBy(key, integer));
+    }
+
+    public CompletableFuture<Long> serlen(String key){
+        return supply(() -> redisManager.serlen(key));
+    }
+
+    public CompletableFuture<Long> hset(String key,String field,String value){
+        return supply(() -> redisManager.hset(key, field, value));
+    }
+
+    public CompletableFuture<Long> hsetnx(String key,String field,String value){
+        return supply(() -> redisManager.hsetnx(key, field, value));
+    }
+
+    public CompletableFuture<String> hmset(String key, Map<String, String> hash){
+        return supply(() -> redisManager.hmset(key, hash));
+    }
+
+    public CompletableFuture<String> hget(String key, String field){
+        return supply(() -> redisManager.hget(key, field));
+    }
+
+    public CompletableFuture<List<String>> hmget(String key,String...fields){
+        return supply(() -> redisManager.hmget(key, fields));
+    }
+
+    public CompletableFuture<Long> hincrby(String key ,String field ,Long value){
+        return supply(() -> redisManager.hincrby(key, field, value));
+    }
+
+    public CompletableFuture<Boolean> hexists(String key , String field){
+        return supply(() -> redisManager.hexists(key, field));
+    }
+
+    public CompletableFuture<Long> hlen(String key){
+        return supply(() -> redisManager.hlen(key));
+    }
+
+    public CompletableFuture<Long> hdel(String key ,String...fields){
+        return supply(() -> redisManager.hdel(key, fields));
+    }
+
+    public CompletableFuture<Set<String>> hkeys(String key){
+        return supply(() -> redisManager.hkeys(key));
+    }
+
+    public CompletableFuture<List<String>> hvals(String key){
+        return supply(() -> redisManager.hvals(key));
+    }
+
+    public CompletableFuture<Map<String, String>> hgetall(String key){
+        return supply(() -> redisManager.hgetall(key));
+    }
+
+    public CompletableFuture<Long> lpush(String key ,String...strs){
+        return supply(() -> redisManager.lpush(key, strs));
+    }
+
+    public CompletableFuture<Long> rpush(String key ,String...strs){
+        return supply(() -> redisManager.rpush(key, strs));
+    }
+
+    public CompletableFuture<Long> linsert(String key, ListPosition where,String pivot, String value){
+        return supply(() -> redisManager.linsert(key, where, pivot, value));
+    }
+
+    public CompletableFuture<String> lset(String key ,Long index, String value){
+        return supply(() -> redisManager.lset(key, index, value));
+    }
+
+    public CompletableFuture<Long> lrem(String key,long count,String value){
+        return supply(() -> redisManager.lrem(key, count, value));
+    }
+
+    public CompletableFuture<String> ltrim(String key ,long start ,long end){
+        return supply(() -> redisManager.ltrim(key, start, end));
+    }
+
+    public CompletableFuture<String> lpop(String key){
+        return supply(() -> redisManager.lpop(key));
+    }
+
+    public CompletableFuture<String> rpop(String key){
+        return supply(() -> redisManager.rpop(key));
+    }
+
+    public CompletableFuture<String> rpoplpush(String srckey, String dstkey){
+        return supply(() -> redisManager.rpoplpush(srckey, dstkey));
+    }
+
+    public CompletableFuture<String> lindex(String key,long index){
+        return supply(() -> redisManager.lindex(key, index));
+    }
+
+    public CompletableFuture<Long> llen(String key){
+        return supply(() -> redisManager.llen(key));
+    }
+
+    public CompletableFuture<List<String>> lrange(String key, long start, long end){
+        return supply(() -> redisManager.lrange(key, start, end));
+    }
+
+    public CompletableFuture<Long> sadd(String key,String...members){
+        return supply(() -> redisManager.sadd(key, members));
+    }
+
+    public CompletableFuture<Long> srem(String key,String...members){
+        return supply(() -> redisManager.srem(key, members));
+    }
+
+    public CompletableFuture<String> spop(String key){
+        return supply(() -> redisManager.spop(key));
+    }
+
+    public CompletableFuture<Set<String>> sdiff(String...keys){
+        return supply(() -> redisManager.sdiff(keys));
+    }
+
+    public CompletableFuture<Long> sdiffstore(String dstkey,String... keys){
+        return supply(() -> redisManager.sdiffstore(dstkey, keys));
+    }
+
+    public CompletableFuture<Set<String>> sinter(String...keys){
+        return supply(() -> redisManager.sinter(keys));
+    }
+
+    public CompletableFuture<Long> sinterstore(String dstkey,String...keys){
+        return supply(() -> redisManager.sinterstore(dstkey, keys));
+    }
+
+    public CompletableFuture<Set<String>> sunion(String... keys){
+        return supply(() -> redisManager.sunion(keys));
+    }
+
+    public CompletableFuture<Long> sunionstore(String dstkey,String...keys){
+        return supply(() -> redisManager.sunionstore(dstkey, keys));
+    }
+
+    public CompletableFuture<Long> smove(String srckey, String dstkey, String member){
+        return supply(() -> redisManager.smove(srckey, dstkey, member));
+    }
+
+    public CompletableFuture<Long> scard(String key){
+        return supply(() -> redisManager.scard(key));
+    }
+
+    public CompletableFuture<Boolean> sismember(String key,String member){
+        return supply(() -> redisManager.sismember(key, member));
+    }
+
+    public CompletableFuture<String> srandmember(String key){
+        return supply(() -> redisManager.srandmember(key));
+    }
+
+    public CompletableFuture<Set<String>> smembers(String key){
+        return supply(() -> redisManager.smembers(key));
+    }
+
+    public CompletableFuture<Long> zremrangeByRank(String key ,long start, long end){
+        return supply(() -> redisManager.zremrangeByRank(key, start, end));
+    }
+
+    public CompletableFuture<Long> zremrangeByScore(String key,double start,double end){
+        return supply(() -> redisManager.zremrangeByScore(key, start, end));
+    }
+
+    public CompletableFuture<String> type(String key){
+        return supply(() -> redisManager.type(key));
+    }
+
+    public CompletableFuture<List<Object>> pipelined(PipelineCallback callback){
+        return supply(() -> redisManager.pipelined(callback));
+    }
+}
@@ -0,0 +1,571 @@
+package com.jut.redis;
+
+import com.jut.redis.scan.CloseableIterator;
+import com.jut.redis.scan.ScanOptions;
+import com.jut.redis.utils.NamedThreadFactory;
+import com.jut.redis.utils.StringUtil;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.Tuple;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/***
+ * redis管理接口主从读写分离实现(非集群)
+ * 写命令和其余命令发往主节点, 只读命令在可用的从节点间轮询, 没有可用从节点时读主节点
+ * 主节点和从节点各用一个SingleRedisManager和JedisPool, 异常处理与SingleRedisManager一致
+ *
+ * 拓扑来源二选一:
+ * sentinels + masterName 通过SENTINEL get-master-addr-by-name/slaves发现主从, 排除s_down/o_down/disconnected
+ *                        以及与主节点断开的从节点
+ * master + replicas      静态配置, 刷新时对每个节点执行INFO replication, 以报告role:master的节点为主节点,
+ *                        不可达的节点不参与读取
+ * init后按refreshMillis定期刷新; 主节点变化时新建连接池并原子替换, 旧连接池在一个超时周期后关闭,
+ * 已借出的连接照常完成, 切换期间不丢弃请求
+ * 从节点数据可能落后于主节点, 写后立即读需要读到新值的场景请直接使用getMasterManager
+ * 从节点连接失败时该次读取改由主节点执行, 并在replicaDownMillis内不再选择该从节点, 不必等到下一次拓扑刷新;
+ * scan类迭代器在遍历过程中访问节点, 不做重试
+ */
+public class MasterReplicaRedisManager extends RedisManagerDecorator implements Closeable {
+    private final static Logger logger = LoggerFactory.getLogger(MasterReplicaRedisManager.class);
+
+    /**
+     * sentinel地址, host:port
+     */
+    private Set<String> sentinels;
+    private String masterName;
+    /**
+     * 静态配置的主节点, host:port
+     */
+    private String master;
+    /**
+     * 静态配置的从节点, host:port
+     */
+    private List<String> replicas = Collections.emptyList();
+    private GenericObjectPoolConfig poolConfig = new JedisPoolConfig();
+    private int timeout = Protocol.DEFAULT_TIMEOUT;
+    private String password;
+    private int database = Protocol.DEFAULT_DATABASE;
+    /**
+     * 拓扑刷新间隔, 毫秒
+     */
+    private long refreshMillis = 1000L;
+    /**
+     * 从节点连接失败后暂停读取的时间, 毫秒
+     */
+    private long replicaDownMillis = 5000L;
+
+    private final SingleRedisManager masterManager = new SingleRedisManager();
+    private final AtomicInteger counter = new AtomicInteger();
+    private volatile String masterAddress;
+    private volatile List<Replica> replicaNodes = Collections.emptyList();
+    private ScheduledExecutorService scheduler;
+    /**
+     * 等待关闭的旧连接池
+     */
+    private final Set<JedisPool> retiring = Collections.newSetFromMap(new ConcurrentHashMap<JedisPool, Boolean>());
+
+    public MasterReplicaRedisManager() {
+        this.redisManager = masterManager;
+    }
+
+    public Set<String> getSentinels() {
+        return sentinels;
+    }
+    public void setSentinels(Set<String> sentinels) {
+        this.sentinels = sentinels;
+    }
+    public String getMasterName() {
+        return masterName;
+    }
+    public void setMasterName(String masterName) {
+        this.masterName = masterName;
+    }
+    public String getMaster() {
+        return master;
+    }
+    public void setMaster(String master) {
+        this.master = master;
+    }
+    public List<String> getReplicas() {
+        return replicas;
+    }
+    public void setReplicas(List<String> replicas) {
+        this.replicas = replicas;
+    }
+    public GenericObjectPoolConfig getPoolConfig() {
+        return poolConfig;
+    }
+    public void setPoolConfig(GenericObjectPoolConfig poolConfig) {
+        this.poolConfig = poolConfig;
+    }
+    public int getTimeout() {
+        return timeout;
+    }
+    public void setTimeout(int timeout) {
+        this.timeout = timeout;
+    }
+    public String getPassword() {
+        return password;
+    }
+    public void setPassword(String password) {
+        this.password = password;
+    }
+    public int getDatabase() {
+        return database;
+    }
+    public void setDatabase(int database) {
+        this.database = database;
+    }
+    public long getRefreshMillis() {
+        return refreshMillis;
+    }
+    public void setRefreshMillis(long refreshMillis) {
+        this.refreshMillis = refreshMillis;
+    }
+    public long getReplicaDownMillis() {
+        return replicaDownMillis;
+    }
+    public void setReplicaDownMillis(long replicaDownMillis) {
+        this.replicaDownMillis = replicaDownMillis;
+    }
+
+    /**
+     * 主节点的管理接口, 所有命令都在主节点执行
+     */
+    public SingleRedisManager getMasterManager() {
+        return masterManager;
+    }
+
+    /**
+     * 当前主节点, host:port
+     */
+    public String getMasterAddress() {
+        return masterAddress;
+    }
+
+    /**
+     * 当前参与读取的从节点, host:port, 不包括连接失败后暂停读取的从节点
+     */
+    public List<String> getReplicaAddresses() {
+        List<String> addresses = new ArrayList<String>();
+        long now = System.currentTimeMillis();
+        for (Replica replica : replicaNodes) {
+            if (!replica.isDown(now)) {
+                addresses.add(replica.address);
+            }
+        }
+        return addresses;
+    }
+
+    private static class Replica {
+        final String address;
+        final JedisPool pool;
+        final ReplicaManager manager = new ReplicaManager();
+        /**
+         * 暂停读取的截止时刻
+         */
+        volatile long downUntil;
+
+        Replica(String address, JedisPool pool) {
+            this.address = address;
+            this.pool = pool;
+            this.manager.setJedisPool(pool);
+        }
+
+        boolean isDown(long now) {
+            return downUntil > now;
+        }
+    }
+
+    /**
+     * 记录当前线程的命令是否因连接失败被吞掉
+     */
+    private static class ReplicaManager extends SingleRedisManager {
+        private final ThreadLocal<Boolean> connectionFailed = new ThreadLocal<Boolean>();
+
+        protected void exceptionProcess(Exception e) {
+            super.exceptionProcess(e);
+            if (e instanceof JedisConnectionException) {
+                connectionFailed.set(Boolean.TRUE);
+            }
+        }
+
+        /**
+         * 取出并清除当前线程的连接失败标记
+         */
+        boolean takeConnectionFailure() {
+            if (connectionFailed.get() == null) {
+                return false;
+            }
+            connectionFailed.remove();
+            return true;
+        }
+    }
+
+    /**
+     * 拓扑快照
+     */
+    private static class Topology {
+        String master;
+        final List<String> replicas = new ArrayList<String>();
+    }
+
+    /**
+     * 发现拓扑并开始定期刷新
+     */
+    public synchronized void init() {
+        if (scheduler != null) {
+            return;
+        }
+        if (!refresh()) {
+            throw new IllegalStateException("can not discover redis master");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("jut-redis-topology"));
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                try {
+                    refresh();
+                } catch (Exception e) {
+                    logger.error(StringUtil.logException(e));
+                }
+            }
+        }, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 重新发现拓扑, 主节点或从节点有变化时替换连接池
+     *
+     * @return 是否发现了主节点
+     */
+    public synchronized boolean refresh() {
+        Topology topology = sentinels != null && !sentinels.isEmpty() ? discoverBySentinel() : discoverStatic();
+        if (topology == null || topology.master == null) {
+            logger.warn("redis master not found, keep current topology");
+            return false;
+        }
+        if (!topology.master.equals(masterAddress)) {
+            JedisPool old = masterManager.getJedisPool();
+            masterManager.setJedisPool(createPool(topology.master));
+            logger.warn("redis master switched from " + masterAddress + " to " + topology.master);
+            masterAddress = topology.master;
+            retire(old);
+        }
+        Map<String, Replica> current = new LinkedHashMap<String, Replica>();
+        for (Replica replica : replicaNodes) {
+            current.put(replica.address, replica);
+        }
+        List<Replica> updated = new ArrayList<Replica>();
+        for (String address : topology.replicas) {
+            Replica replica = current.remove(address);
+            updated.add(replica == null ? new Replica(address, createPool(address)) : replica);
+        }
+        replicaNodes = Collections.unmodifiableList(updated);
+        for (Replica removed : current.values()) {
+            logger.warn("redis replica " + removed.address + " removed from read pool");
+            retire(removed.pool);
+        }
+        return true;
+    }
+
+    private Topology discoverBySentinel() {
+        for (String sentinel : sentinels) {
+            HostAndPort hostAndPort = HostAndPort.parseString(sentinel);
+            Jedis jedis = null;
+            try {
+                jedis = new Jedis(hostAndPort.getHost(), hostAndPort.getPort(), timeout);
+                List<String> address = jedis.sentinelGetMasterAddrByName(masterName);
+                if (address == null || address.size() != 2) {
+                    logger.warn("sentinel " + sentinel + " does not know master " + masterName);
+                    continue;
+                }
+                Topology topology = new Topology();
+                topology.master = address.get(0) + ":" + address.get(1);
+                for (Map<String, String> replica : jedis.sentinelSlaves(masterName)) {
+                    String flags = replica.get("flags");
+                    if (flags == null || flags.contains("s_down") || flags.contains("o_down")
+                            || flags.contains("disconnected") || !"ok".equals(replica.get("master-link-status"))) {
+                        continue;
+                    }
+                    topology.replicas.add(replica.get("ip") + ":" + replica.get("port"));
+                }
+                return topology;
+            } catch (Exception e) {
+                logger.warn("query sentinel " + sentinel + " failed, try next: " + e);
+            } finally {
+                if (jedis != null) {
+                    jedis.close();
+                }
+            }
+        }
+        return null;
+    }
+
+    private Topology discoverStatic() {
+        List<String> nodes = new ArrayList<String>();
+        if (master != null) {
+            nodes.add(master);
+        }
+        nodes.addAll(replicas);
+        Topology topology = new Topology();
+        for (String node : nodes) {
+            String role = role(node);
+            if ("master".equals(role) && topology.master == null) {
+                topology.master = node;
+            } else if (role != null) {
+                topology.replicas.add(node);
+            }
+        }
+        return topology;
+    }
+
+    /**
+     * 节点的角色(INFO replication中的role), 不可达时返回null
+     */
+    private String role(String node) {
+        HostAndPort hostAndPort = HostAndPort.parseString(node);
+        Jedis jedis = null;
+        try {
+            jedis = new Jedis(hostAndPort.getHost(), hostAndPort.getPort(), timeout);
+            if (password != null) {
+                jedis.auth(password);
+            }
+            for (String line : jedis.info("replication").split("\r\n")) {
+                if (line.startsWith("role:")) {
+                    return line.substring("role:".length()).trim();
+                }
+            }
+            return null;
+        } catch (Exception e) {
+            logger.warn("redis node " + node + " unreachable: " + e);
+            return null;
+        } finally {
+            if (jedis != null) {
+                jedis.close();
+            }
+        }
+    }
+
+    private JedisPool createPool(String address) {
+        HostAndPort hostAndPort = HostAndPort.parseString(address);
+        return new JedisPool(poolConfig, hostAndPort.getHost(), hostAndPort.getPort(), timeout, password, database);
+    }
+
+    /**
+     * 等已借出的连接用完后再关闭连接池
+     */
+    private void retire(final JedisPool pool) {
+        if (pool == null) {
+            return;
+        }
+        if (scheduler == null) {
+            pool.close();
+            return;
+        }
+        retiring.add(pool);
+        scheduler.schedule(new Runnable() {
+            public void run() {
+                if (retiring.remove(pool)) {
+                    pool.close();
+                }
+            }
+        }, Math.max(timeout, refreshMillis) * 2L, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止刷新并关闭所有连接池
+     */
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        for (JedisPool pool : retiring) {
+            pool.close();
+        }
+        retiring.clear();
+        for (Replica replica : replicaNodes) {
+            replica.pool.close();
+        }
+        replicaNodes = Collections.<Replica>emptyList();
+        JedisPool pool = masterManager.getJedisPool();
+        if (pool != null) {
+            pool.close();
+        }
+        masterAddress = null;
+    }
+
+    /**
+     * 轮询选择执行只读命令的从节点, 没有可用从节点时由主节点执行
+     */
+    private RedisManager reader() {
+        Replica replica = selectReplica();
+        return replica == null ? masterManager : replica.manager;
+    }
+
+    private Replica selectReplica() {
+        List<Replica> nodes = replicaNodes;
+        int size = nodes.size();
+        if (size == 0) {
+            return null;
+        }
+        int start = counter.getAndIncrement() & Integer.MAX_VALUE;
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < size; i++) {
+            Replica replica = nodes.get((start + i) % size);
+            if (!replica.isDown(now)) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 在选中的从节点执行只读命令, 连接失败时标记该从节点暂停读取并改由主节点执行
+     */
+    private <T> T read(Function<RedisManager, T> command) {
+        Replica replica = selectReplica();
+        if (replica == null) {
+            return command.apply(masterManager);
+        }
+        replica.manager.takeConnectionFailure();
+        T res = command.apply(replica.manager);
+        if (!replica.manager.takeConnectionFailure()) {
+            return res;
+        }
+        replica.downUntil = System.currentTimeMillis() + replicaDownMillis;
+        logger.warn("redis replica " + replica.address + " connection failed, read from master for " + replicaDownMillis + "ms");
+        return command.apply(masterManager);
+    }
+
+    public String get(String key){
+        return read(m -> m.get(key));
+    }
+
+    public List<String> mget(String...keys){
+        return read(m -> m.mget(keys));
+    }
+
+    public Boolean exists(String key){
+        return read(m -> m.exists(key));
+    }
+
+    public Long timetolive(String key){
+        return read(m -> m.timetolive(key));
+    }
+
+    public String getrange(String key, int startOffset ,int endOffset){
+        return read(m -> m.getrange(key, startOffset, endOffset));
+    }
+
+    public Long serlen(String key){
+        return read(m -> m.serlen(key));
+    }
+
+    public String hget(String key, String field){
+        return read(m -> m.hget(key, field));
+    }
+
+    public List<String> hmget(String key,String...fields){
+        return read(m -> m.hmget(key, fields));
+    }
+
+    public Boolean hexists(String key , String field){
+        return read(m -> m.hexists(key, field));
+    }
+
+    public Long hlen(String key){
+        return read(m -> m.hlen(key));
+    }
+
+    public Set<String> hkeys(String key){
+        return read(m -> m.hkeys(key));
+    }
+
+    public List<String> hvals(String key){
+        return read(m -> m.hvals(key));
+    }
+
+    public Map<String, String> hgetall(String key){
+        return read(m -> m.hgetall(key));
+    }
+
+    public String lindex(String key,long index){
+        return read(m -> m.lindex(key, index));
+    }
+
+    public Long llen(String key){
+        return read(m -> m.llen(key));
+    }
+
+    public List<String> lrange(String key, long start, long end){
+        return read(m -> m.lrange(key, start, end));
+    }
+
+    public Set<String> sdiff(String...keys){
+        return read(m -> m.sdiff(keys));
+    }
+
+    public Set<String> sinter(String...keys){
+        return read(m -> m.sinter(keys));
+    }
+
+    public Set<String> sunion(String... keys){
+        return read(m -> m.sunion(keys));
+    }
+
+    public Long scard(String key){
+        return read(m -> m.scard(key));
+    }
+
+    public Boolean sismember(String key,String member){
+        return read(m -> m.sismember(key, member));
+    }
+
+    public String srandmember(String key){
+        return read(m -> m.srandmember(key));
+    }
+
+    public Set<String> smembers(String key){
+        return read(m -> m.smembers(key));
+    }
+
+    public String type(String key){
+        return read(m -> m.type(key));
+    }
+
+    public CloseableIterator<String> scan(ScanOptions options){
+        return reader().scan(options);
+    }
+
+    public CloseableIterator<Map.Entry<String, String>> hscan(String key, ScanOptions options){
+        return reader().hscan(key, options);
+    }
+
+    public CloseableIterator<String> sscan(String key, ScanOptions options){
+        return reader().sscan(key, options);
+    }
+
+    public CloseableIterator<Tuple> zscan(String key, ScanOptions options){
+        return reader().zscan(key, options);
+    }
+}
@@ -0,0 +1,84 @@
+package com.jut.redis;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Protocol;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/***
+ * 按数据库索引划分的连接池组
+ * 同一redis服务的每个数据库使用独立的子连接池, 连接在创建时select一次, 借出时不再切换数据库
+ * 多个不同dbIndex的SingleRedisManager可以共用同一个连接池组
+ */
+public class RedisDatabasePools {
+    private String host = Protocol.DEFAULT_HOST;
+    private int port = Protocol.DEFAULT_PORT;
+    private int timeout = Protocol.DEFAULT_TIMEOUT;
+    private String password;
+    private GenericObjectPoolConfig poolConfig = new GenericObjectPoolConfig();
+
+    /**
+     * 数据库索引 -> 子连接池
+     */
+    private final ConcurrentMap<Integer, JedisPool> pools = new ConcurrentHashMap<Integer, JedisPool>();
+
+    /**
+     * 获取指定数据库的子连接池, 不存在时创建
+     */
+    public JedisPool getPool(int database) {
+        JedisPool pool = pools.get(database);
+        if (pool == null) {
+            synchronized (pools) {
+                pool = pools.get(database);
+                if (pool == null) {
+                    pool = new JedisPool(poolConfig, host, port, timeout, password, database);
+                    pools.put(database, pool);
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * 关闭所有子连接池
+     */
+    public void destroy() {
+        for (JedisPool pool : pools.values()) {
+            pool.close();
+        }
+        pools.clear();
+    }
+
+    public String getHost() {
+        return host;
+    }
+    public void setHost(String host) {
+        this.host = host;
+    }
+    public int getPort() {
+        return port;
+    }
+    public void setPort(int port) {
+        this.port = port;
+    }
+    public int getTimeout() {
+        return timeout;
+    }
+    public void setTimeout(int timeout) {
+        this.timeout = timeout;
+    }
+    public String getPassword() {
+        return password;
+    }
+    public void setPassword(String password) {
+        this.password = password;
+    }
+    public GenericObjectPoolConfig getPoolConfig() {
+        return poolConfig;
+    }
+    public void setPoolConfig(GenericObjectPoolConfig poolConfig) {
+        this.poolConfig = poolConfig;
+    }
+}
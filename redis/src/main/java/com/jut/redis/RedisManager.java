@@ -1,6 +1,11 @@
 package com.jut.redis;
 
+import com.jut.redis.pipeline.PipelineCallback;
+import com.jut.redis.scan.CloseableIterator;
+import com.jut.redis.scan.ScanOptions;
+import com.jut.redis.script.RedisScript;
 import redis.clients.jedis.ListPosition;
+import redis.clients.jedis.Tuple;
 
 import java.util.List;
 import java.util.Map;
@@ -15,6 +20,12 @@ import java.util.Set;
 public interface RedisManager {
     public String get(String key);
     public String set(String key,String value);
+
+    /**
+     * 带参数的set, 一次往返完成条件写入和设置过期时间
+     * @return 未设置get时, 写入返回OK, 条件不满足返回null; 设置get时返回写入前的值
+     */
+    public String set(String key, String value, SetOptions options);
     public String setex(String key,int seconds,String value);
     public Long setrange(String key,int offset,String value);
     public List<String> mget(String...keys);
@@ -30,6 +41,13 @@ public interface RedisManager {
     public String getrange(String key, int startOffset ,int endOffset);
     public Long incr(String key);
     public Long incrBy(String key,Long integer);
+
+    /**
+     * 增加计数, 计数器由本次调用创建时设置seconds秒过期, 已存在的计数器(无论有无过期时间)不改变; 由脚本原子执行, 一次往返
+     *
+     * @throws IllegalArgumentException seconds不是正数
+     */
+    public Long incrByEx(String key, Long integer, int seconds);
     public Long decr(String key);
     public Long decrBy(String key,Long integer);
     public Long serlen(String key);
@@ -39,6 +57,13 @@ public interface RedisManager {
     public String hget(String key, String field);
     public List<String> hmget(String key,String...fields);
     public Long hincrby(String key ,String field ,Long value);
+
+    /**
+     * 增加hash域的计数, hash由本次调用创建时设置seconds秒过期, 已存在的hash(无论有无过期时间)不改变; 由脚本原子执行, 一次往返
+     *
+     * @throws IllegalArgumentException seconds不是正数
+     */
+    public Long hincrbyEx(String key, String field, Long value, int seconds);
     public Boolean hexists(String key , String field);
     public Long hlen(String key);
     public Long hdel(String key ,String...fields);
@@ -54,6 +79,11 @@ public interface RedisManager {
     public String lpop(String key);
     public String rpop(String key);
     public String rpoplpush(String srckey, String dstkey);
+    /**
+     * 阻塞弹出列表头部元素, 列表为空时最多等待timeout秒(0为一直等待), 等待期间占用一个连接
+     * @return [key, value], 超时返回null
+     */
+    public List<String> blpop(int timeout, String key);
     public String lindex(String key,long index);
     public Long llen(String key);
     public List<String> lrange(String key, long start, long end);
@@ -74,4 +104,37 @@ public interface RedisManager {
     public Long zremrangeByRank(String key ,long start, long end);
     public Long zremrangeByScore(String key,double start,double end);
     public String type(String key);
+
+    /**
+     * 管道批量执行: 回调中排队的命令在一次写入中发出, 一次读取所有响应
+     * @return 按入队顺序排列的响应, 出错的命令以异常对象的形式返回
+     */
+    public List<Object> pipelined(PipelineCallback callback);
+
+    /**
+     * 基于scan游标惰性遍历key, 不会像keys命令那样阻塞服务端
+     * 遍历期间同一个key可能返回多次, 提前结束时需调用close; 请求失败时hasNext/next抛出JedisException
+     */
+    public CloseableIterator<String> scan(ScanOptions options);
+
+    /**
+     * 基于hscan分页惰性遍历hash, 每页数量由options.count提示; 与scan相同, 请求失败时hasNext/next抛出JedisException
+     */
+    public CloseableIterator<Map.Entry<String, String>> hscan(String key, ScanOptions options);
+
+    /**
+     * 基于sscan分页惰性遍历set
+     */
+    public CloseableIterator<String> sscan(String key, ScanOptions options);
+
+    /**
+     * 基于zscan分页惰性遍历sorted set
+     */
+    public CloseableIterator<Tuple> zscan(String key, ScanOptions options);
+
+    /**
+     * 执行lua脚本: 先EVALSHA, 节点上没有该脚本(NOSCRIPT)时SCRIPT LOAD后重试, 每个节点只需加载一次
+     * 集群模式下所有key需位于同一槽位, 且至少有一个key用于确定节点
+     */
+    public <T> T eval(RedisScript<T> script, List<String> keys, List<String> args);
 }
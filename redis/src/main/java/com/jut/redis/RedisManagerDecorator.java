@@ -0,0 +1,317 @@
+package com.jut.redis;
+
+import com.jut.redis.pipeline.PipelineCallback;
+import com.jut.redis.scan.CloseableIterator;
+import com.jut.redis.scan.ScanOptions;
+import com.jut.redis.script.RedisScript;
+import redis.clients.jedis.ListPosition;
+import redis.clients.jedis.Tuple;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/***
+ * redis管理接口装饰基类
+ * 所有方法直接委托给被装饰的RedisManager, 子类只覆盖需要增强的方法
+ */
+public abstract class RedisManagerDecorator implements RedisManager {
+    protected RedisManager redisManager;
+
+    protected RedisManagerDecorator() {
+    }
+    protected RedisManagerDecorator(RedisManager redisManager) {
+        this.redisManager = redisManager;
+    }
+
+    public RedisManager getRedisManager() {
+        return redisManager;
+    }
+    public void setRedisManager(RedisManager redisManager) {
+        this.redisManager = redisManager;
+    }
+
+    public String get(String key){
+        return redisManager.get(key);
+    }
+
+    public String set(String key,String value){
+        return redisManager.set(key, value);
+    }
+
+    public String set(String key, String value, SetOptions options){
+        return redisManager.set(key, value, options);
+    }
+
+    public String setex(String key,int seconds,String value){
+        return redisManager.setex(key, seconds, value);
+    }
+
+    public Long setrange(String key,int offset,String value){
+        return redisManager.setrange(key, offset, value);
+    }
+
+    public List<String> mget(String...keys){
+        return redisManager.mget(keys);
+    }
+
+    public String mset(String...keysvalues){
+        return redisManager.mset(keysvalues);
+    }
+
+    public Long append(String key,String value){
+        return redisManager.append(key, value);
+    }
+
+    public Boolean exists(String key){
+        return redisManager.exists(key);
+    }
+
+    public Long setnx(String key,String value){
+        return redisManager.setnx(key, value);
+    }
+
+    public Long expire(String key,int seconds){
+        return redisManager.expire(key, seconds);
+    }
+
+    public Long del(String...keys){
+        return redisManager.del(keys);
+    }
+
+    public Long timetolive(String key){
+        return redisManager.timetolive(key);
+    }
+
+    public Long msetnx(String...keysvalues){
+        return redisManager.msetnx(keysvalues);
+    }
+
+    public String getset(String key,String value){
+        return redisManager.getset(key, value);
+    }
+
+    public String getrange(String key, int startOffset ,int endOffset){
+        return redisManager.getrange(key, startOffset, endOffset);
+    }
+
+    public Long incr(String key){
+        return redisManager.incr(key);
+    }
+
+    public Long incrBy(String key,Long integer){
+        return redisManager.incrBy(key, integer);
+    }
+
+    public Long incrByEx(String key, Long integer, int seconds){
+        return redisManager.incrByEx(key, integer, seconds);
+    }
+
+    public Long decr(String key){
+        return redisManager.decr(key);
+    }
+
+    public Long decrBy(String key,Long integer){
+        return redisManager.decrBy(key, integer);
+    }
+
+    public Long serlen(String key){
+        return redisManager.serlen(key);
+    }
+
+    public Long hset(String key,String field,String value){
+        return redisManager.hset(key, field, value);
+    }
+
+    public Long hsetnx(String key,String field,String value){
+        return redisManager.hsetnx(key, field, value);
+    }
+
+    public String hmset(String key, Map<String, String> hash){
+        return redisManager.hmset(key, hash);
+    }
+
+    public String hget(String key, String field){
+        return redisManager.hget(key, field);
+    }
+
+    public List<String> hmget(String key,String...fields){
+        return redisManager.hmget(key, fields);
+    }
+
+    public Long hincrby(String key ,String field ,Long value){
+        return redisManager.hincrby(key, field, value);
+    }
+
+    public Long hincrbyEx(String key, String field, Long value, int seconds){
+        return redisManager.hincrbyEx(key, field, value, seconds);
+    }
+
+    public Boolean hexists(String key , String field){
+        return redisManager.hexists(key, field);
+    }
+
+    public Long hlen(String key){
+        return redisManager.hlen(key);
+    }
+
+    public Long hdel(String key ,String...fields){
+        return redisManager.hdel(key, fields);
+    }
+
+    public Set<String> hkeys(String key){
+        return redisManager.hkeys(key);
+    }
+
+    public List<String> hvals(String key){
+        return redisManager.hvals(key);
+    }
+
+    public Map<String, String> hgetall(String key){
+        return redisManager.hgetall(key);
+    }
+
+    public Long lpush(String key ,String...strs){
+        return redisManager.lpush(key, strs);
+    }
+
+    public Long rpush(String key ,String...strs){
+        return redisManager.rpush(key, strs);
+    }
+
+    public Long linsert(String key, ListPosition where,String pivot, String value){
+        return redisManager.linsert(key, where, pivot, value);
+    }
+
+    public String lset(String key ,Long index, String value){
+        return redisManager.lset(key, index, value);
+    }
+
+    public Long lrem(String key,long count,String value){
+        return redisManager.lrem(key, count, value);
+    }
+
+    public String ltrim(String key ,long start ,long end){
+        return redisManager.ltrim(key, start, end);
+    }
+
+    public String lpop(String key){
+        return redisManager.lpop(key);
+    }
+
+    public String rpop(String key){
+        return redisManager.rpop(key);
+    }
+
+    public String rpoplpush(String srckey, String dstkey){
+        return redisManager.rpoplpush(srckey, dstkey);
+    }
+
+    public List<String> blpop(int timeout, String key){
+        return redisManager.blpop(timeout, key);
+    }
+
+    public String lindex(String key,long index){
+        return redisManager.lindex(key, index);
+    }
+
+    public Long llen(String key){
+        return redisManager.llen(key);
+    }
+
+    public List<String> lrange(String key, long start, long end){
+        return redisManager.lrange(key, start, end);
+    }
+
+    public Long sadd(String key,String...members){
+        return redisManager.sadd(key, members);
+    }
+
+    public Long srem(String key,String...members){
+        return redisManager.srem(key, members);
+    }
+
+    public String spop(String key){
+        return redisManager.spop(key);
+    }
+
+    public Set<String> sdiff(String...keys){
+        return redisManager.sdiff(keys);
+    }
+
+    public Long sdiffstore(String dstkey,String... keys){
+        return redisManager.sdiffstore(dstkey, keys);
+    }
+
+    public Set<String> sinter(String...keys){
+        return redisManager.sinter(keys);
+    }
+
+    public Long sinterstore(String dstkey,String...keys){
+        return redisManager.sinterstore(dstkey, keys);
+    }
+
+    public Set<String> sunion(String... keys){
+        return redisManager.sunion(keys);
+    }
+
+    public Long sunionstore(String dstkey,String...keys){
+        return redisManager.sunionstore(dstkey, keys);
+    }
+
+    public Long smove(String srckey, String dstkey, String member){
+        return redisManager.smove(srckey, dstkey, member);
+    }
+
+    public Long scard(String key){
+        return redisManager.scard(key);
+    }
+
+    public Boolean sismember(String key,String member){
+        return redisManager.sismember(key, member);
+    }
+
+    public String srandmember(String key){
+        return redisManager.srandmember(key);
+    }
+
+    public Set<String> smembers(String key){
+        return redisManager.smembers(key);
+    }
+
+    public Long zremrangeByRank(String key ,long start, long end){
+        return redisManager.zremrangeByRank(key, start, end);
+    }
+
+    public Long zremrangeByScore(String key,double start,double end){
+        return redisManager.zremrangeByScore(key, start, end);
+    }
+
+    public String type(String key){
+        return redisManager.type(key);
+    }
+
+    public List<Object> pipelined(PipelineCallback callback){
+        return redisManager.pipelined(callback);
+    }
+
+    public CloseableIterator<String> scan(ScanOptions options){
+        return redisManager.scan(options);
+    }
+
+    public CloseableIterator<Map.Entry<String, String>> hscan(String key, ScanOptions options){
+        return redisManager.hscan(key, options);
+    }
+
+    public CloseableIterator<String> sscan(String key, ScanOptions options){
+        return redisManager.sscan(key, options);
+    }
+
+    public CloseableIterator<Tuple> zscan(String key, ScanOptions options){
+        return redisManager.zscan(key, options);
+    }
+
+    public <T> T eval(RedisScript<T> script, List<String> keys, List<String> args){
+        return redisManager.eval(script, keys, args);
+    }
+}
@@ -0,0 +1,170 @@
+package com.jut.redis;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.params.SetParams;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/***
+ * set参数
+ * nx/xx为写入条件, ex/px为过期时间, keepTtl保留原有过期时间(需要redis 6.0及以上),
+ * get返回写入前的值(需要redis 6.2及以上, 与nx同时使用需要7.0及以上)
+ * 互斥的参数同时设置时抛出IllegalArgumentException
+ */
+public class SetOptions {
+    private boolean nx;
+    private boolean xx;
+    private int seconds;
+    private long millis;
+    private boolean keepTtl;
+    private boolean get;
+
+    public static SetOptions setOptions() {
+        return new SetOptions();
+    }
+
+    /**
+     * 只在key不存在时写入
+     */
+    public SetOptions nx() {
+        if (xx) {
+            throw new IllegalArgumentException("nx and xx are mutually exclusive");
+        }
+        this.nx = true;
+        return this;
+    }
+    /**
+     * 只在key已存在时写入
+     */
+    public SetOptions xx() {
+        if (nx) {
+            throw new IllegalArgumentException("nx and xx are mutually exclusive");
+        }
+        this.xx = true;
+        return this;
+    }
+    public SetOptions ex(int seconds) {
+        if (seconds <= 0) {
+            throw new IllegalArgumentException("ex seconds must be positive, got " + seconds);
+        }
+        checkTtl();
+        this.seconds = seconds;
+        return this;
+    }
+    public SetOptions px(long millis) {
+        if (millis <= 0) {
+            throw new IllegalArgumentException("px millis must be positive, got " + millis);
+        }
+        checkTtl();
+        this.millis = millis;
+        return this;
+    }
+    public SetOptions keepTtl() {
+        checkTtl();
+        this.keepTtl = true;
+        return this;
+    }
+    public SetOptions get() {
+        this.get = true;
+        return this;
+    }
+
+    private void checkTtl() {
+        if (seconds > 0 || millis > 0 || keepTtl) {
+            throw new IllegalArgumentException("ex, px and keepTtl are mutually exclusive");
+        }
+    }
+
+    public boolean isNx() {
+        return nx;
+    }
+    public boolean isXx() {
+        return xx;
+    }
+    public int getSeconds() {
+        return seconds;
+    }
+    public long getMillis() {
+        return millis;
+    }
+    public boolean isKeepTtl() {
+        return keepTtl;
+    }
+    public boolean isGet() {
+        return get;
+    }
+
+    /**
+     * jedis 3.0的SetParams不支持keepTtl和get, 设置后需发送原始命令
+     */
+    public boolean isRaw() {
+        return keepTtl || get;
+    }
+
+    /**
+     * 转换为jedis的set参数, 不包含keepTtl和get
+     */
+    public SetParams toSetParams() {
+        SetParams params = SetParams.setParams();
+        if (nx) {
+            params.nx();
+        }
+        if (xx) {
+            params.xx();
+        }
+        if (seconds > 0) {
+            params.ex(seconds);
+        }
+        if (millis > 0) {
+            params.px(millis);
+        }
+        return params;
+    }
+
+    /**
+     * 原始set命令的参数
+     */
+    public String[] toArgs(String key, String value) {
+        List<String> args = new ArrayList<String>(8);
+        args.add(key);
+        args.add(value);
+        if (nx) {
+            args.add("NX");
+        }
+        if (xx) {
+            args.add("XX");
+        }
+        if (seconds > 0) {
+            args.add("EX");
+            args.add(String.valueOf(seconds));
+        }
+        if (millis > 0) {
+            args.add("PX");
+            args.add(String.valueOf(millis));
+        }
+        if (keepTtl) {
+            args.add("KEEPTTL");
+        }
+        if (get) {
+            args.add("GET");
+        }
+        return args.toArray(new String[args.size()]);
+    }
+
+    /**
+     * 在指定连接上执行set
+     *
+     * @return 未设置get时, 写入返回OK, 条件不满足返回null; 设置get时返回写入前的值
+     */
+    public String set(Jedis jedis, String key, String value) {
+        if (!isRaw()) {
+            return jedis.set(key, value, toSetParams());
+        }
+        jedis.getClient().sendCommand(Protocol.Command.SET, toArgs(key, value));
+        Object reply = jedis.getClient().getOne();
+        return reply == null ? null : SafeEncoder.encode((byte[]) reply);
+    }
+}
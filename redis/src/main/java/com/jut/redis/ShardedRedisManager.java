@@ -0,0 +1,928 @@
+package com.jut.redis;
+
+import com.jut.redis.breaker.CircuitBreakers;
+import com.jut.redis.cluster.NodeResolver;
+import com.jut.redis.metrics.RedisMetrics;
+import com.jut.redis.pipeline.PipelineCallback;
+import com.jut.redis.pipeline.ShardedRedisPipeline;
+import com.jut.redis.scan.CloseableIterator;
+import com.jut.redis.scan.ClusterScanIterator;
+import com.jut.redis.scan.ScanOptions;
+import com.jut.redis.script.RedisScript;
+import com.jut.redis.shard.ConsistentHash;
+import com.jut.redis.utils.NamedThreadFactory;
+import com.jut.redis.utils.StringUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.ListPosition;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Tuple;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/***
+ * redis管理接口客户端分片实现
+ * 不使用redis集群, 按一致性哈希(虚拟节点, 支持{tag})把key分布到多个JedisPool上, 单key命令由key所在分片的SingleRedisManager执行
+ * mget/mset/msetnx/del按分片拆分后并行执行; 跨分片的集合运算在客户端计算, rpoplpush/smove要求两个key在同一分片
+ * 增加分片(addShard)后进入迁移状态: 访问到归属发生变化的key时, 先从原分片DUMP/RESTORE到新分片再执行命令;
+ * ShardMigrator遍历原分片迁移其余key后调用finishMigration结束迁移状态
+ * 迁移按key进行, 不是原子的: 迁移期间对同一个key的并发删除可能被另一个线程的迁移覆盖
+ */
+public class ShardedRedisManager implements RedisManager {
+    private final static Logger logger = LoggerFactory.getLogger(ShardedRedisManager.class);
+
+    /**
+     * 分片
+     */
+    private static final class Shard {
+        final String name;
+        final JedisPool pool;
+        final SingleRedisManager manager;
+
+        Shard(String name, JedisPool pool, SingleRedisManager manager) {
+            this.name = name;
+            this.pool = pool;
+            this.manager = manager;
+        }
+    }
+
+    /**
+     * 分片状态, 整体替换
+     */
+    private static final class State {
+        final ConsistentHash ring;
+        /**
+         * 迁移中时为增加分片前的环, 否则为null
+         */
+        final ConsistentHash previous;
+        final Map<String, Shard> shards;
+        /**
+         * 迁移中时已确认不在原分片上的key(已移动或原分片上不存在), 再次访问时不再DUMP原分片
+         */
+        final Set<String> migrated;
+
+        State(ConsistentHash ring, ConsistentHash previous, Map<String, Shard> shards) {
+            this.ring = ring;
+            this.previous = previous;
+            this.shards = shards;
+            this.migrated = previous == null ? null : ConcurrentHashMap.<String>newKeySet();
+        }
+    }
+
+    /**
+     * 迁移中最多记录的已迁移key数, 超过后不再记录, 未记录的key每次访问仍检查原分片
+     */
+    private static final int MAX_MIGRATED_KEYS = 1 << 20;
+
+    private volatile State state;
+
+    /**
+     * 每个分片的虚拟节点数
+     */
+    private int virtualNodes = ConsistentHash.DEFAULT_VIRTUAL_NODES;
+
+    /**
+     * 多key命令按分片并行执行的线程池, 未设置时使用默认的有界线程池
+     */
+    private volatile ExecutorService executor;
+
+    /**
+     * 指标, 设置后各分片上报连接池等待时间和被吞掉的异常
+     */
+    private RedisMetrics metrics;
+
+    /**
+     * 熔断器, 设置后各分片上报被吞掉的异常
+     */
+    private CircuitBreakers circuitBreakers;
+
+    public ShardedRedisManager() {
+    }
+
+    public ShardedRedisManager(Map<String, JedisPool> shards) {
+        setShards(shards);
+    }
+
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+    /**
+     * 需在setShards之前设置
+     */
+    public void setVirtualNodes(int virtualNodes) {
+        this.virtualNodes = virtualNodes;
+    }
+    public ExecutorService getExecutor() {
+        if (executor == null) {
+            synchronized (this) {
+                if (executor == null) {
+                    int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+                    executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                            new ArrayBlockingQueue<Runnable>(1024), new NamedThreadFactory("jut-redis-shard"),
+                            new ThreadPoolExecutor.CallerRunsPolicy());
+                }
+            }
+        }
+        return executor;
+    }
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+    public RedisMetrics getMetrics() {
+        return metrics;
+    }
+    public void setMetrics(RedisMetrics metrics) {
+        this.metrics = metrics;
+        State current = state;
+        if (current != null) {
+            for (Shard shard : current.shards.values()) {
+                shard.manager.setMetrics(metrics);
+            }
+        }
+    }
+    public CircuitBreakers getCircuitBreakers() {
+        return circuitBreakers;
+    }
+    public void setCircuitBreakers(CircuitBreakers circuitBreakers) {
+        this.circuitBreakers = circuitBreakers;
+        State current = state;
+        if (current != null) {
+            for (Shard shard : current.shards.values()) {
+                shard.manager.setCircuitBreakers(circuitBreakers);
+            }
+        }
+    }
+
+    /**
+     * 设置分片, 分片名参与哈希, 同一组数据的分片名不能改变
+     *
+     * @param shards 分片名 -> 连接池
+     */
+    public synchronized void setShards(Map<String, JedisPool> shards) {
+        Map<String, Shard> map = new LinkedHashMap<String, Shard>();
+        for (Map.Entry<String, JedisPool> entry : shards.entrySet()) {
+            map.put(entry.getKey(), shard(entry.getKey(), entry.getValue()));
+        }
+        state = new State(new ConsistentHash(map.keySet(), virtualNodes), null, Collections.unmodifiableMap(map));
+    }
+
+    /**
+     * 分片名 -> 连接池
+     */
+    public Map<String, JedisPool> getShards() {
+        Map<String, JedisPool> pools = new LinkedHashMap<String, JedisPool>();
+        for (Shard shard : state.shards.values()) {
+            pools.put(shard.name, shard.pool);
+        }
+        return pools;
+    }
+
+    public ConsistentHash getRing() {
+        return state.ring;
+    }
+
+    /**
+     * key所在的分片名
+     */
+    public String getShard(String key) {
+        return state.ring.getShard(key);
+    }
+
+    /**
+     * 按分片统计指标、热点key和熔断时使用, 节点标识为分片名
+     */
+    public NodeResolver getNodeResolver() {
+        return this::getShard;
+    }
+
+    private Shard shard(String name, JedisPool pool) {
+        SingleRedisManager manager = new SingleRedisManager();
+        manager.setJedisPool(pool);
+        manager.setMetrics(metrics);
+        manager.setCircuitBreakers(circuitBreakers);
+        return new Shard(name, pool, manager);
+    }
+
+    /**
+     * 增加一个分片并进入迁移状态, 之后由ShardMigrator迁移原分片上的key
+     * 上一次迁移未结束时不能再增加分片
+     */
+    public synchronized void addShard(String name, JedisPool pool) {
+        State current = state;
+        if (current.previous != null) {
+            throw new IllegalStateException("previous migration has not finished");
+        }
+        Map<String, Shard> map = new LinkedHashMap<String, Shard>(current.shards);
+        map.put(name, shard(name, pool));
+        state = new State(current.ring.addShard(name), current.ring, Collections.unmodifiableMap(map));
+    }
+
+    /**
+     * 结束迁移状态, 之后不再检查原分片
+     */
+    public synchronized void finishMigration() {
+        State current = state;
+        state = new State(current.ring, null, current.shards);
+    }
+
+    public boolean isMigrating() {
+        return state.previous != null;
+    }
+
+    /**
+     * 迁移中时key在增加分片前所在的分片, 未迁移或归属未变化时返回null
+     */
+    public String getPreviousShard(String key) {
+        State current = state;
+        if (current.previous == null) {
+            return null;
+        }
+        String previous = current.previous.getShard(key);
+        return previous.equals(current.ring.getShard(key)) ? null : previous;
+    }
+
+    /**
+     * 迁移中时把归属发生变化的key从原分片移到新分片
+     *
+     * @return 是否移动了数据
+     */
+    public boolean migrateKey(String key) {
+        State current = state;
+        if (current.previous == null) {
+            return false;
+        }
+        String from = current.previous.getShard(key);
+        String to = current.ring.getShard(key);
+        if (from.equals(to)) {
+            return false;
+        }
+        try {
+            boolean moved = move(current.shards.get(from), current.shards.get(to), key);
+            markMigrated(current, key);
+            return moved;
+        } catch (Exception e) {
+            exceptionProcess(e);
+            return false;
+        }
+    }
+
+    /**
+     * DUMP+PTTL取出原分片的值, RESTORE到新分片后删除原分片的key
+     * 新分片已有该key时说明已被迁移或已被写入新值, 以新分片为准
+     * DUMP之后key已过期(PTTL为-2)时不RESTORE, 只删除原分片的key; RESTORE的ttl为0表示不过期, 只用于PTTL为-1的key
+     */
+    private boolean move(Shard from, Shard to, String key) {
+        byte[] payload;
+        long ttl;
+        try (Jedis source = from.pool.getResource()) {
+            payload = source.dump(key);
+            if (payload == null) {
+                return false;
+            }
+            ttl = source.pttl(key);
+        }
+        boolean moved = false;
+        if (ttl > 0 || ttl == -1) {
+            moved = true;
+            try (Jedis target = to.pool.getResource()) {
+                target.restore(key, ttl > 0 ? (int) Math.min(ttl, Integer.MAX_VALUE) : 0, payload);
+            } catch (JedisDataException e) {
+                if (e.getMessage() == null || !e.getMessage().startsWith("BUSYKEY")) {
+                    throw e;
+                }
+                moved = false;
+            }
+        }
+        try (Jedis source = from.pool.getResource()) {
+            source.del(key);
+        }
+        return moved;
+    }
+
+    /**
+     * key所在分片, 迁移中时先迁移该key, 已迁移过的key直接返回新分片
+     */
+    private Shard route(String key) {
+        State current = state;
+        String name = current.ring.getShard(key);
+        Shard shard = current.shards.get(name);
+        if (current.previous != null && !current.migrated.contains(key)) {
+            String from = current.previous.getShard(key);
+            if (!from.equals(name)) {
+                try {
+                    move(current.shards.get(from), shard, key);
+                    markMigrated(current, key);
+                } catch (Exception e) {
+                    //迁移失败时仍在新分片执行, 原分片的值留给ShardMigrator
+                    exceptionProcess(e);
+                }
+            }
+        }
+        return shard;
+    }
+
+    /**
+     * 记录key已不在原分片上, 之后的写入都在新分片, 不会再回到原分片
+     */
+    private static void markMigrated(State current, String key) {
+        if (current.migrated.size() < MAX_MIGRATED_KEYS) {
+            current.migrated.add(key);
+        }
+    }
+
+    private SingleRedisManager manager(String key) {
+        return route(key).manager;
+    }
+
+    /**
+     * 异常处理方法
+     */
+    private void exceptionProcess(Exception e) {
+        if (metrics != null) {
+            metrics.recordError();
+        }
+        if (circuitBreakers != null) {
+            circuitBreakers.recordError();
+        }
+        logger.error(StringUtil.logException(e));
+    }
+
+    /**
+     * 按分片分组, 保留每个key在参数中的位置
+     *
+     * @param step 每组参数的个数, mset为2
+     * @return 分片 -> 参数下标
+     */
+    private Map<Shard, List<Integer>> group(String[] args, int step) {
+        Map<Shard, List<Integer>> groups = new LinkedHashMap<Shard, List<Integer>>();
+        for (int i = 0; i < args.length; i += step) {
+            Shard shard = route(args[i]);
+            List<Integer> indexes = groups.get(shard);
+            if (indexes == null) {
+                indexes = new ArrayList<Integer>();
+                groups.put(shard, indexes);
+            }
+            indexes.add(i);
+        }
+        return groups;
+    }
+
+    private static String[] select(String[] args, List<Integer> indexes, int step) {
+        String[] selected = new String[indexes.size() * step];
+        for (int i = 0; i < indexes.size(); i++) {
+            System.arraycopy(args, indexes.get(i), selected, i * step, step);
+        }
+        return selected;
+    }
+
+    /**
+     * 各分片并行执行, 最后一个分片在调用线程执行; 任一分片失败时抛出其异常
+     */
+    private <T> Map<Shard, T> fanout(Map<Shard, List<Integer>> groups, String[] args, int step,
+                                     BiFunction<Jedis, String[], T> command) throws Exception {
+        Map<Shard, Future<T>> futures = new LinkedHashMap<Shard, Future<T>>();
+        Shard last = null;
+        for (Shard shard : groups.keySet()) {
+            if (last != null) {
+                final Shard submitted = last;
+                final String[] selected = select(args, groups.get(submitted), step);
+                futures.put(submitted, getExecutor().submit(() -> execute(submitted, selected, command)));
+            }
+            last = shard;
+        }
+        Map<Shard, T> results = new LinkedHashMap<Shard, T>();
+        if (last != null) {
+            results.put(last, execute(last, select(args, groups.get(last), step), command));
+        }
+        for (Map.Entry<Shard, Future<T>> entry : futures.entrySet()) {
+            try {
+                results.put(entry.getKey(), entry.getValue().get());
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+        return results;
+    }
+
+    private static <T> T execute(Shard shard, String[] args, BiFunction<Jedis, String[], T> command) {
+        try (Jedis jedis = shard.pool.getResource()) {
+            return command.apply(jedis, args);
+        }
+    }
+
+    /**
+     * 所有key在同一分片时返回该分片, 否则返回null
+     */
+    private Shard sameShard(String... keys) {
+        Shard shard = null;
+        for (String key : keys) {
+            Shard current = route(key);
+            if (shard != null && shard != current) {
+                return null;
+            }
+            shard = current;
+        }
+        return shard;
+    }
+
+    public List<String> mget(String...keys){
+        List<String> values = null;
+        try {
+            Map<Shard, List<Integer>> groups = group(keys, 1);
+            Map<Shard, List<String>> results = fanout(groups, keys, 1, Jedis::mget);
+            String[] ordered = new String[keys.length];
+            for (Map.Entry<Shard, List<Integer>> entry : groups.entrySet()) {
+                List<String> result = results.get(entry.getKey());
+                List<Integer> indexes = entry.getValue();
+                for (int i = 0; i < indexes.size(); i++) {
+                    ordered[indexes.get(i)] = result.get(i);
+                }
+            }
+            values = Arrays.asList(ordered);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return values;
+    }
+
+    public String mset(String...keysvalues){
+        String ans = null;
+        try {
+            Map<Shard, String> results = fanout(group(keysvalues, 2), keysvalues, 2, Jedis::mset);
+            ans = "OK";
+            for (String result : results.values()) {
+                if (!"OK".equals(result)) {
+                    ans = result;
+                }
+            }
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return ans;
+    }
+
+    public Long del(String...keys){
+        Long res = 0L;
+        try {
+            for (Long count : fanout(group(keys, 1), keys, 1, Jedis::del).values()) {
+                res += count;
+            }
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    /**
+     * 跨分片时先并行检查所有key都不存在, 再按分片执行msetnx
+     * 注意跨分片时无法保证原子性, 检查与写入之间被其他客户端写入的分片会写入失败并返回0
+     */
+    public Long msetnx(String...keysvalues){
+        Long res = 0L;
+        try {
+            Map<Shard, List<Integer>> groups = group(keysvalues, 2);
+            if (groups.size() == 1) {
+                Shard shard = groups.keySet().iterator().next();
+                return shard.manager.msetnx(keysvalues);
+            }
+            for (Long exists : fanout(groups, keysvalues, 2, (jedis, args) -> {
+                String[] keys = new String[args.length / 2];
+                for (int i = 0; i < keys.length; i++) {
+                    keys[i] = args[i * 2];
+                }
+                return jedis.exists(keys);
+            }).values()) {
+                if (exists > 0) {
+                    return 0L;
+                }
+            }
+            for (Long result : fanout(groups, keysvalues, 2, Jedis::msetnx).values()) {
+                if (result == 0) {
+                    logger.warn("msetnx across shards partially failed, keysvalues: " + Arrays.toString(keysvalues));
+                    return 0L;
+                }
+            }
+            res = 1L;
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    public String rpoplpush(String srckey, String dstkey){
+        Shard shard = sameShard(srckey, dstkey);
+        if (shard == null) {
+            exceptionProcess(new IllegalArgumentException("rpoplpush keys on different shards: " + srckey + ", " + dstkey));
+            return null;
+        }
+        return shard.manager.rpoplpush(srckey, dstkey);
+    }
+
+    public Long smove(String srckey, String dstkey, String member){
+        Shard shard = sameShard(srckey, dstkey);
+        if (shard == null) {
+            exceptionProcess(new IllegalArgumentException("smove keys on different shards: " + srckey + ", " + dstkey));
+            return 0L;
+        }
+        return shard.manager.smove(srckey, dstkey, member);
+    }
+
+    public Set<String> sdiff(String...keys){
+        Shard shard = sameShard(keys);
+        if (shard != null) {
+            return shard.manager.sdiff(keys);
+        }
+        Set<String> res = null;
+        try {
+            List<Set<String>> sets = members(keys);
+            res = sets.get(0);
+            for (int i = 1; i < sets.size(); i++) {
+                res.removeAll(sets.get(i));
+            }
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    public Long sdiffstore(String dstkey,String... keys){
+        Shard shard = sameShard(concat(dstkey, keys));
+        return shard != null ? shard.manager.sdiffstore(dstkey, keys) : store(dstkey, sdiff(keys));
+    }
+
+    public Set<String> sinter(String...keys){
+        Shard shard = sameShard(keys);
+        if (shard != null) {
+            return shard.manager.sinter(keys);
+        }
+        Set<String> res = null;
+        try {
+            List<Set<String>> sets = members(keys);
+            res = sets.get(0);
+            for (int i = 1; i < sets.size(); i++) {
+                res.retainAll(sets.get(i));
+            }
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    public Long sinterstore(String dstkey,String...keys){
+        Shard shard = sameShard(concat(dstkey, keys));
+        return shard != null ? shard.manager.sinterstore(dstkey, keys) : store(dstkey, sinter(keys));
+    }
+
+    public Set<String> sunion(String... keys){
+        Shard shard = sameShard(keys);
+        if (shard != null) {
+            return shard.manager.sunion(keys);
+        }
+        Set<String> res = null;
+        try {
+            res = new HashSet<String>();
+            for (Set<String> set : members(keys)) {
+                res.addAll(set);
+            }
+        } catch (Exception e) {
+            exceptionProcess(e);
+        }
+        return res;
+    }
+
+    public Long sunionstore(String dstkey,String...keys){
+        Shard shard = sameShard(concat(dstkey, keys));
+        return shard != null ? shard.manager.sunionstore(dstkey, keys) : store(dstkey, sunion(keys));
+    }
+
+    /**
+     * 并行获取各集合的成员, 按参数顺序返回
+     */
+    private List<Set<String>> members(String... keys) throws Exception {
+        Map<Shard, List<Integer>> groups = group(keys, 1);
+        Map<Shard, List<Object>> results = fanout(groups, keys, 1, (jedis, args) -> {
+            Pipeline pipeline = jedis.pipelined();
+            for (String key : args) {
+                pipeline.smembers(key);
+            }
+            return pipeline.syncAndReturnAll();
+        });
+        List<Set<String>> sets = new ArrayList<Set<String>>(Collections.<Set<String>>nCopies(keys.length, null));
+        for (Map.Entry<Shard, List<Integer>> entry : groups.entrySet()) {
+            List<Object> result = results.get(entry.getKey());
+            List<Integer> indexes = entry.getValue();
+            for (int i = 0; i < indexes.size(); i++) {
+                @SuppressWarnings("unchecked")
+                Set<String> set = (Set<String>) result.get(i);
+                sets.set(indexes.get(i), new HashSet<String>(set));
+            }
+        }
+        return sets;
+    }
+
+    /**
+     * 跨分片集合运算的结果写入目标key(先删除后写入, 不是原子的), 返回结果的成员数
+     */
+    private Long store(String dstkey, Set<String> members) {
+        if (members == null) {
+            return 0L;
+        }
+        try (Jedis jedis = route(dstkey).pool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            pipeline.del(dstkey);
+            if (!members.isEmpty()) {
+                pipeline.sadd(dstkey, members.toArray(new String[members.size()]));
+            }
+            pipeline.sync();
+            return (long) members.size();
+        } catch (Exception e) {
+            exceptionProcess(e);
+            return 0L;
+        }
+    }
+
+    private static String[] concat(String first, String[] rest) {
+        String[] all = new String[rest.length + 1];
+        all[0] = first;
+        System.arraycopy(rest, 0, all, 1, rest.length);
+        return all;
+    }
+
+    public List<Object> pipelined(PipelineCallback callback){
+        ShardedRedisPipeline pipeline = null;
+        List<Object> res = null;
+        try {
+            pipeline = new ShardedRedisPipeline(key -> route(key).pool);
+            callback.doInPipeline(pipeline);
+            res = pipeline.sync();
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            if (pipeline != null) {
+                pipeline.close();
+            }
+        }
+        return res;
+    }
+
+    /**
+     * 遍历所有分片, 各分片并行scan; 迁移中时同一个key可能在原分片和新分片各出现一次
+     */
+    public CloseableIterator<String> scan(ScanOptions options){
+        return new ClusterScanIterator(getShards(), options);
+    }
+
+    public CloseableIterator<Map.Entry<String, String>> hscan(String key, ScanOptions options){
+        return manager(key).hscan(key, options);
+    }
+
+    public String get(String key){
+        return manager(key).get(key);
+    }
+
+    public String set(String key,String value){
+        return manager(key).set(key, value);
+    }
+
+    public String set(String key, String value, SetOptions options){
+        return manager(key).set(key, value, options);
+    }
+
+    public String setex(String key,int seconds,String value){
+        return manager(key).setex(key, seconds, value);
+    }
+
+    public Long setrange(String key,int offset,String value){
+        return manager(key).setrange(key, offset, value);
+    }
+
+    public Long append(String key,String value){
+        return manager(key).append(key, value);
+    }
+
+    public Boolean exists(String key){
+        return manager(key).exists(key);
+    }
+
+    public Long setnx(String key,String value){
+        return manager(key).setnx(key, value);
+    }
+
+    public Long expire(String key,int seconds){
+        return manager(key).expire(key, seconds);
+    }
+
+    public Long timetolive(String key){
+        return manager(key).timetolive(key);
+    }
+
+    public String getset(String key,String value){
+        return manager(key).getset(key, value);
+    }
+
+    public String getrange(String key, int startOffset ,int endOffset){
+        return manager(key).getrange(key, startOffset, endOffset);
+    }
+
+    public Long incr(String key){
+        return manager(key).incr(key);
+    }
+
+    public Long incrBy(String key,Long integer){
+        return manager(key).incrBy(key, integer);
+    }
+
+    public Long incrByEx(String key, Long integer, int seconds){
+        return manager(key).incrByEx(key, integer, seconds);
+    }
+
+    public Long decr(String key){
+        return manager(key).decr(key);
+    }
+
+    public Long decrBy(String key,Long integer){
+        return manager(key).decrBy(key, integer);
+    }
+
+    public Long serlen(String key){
+        return manager(key).serlen(key);
+    }
+
+    public Long hset(String key,String field,String value){
+        return manager(key).hset(key, field, value);
+    }
+
+    public Long hsetnx(String key,String field,String value){
+        return manager(key).hsetnx(key, field, value);
+    }
+
+    public String hmset(String key, Map<String, String> hash){
+        return manager(key).hmset(key, hash);
+    }
+
+    public String hget(String key, String field){
+        return manager(key).hget(key, field);
+    }
+
+    public List<String> hmget(String key,String...fields){
+        return manager(key).hmget(key, fields);
+    }
+
+    public Long hincrby(String key ,String field ,Long value){
+        return manager(key).hincrby(key, field, value);
+    }
+
+    public Long hincrbyEx(String key, String field, Long value, int seconds){
+        return manager(key).hincrbyEx(key, field, value, seconds);
+    }
+
+    public Boolean hexists(String key , String field){
+        return manager(key).hexists(key, field);
+    }
+
+    public Long hlen(String key){
+        return manager(key).hlen(key);
+    }
+
+    public Long hdel(String key ,String...fields){
+        return manager(key).hdel(key, fields);
+    }
+
+    public Set<String> hkeys(String key){
+        return manager(key).hkeys(key);
+    }
+
+    public List<String> hvals(String key){
+        return manager(key).hvals(key);
+    }
+
+    public Map<String, String> hgetall(String key){
+        return manager(key).hgetall(key);
+    }
+
+    public Long lpush(String key ,String...strs){
+        return manager(key).lpush(key, strs);
+    }
+
+    public Long rpush(String key ,String...strs){
+        return manager(key).rpush(key, strs);
+    }
+
+    public Long linsert(String key, ListPosition where,String pivot, String value){
+        return manager(key).linsert(key, where, pivot, value);
+    }
+
+    public String lset(String key ,Long index, String value){
+        return manager(key).lset(key, index, value);
+    }
+
+    public Long lrem(String key,long count,String value){
+        return manager(key).lrem(key, count, value);
+    }
+
+    public String ltrim(String key ,long start ,long end){
+        return manager(key).ltrim(key, start, end);
+    }
+
+    public String lpop(String key){
+        return manager(key).lpop(key);
+    }
+
+    public String rpop(String key){
+        return manager(key).rpop(key);
+    }
+
+    public List<String> blpop(int timeout, String key){
+        return manager(key).blpop(timeout, key);
+    }
+
+    public String lindex(String key,long index){
+        return manager(key).lindex(key, index);
+    }
+
+    public Long llen(String key){
+        return manager(key).llen(key);
+    }
+
+    public List<String> lrange(String key, long start, long end){
+        return manager(key).lrange(key, start, end);
+    }
+
+    public Long sadd(String key,String...members){
+        return manager(key).sadd(key, members);
+    }
+
+    public Long srem(String key,String...members){
+        return manager(key).srem(key, members);
+    }
+
+    public String spop(String key){
+        return manager(key).spop(key);
+    }
+
+    public Long scard(String key){
+        return manager(key).scard(key);
+    }
+
+    public Boolean sismember(String key,String member){
+        return manager(key).sismember(key, member);
+    }
+
+    public String srandmember(String key){
+        return manager(key).srandmember(key);
+    }
+
+    public Set<String> smembers(String key){
+        return manager(key).smembers(key);
+    }
+
+    public Long zremrangeByRank(String key ,long start, long end){
+        return manager(key).zremrangeByRank(key, start, end);
+    }
+
+    public Long zremrangeByScore(String key,double start,double end){
+        return manager(key).zremrangeByScore(key, start, end);
+    }
+
+    public String type(String key){
+        return manager(key).type(key);
+    }
+
+    public CloseableIterator<String> sscan(String key, ScanOptions options){
+        return manager(key).sscan(key, options);
+    }
+
+    public CloseableIterator<Tuple> zscan(String key, ScanOptions options){
+        return manager(key).zscan(key, options);
+    }
+
+    /**
+     * 所有key需位于同一分片, 无key的脚本在第一个分片执行
+     */
+    public <T> T eval(RedisScript<T> script, List<String> keys, List<String> args){
+        Shard shard = keys.isEmpty() ? state.shards.values().iterator().next() : sameShard(keys.toArray(new String[keys.size()]));
+        if (shard == null) {
+            exceptionProcess(new IllegalArgumentException("script " + script.getName() + " keys on different shards: " + keys));
+            return null;
+        }
+        return shard.manager.eval(script, keys, args);
+    }
+}
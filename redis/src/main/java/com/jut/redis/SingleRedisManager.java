@@ -1,5 +1,14 @@
 package com.jut.redis;
 
+import com.jut.redis.breaker.CircuitBreakers;
+import com.jut.redis.metrics.RedisMetrics;
+import com.jut.redis.pipeline.PipelineCallback;
+import com.jut.redis.pipeline.SingleRedisPipeline;
+import com.jut.redis.scan.CloseableIterator;
+import com.jut.redis.scan.ScanIterator;
+import com.jut.redis.scan.ScanOptions;
+import com.jut.redis.script.RedisScript;
+import com.jut.redis.script.Scripts;
 import com.jut.redis.utils.StringUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -7,44 +16,111 @@ import org.springframework.beans.factory.annotation.Autowired;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.ListPosition;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.Tuple;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 /***
  * redis管理接口单实例实现
+ * 同时实现二进制接口, 两套接口共用同一个连接池
  */
-public class SingleRedisManager implements RedisManager {
+public class SingleRedisManager implements RedisManager, BinaryRedisManager {
     private final static Logger logger = LoggerFactory.getLogger(SingleRedisManager.class);
 
-    @Autowired
-    JedisPool jedisPool;
+    /**
+     * volatile: MasterReplicaRedisManager在主从切换时替换连接池
+     */
+    @Autowired(required = false)
+    volatile JedisPool jedisPool;
+
+    /**
+     * 按数据库划分的连接池组, 设置后优先从dbIndex对应的子连接池借出连接
+     */
+    private RedisDatabasePools databasePools;
 
     /**
      * 数据库索引
      */
     private Integer dbIndex;
 
+    /**
+     * 指标, 设置后上报连接池等待时间和被吞掉的异常
+     */
+    private RedisMetrics metrics;
+
+    /**
+     * 熔断器, 设置后上报被吞掉的异常
+     */
+    private CircuitBreakers circuitBreakers;
+
+    public JedisPool getJedisPool() {
+        return jedisPool;
+    }
+    public void setJedisPool(JedisPool jedisPool) {
+        this.jedisPool = jedisPool;
+    }
     public Integer getDbIndex() {
         return dbIndex;
     }
     public void setDbIndex(Integer dbIndex) {
         this.dbIndex = dbIndex;
     }
+    public RedisDatabasePools getDatabasePools() {
+        return databasePools;
+    }
+    public void setDatabasePools(RedisDatabasePools databasePools) {
+        this.databasePools = databasePools;
+    }
+    public RedisMetrics getMetrics() {
+        return metrics;
+    }
+    public void setMetrics(RedisMetrics metrics) {
+        this.metrics = metrics;
+    }
+    public CircuitBreakers getCircuitBreakers() {
+        return circuitBreakers;
+    }
+    public void setCircuitBreakers(CircuitBreakers circuitBreakers) {
+        this.circuitBreakers = circuitBreakers;
+    }
 
     /**
      * 从连接池中获取一个redis连接
+     * 连接会记住当前所在的数据库, 只有数据库不一致时才发送select
      */
     private Jedis getJedis(){
-        Jedis jedis = jedisPool.getResource();
-        jedis.select(dbIndex);
+        Jedis jedis;
+        long start = metrics == null ? 0 : System.nanoTime();
+        if (databasePools != null) {
+            jedis = databasePools.getPool(dbIndex == null ? 0 : dbIndex).getResource();
+        } else {
+            jedis = jedisPool.getResource();
+        }
+        if (metrics != null) {
+            metrics.recordPoolWait(System.nanoTime() - start);
+        }
+        if (dbIndex != null && jedis.getDB() != dbIndex) {
+            jedis.select(dbIndex);
+        }
         return jedis;
     }
     /**
-     * 异常处理方法
+     * 异常处理方法, 子类可覆盖以感知被吞掉的异常
      */
-    private void exceptionProcess(Exception e) {
+    protected void exceptionProcess(Exception e) {
+        if (metrics != null) {
+            metrics.recordError();
+        }
+        if (circuitBreakers != null) {
+            circuitBreakers.recordError();
+        }
         logger.error(StringUtil.logException(e));
     }
     /**
@@ -85,6 +161,23 @@ public class SingleRedisManager implements RedisManager {
         return ans;
     }
 
+    /**
+     * 未设置get时, 写入返回OK, 条件不满足返回null; 设置get时返回写入前的值
+     */
+    public String set(String key, String value, SetOptions options){
+        String ans = null;
+        Jedis jedis = null;
+        try {
+            jedis = getJedis();
+            ans = options.set(jedis, key, value);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return ans;
+    }
+
     public  String setex(String key,int seconds,String value){
         Jedis jedis = null;
         String ans = null;
@@ -301,6 +394,14 @@ public class SingleRedisManager implements RedisManager {
         return res;
     }
 
+    public Long incrByEx(String key, Long integer, int seconds){
+        if (seconds <= 0) {
+            throw new IllegalArgumentException("seconds must be positive, got " + seconds);
+        }
+        return eval(Scripts.INCRBY_EXPIRE, Collections.singletonList(key),
+                Arrays.asList(String.valueOf(integer), String.valueOf(seconds)));
+    }
+
     public Long decr(String key) {
         Jedis jedis = null;
         Long res = null;
@@ -427,6 +528,14 @@ public class SingleRedisManager implements RedisManager {
         return res;
     }
 
+    public Long hincrbyEx(String key, String field, Long value, int seconds){
+        if (seconds <= 0) {
+            throw new IllegalArgumentException("seconds must be positive, got " + seconds);
+        }
+        return eval(Scripts.HINCRBY_EXPIRE_NX, Collections.singletonList(key),
+                Arrays.asList(field, String.valueOf(value), String.valueOf(seconds)));
+    }
+
     public Boolean hexists(String key , String field){
         Jedis jedis = null;
         Boolean res = false;
@@ -639,6 +748,20 @@ public class SingleRedisManager implements RedisManager {
         return res;
     }
 
+    public List<String> blpop(int timeout, String key){
+        Jedis jedis = null;
+        List<String> res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.blpop(timeout, key);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
     public String lindex(String key,long index){
         Jedis jedis = null;
         String res = null;
@@ -905,12 +1028,34 @@ public class SingleRedisManager implements RedisManager {
         return res;
     }
 
+    /**
+     * 使用scan遍历匹配的key, 避免keys命令阻塞服务端; 任一页失败时返回null
+     */
     public Set<String> keys(String pattern){
+        Set<String> res = new HashSet<String>();
+        CloseableIterator<String> it = null;
+        try {
+            it = scan(ScanOptions.scanOptions().match(pattern).count(1000));
+            while (it.hasNext()) {
+                res.add(it.next());
+            }
+        } catch (Exception e) {
+            //异常已在scan中记录, 不返回部分结果
+            res = null;
+        } finally {
+            if (it != null) {
+                it.close();
+            }
+        }
+        return res;
+    }
+
+    public String type(String key){
         Jedis jedis = null;
-        Set<String> res = null;
+        String res = null;
         try {
             jedis = getJedis();
-            res = jedis.keys(pattern);
+            res = jedis.type(key);
         } catch (Exception e) {
             exceptionProcess(e);
         } finally {
@@ -919,12 +1064,453 @@ public class SingleRedisManager implements RedisManager {
         return res;
     }
 
-    public String type(String key){
+    public List<Object> pipelined(PipelineCallback callback){
+        Jedis jedis = null;
+        List<Object> res = null;
+        try {
+            jedis = getJedis();
+            SingleRedisPipeline pipeline = new SingleRedisPipeline(jedis);
+            callback.doInPipeline(pipeline);
+            res = pipeline.sync();
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public CloseableIterator<String> scan(final ScanOptions options){
+        return new ScanIterator<String>() {
+            protected ScanResult<String> scan(String cursor) throws Exception {
+                Jedis jedis = null;
+                try {
+                    jedis = getJedis();
+                    return options.scan(jedis, cursor);
+                } catch (Exception e) {
+                    exceptionProcess(e);
+                    throw e;
+                } finally {
+                    returnResource(jedis);
+                }
+            }
+        };
+    }
+
+    public CloseableIterator<Map.Entry<String, String>> hscan(final String key, final ScanOptions options){
+        return new ScanIterator<Map.Entry<String, String>>() {
+            protected ScanResult<Map.Entry<String, String>> scan(String cursor) throws Exception {
+                Jedis jedis = null;
+                try {
+                    jedis = getJedis();
+                    return jedis.hscan(key, cursor, options.toScanParams());
+                } catch (Exception e) {
+                    exceptionProcess(e);
+                    throw e;
+                } finally {
+                    returnResource(jedis);
+                }
+            }
+        };
+    }
+
+    public CloseableIterator<String> sscan(final String key, final ScanOptions options){
+        return new ScanIterator<String>() {
+            protected ScanResult<String> scan(String cursor) throws Exception {
+                Jedis jedis = null;
+                try {
+                    jedis = getJedis();
+                    return jedis.sscan(key, cursor, options.toScanParams());
+                } catch (Exception e) {
+                    exceptionProcess(e);
+                    throw e;
+                } finally {
+                    returnResource(jedis);
+                }
+            }
+        };
+    }
+
+    public CloseableIterator<Tuple> zscan(final String key, final ScanOptions options){
+        return new ScanIterator<Tuple>() {
+            protected ScanResult<Tuple> scan(String cursor) throws Exception {
+                Jedis jedis = null;
+                try {
+                    jedis = getJedis();
+                    return jedis.zscan(key, cursor, options.toScanParams());
+                } catch (Exception e) {
+                    exceptionProcess(e);
+                    throw e;
+                } finally {
+                    returnResource(jedis);
+                }
+            }
+        };
+    }
+
+    public <T> T eval(RedisScript<T> script, List<String> keys, List<String> args){
+        T res = null;
+        Jedis jedis = null;
+        try {
+            jedis = getJedis();
+            Object result;
+            try {
+                result = jedis.evalsha(script.getSha1(), keys, args);
+            } catch (JedisNoScriptException e) {
+                jedis.scriptLoad(script.getSource());
+                result = jedis.evalsha(script.getSha1(), keys, args);
+            }
+            res = script.convert(result);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public byte[] get(byte[] key){
+        Jedis jedis = null;
+        byte[] res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.get(key);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public String set(byte[] key,byte[] value){
         Jedis jedis = null;
         String res = null;
         try {
             jedis = getJedis();
-            res = jedis.type(key);
+            res = jedis.set(key, value);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public String setex(byte[] key,int seconds,byte[] value){
+        Jedis jedis = null;
+        String res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.setex(key, seconds, value);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public List<byte[]> mget(byte[]...keys){
+        Jedis jedis = null;
+        List<byte[]> res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.mget(keys);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public String mset(byte[]...keysvalues){
+        Jedis jedis = null;
+        String res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.mset(keysvalues);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Boolean exists(byte[] key){
+        Jedis jedis = null;
+        Boolean res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.exists(key);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Long expire(byte[] key,int seconds){
+        Jedis jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.expire(key, seconds);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Long del(byte[]...keys){
+        Jedis jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.del(keys);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public byte[] getset(byte[] key,byte[] value){
+        Jedis jedis = null;
+        byte[] res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.getSet(key, value);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Long hset(byte[] key,byte[] field,byte[] value){
+        Jedis jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.hset(key, field, value);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public byte[] hget(byte[] key,byte[] field){
+        Jedis jedis = null;
+        byte[] res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.hget(key, field);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public String hmset(byte[] key,Map<byte[], byte[]> hash){
+        Jedis jedis = null;
+        String res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.hmset(key, hash);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public List<byte[]> hmget(byte[] key,byte[]...fields){
+        Jedis jedis = null;
+        List<byte[]> res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.hmget(key, fields);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Long hdel(byte[] key,byte[]...fields){
+        Jedis jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.hdel(key, fields);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Map<byte[], byte[]> hgetall(byte[] key){
+        Jedis jedis = null;
+        Map<byte[], byte[]> res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.hgetAll(key);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public List<byte[]> hvals(byte[] key){
+        Jedis jedis = null;
+        List<byte[]> res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.hvals(key);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Long lpush(byte[] key,byte[]...strs){
+        Jedis jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.lpush(key, strs);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Long rpush(byte[] key,byte[]...strs){
+        Jedis jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.rpush(key, strs);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public byte[] lpop(byte[] key){
+        Jedis jedis = null;
+        byte[] res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.lpop(key);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public byte[] rpop(byte[] key){
+        Jedis jedis = null;
+        byte[] res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.rpop(key);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public List<byte[]> lrange(byte[] key,long start,long end){
+        Jedis jedis = null;
+        List<byte[]> res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.lrange(key, start, end);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Long sadd(byte[] key,byte[]...members){
+        Jedis jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.sadd(key, members);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Long srem(byte[] key,byte[]...members){
+        Jedis jedis = null;
+        Long res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.srem(key, members);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Set<byte[]> smembers(byte[] key){
+        Jedis jedis = null;
+        Set<byte[]> res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.smembers(key);
+        } catch (Exception e) {
+            exceptionProcess(e);
+        } finally {
+            returnResource(jedis);
+        }
+        return res;
+    }
+
+    public Boolean sismember(byte[] key,byte[] member){
+        Jedis jedis = null;
+        Boolean res = null;
+        try {
+            jedis = getJedis();
+            res = jedis.sismember(key, member);
         } catch (Exception e) {
             exceptionProcess(e);
         } finally {
@@ -0,0 +1,230 @@
+package com.jut.redis.breaker;
+
+import com.jut.redis.utils.StringUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/***
+ * 单个节点的熔断器
+ * 关闭: 调用正常放行, 结果计入按时间分桶的滚动窗口, 失败或慢调用时检查比率是否达到阈值
+ * 打开: 调用直接拒绝, 到期后第一个调用将状态切换为半开
+ * 半开: 只放行有限个探测调用, 全部成功则关闭, 任一失败或变慢则重新打开
+ * 分桶计数器按时间轮转复用, 轮转时与并发累加之间的竞争只会让比率略有偏差
+ */
+public class CircuitBreaker {
+    private final static Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final int EPOCH = 0;
+    private static final int CALLS = 1;
+    private static final int FAILURES = 2;
+    private static final int SLOW = 3;
+    private static final int FIELDS = 4;
+
+    private final String name;
+    private final CircuitBreakerConfig config;
+    private final CircuitBreakerListener listener;
+    private final AtomicReference<State> state = new AtomicReference<State>(State.CLOSED);
+    private final AtomicLongArray buckets;
+    private final int bucketCount;
+    private final long bucketMillis;
+    private final long slowNanos;
+    private final AtomicInteger probes = new AtomicInteger();
+    private final AtomicInteger probeSuccesses = new AtomicInteger();
+    private volatile long openUntil;
+
+    public CircuitBreaker(String name, CircuitBreakerConfig config) {
+        this(name, config, null);
+    }
+
+    public CircuitBreaker(String name, CircuitBreakerConfig config, CircuitBreakerListener listener) {
+        this.name = name;
+        this.config = config;
+        this.listener = listener;
+        this.bucketCount = Math.max(1, config.getWindowBuckets());
+        this.bucketMillis = Math.max(1, config.getWindowMillis() / bucketCount);
+        this.buckets = new AtomicLongArray(bucketCount * FIELDS);
+        this.slowNanos = TimeUnit.MILLISECONDS.toNanos(config.getSlowCallMillis());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     * 是否放行一次调用, 放行后必须调用onResult
+     */
+    public boolean tryAcquire() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN) {
+            if (System.currentTimeMillis() < openUntil) {
+                return false;
+            }
+            transition(State.OPEN, State.HALF_OPEN);
+            current = state.get();
+            if (current != State.HALF_OPEN) {
+                return current == State.CLOSED;
+            }
+        }
+        return probes.incrementAndGet() <= config.getHalfOpenCalls();
+    }
+
+    /**
+     * 记录一次放行调用的结果
+     *
+     * @param failed 是否失败
+     * @param nanos  调用耗时
+     */
+    public void onResult(boolean failed, long nanos) {
+        boolean slow = nanos >= slowNanos;
+        State current = state.get();
+        if (current == State.HALF_OPEN) {
+            if (failed || slow) {
+                open(State.HALF_OPEN);
+            } else if (probeSuccesses.incrementAndGet() >= config.getHalfOpenCalls()) {
+                if (transition(State.HALF_OPEN, State.CLOSED)) {
+                    clearWindow();
+                }
+            }
+            return;
+        }
+        if (current == State.OPEN) {
+            //打开前已放行的调用, 不再计入
+            return;
+        }
+        int base = bucket(System.currentTimeMillis());
+        buckets.incrementAndGet(base + CALLS);
+        if (failed) {
+            buckets.incrementAndGet(base + FAILURES);
+        }
+        if (slow) {
+            buckets.incrementAndGet(base + SLOW);
+        }
+        if ((failed || slow) && exceedsThreshold()) {
+            open(State.CLOSED);
+        }
+    }
+
+    /**
+     * 强制关闭并清空统计
+     */
+    public void reset() {
+        State previous = state.getAndSet(State.CLOSED);
+        clearWindow();
+        if (previous != State.CLOSED) {
+            notifyListener(previous, State.CLOSED);
+        }
+    }
+
+    /**
+     * 当前窗口内的调用次数
+     */
+    public long getCalls() {
+        return sum(CALLS);
+    }
+
+    /**
+     * 当前窗口内的失败率, 百分比
+     */
+    public double getFailureRate() {
+        long calls = sum(CALLS);
+        return calls == 0 ? 0 : sum(FAILURES) * 100.0 / calls;
+    }
+
+    /**
+     * 当前窗口内的慢调用率, 百分比
+     */
+    public double getSlowCallRate() {
+        long calls = sum(CALLS);
+        return calls == 0 ? 0 : sum(SLOW) * 100.0 / calls;
+    }
+
+    private boolean exceedsThreshold() {
+        long calls = sum(CALLS);
+        if (calls < config.getMinimumCalls()) {
+            return false;
+        }
+        return sum(FAILURES) * 100 >= calls * config.getFailureRateThreshold()
+                || sum(SLOW) * 100 >= calls * config.getSlowCallRateThreshold();
+    }
+
+    private void open(State from) {
+        //先重置探测计数再切换状态, 半开时取到的计数一定是新的
+        probes.set(0);
+        probeSuccesses.set(0);
+        openUntil = System.currentTimeMillis() + config.getOpenMillis();
+        transition(from, State.OPEN);
+    }
+
+    private boolean transition(State from, State to) {
+        if (!state.compareAndSet(from, to)) {
+            return false;
+        }
+        notifyListener(from, to);
+        return true;
+    }
+
+    private void notifyListener(State from, State to) {
+        logger.warn("redis circuit breaker {} {} -> {}", name, from, to);
+        if (listener != null) {
+            try {
+                listener.onStateChange(this, from, to);
+            } catch (Exception e) {
+                logger.error(StringUtil.logException(e));
+            }
+        }
+    }
+
+    /**
+     * 当前时间所在的分桶, 分桶过期时清零后复用
+     */
+    private int bucket(long now) {
+        long epoch = now / bucketMillis;
+        int base = (int) (epoch % bucketCount) * FIELDS;
+        long current = buckets.get(base + EPOCH);
+        if (current != epoch && buckets.compareAndSet(base + EPOCH, current, epoch)) {
+            buckets.set(base + CALLS, 0);
+            buckets.set(base + FAILURES, 0);
+            buckets.set(base + SLOW, 0);
+        }
+        return base;
+    }
+
+    private long sum(int field) {
+        long oldest = System.currentTimeMillis() / bucketMillis - bucketCount;
+        long total = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            int base = i * FIELDS;
+            if (buckets.get(base + EPOCH) > oldest) {
+                total += buckets.get(base + field);
+            }
+        }
+        return total;
+    }
+
+    private void clearWindow() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name + " " + state.get();
+    }
+}
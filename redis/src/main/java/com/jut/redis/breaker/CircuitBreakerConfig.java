@@ -0,0 +1,91 @@
+package com.jut.redis.breaker;
+
+/***
+ * 熔断器配置
+ * 在滚动窗口内统计调用次数、失败次数和慢调用次数, 调用数达到minimumCalls后,
+ * 失败率或慢调用率(百分比)达到阈值即熔断; 熔断openMillis后放行halfOpenCalls个探测调用,
+ * 全部成功则恢复, 任一失败或变慢则重新熔断
+ */
+public class CircuitBreakerConfig {
+    /**
+     * 失败率阈值, 百分比
+     */
+    private int failureRateThreshold = 50;
+    /**
+     * 慢调用率阈值, 百分比, 100表示只有全部调用都慢才熔断
+     */
+    private int slowCallRateThreshold = 100;
+    /**
+     * 超过该耗时的调用视为慢调用, 毫秒
+     */
+    private long slowCallMillis = 1000L;
+    /**
+     * 窗口内至少有这么多次调用才计算比率
+     */
+    private int minimumCalls = 20;
+    /**
+     * 滚动窗口长度, 毫秒
+     */
+    private long windowMillis = 10000L;
+    /**
+     * 滚动窗口分桶数
+     */
+    private int windowBuckets = 10;
+    /**
+     * 熔断持续时间, 毫秒, 之后进入半开状态
+     */
+    private long openMillis = 5000L;
+    /**
+     * 半开状态放行的探测调用数
+     */
+    private int halfOpenCalls = 5;
+
+    public int getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+    public void setFailureRateThreshold(int failureRateThreshold) {
+        this.failureRateThreshold = failureRateThreshold;
+    }
+    public int getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+    public void setSlowCallRateThreshold(int slowCallRateThreshold) {
+        this.slowCallRateThreshold = slowCallRateThreshold;
+    }
+    public long getSlowCallMillis() {
+        return slowCallMillis;
+    }
+    public void setSlowCallMillis(long slowCallMillis) {
+        this.slowCallMillis = slowCallMillis;
+    }
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+    public void setMinimumCalls(int minimumCalls) {
+        this.minimumCalls = minimumCalls;
+    }
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+    public void setWindowMillis(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+    public int getWindowBuckets() {
+        return windowBuckets;
+    }
+    public void setWindowBuckets(int windowBuckets) {
+        this.windowBuckets = windowBuckets;
+    }
+    public long getOpenMillis() {
+        return openMillis;
+    }
+    public void setOpenMillis(long openMillis) {
+        this.openMillis = openMillis;
+    }
+    public int getHalfOpenCalls() {
+        return halfOpenCalls;
+    }
+    public void setHalfOpenCalls(int halfOpenCalls) {
+        this.halfOpenCalls = halfOpenCalls;
+    }
+}
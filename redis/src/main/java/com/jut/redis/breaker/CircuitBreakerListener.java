@@ -0,0 +1,8 @@
+package com.jut.redis.breaker;
+
+/***
+ * 熔断器状态变化回调, 在触发状态变化的调用线程上执行, 不要做耗时操作
+ */
+public interface CircuitBreakerListener {
+    void onStateChange(CircuitBreaker breaker, CircuitBreaker.State from, CircuitBreaker.State to);
+}
@@ -0,0 +1,843 @@
+package com.jut.redis.breaker;
+
+import com.jut.redis.RedisManager;
+import com.jut.redis.RedisManagerDecorator;
+import com.jut.redis.SetOptions;
+import com.jut.redis.pipeline.PipelineCallback;
+import com.jut.redis.script.RedisScript;
+import redis.clients.jedis.ListPosition;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/***
+ * 带熔断的redis管理接口
+ * 调用前检查key所在节点的熔断器, 打开时立即抛出RedisCircuitOpenException, 不再等待连接池或超时;
+ * 调用结束后按是否失败和耗时更新熔断器, 多key命令按第一个key所在节点计
+ * 被装饰的SingleRedisManager/ClusterRedisManager会吞掉异常, 需同时对其setCircuitBreakers(同一个CircuitBreakers),
+ * 失败才能计入熔断器
+ * scan系列返回惰性迭代器, 不经过熔断器
+ */
+public class CircuitBreakerRedisManager extends RedisManagerDecorator {
+    private final CircuitBreakers breakers;
+
+    public CircuitBreakerRedisManager(RedisManager redisManager, CircuitBreakers breakers) {
+        super(redisManager);
+        this.breakers = breakers;
+    }
+
+    public CircuitBreakers getBreakers() {
+        return breakers;
+    }
+
+    private static String first(String[] keys) {
+        return keys == null || keys.length == 0 ? null : keys[0];
+    }
+
+    public String get(String key){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.get(key);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public String set(String key,String value){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.set(key, value);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public String set(String key, String value, SetOptions options){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.set(key, value, options);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public String setex(String key,int seconds,String value){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.setex(key, seconds, value);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Long setrange(String key,int offset,String value){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.setrange(key, offset, value);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public List<String> mget(String...keys){
+        CircuitBreakers.Call call = breakers.begin(first(keys));
+        try {
+            return redisManager.mget(keys);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public String mset(String...keysvalues){
+        CircuitBreakers.Call call = breakers.begin(first(keysvalues));
+        try {
+            return redisManager.mset(keysvalues);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Long append(String key,String value){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.append(key, value);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Boolean exists(String key){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.exists(key);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Long setnx(String key,String value){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.setnx(key, value);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Long expire(String key,int seconds){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.expire(key, seconds);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Long del(String...keys){
+        CircuitBreakers.Call call = breakers.begin(first(keys));
+        try {
+            return redisManager.del(keys);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Long timetolive(String key){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.timetolive(key);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Long msetnx(String...keysvalues){
+        CircuitBreakers.Call call = breakers.begin(first(keysvalues));
+        try {
+            return redisManager.msetnx(keysvalues);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public String getset(String key,String value){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.getset(key, value);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public String getrange(String key, int startOffset ,int endOffset){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.getrange(key, startOffset, endOffset);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Long incr(String key){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.incr(key);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Long incrBy(String key,Long integer){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.incrBy(key, integer);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Long incrByEx(String key, Long integer, int seconds){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.incrByEx(key, integer, seconds);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Long decr(String key){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.decr(key);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Long decrBy(String key,Long integer){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.decrBy(key, integer);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Long serlen(String key){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.serlen(key);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Long hset(String key,String field,String value){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.hset(key, field, value);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Long hsetnx(String key,String field,String value){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.hsetnx(key, field, value);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public String hmset(String key, Map<String, String> hash){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.hmset(key, hash);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public String hget(String key, String field){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.hget(key, field);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public List<String> hmget(String key,String...fields){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.hmget(key, fields);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Long hincrby(String key ,String field ,Long value){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.hincrby(key, field, value);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Long hincrbyEx(String key, String field, Long value, int seconds){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.hincrbyEx(key, field, value, seconds);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Boolean hexists(String key , String field){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.hexists(key, field);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Long hlen(String key){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.hlen(key);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Long hdel(String key ,String...fields){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.hdel(key, fields);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Set<String> hkeys(String key){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.hkeys(key);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public List<String> hvals(String key){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.hvals(key);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Map<String, String> hgetall(String key){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.hgetall(key);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Long lpush(String key ,String...strs){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.lpush(key, strs);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Long rpush(String key ,String...strs){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.rpush(key, strs);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Long linsert(String key, ListPosition where,String pivot, String value){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.linsert(key, where, pivot, value);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public String lset(String key ,Long index, String value){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.lset(key, index, value);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Long lrem(String key,long count,String value){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.lrem(key, count, value);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public String ltrim(String key ,long start ,long end){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.ltrim(key, start, end);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public String lpop(String key){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.lpop(key);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public String rpop(String key){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.rpop(key);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public String rpoplpush(String srckey, String dstkey){
+        CircuitBreakers.Call call = breakers.begin(srckey);
+        try {
+            return redisManager.rpoplpush(srckey, dstkey);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public List<String> blpop(int timeout, String key){
+        CircuitBreakers.Call call = breakers.begin(key);
+        //等待元素的时间不是节点变慢, 不计入慢调用
+        call.ignoreLatency();
+        try {
+            return redisManager.blpop(timeout, key);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public String lindex(String key,long index){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.lindex(key, index);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Long llen(String key){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.llen(key);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public List<String> lrange(String key, long start, long end){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.lrange(key, start, end);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Long sadd(String key,String...members){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.sadd(key, members);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Long srem(String key,String...members){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.srem(key, members);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public String spop(String key){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.spop(key);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Set<String> sdiff(String...keys){
+        CircuitBreakers.Call call = breakers.begin(first(keys));
+        try {
+            return redisManager.sdiff(keys);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Long sdiffstore(String dstkey,String... keys){
+        CircuitBreakers.Call call = breakers.begin(dstkey);
+        try {
+            return redisManager.sdiffstore(dstkey, keys);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Set<String> sinter(String...keys){
+        CircuitBreakers.Call call = breakers.begin(first(keys));
+        try {
+            return redisManager.sinter(keys);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Long sinterstore(String dstkey,String...keys){
+        CircuitBreakers.Call call = breakers.begin(dstkey);
+        try {
+            return redisManager.sinterstore(dstkey, keys);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Set<String> sunion(String... keys){
+        CircuitBreakers.Call call = breakers.begin(first(keys));
+        try {
+            return redisManager.sunion(keys);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Long sunionstore(String dstkey,String...keys){
+        CircuitBreakers.Call call = breakers.begin(dstkey);
+        try {
+            return redisManager.sunionstore(dstkey, keys);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Long smove(String srckey, String dstkey, String member){
+        CircuitBreakers.Call call = breakers.begin(srckey);
+        try {
+            return redisManager.smove(srckey, dstkey, member);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Long scard(String key){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.scard(key);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Boolean sismember(String key,String member){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.sismember(key, member);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public String srandmember(String key){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.srandmember(key);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Set<String> smembers(String key){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.smembers(key);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Long zremrangeByRank(String key ,long start, long end){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.zremrangeByRank(key, start, end);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public Long zremrangeByScore(String key,double start,double end){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.zremrangeByScore(key, start, end);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public String type(String key){
+        CircuitBreakers.Call call = breakers.begin(key);
+        try {
+            return redisManager.type(key);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public List<Object> pipelined(PipelineCallback callback){
+        CircuitBreakers.Call call = breakers.begin(null);
+        try {
+            return redisManager.pipelined(callback);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+
+    public <T> T eval(RedisScript<T> script, List<String> keys, List<String> args){
+        CircuitBreakers.Call call = breakers.begin(keys.isEmpty() ? null : keys.get(0));
+        try {
+            return redisManager.eval(script, keys, args);
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.jut.redis.breaker;
+
+import com.jut.redis.cluster.NodeResolver;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/***
+ * 按节点划分的熔断器
+ * 未设置NodeResolver时(单实例)所有调用共用一个名为default的熔断器;
+ * 集群模式下设置ClusterNodeResolver, 按key所在节点各用一个熔断器, 不带key的调用不经过熔断器
+ * 调用由CircuitBreakerRedisManager通过begin/end界定; SingleRedisManager/ClusterRedisManager设置后,
+ * 上报被吞掉的异常, 归到当前线程正在执行的调用
+ */
+public class CircuitBreakers {
+    public static final String DEFAULT_NODE = "default";
+
+    private final CircuitBreakerConfig config;
+    private final ConcurrentHashMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<String, CircuitBreaker>();
+    private final ThreadLocal<Call> calls = new ThreadLocal<Call>() {
+        protected Call initialValue() {
+            return new Call();
+        }
+    };
+    private volatile NodeResolver nodeResolver;
+    private volatile CircuitBreakerListener listener;
+
+    public CircuitBreakers() {
+        this(new CircuitBreakerConfig());
+    }
+
+    public CircuitBreakers(CircuitBreakerConfig config) {
+        this.config = config;
+    }
+
+    public CircuitBreakerConfig getConfig() {
+        return config;
+    }
+    public NodeResolver getNodeResolver() {
+        return nodeResolver;
+    }
+    public void setNodeResolver(NodeResolver nodeResolver) {
+        this.nodeResolver = nodeResolver;
+    }
+    public CircuitBreakerListener getListener() {
+        return listener;
+    }
+    /**
+     * 只对之后创建的熔断器生效, 需在使用前设置
+     */
+    public void setListener(CircuitBreakerListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 一次调用的上下文, 每个线程复用同一个对象
+     * 嵌套调用(例如多层装饰)只由最外层经过熔断器
+     */
+    public static final class Call {
+        private int depth;
+        private CircuitBreaker breaker;
+        private long start;
+        private boolean failed;
+        private boolean ignoreLatency;
+
+        private Call() {
+        }
+
+        /**
+         * 标记本次调用失败
+         */
+        public void fail() {
+            failed = true;
+        }
+
+        /**
+         * 本次调用的耗时不计入慢调用, 用于阻塞命令
+         */
+        public void ignoreLatency() {
+            ignoreLatency = true;
+        }
+
+        public void end() {
+            if (--depth > 0) {
+                return;
+            }
+            if (breaker != null) {
+                breaker.onResult(failed, ignoreLatency ? 0L : System.nanoTime() - start);
+                breaker = null;
+            }
+        }
+    }
+
+    /**
+     * 开始一次调用, 熔断器拒绝时抛出RedisCircuitOpenException
+     *
+     * @param key 用于确定节点的key, 无key的命令为null
+     */
+    public Call begin(String key) {
+        Call call = calls.get();
+        if (call.depth == 0) {
+            CircuitBreaker breaker = resolve(key);
+            if (breaker != null && !breaker.tryAcquire()) {
+                throw new RedisCircuitOpenException(breaker.getName(), breaker.getState());
+            }
+            call.breaker = breaker;
+            call.failed = false;
+            call.ignoreLatency = false;
+            call.start = System.nanoTime();
+        }
+        call.depth++;
+        return call;
+    }
+
+    /**
+     * 记录一次被吞掉的异常, 归到当前线程正在执行的调用
+     */
+    public void recordError() {
+        Call call = calls.get();
+        if (call.depth > 0) {
+            call.failed = true;
+        }
+    }
+
+    /**
+     * key所在节点是否在熔断, 用于调用前主动降级, 不占用半开状态的探测名额
+     */
+    public boolean isOpen(String key) {
+        CircuitBreaker breaker = resolve(key);
+        return breaker != null && breaker.getState() == CircuitBreaker.State.OPEN;
+    }
+
+    private CircuitBreaker resolve(String key) {
+        NodeResolver resolver = nodeResolver;
+        String node;
+        if (resolver == null) {
+            node = DEFAULT_NODE;
+        } else {
+            node = key == null ? null : resolver.getNode(key);
+            if (node == null) {
+                return null;
+            }
+        }
+        return getBreaker(node);
+    }
+
+    /**
+     * 节点的熔断器, 不存在时创建
+     */
+    public CircuitBreaker getBreaker(String node) {
+        CircuitBreaker breaker = breakers.get(node);
+        if (breaker == null) {
+            breaker = new CircuitBreaker(node, config, listener);
+            CircuitBreaker previous = breakers.putIfAbsent(node, breaker);
+            if (previous != null) {
+                breaker = previous;
+            }
+        }
+        return breaker;
+    }
+
+    /**
+     * 各节点熔断器的当前状态
+     */
+    public Map<String, CircuitBreaker.State> getStates() {
+        Map<String, CircuitBreaker.State> states = new TreeMap<String, CircuitBreaker.State>();
+        for (Map.Entry<String, CircuitBreaker> entry : breakers.entrySet()) {
+            states.put(entry.getKey(), entry.getValue().getState());
+        }
+        return Collections.unmodifiableMap(states);
+    }
+
+    /**
+     * 关闭所有熔断器并清空统计
+     */
+    public void reset() {
+        for (CircuitBreaker breaker : breakers.values()) {
+            breaker.reset();
+        }
+    }
+}
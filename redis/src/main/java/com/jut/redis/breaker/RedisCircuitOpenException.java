@@ -0,0 +1,34 @@
+package com.jut.redis.breaker;
+
+/***
+ * 熔断器打开时调用被直接拒绝
+ * 与返回null/0的未命中或被吞掉的异常区分, 调用方可据此立即降级
+ */
+public class RedisCircuitOpenException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final String node;
+    private final CircuitBreaker.State state;
+
+    public RedisCircuitOpenException(String node, CircuitBreaker.State state) {
+        super("redis circuit breaker " + state + " for node " + node);
+        this.node = node;
+        this.state = state;
+    }
+
+    public String getNode() {
+        return node;
+    }
+
+    public CircuitBreaker.State getState() {
+        return state;
+    }
+
+    /**
+     * 拒绝调用不需要堆栈, 省去填充堆栈的开销
+     */
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,13 @@
+package com.jut.redis.cache;
+
+/***
+ * 缓存未命中时CacheLoader加载失败
+ * 与redis出错(视为未命中)区分, 由调用方决定降级方式
+ */
+public class CacheLoadException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public CacheLoadException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,27 @@
+package com.jut.redis.cache;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/***
+ * 读穿透缓存的数据加载器
+ * 缓存未命中或需要提前刷新时由ReadThroughCache调用, 从数据库等数据源加载
+ */
+public interface CacheLoader {
+    /**
+     * @return 加载的值, 不存在时返回null
+     */
+    public String load(String key) throws Exception;
+
+    /**
+     * 批量加载, 结果中缺少的key视为不存在; 默认逐个调用load, 数据源支持批量查询时应覆盖
+     */
+    public default Map<String, String> loadAll(Collection<String> keys) throws Exception {
+        Map<String, String> res = new LinkedHashMap<String, String>();
+        for (String key : keys) {
+            res.put(key, load(key));
+        }
+        return res;
+    }
+}
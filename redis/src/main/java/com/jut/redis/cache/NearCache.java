@@ -0,0 +1,269 @@
+package com.jut.redis.cache;
+
+import com.jut.redis.utils.CountMinSketch;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/***
+ * 进程内近端缓存
+ * 以redis key为单位缓存字符串值, 整个hash以及hash的单个字段, 按key整体失效
+ * 容量有上限, 写入后超过存活时间即过期; 淘汰策略为W-TinyLFU:
+ * 新key先进入容量为1%的窗口LRU, 被挤出窗口时与主LRU的淘汰候选比较访问频率, 频率更高者留下
+ * 读操作不加锁, LRU顺序的调整使用tryLock, 竞争激烈时直接放弃调整
+ */
+public class NearCache {
+    /**
+     * 失效计数分段数
+     */
+    private static final int STRIPES = 64;
+
+    private final int maximumSize;
+    private final long expireAfterWriteMillis;
+    private final int windowSize;
+
+    private final ConcurrentHashMap<String, Entry> data = new ConcurrentHashMap<String, Entry>();
+    private final LinkedHashMap<String, Entry> window = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    private final LinkedHashMap<String, Entry> main = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final CountMinSketch sketch;
+
+    /**
+     * 按key分段的失效计数, 从redis读取前记下, 写入缓存时不一致说明期间发生过失效, 放弃写入
+     */
+    private final AtomicLongArray invalidations = new AtomicLongArray(STRIPES);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param maximumSize 最多缓存的key个数
+     * @param expireAfterWriteMillis 写入后的存活时间, 毫秒
+     */
+    public NearCache(int maximumSize, long expireAfterWriteMillis) {
+        this.maximumSize = maximumSize;
+        this.expireAfterWriteMillis = expireAfterWriteMillis;
+        this.windowSize = Math.max(1, maximumSize / 100);
+        this.sketch = new CountMinSketch(Math.max(64, maximumSize), 10L * Math.max(64, maximumSize));
+    }
+
+    /**
+     * 缓存条目, 同一个redis key的所有缓存内容
+     */
+    static final class Entry {
+        final String key;
+        final long expireAt;
+        boolean inWindow = true;
+        volatile String value;
+        volatile Map<String, String> hash;
+        final ConcurrentHashMap<String, String> fields = new ConcurrentHashMap<String, String>();
+
+        Entry(String key, long expireAt) {
+            this.key = key;
+            this.expireAt = expireAt;
+        }
+    }
+
+    /**
+     * 读取redis之前获取失效标记, 回填缓存时传入
+     */
+    public long stamp(String key) {
+        return invalidations.get(stripe(key));
+    }
+
+    public String getString(String key) {
+        Entry entry = lookup(key);
+        String value = entry == null ? null : entry.value;
+        record(key, entry, value != null);
+        return value;
+    }
+
+    public Map<String, String> getHash(String key) {
+        Entry entry = lookup(key);
+        Map<String, String> hash = entry == null ? null : entry.hash;
+        record(key, entry, hash != null);
+        return hash == null ? null : new HashMap<String, String>(hash);
+    }
+
+    public String getField(String key, String field) {
+        Entry entry = lookup(key);
+        String value = null;
+        if (entry != null) {
+            Map<String, String> hash = entry.hash;
+            value = hash != null ? hash.get(field) : entry.fields.get(field);
+        }
+        record(key, entry, value != null);
+        return value;
+    }
+
+    public void putString(String key, String value, long stamp) {
+        lock.lock();
+        try {
+            Entry entry = admit(key, stamp);
+            if (entry != null) {
+                entry.value = value;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void putHash(String key, Map<String, String> hash, long stamp) {
+        lock.lock();
+        try {
+            Entry entry = admit(key, stamp);
+            if (entry != null) {
+                entry.hash = new HashMap<String, String>(hash);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void putField(String key, String field, String value, long stamp) {
+        lock.lock();
+        try {
+            Entry entry = admit(key, stamp);
+            if (entry != null) {
+                entry.fields.put(field, value);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * key发生变更, 清除该key的所有缓存内容
+     * 失效计数的增加和清除与admit在同一把锁内, 正在回填的旧值要么在增加计数之前写入并被清除,
+     * 要么在之后写入时发现计数不一致而放弃
+     */
+    public void invalidate(String key) {
+        lock.lock();
+        try {
+            invalidations.incrementAndGet(stripe(key));
+            remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 清空缓存, 失效通知可能丢失时调用
+     */
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            for (int i = 0; i < STRIPES; i++) {
+                invalidations.incrementAndGet(i);
+            }
+            data.clear();
+            window.clear();
+            main.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long size() {
+        return data.size();
+    }
+    public long hitCount() {
+        return hits.sum();
+    }
+    public long missCount() {
+        return misses.sum();
+    }
+
+    private Entry lookup(String key) {
+        Entry entry = data.get(key);
+        if (entry != null && entry.expireAt <= System.currentTimeMillis()) {
+            lock.lock();
+            try {
+                if (data.get(key) == entry) {
+                    remove(key);
+                }
+            } finally {
+                lock.unlock();
+            }
+            return null;
+        }
+        return entry;
+    }
+
+    private void record(String key, Entry entry, boolean hit) {
+        sketch.increment(key);
+        if (!hit) {
+            misses.increment();
+            return;
+        }
+        hits.increment();
+        if (lock.tryLock()) {
+            try {
+                //访问顺序LinkedHashMap的get会把条目移到队尾
+                if (data.get(key) == entry) {
+                    (entry.inWindow ? window : main).get(key);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 获取或创建条目, 调用方必须持有锁; 期间发生过失效或未被准入时返回null
+     */
+    private Entry admit(String key, long stamp) {
+        if (invalidations.get(stripe(key)) != stamp) {
+            return null;
+        }
+        Entry entry = data.get(key);
+        if (entry != null && entry.expireAt > System.currentTimeMillis()) {
+            return entry;
+        }
+        if (entry != null) {
+            remove(key);
+        }
+        entry = new Entry(key, System.currentTimeMillis() + expireAfterWriteMillis);
+        data.put(key, entry);
+        window.put(key, entry);
+        if (window.size() > windowSize) {
+            Iterator<Entry> it = window.values().iterator();
+            Entry candidate = it.next();
+            it.remove();
+            candidate.inWindow = false;
+            if (main.size() < maximumSize - windowSize) {
+                main.put(candidate.key, candidate);
+            } else if (main.isEmpty()) {
+                data.remove(candidate.key);
+            } else {
+                Entry victim = main.values().iterator().next();
+                if (sketch.estimate(candidate.key) > sketch.estimate(victim.key)) {
+                    main.remove(victim.key);
+                    data.remove(victim.key);
+                    main.put(candidate.key, candidate);
+                } else {
+                    data.remove(candidate.key);
+                }
+            }
+        }
+        return data.get(key);
+    }
+
+    private void remove(String key) {
+        Entry entry = data.remove(key);
+        if (entry != null) {
+            (entry.inWindow ? window : main).remove(key);
+        }
+    }
+
+    private static int stripe(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+}
@@ -0,0 +1,129 @@
+package com.jut.redis.cache;
+
+import com.jut.redis.utils.NamedThreadFactory;
+import com.jut.redis.utils.StringUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPubSub;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/***
+ * 近端缓存失效监听
+ * 在每个节点上订阅键空间通知, 任何客户端修改了key都会使近端缓存中的该key失效
+ * 需要服务端开启键空间通知, 例如: CONFIG SET notify-keyspace-events K$ghxe (x为过期, e为内存淘汰)
+ * 订阅断开期间可能漏掉通知, 因此每次(重新)订阅确认之后清空整个近端缓存, 订阅确认之前的写入也不会遗漏
+ */
+public class NearCacheInvalidationListener {
+    private final static Logger logger = LoggerFactory.getLogger(NearCacheInvalidationListener.class);
+
+    private static final long RETRY_INTERVAL_MILLIS = 1000L;
+
+    private final NearCache nearCache;
+    private final Collection<JedisPool> pools;
+    private final String pattern;
+    private final String prefix;
+    private final List<Subscriber> subscribers = new ArrayList<Subscriber>();
+    private volatile boolean running;
+
+    /**
+     * @param pools 需要订阅的节点连接池
+     * @param database 数据库索引, 集群模式为0
+     */
+    public NearCacheInvalidationListener(NearCache nearCache, Collection<JedisPool> pools, int database) {
+        this.nearCache = nearCache;
+        this.pools = pools;
+        this.prefix = "__keyspace@" + database + "__:";
+        this.pattern = prefix + "*";
+    }
+
+    /**
+     * 订阅集群的所有节点
+     */
+    public static NearCacheInvalidationListener forCluster(NearCache nearCache, JedisCluster jedisCluster) {
+        return new NearCacheInvalidationListener(nearCache, jedisCluster.getClusterNodes().values(), 0);
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        NamedThreadFactory threadFactory = new NamedThreadFactory("jut-redis-near-cache");
+        for (JedisPool pool : pools) {
+            Subscriber subscriber = new Subscriber(pool);
+            subscribers.add(subscriber);
+            threadFactory.newThread(subscriber).start();
+        }
+    }
+
+    public synchronized void stop() {
+        running = false;
+        for (Subscriber subscriber : subscribers) {
+            subscriber.cancel();
+        }
+        subscribers.clear();
+    }
+
+    private class Subscriber extends JedisPubSub implements Runnable {
+        private final JedisPool pool;
+
+        Subscriber(JedisPool pool) {
+            this.pool = pool;
+        }
+
+        public void run() {
+            while (running) {
+                Jedis jedis = null;
+                try {
+                    jedis = pool.getResource();
+                    jedis.psubscribe(this, pattern);
+                } catch (Exception e) {
+                    if (running) {
+                        logger.error(StringUtil.logException(e));
+                    }
+                } finally {
+                    if (jedis != null) {
+                        jedis.close();
+                    }
+                }
+                if (running) {
+                    try {
+                        Thread.sleep(RETRY_INTERVAL_MILLIS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+
+        /**
+         * 订阅确认后才能收到之后的通知, 此时清空才不会漏掉订阅建立期间的写入
+         */
+        public void onPSubscribe(String pattern, int subscribedChannels) {
+            nearCache.invalidateAll();
+        }
+
+        public void onPMessage(String pattern, String channel, String message) {
+            if (channel.startsWith(prefix)) {
+                nearCache.invalidate(channel.substring(prefix.length()));
+            }
+        }
+
+        void cancel() {
+            try {
+                if (isSubscribed()) {
+                    punsubscribe();
+                }
+            } catch (Exception e) {
+                logger.error(StringUtil.logException(e));
+            }
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package com.jut.redis.cache;
+
+import com.jut.redis.RedisManager;
+import com.jut.redis.RedisManagerDecorator;
+import com.jut.redis.SetOptions;
+import com.jut.redis.pipeline.PipelineCallback;
+import com.jut.redis.pipeline.RedisPipeline;
+import com.jut.redis.pipeline.RedisPipelineDecorator;
+import com.jut.redis.script.RedisScript;
+import redis.clients.jedis.Response;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/***
+ * 带近端缓存的redis管理接口
+ * get/hget/hgetall优先读取进程内缓存, 未命中时读取redis并回填
+ * 通过本类执行的写命令会在写入后使对应key的缓存失效;
+ * 其他客户端的写入需要配合NearCacheInvalidationListener订阅键空间通知
+ */
+public class NearCacheRedisManager extends RedisManagerDecorator {
+    private final NearCache nearCache;
+
+    public NearCacheRedisManager(RedisManager redisManager, NearCache nearCache) {
+        super(redisManager);
+        this.nearCache = nearCache;
+    }
+
+    /**
+     * @param maximumSize 最多缓存的key个数
+     * @param expireAfterWriteMillis 写入后的存活时间, 毫秒
+     */
+    public NearCacheRedisManager(RedisManager redisManager, int maximumSize, long expireAfterWriteMillis) {
+        this(redisManager, new NearCache(maximumSize, expireAfterWriteMillis));
+    }
+
+    public NearCache getNearCache() {
+        return nearCache;
+    }
+
+    public String get(String key){
+        String value = nearCache.getString(key);
+        if (value == null) {
+            long stamp = nearCache.stamp(key);
+            value = redisManager.get(key);
+            if (value != null) {
+                nearCache.putString(key, value, stamp);
+            }
+        }
+        return value;
+    }
+
+    public String hget(String key, String field){
+        String value = nearCache.getField(key, field);
+        if (value == null) {
+            long stamp = nearCache.stamp(key);
+            value = redisManager.hget(key, field);
+            if (value != null) {
+                nearCache.putField(key, field, value, stamp);
+            }
+        }
+        return value;
+    }
+
+    public Map<String, String> hgetall(String key){
+        Map<String, String> hash = nearCache.getHash(key);
+        if (hash == null) {
+            long stamp = nearCache.stamp(key);
+            hash = redisManager.hgetall(key);
+            if (hash != null && !hash.isEmpty()) {
+                nearCache.putHash(key, hash, stamp);
+            }
+        }
+        return hash;
+    }
+
+    public String set(String key,String value){
+        try {
+            return redisManager.set(key, value);
+        } finally {
+            nearCache.invalidate(key);
+        }
+    }
+
+    public String set(String key, String value, SetOptions options){
+        try {
+            return redisManager.set(key, value, options);
+        } finally {
+            nearCache.invalidate(key);
+        }
+    }
+
+    public String setex(String key,int seconds,String value){
+        try {
+            return redisManager.setex(key, seconds, value);
+        } finally {
+            nearCache.invalidate(key);
+        }
+    }
+
+    public Long setrange(String key,int offset,String value){
+        try {
+            return redisManager.setrange(key, offset, value);
+        } finally {
+            nearCache.invalidate(key);
+        }
+    }
+
+    public String mset(String...keysvalues){
+        try {
+            return redisManager.mset(keysvalues);
+        } finally {
+            for (int i = 0; i < keysvalues.length; i += 2) {
+                nearCache.invalidate(keysvalues[i]);
+            }
+        }
+    }
+
+    public Long append(String key,String value){
+        try {
+            return redisManager.append(key, value);
+        } finally {
+            nearCache.invalidate(key);
+        }
+    }
+
+    public Long setnx(String key,String value){
+        try {
+            return redisManager.setnx(key, value);
+        } finally {
+            nearCache.invalidate(key);
+        }
+    }
+
+    public Long expire(String key,int seconds){
+        try {
+            return redisManager.expire(key, seconds);
+        } finally {
+            nearCache.invalidate(key);
+        }
+    }
+
+    public Long del(String...keys){
+        try {
+            return redisManager.del(keys);
+        } finally {
+            for (String key : keys) {
+                nearCache.invalidate(key);
+            }
+        }
+    }
+
+    public Long msetnx(String...keysvalues){
+        try {
+            return redisManager.msetnx(keysvalues);
+        } finally {
+            for (int i = 0; i < keysvalues.length; i += 2) {
+                nearCache.invalidate(keysvalues[i]);
+            }
+        }
+    }
+
+    public String getset(String key,String value){
+        try {
+            return redisManager.getset(key, value);
+        } finally {
+            nearCache.invalidate(key);
+        }
+    }
+
+    public Long incr(String key){
+        try {
+            return redisManager.incr(key);
+        } finally {
+            nearCache.invalidate(key);
+        }
+    }
+
+    public Long incrBy(String key,Long integer){
+        try {
+            return redisManager.incrBy(key, integer);
+        } finally {
+            nearCache.invalidate(key);
+        }
+    }
+
+    public Long incrByEx(String key, Long integer, int seconds){
+        try {
+            return redisManager.incrByEx(key, integer, seconds);
+        } finally {
+            nearCache.invalidate(key);
+        }
+    }
+
+    public Long decr(String key){
+        try {
+            return redisManager.decr(key);
+        } finally {
+            nearCache.invalidate(key);
+        }
+    }
+
+    public Long decrBy(String key,Long integer){
+        try {
+            return redisManager.decrBy(key, integer);
+        } finally {
+            nearCache.invalidate(key);
+        }
+    }
+
+    public Long hset(String key,String field,String value){
+        try {
+            return redisManager.hset(key, field, value);
+        } finally {
+            nearCache.invalidate(key);
+        }
+    }
+
+    public Long hsetnx(String key,String field,String value){
+        try {
+            return redisManager.hsetnx(key, field, value);
+        } finally {
+            nearCache.invalidate(key);
+        }
+    }
+
+    public String hmset(String key, Map<String, String> hash){
+        try {
+            return redisManager.hmset(key, hash);
+        } finally {
+            nearCache.invalidate(key);
+        }
+    }
+
+    public Long hincrby(String key ,String field ,Long value){
+        try {
+            return redisManager.hincrby(key, field, value);
+        } finally {
+            nearCache.invalidate(key);
+        }
+    }
+
+    public Long hincrbyEx(String key, String field, Long value, int seconds){
+        try {
+            return redisManager.hincrbyEx(key, field, value, seconds);
+        } finally {
+            nearCache.invalidate(key);
+        }
+    }
+
+    public Long hdel(String key ,String...fields){
+        try {
+            return redisManager.hdel(key, fields);
+        } finally {
+            nearCache.invalidate(key);
+        }
+    }
+
+    public Long sdiffstore(String dstkey,String... keys){
+        try {
+            return redisManager.sdiffstore(dstkey, keys);
+        } finally {
+            nearCache.invalidate(dstkey);
+        }
+    }
+
+    public Long sinterstore(String dstkey,String...keys){
+        try {
+            return redisManager.sinterstore(dstkey, keys);
+        } finally {
+            nearCache.invalidate(dstkey);
+        }
+    }
+
+    public Long sunionstore(String dstkey,String...keys){
+        try {
+            return redisManager.sunionstore(dstkey, keys);
+        } finally {
+            nearCache.invalidate(dstkey);
+        }
+    }
+
+    /**
+     * 脚本可能修改任意传入的key, 执行后全部失效
+     */
+    public <T> T eval(RedisScript<T> script, List<String> keys, List<String> args){
+        try {
+            return redisManager.eval(script, keys, args);
+        } finally {
+            for (String key : keys) {
+                nearCache.invalidate(key);
+            }
+        }
+    }
+
+    /**
+     * 管道中的写命令在管道同步之后使对应key失效
+     */
+    public List<Object> pipelined(final PipelineCallback callback){
+        final List<String> written = new ArrayList<String>();
+        try {
+            return redisManager.pipelined(new PipelineCallback() {
+                public void doInPipeline(RedisPipeline pipeline) {
+                    callback.doInPipeline(new InvalidatingPipeline(pipeline, written));
+                }
+            });
+        } finally {
+            for (String key : written) {
+                nearCache.invalidate(key);
+            }
+        }
+    }
+
+    /**
+     * 记录写命令涉及的key的管道
+     */
+    private static class InvalidatingPipeline extends RedisPipelineDecorator {
+        private final List<String> written;
+
+        InvalidatingPipeline(RedisPipeline pipeline, List<String> written) {
+            super(pipeline);
+            this.written = written;
+        }
+
+        private <T> Response<T> write(String key, Response<T> response) {
+            written.add(key);
+            return response;
+        }
+
+        public Response<String> set(String key,String value){
+            return write(key, pipeline.set(key, value));
+        }
+
+        public Response<String> setex(String key,int seconds,String value){
+            return write(key, pipeline.setex(key, seconds, value));
+        }
+
+        public Response<Long> setrange(String key,int offset,String value){
+            return write(key, pipeline.setrange(key, offset, value));
+        }
+
+        public Response<Long> append(String key,String value){
+            return write(key, pipeline.append(key, value));
+        }
+
+        public Response<Long> setnx(String key,String value){
+            return write(key, pipeline.setnx(key, value));
+        }
+
+        public Response<Long> expire(String key,int seconds){
+            return write(key, pipeline.expire(key, seconds));
+        }
+
+        public Response<Long> del(String key){
+            return write(key, pipeline.del(key));
+        }
+
+        public Response<String> getset(String key,String value){
+            return write(key, pipeline.getset(key, value));
+        }
+
+        public Response<Long> incr(String key){
+            return write(key, pipeline.incr(key));
+        }
+
+        public Response<Long> incrBy(String key,Long integer){
+            return write(key, pipeline.incrBy(key, integer));
+        }
+
+        public Response<Long> decr(String key){
+            return write(key, pipeline.decr(key));
+        }
+
+        public Response<Long> decrBy(String key,Long integer){
+            return write(key, pipeline.decrBy(key, integer));
+        }
+
+        public Response<Long> hset(String key,String field,String value){
+            return write(key, pipeline.hset(key, field, value));
+        }
+
+        public Response<Long> hsetnx(String key,String field,String value){
+            return write(key, pipeline.hsetnx(key, field, value));
+        }
+
+        public Response<String> hmset(String key, Map<String, String> hash){
+            return write(key, pipeline.hmset(key, hash));
+        }
+
+        public Response<Long> hincrby(String key ,String field ,Long value){
+            return write(key, pipeline.hincrby(key, field, value));
+        }
+
+        public Response<Long> hdel(String key ,String...fields){
+            return write(key, pipeline.hdel(key, fields));
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package com.jut.redis.cache;
+
+import com.jut.redis.RedisManager;
+import com.jut.redis.coalesce.SingleFlight;
+import com.jut.redis.pipeline.PipelineCallback;
+import com.jut.redis.pipeline.RedisPipeline;
+import com.jut.redis.utils.NamedThreadFactory;
+import com.jut.redis.utils.StringUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ * 读穿透缓存
+ * 先从redis读取, 未命中时调用CacheLoader加载并setex写回; 同一进程内同一key的并发未命中只加载一次(SingleFlight),
+ * get和getAll之间同样按key合并
+ *
+ * 值在redis中存为"过期时刻:加载耗时:类型+值", 类型v为值, n为缓存的不存在(nullTtlSeconds大于0时);
+ * 读取时无需再查询TTL即可按XFetch判断是否提前刷新:
+ *   now - delta * beta * ln(random) >= expireAt
+ * 加载越慢(delta越大)、越接近过期, 提前刷新的概率越高; 提前刷新在后台线程异步执行, 调用方仍立即拿到当前值,
+ * 同一key同时只有一个刷新任务, 线程池满时放弃本次刷新
+ * 写入的过期时间在ttlSeconds的基础上随机增加最多jitterRatio倍, 同一批写入的key不会同时过期
+ * 不符合上述格式的值(其他途径写入)原样返回, 不参与提前刷新
+ */
+public class ReadThroughCache {
+    private final static Logger logger = LoggerFactory.getLogger(ReadThroughCache.class);
+
+    private final RedisManager redisManager;
+    private final SingleFlight singleFlight = new SingleFlight();
+    /**
+     * 正在后台刷新的key
+     */
+    private final Set<String> refreshing = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private int ttlSeconds = 300;
+    /**
+     * 缓存不存在的时间, 0为不缓存
+     */
+    private int nullTtlSeconds = 0;
+    private double jitterRatio = 0.1;
+    /**
+     * XFetch的beta, 大于1时更早刷新, 为0时不提前刷新
+     */
+    private double beta = 1.0;
+    /**
+     * 后台刷新的线程池, 未设置时使用默认的有界线程池, 空闲线程超时后退出
+     */
+    private volatile ExecutorService executor;
+    /**
+     * 线程池是否由本类创建, 创建的线程池在destroy时关闭
+     */
+    private boolean ownExecutor;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+
+    public ReadThroughCache(RedisManager redisManager) {
+        this.redisManager = redisManager;
+    }
+
+    public int getTtlSeconds() {
+        return ttlSeconds;
+    }
+    public void setTtlSeconds(int ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+    public int getNullTtlSeconds() {
+        return nullTtlSeconds;
+    }
+    public void setNullTtlSeconds(int nullTtlSeconds) {
+        this.nullTtlSeconds = nullTtlSeconds;
+    }
+    public double getJitterRatio() {
+        return jitterRatio;
+    }
+    public void setJitterRatio(double jitterRatio) {
+        this.jitterRatio = jitterRatio;
+    }
+    public double getBeta() {
+        return beta;
+    }
+    public void setBeta(double beta) {
+        this.beta = beta;
+    }
+    public ExecutorService getExecutor() {
+        if (executor == null) {
+            synchronized (this) {
+                if (executor == null) {
+                    int threads = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+                    ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                            new ArrayBlockingQueue<Runnable>(1024), new NamedThreadFactory("jut-redis-cache-refresh"));
+                    pool.allowCoreThreadTimeOut(true);
+                    ownExecutor = true;
+                    executor = pool;
+                }
+            }
+        }
+        return executor;
+    }
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * 关闭默认创建的线程池, 之后不再提前刷新
+     */
+    public synchronized void destroy() {
+        if (ownExecutor && executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 未命中时同步加载, 加载失败抛出CacheLoadException
+     *
+     * @return 值, 不存在时返回null
+     */
+    public String get(String key, CacheLoader loader) {
+        String raw = redisManager.get(key);
+        if (raw != null) {
+            hits.increment();
+            Envelope envelope = Envelope.decode(raw);
+            if (shouldRefresh(envelope)) {
+                refreshAsync(Collections.singletonList(key), loader);
+            }
+            return envelope.value;
+        }
+        misses.increment();
+        return singleFlight.execute(key, () -> load(key, loader), null);
+    }
+
+    /**
+     * 批量读取: 一次mget, 未命中的key一次loadAll并在一个管道中写回, 需要提前刷新的key一起在后台刷新
+     * 未命中的key中已有其他调用正在加载的不再加载, 等待其结果
+     *
+     * @return 按参数顺序排列的存在的值, 不存在的key不包含在结果中
+     */
+    public Map<String, String> getAll(Collection<String> keys, CacheLoader loader) {
+        List<String> distinct = new ArrayList<String>(new LinkedHashSet<String>(keys));
+        Map<String, String> found = new HashMap<String, String>();
+        List<String> missing = new ArrayList<String>();
+        List<String> stale = new ArrayList<String>();
+        List<String> raws = distinct.isEmpty() ? null : redisManager.mget(distinct.toArray(new String[distinct.size()]));
+        for (int i = 0; i < distinct.size(); i++) {
+            String raw = raws == null ? null : raws.get(i);
+            if (raw == null) {
+                missing.add(distinct.get(i));
+                continue;
+            }
+            Envelope envelope = Envelope.decode(raw);
+            found.put(distinct.get(i), envelope.value);
+            if (shouldRefresh(envelope)) {
+                stale.add(distinct.get(i));
+            }
+        }
+        hits.add(distinct.size() - missing.size());
+        misses.add(missing.size());
+        if (!stale.isEmpty()) {
+            refreshAsync(stale, loader);
+        }
+        if (!missing.isEmpty()) {
+            found.putAll(singleFlight.executeAll(missing, batch -> loadAll(batch, loader)));
+        }
+        Map<String, String> res = new LinkedHashMap<String, String>();
+        for (String key : distinct) {
+            String value = found.get(key);
+            if (value != null) {
+                res.put(key, value);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * 直接写入, 例如数据源更新后; 没有加载耗时, 不会被提前刷新, 到期后由下一次读取加载
+     */
+    public void put(String key, String value) {
+        store(key, value, 0L);
+    }
+
+    public void invalidate(String key) {
+        redisManager.del(key);
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+    public long missCount() {
+        return misses.sum();
+    }
+    /**
+     * 提前刷新的key数
+     */
+    public long refreshCount() {
+        return refreshes.sum();
+    }
+
+    private String load(String key, CacheLoader loader) {
+        long start = System.nanoTime();
+        String value;
+        try {
+            value = loader.load(key);
+        } catch (Exception e) {
+            throw new CacheLoadException("load " + key + " failed", e);
+        }
+        store(key, value, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return value;
+    }
+
+    private Map<String, String> loadAll(List<String> keys, CacheLoader loader) {
+        long start = System.nanoTime();
+        Map<String, String> loaded;
+        try {
+            loaded = loader.loadAll(keys);
+        } catch (Exception e) {
+            throw new CacheLoadException("load " + keys.size() + " keys failed", e);
+        }
+        if (loaded == null) {
+            loaded = Collections.emptyMap();
+        }
+        long delta = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        final Map<String, String> encoded = new LinkedHashMap<String, String>();
+        final Map<String, Integer> ttls = new HashMap<String, Integer>();
+        for (String key : keys) {
+            String value = loaded.get(key);
+            int ttl = ttl(value);
+            if (ttl > 0) {
+                encoded.put(key, Envelope.encode(System.currentTimeMillis() + ttl * 1000L, delta, value));
+                ttls.put(key, ttl);
+            }
+        }
+        if (!encoded.isEmpty()) {
+            //各key的过期时间不同, 用管道中的setex代替mset, 集群模式下按节点分组
+            redisManager.pipelined(new PipelineCallback() {
+                public void doInPipeline(RedisPipeline pipeline) {
+                    for (Map.Entry<String, String> entry : encoded.entrySet()) {
+                        pipeline.setex(entry.getKey(), ttls.get(entry.getKey()), entry.getValue());
+                    }
+                }
+            });
+        }
+        return loaded;
+    }
+
+    private void store(String key, String value, long delta) {
+        int ttl = ttl(value);
+        if (ttl > 0) {
+            redisManager.setex(key, ttl, Envelope.encode(System.currentTimeMillis() + ttl * 1000L, delta, value));
+        }
+    }
+
+    /**
+     * 加上随机抖动后的过期时间, 不缓存时返回0
+     */
+    private int ttl(String value) {
+        int base = value == null ? nullTtlSeconds : ttlSeconds;
+        if (base <= 0) {
+            return 0;
+        }
+        int jitter = (int) (base * jitterRatio);
+        return jitter > 0 ? base + ThreadLocalRandom.current().nextInt(jitter + 1) : base;
+    }
+
+    private boolean shouldRefresh(Envelope envelope) {
+        if (envelope.expireAt == Long.MAX_VALUE || beta <= 0) {
+            return false;
+        }
+        //ln(random)为负数, 加载耗时越长提前量越大
+        double gap = -envelope.delta * beta * Math.log(ThreadLocalRandom.current().nextDouble());
+        return System.currentTimeMillis() + gap >= envelope.expireAt;
+    }
+
+    private void refreshAsync(List<String> keys, final CacheLoader loader) {
+        final List<String> claimed = new ArrayList<String>(keys.size());
+        for (String key : keys) {
+            if (refreshing.add(key)) {
+                claimed.add(key);
+            }
+        }
+        if (claimed.isEmpty()) {
+            return;
+        }
+        try {
+            getExecutor().execute(new Runnable() {
+                public void run() {
+                    try {
+                        if (claimed.size() == 1) {
+                            load(claimed.get(0), loader);
+                        } else {
+                            loadAll(claimed, loader);
+                        }
+                        refreshes.add(claimed.size());
+                    } catch (Exception e) {
+                        //刷新失败时保留当前值, 由后续读取再次触发
+                        logger.error(StringUtil.logException(e));
+                    } finally {
+                        refreshing.removeAll(claimed);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.removeAll(claimed);
+        }
+    }
+
+    /**
+     * redis中存储的值及其过期时刻和加载耗时
+     */
+    static final class Envelope {
+        final long expireAt;
+        final long delta;
+        final String value;
+
+        Envelope(long expireAt, long delta, String value) {
+            this.expireAt = expireAt;
+            this.delta = delta;
+            this.value = value;
+        }
+
+        static String encode(long expireAt, long delta, String value) {
+            StringBuilder sb = new StringBuilder(value == null ? 32 : value.length() + 32);
+            sb.append(expireAt).append(':').append(delta).append(':');
+            if (value == null) {
+                sb.append('n');
+            } else {
+                sb.append('v').append(value);
+            }
+            return sb.toString();
+        }
+
+        static Envelope decode(String raw) {
+            int first = raw.indexOf(':');
+            int second = first < 0 ? -1 : raw.indexOf(':', first + 1);
+            if (second < 0 || second + 1 >= raw.length()) {
+                return new Envelope(Long.MAX_VALUE, 0L, raw);
+            }
+            long expireAt;
+            long delta;
+            try {
+                expireAt = Long.parseLong(raw.substring(0, first));
+                delta = Long.parseLong(raw.substring(first + 1, second));
+            } catch (NumberFormatException e) {
+                return new Envelope(Long.MAX_VALUE, 0L, raw);
+            }
+            char type = raw.charAt(second + 1);
+            if (type == 'v') {
+                return new Envelope(expireAt, delta, raw.substring(second + 2));
+            }
+            if (type == 'n' && second + 2 == raw.length()) {
+                return new Envelope(expireAt, delta, null);
+            }
+            return new Envelope(Long.MAX_VALUE, 0L, raw);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.jut.redis.cluster;
+
+import com.jut.redis.utils.NamedThreadFactory;
+import com.jut.redis.utils.StringUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.JedisCluster;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/***
+ * 集群节点解析
+ * 缓存一份ClusterTopology快照, 按槽位查找主节点; 首次使用时启动后台线程, 立即拉取并每隔刷新间隔重新拉取,
+ * 查找只读取最近一次成功拉取的快照, 不在请求线程上访问集群, 查找路径无锁且不分配对象;
+ * 后台首次拉取完成前getTopology返回null, 需要启动即可用时先调用load
+ */
+public class ClusterNodeResolver implements NodeResolver, Closeable {
+    private final static Logger logger = LoggerFactory.getLogger(ClusterNodeResolver.class);
+
+    public static final long DEFAULT_REFRESH_MILLIS = 30000L;
+
+    private final JedisCluster jedisCluster;
+    private final long refreshMillis;
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+    private volatile ScheduledExecutorService refresher;
+    private volatile boolean closed;
+    private volatile ClusterTopology topology;
+
+    public ClusterNodeResolver(JedisCluster jedisCluster) {
+        this(jedisCluster, DEFAULT_REFRESH_MILLIS);
+    }
+
+    /**
+     * @param refreshMillis 拓扑快照的刷新间隔, 毫秒
+     */
+    public ClusterNodeResolver(JedisCluster jedisCluster, long refreshMillis) {
+        this.jedisCluster = jedisCluster;
+        this.refreshMillis = refreshMillis;
+    }
+
+    public String getNode(String key) {
+        ClusterTopology current = getTopology();
+        return current == null ? null : current.getMaster(ClusterTopology.slot(key));
+    }
+
+    /**
+     * 最近一次成功拉取的拓扑快照, 尚未成功拉取时返回null
+     */
+    public ClusterTopology getTopology() {
+        if (refresher == null) {
+            startRefresher();
+        }
+        return topology;
+    }
+
+    /**
+     * 在后台线程立即重新拉取拓扑, 例如收到MOVED之后; 已有拉取在排队时不再重复提交
+     */
+    public void refresh() {
+        ScheduledExecutorService executor = refresher;
+        if (executor == null) {
+            //启动时立即拉取一次
+            startRefresher();
+            return;
+        }
+        if (!refreshPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(new Runnable() {
+                public void run() {
+                    refreshPending.set(false);
+                    load();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshPending.set(false);
+        }
+    }
+
+    /**
+     * 在调用线程上同步拉取拓扑, 用于启动时预热
+     *
+     * @return 最新的拓扑快照, 拉取失败且此前没有快照时返回null
+     */
+    public ClusterTopology load() {
+        try {
+            topology = ClusterTopology.discover(jedisCluster);
+        } catch (Exception e) {
+            logger.error(StringUtil.logException(e));
+        }
+        return topology;
+    }
+
+    private synchronized void startRefresher() {
+        if (refresher != null || closed) {
+            return;
+        }
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("jut-redis-topology"));
+        executor.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                load();
+            }
+        }, 0L, refreshMillis, TimeUnit.MILLISECONDS);
+        refresher = executor;
+    }
+
+    /**
+     * 停止后台刷新, 之后getTopology返回最后一次拉取的快照
+     */
+    public synchronized void close() {
+        closed = true;
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+}
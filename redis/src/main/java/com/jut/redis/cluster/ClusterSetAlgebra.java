@@ -0,0 +1,312 @@
+package com.jut.redis.cluster;
+
+import com.jut.redis.utils.StringUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+import redis.clients.jedis.util.JedisClusterCRC16;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/***
+ * 集群跨槽位集合运算
+ * 先并行获取各集合的基数, 再按基数决定每个集合是整体获取还是用sismember探测:
+ * 交集以最小的集合为候选, 差集以第一个集合为候选, 比候选大得多的集合只探测候选成员, 其余集合并行整体获取
+ * 成员数超过scanThreshold的集合用SSCAN分批获取, 避免一次SMEMBERS阻塞节点
+ * store时先删除目标key再分批SADD, 写入在目标节点上用管道执行; 结果不是原子的, 与单槽位的*store不同
+ */
+public class ClusterSetAlgebra {
+    private final static Logger logger = LoggerFactory.getLogger(ClusterSetAlgebra.class);
+
+    private final JedisCluster jedisCluster;
+    private final ExecutorService executor;
+
+    /**
+     * 成员数超过该值时用SSCAN获取
+     */
+    private int scanThreshold = 1000;
+    /**
+     * SSCAN每批数量, 也是探测和写入时每个管道批次的命令数
+     */
+    private int batchSize = 500;
+    /**
+     * 集合基数超过候选数的该倍数时改为探测候选成员
+     */
+    private int probeFactor = 4;
+
+    public ClusterSetAlgebra(JedisCluster jedisCluster, ExecutorService executor) {
+        this.jedisCluster = jedisCluster;
+        this.executor = executor;
+    }
+
+    public int getScanThreshold() {
+        return scanThreshold;
+    }
+    public void setScanThreshold(int scanThreshold) {
+        this.scanThreshold = scanThreshold;
+    }
+    public int getBatchSize() {
+        return batchSize;
+    }
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+    public int getProbeFactor() {
+        return probeFactor;
+    }
+    public void setProbeFactor(int probeFactor) {
+        this.probeFactor = probeFactor;
+    }
+
+    public Set<String> union(String... keys) throws Exception {
+        List<Long> cards = cards(keys);
+        Set<String> res = new HashSet<String>();
+        for (Set<String> members : fetch(Arrays.asList(keys), cards)) {
+            res.addAll(members);
+        }
+        return res;
+    }
+
+    public Set<String> inter(String... keys) throws Exception {
+        List<Long> cards = cards(keys);
+        List<Integer> order = new ArrayList<Integer>(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            if (cards.get(i) == 0) {
+                return new HashSet<String>();
+            }
+            order.add(i);
+        }
+        Collections.sort(order, (a, b) -> Long.compare(cards.get(a), cards.get(b)));
+        long smallest = cards.get(order.get(0));
+        List<String> fetched = new ArrayList<String>();
+        List<Long> fetchedCards = new ArrayList<Long>();
+        List<String> probed = new ArrayList<String>();
+        for (Integer i : order) {
+            if (fetched.isEmpty() || cards.get(i) <= smallest * probeFactor) {
+                fetched.add(keys[i]);
+                fetchedCards.add(cards.get(i));
+            } else {
+                probed.add(keys[i]);
+            }
+        }
+        List<Set<String>> sets = fetch(fetched, fetchedCards);
+        Set<String> res = sets.get(0);
+        for (int i = 1; i < sets.size() && !res.isEmpty(); i++) {
+            res.retainAll(sets.get(i));
+        }
+        //按基数从小到大探测, 候选越来越少
+        for (String key : probed) {
+            if (res.isEmpty()) {
+                break;
+            }
+            res = probe(key, res, true);
+        }
+        return res;
+    }
+
+    public Set<String> diff(String... keys) throws Exception {
+        List<Long> cards = cards(keys);
+        long base = cards.get(0);
+        if (base == 0) {
+            return new HashSet<String>();
+        }
+        List<String> fetched = new ArrayList<String>();
+        List<Long> fetchedCards = new ArrayList<Long>();
+        List<String> probed = new ArrayList<String>();
+        fetched.add(keys[0]);
+        fetchedCards.add(base);
+        for (int i = 1; i < keys.length; i++) {
+            if (cards.get(i) == 0) {
+                continue;
+            }
+            if (cards.get(i) <= base * probeFactor) {
+                fetched.add(keys[i]);
+                fetchedCards.add(cards.get(i));
+            } else {
+                probed.add(keys[i]);
+            }
+        }
+        List<Set<String>> sets = fetch(fetched, fetchedCards);
+        Set<String> res = sets.get(0);
+        for (int i = 1; i < sets.size() && !res.isEmpty(); i++) {
+            res.removeAll(sets.get(i));
+        }
+        for (String key : probed) {
+            if (res.isEmpty()) {
+                break;
+            }
+            res = probe(key, res, false);
+        }
+        return res;
+    }
+
+    /**
+     * 把结果写入目标key, 返回结果的成员数
+     */
+    public long store(String dstkey, Set<String> members) {
+        List<String[]> batches = batches(members);
+        Jedis jedis = jedisCluster.getConnectionFromSlot(JedisClusterCRC16.getSlot(dstkey));
+        try {
+            Pipeline pipeline = jedis.pipelined();
+            List<Response<Long>> responses = new ArrayList<Response<Long>>(batches.size() + 1);
+            responses.add(pipeline.del(dstkey));
+            for (String[] batch : batches) {
+                responses.add(pipeline.sadd(dstkey, batch));
+            }
+            pipeline.sync();
+            for (Response<Long> response : responses) {
+                response.get();
+            }
+        } catch (JedisRedirectionException e) {
+            //槽位迁移中, 通过JedisCluster逐批写入, 由其负责重定向
+            jedisCluster.del(dstkey);
+            for (String[] batch : batches) {
+                jedisCluster.sadd(dstkey, batch);
+            }
+        } finally {
+            close(jedis);
+        }
+        return members.size();
+    }
+
+    /**
+     * 并行获取各集合的基数
+     */
+    private List<Long> cards(String... keys) throws Exception {
+        return parallel(Arrays.asList(keys), key -> jedisCluster.scard(key));
+    }
+
+    /**
+     * 并行获取集合成员, 按参数顺序返回
+     */
+    private List<Set<String>> fetch(List<String> keys, List<Long> cards) throws Exception {
+        List<Integer> indexes = new ArrayList<Integer>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            indexes.add(i);
+        }
+        return parallel(indexes, i -> members(keys.get(i), cards.get(i)));
+    }
+
+    private Set<String> members(String key, long card) {
+        if (card <= scanThreshold) {
+            return new HashSet<String>(jedisCluster.smembers(key));
+        }
+        Set<String> members = new HashSet<String>((int) Math.min(card * 4 / 3 + 1, Integer.MAX_VALUE));
+        byte[] binaryKey = SafeEncoder.encode(key);
+        ScanParams params = new ScanParams().count(batchSize);
+        byte[] cursor = ScanParams.SCAN_POINTER_START_BINARY;
+        do {
+            ScanResult<byte[]> page = jedisCluster.sscan(binaryKey, cursor, params);
+            for (byte[] member : page.getResult()) {
+                members.add(SafeEncoder.encode(member));
+            }
+            cursor = page.getCursorAsBytes();
+        } while (!Arrays.equals(cursor, ScanParams.SCAN_POINTER_START_BINARY));
+        return members;
+    }
+
+    /**
+     * 用sismember在key所在节点上探测候选成员
+     *
+     * @param keep true保留是成员的候选(交集), false保留不是成员的候选(差集)
+     */
+    private Set<String> probe(String key, Set<String> candidates, boolean keep) {
+        Jedis jedis = jedisCluster.getConnectionFromSlot(JedisClusterCRC16.getSlot(key));
+        try {
+            Set<String> res = new HashSet<String>();
+            Iterator<String> iterator = candidates.iterator();
+            while (iterator.hasNext()) {
+                Pipeline pipeline = jedis.pipelined();
+                List<String> batch = new ArrayList<String>(batchSize);
+                List<Response<Boolean>> responses = new ArrayList<Response<Boolean>>(batchSize);
+                while (iterator.hasNext() && batch.size() < batchSize) {
+                    String member = iterator.next();
+                    batch.add(member);
+                    responses.add(pipeline.sismember(key, member));
+                }
+                pipeline.sync();
+                for (int i = 0; i < batch.size(); i++) {
+                    if (responses.get(i).get() == keep) {
+                        res.add(batch.get(i));
+                    }
+                }
+            }
+            return res;
+        } catch (JedisRedirectionException e) {
+            //槽位迁移中, 改为整体获取
+            Set<String> members = members(key, jedisCluster.scard(key));
+            Set<String> res = new HashSet<String>(candidates);
+            if (keep) {
+                res.retainAll(members);
+            } else {
+                res.removeAll(members);
+            }
+            return res;
+        } finally {
+            close(jedis);
+        }
+    }
+
+    private List<String[]> batches(Set<String> members) {
+        List<String[]> batches = new ArrayList<String[]>();
+        List<String> batch = new ArrayList<String>(batchSize);
+        for (String member : members) {
+            batch.add(member);
+            if (batch.size() == batchSize) {
+                batches.add(batch.toArray(new String[batch.size()]));
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch.toArray(new String[batch.size()]));
+        }
+        return batches;
+    }
+
+    /**
+     * 并行执行, 最后一个在调用线程执行; 任一失败时抛出其异常
+     */
+    private <K, T> List<T> parallel(List<K> args, Function<K, T> command) throws Exception {
+        List<Future<T>> futures = new ArrayList<Future<T>>(args.size());
+        for (int i = 0; i < args.size() - 1; i++) {
+            final K arg = args.get(i);
+            futures.add(executor.submit(() -> command.apply(arg)));
+        }
+        T last = command.apply(args.get(args.size() - 1));
+        List<T> res = new ArrayList<T>(args.size());
+        for (Future<T> future : futures) {
+            try {
+                res.add(future.get());
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+        res.add(last);
+        return res;
+    }
+
+    private static void close(Jedis jedis) {
+        try {
+            jedis.close();
+        } catch (Exception e) {
+            logger.error(StringUtil.logException(e));
+        }
+    }
+}
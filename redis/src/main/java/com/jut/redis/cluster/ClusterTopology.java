@@ -0,0 +1,192 @@
+package com.jut.redis.cluster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/***
+ * 集群拓扑快照
+ * 由CLUSTER SLOTS解析得到每个槽位的主节点以及每个主节点的从节点, 节点以host:port表示
+ */
+public class ClusterTopology {
+    private final static Logger logger = LoggerFactory.getLogger(ClusterTopology.class);
+
+    public static final int SLOTS = 16384;
+
+    private static final int[] CRC16_TABLE = new int[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int crc = i << 8;
+            for (int j = 0; j < 8; j++) {
+                crc = (crc & 0x8000) != 0 ? (crc << 1) ^ 0x1021 : crc << 1;
+            }
+            CRC16_TABLE[i] = crc & 0xffff;
+        }
+    }
+
+    private final String[] slotMasters = new String[SLOTS];
+    private final Map<String, List<String>> replicas = new LinkedHashMap<String, List<String>>();
+
+    private ClusterTopology() {
+    }
+
+    /**
+     * 依次尝试集群中的节点, 从第一个可用节点获取拓扑
+     */
+    public static ClusterTopology discover(JedisCluster jedisCluster) {
+        Exception last = null;
+        for (JedisPool pool : jedisCluster.getClusterNodes().values()) {
+            Jedis jedis = null;
+            try {
+                jedis = pool.getResource();
+                return parse(jedis, jedis.clusterSlots());
+            } catch (Exception e) {
+                last = e;
+                logger.warn("discover cluster topology failed, try next node: " + e);
+            } finally {
+                if (jedis != null) {
+                    jedis.close();
+                }
+            }
+        }
+        throw new IllegalStateException("no reachable cluster node", last);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ClusterTopology parse(Jedis jedis, List<Object> slots) {
+        ClusterTopology topology = new ClusterTopology();
+        for (Object slotInfo : slots) {
+            List<Object> info = (List<Object>) slotInfo;
+            int start = ((Long) info.get(0)).intValue();
+            int end = ((Long) info.get(1)).intValue();
+            String master = nodeKey(jedis, (List<Object>) info.get(2));
+            for (int slot = start; slot <= end; slot++) {
+                topology.slotMasters[slot] = master;
+            }
+            List<String> nodeReplicas = topology.replicas.get(master);
+            if (nodeReplicas == null) {
+                nodeReplicas = new ArrayList<String>();
+                topology.replicas.put(master, nodeReplicas);
+            }
+            for (int i = 3; i < info.size(); i++) {
+                String replica = nodeKey(jedis, (List<Object>) info.get(i));
+                if (!nodeReplicas.contains(replica)) {
+                    nodeReplicas.add(replica);
+                }
+            }
+        }
+        return topology;
+    }
+
+    private static String nodeKey(Jedis jedis, List<Object> node) {
+        String host = SafeEncoder.encode((byte[]) node.get(0));
+        if (host.isEmpty()) {
+            //应答节点自身的地址可能为空
+            host = jedis.getClient().getHost();
+        }
+        return host + ":" + node.get(1);
+    }
+
+    /**
+     * 计算key的槽位, 与JedisClusterCRC16.getSlot结果一致
+     * 直接按UTF-8编码逐字符计算CRC16, 不分配字节数组, 供记录路径使用
+     */
+    public static int slot(String key) {
+        int start = 0;
+        int end = key.length();
+        int open = key.indexOf('{');
+        if (open >= 0) {
+            int close = key.indexOf('}', open + 1);
+            if (close > open + 1) {
+                start = open + 1;
+                end = close;
+            }
+        }
+        int crc = 0;
+        for (int i = start; i < end; i++) {
+            char c = key.charAt(i);
+            if (c < 0x80) {
+                crc = crc16(crc, c);
+            } else if (c < 0x800) {
+                crc = crc16(crc, 0xc0 | c >> 6);
+                crc = crc16(crc, 0x80 | c & 0x3f);
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(key.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, key.charAt(++i));
+                crc = crc16(crc, 0xf0 | cp >> 18);
+                crc = crc16(crc, 0x80 | cp >> 12 & 0x3f);
+                crc = crc16(crc, 0x80 | cp >> 6 & 0x3f);
+                crc = crc16(crc, 0x80 | cp & 0x3f);
+            } else if (Character.isSurrogate(c)) {
+                //不成对的代理字符按'?'编码, 与String.getBytes一致
+                crc = crc16(crc, '?');
+            } else {
+                crc = crc16(crc, 0xe0 | c >> 12);
+                crc = crc16(crc, 0x80 | c >> 6 & 0x3f);
+                crc = crc16(crc, 0x80 | c & 0x3f);
+            }
+        }
+        return crc & (SLOTS - 1);
+    }
+
+    private static int crc16(int crc, int b) {
+        return (crc << 8 ^ CRC16_TABLE[(crc >>> 8 ^ b) & 0xff]) & 0xffff;
+    }
+
+    /**
+     * 所有主节点
+     */
+    public Set<String> getMasters() {
+        return Collections.unmodifiableSet(replicas.keySet());
+    }
+
+    /**
+     * 槽位所在的主节点
+     */
+    public String getMaster(int slot) {
+        return slotMasters[slot];
+    }
+
+    /**
+     * 主节点的从节点
+     */
+    public List<String> getReplicas(String master) {
+        List<String> nodeReplicas = replicas.get(master);
+        return nodeReplicas == null ? Collections.<String>emptyList() : Collections.unmodifiableList(nodeReplicas);
+    }
+
+    /**
+     * 主节点的连接池, 使用JedisCluster维护的节点连接池
+     */
+    public Map<String, JedisPool> getMasterPools(JedisCluster jedisCluster) {
+        Map<String, JedisPool> nodes = jedisCluster.getClusterNodes();
+        Map<String, JedisPool> pools = new LinkedHashMap<String, JedisPool>();
+        for (String master : replicas.keySet()) {
+            JedisPool pool = nodes.get(master);
+            if (pool == null) {
+                logger.warn("no connection pool for cluster master " + master);
+            } else {
+                pools.put(master, pool);
+            }
+        }
+        return pools;
+    }
+
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, List<String>> entry : replicas.entrySet()) {
+            sb.append(entry.getKey()).append(" -> ").append(entry.getValue()).append("\r\n");
+        }
+        return sb.toString();
+    }
+}
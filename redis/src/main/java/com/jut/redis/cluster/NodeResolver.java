@@ -0,0 +1,12 @@
+package com.jut.redis.cluster;
+
+/***
+ * 由key确定负责该key的节点
+ * 用于按节点统计指标、热点key和熔断, 只需确定节点标识, 不借出连接
+ */
+public interface NodeResolver {
+    /**
+     * @return 节点标识(host:port), 无法确定时返回null
+     */
+    String getNode(String key);
+}
@@ -0,0 +1,108 @@
+package com.jut.redis.cluster;
+
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.PooledObjectFactory;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPoolAbstract;
+import redis.clients.jedis.exceptions.JedisException;
+
+/***
+ * 集群从节点连接池
+ * 连接创建时发送READONLY, 之后借出的连接可直接执行只读命令, 不会被重定向到主节点
+ */
+class ReadOnlyJedisPool extends JedisPoolAbstract {
+
+    ReadOnlyJedisPool(GenericObjectPoolConfig poolConfig, String host, int port, int connectionTimeout,
+                      int soTimeout, String password) {
+        super(poolConfig, new ReadOnlyJedisFactory(host, port, connectionTimeout, soTimeout, password));
+    }
+
+    @Override
+    public Jedis getResource() {
+        Jedis jedis = super.getResource();
+        jedis.setDataSource(this);
+        return jedis;
+    }
+
+    @Override
+    protected void returnBrokenResource(Jedis resource) {
+        if (resource != null) {
+            returnBrokenResourceObject(resource);
+        }
+    }
+
+    @Override
+    protected void returnResource(Jedis resource) {
+        if (resource != null) {
+            try {
+                resource.resetState();
+                returnResourceObject(resource);
+            } catch (Exception e) {
+                returnBrokenResource(resource);
+                throw new JedisException("Resource is returned to the pool as broken", e);
+            }
+        }
+    }
+
+    private static class ReadOnlyJedisFactory implements PooledObjectFactory<Jedis> {
+        private final String host;
+        private final int port;
+        private final int connectionTimeout;
+        private final int soTimeout;
+        private final String password;
+
+        ReadOnlyJedisFactory(String host, int port, int connectionTimeout, int soTimeout, String password) {
+            this.host = host;
+            this.port = port;
+            this.connectionTimeout = connectionTimeout;
+            this.soTimeout = soTimeout;
+            this.password = password;
+        }
+
+        public PooledObject<Jedis> makeObject() {
+            Jedis jedis = new Jedis(host, port, connectionTimeout, soTimeout);
+            try {
+                jedis.connect();
+                if (password != null) {
+                    jedis.auth(password);
+                }
+                jedis.readonly();
+            } catch (JedisException e) {
+                jedis.close();
+                throw e;
+            }
+            return new DefaultPooledObject<Jedis>(jedis);
+        }
+
+        public void destroyObject(PooledObject<Jedis> pooledJedis) {
+            Jedis jedis = pooledJedis.getObject();
+            if (jedis.isConnected()) {
+                //连接可能已经断开, 与JedisFactory一样忽略关闭时的异常
+                try {
+                    jedis.quit();
+                } catch (Exception e) {
+                }
+                try {
+                    jedis.disconnect();
+                } catch (Exception e) {
+                }
+            }
+        }
+
+        public boolean validateObject(PooledObject<Jedis> pooledJedis) {
+            try {
+                return "PONG".equals(pooledJedis.getObject().ping());
+            } catch (Exception e) {
+                return false;
+            }
+        }
+
+        public void activateObject(PooledObject<Jedis> pooledJedis) {
+        }
+
+        public void passivateObject(PooledObject<Jedis> pooledJedis) {
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.jut.redis.cluster;
+
+/***
+ * 集群只读命令的读取偏好
+ */
+public enum ReadPreference {
+    /**
+     * 只读主节点
+     */
+    MASTER,
+    /**
+     * 在槽位的从节点间轮询, 没有可用从节点或从节点连接失败时读主节点
+     */
+    PREFER_REPLICA,
+    /**
+     * 只在槽位的从节点间轮询, 没有可用从节点时读取失败
+     */
+    REPLICA,
+    /**
+     * 在主节点和从节点中选择PING延迟最低的节点
+     */
+    NEAREST
+}
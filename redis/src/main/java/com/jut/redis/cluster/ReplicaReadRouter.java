@@ -0,0 +1,344 @@
+package com.jut.redis.cluster;
+
+import com.jut.redis.utils.NamedThreadFactory;
+import com.jut.redis.utils.StringUtil;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.exceptions.JedisNoReachableClusterNodeException;
+import redis.clients.jedis.util.JedisClusterCRC16;
+import redis.clients.jedis.util.Pool;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/***
+ * 集群只读命令的节点选择
+ * 按ReadPreference为key选择执行只读命令的从节点, 返回null表示由主节点(JedisCluster)执行
+ * 从节点使用单独的连接池, 连接创建时发送READONLY; 多个从节点之间轮询, 连接失败的从节点在failureBackoffMillis内不再选择
+ * NEAREST按PING延迟的指数移动平均选择, 首次以NEAREST选择时启动后台线程每probeMillis依次PING各节点,
+ * select只读取已探测的延迟, 节点变慢或不可达不会阻塞读请求; 尚未探测到延迟时由主节点执行
+ * 拓扑来自ClusterNodeResolver, 构造时同步拉取一次, 之后由其后台线程刷新; 从节点返回MOVED时调用refresh在后台重新拉取
+ */
+public class ReplicaReadRouter implements Closeable {
+    private final static Logger logger = LoggerFactory.getLogger(ReplicaReadRouter.class);
+
+    private final JedisCluster jedisCluster;
+    private final ClusterNodeResolver resolver;
+    private final ConcurrentHashMap<String, ReadOnlyJedisPool> pools = new ConcurrentHashMap<String, ReadOnlyJedisPool>();
+    private final ConcurrentHashMap<String, Long> downUntil = new ConcurrentHashMap<String, Long>();
+    private final ConcurrentHashMap<String, AtomicLong> latencies = new ConcurrentHashMap<String, AtomicLong>();
+    private final AtomicInteger counter = new AtomicInteger();
+    private volatile ScheduledExecutorService prober;
+    private volatile boolean closed;
+
+    private volatile ReadPreference readPreference;
+    /**
+     * 从节点连接池配置
+     */
+    private GenericObjectPoolConfig poolConfig = new JedisPoolConfig();
+    private int connectionTimeout = Protocol.DEFAULT_TIMEOUT;
+    private int soTimeout = Protocol.DEFAULT_TIMEOUT;
+    private String password;
+    /**
+     * 从节点连接失败后暂停选择的时间, 毫秒
+     */
+    private long failureBackoffMillis = 1000L;
+    /**
+     * NEAREST模式下PING探测的间隔, 毫秒
+     */
+    private long probeMillis = 5000L;
+
+    public ReplicaReadRouter(JedisCluster jedisCluster) {
+        this(jedisCluster, ReadPreference.PREFER_REPLICA);
+    }
+
+    public ReplicaReadRouter(JedisCluster jedisCluster, ReadPreference readPreference) {
+        this.jedisCluster = jedisCluster;
+        this.resolver = new ClusterNodeResolver(jedisCluster);
+        this.readPreference = readPreference;
+        resolver.load();
+    }
+
+    public ReadPreference getReadPreference() {
+        return readPreference;
+    }
+    public void setReadPreference(ReadPreference readPreference) {
+        this.readPreference = readPreference;
+    }
+    public GenericObjectPoolConfig getPoolConfig() {
+        return poolConfig;
+    }
+    public void setPoolConfig(GenericObjectPoolConfig poolConfig) {
+        this.poolConfig = poolConfig;
+    }
+    public int getConnectionTimeout() {
+        return connectionTimeout;
+    }
+    public void setConnectionTimeout(int connectionTimeout) {
+        this.connectionTimeout = connectionTimeout;
+    }
+    public int getSoTimeout() {
+        return soTimeout;
+    }
+    public void setSoTimeout(int soTimeout) {
+        this.soTimeout = soTimeout;
+    }
+    public String getPassword() {
+        return password;
+    }
+    public void setPassword(String password) {
+        this.password = password;
+    }
+    public long getFailureBackoffMillis() {
+        return failureBackoffMillis;
+    }
+    public void setFailureBackoffMillis(long failureBackoffMillis) {
+        this.failureBackoffMillis = failureBackoffMillis;
+    }
+    public long getProbeMillis() {
+        return probeMillis;
+    }
+    /**
+     * 需在首次以NEAREST选择之前设置
+     */
+    public void setProbeMillis(long probeMillis) {
+        this.probeMillis = probeMillis;
+    }
+    public ClusterNodeResolver getResolver() {
+        return resolver;
+    }
+
+    /**
+     * 选择执行只读命令的从节点
+     *
+     * @return 从节点host:port, null表示由主节点执行
+     */
+    public String select(String key) {
+        return readPreference == ReadPreference.MASTER ? null : selectSlot(ClusterTopology.slot(key));
+    }
+
+    /**
+     * 选择执行二进制key只读命令的从节点
+     *
+     * @return 从节点host:port, null表示由主节点执行
+     */
+    public String select(byte[] key) {
+        return readPreference == ReadPreference.MASTER ? null : selectSlot(JedisClusterCRC16.getSlot(key));
+    }
+
+    private String selectSlot(int slot) {
+        ReadPreference preference = readPreference;
+        if (preference == ReadPreference.MASTER) {
+            return null;
+        }
+        ClusterTopology topology = resolver.getTopology();
+        String master = topology == null ? null : topology.getMaster(slot);
+        if (master == null) {
+            if (preference == ReadPreference.REPLICA) {
+                throw new JedisNoReachableClusterNodeException("cluster topology unavailable for replica read");
+            }
+            return null;
+        }
+        List<String> replicas = topology.getReplicas(master);
+        if (preference == ReadPreference.NEAREST) {
+            if (prober == null) {
+                startProber();
+            }
+            return nearest(master, replicas);
+        }
+        String replica = roundRobin(replicas);
+        if (replica == null && preference == ReadPreference.REPLICA) {
+            throw new JedisNoReachableClusterNodeException("no available replica of " + master);
+        }
+        return replica;
+    }
+
+    private String roundRobin(List<String> replicas) {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        int start = counter.getAndIncrement() & Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            String replica = replicas.get((start + i) % size);
+            if (isAvailable(replica)) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private String nearest(String master, List<String> replicas) {
+        String best = null;
+        long bestLatency = latency(master);
+        int size = replicas.size();
+        int start = size == 0 ? 0 : (counter.getAndIncrement() & Integer.MAX_VALUE) % size;
+        //延迟相同的从节点之间仍然轮询
+        for (int i = 0; i < size; i++) {
+            String replica = replicas.get((start + i) % size);
+            long replicaLatency = latency(replica);
+            if (replicaLatency < bestLatency && isAvailable(replica)) {
+                best = replica;
+                bestLatency = replicaLatency;
+            }
+        }
+        return best;
+    }
+
+    private boolean isAvailable(String node) {
+        Long until = downUntil.get(node);
+        return until == null || System.currentTimeMillis() >= until;
+    }
+
+    private long latency(String node) {
+        AtomicLong latency = latencies.get(node);
+        return latency == null ? Long.MAX_VALUE : latency.get();
+    }
+
+    /**
+     * 从节点的连接
+     */
+    public Jedis getResource(String replica) {
+        return pool(replica).getResource();
+    }
+
+    private ReadOnlyJedisPool pool(String replica) {
+        ReadOnlyJedisPool pool = pools.get(replica);
+        if (pool == null) {
+            HostAndPort hostAndPort = HostAndPort.parseString(replica);
+            pool = new ReadOnlyJedisPool(poolConfig, hostAndPort.getHost(), hostAndPort.getPort(),
+                    connectionTimeout, soTimeout, password);
+            ReadOnlyJedisPool previous = pools.putIfAbsent(replica, pool);
+            if (previous != null) {
+                pool.close();
+                pool = previous;
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * 从节点连接失败, 暂停选择
+     */
+    public void markFailed(String replica) {
+        downUntil.put(replica, System.currentTimeMillis() + failureBackoffMillis);
+    }
+
+    /**
+     * 在后台重新拉取拓扑, 例如从节点返回MOVED之后
+     */
+    public void refresh() {
+        resolver.refresh();
+    }
+
+    /**
+     * 节点最近的PING延迟(微秒), 未探测过返回-1
+     */
+    public long getLatencyMicros(String node) {
+        AtomicLong latency = latencies.get(node);
+        return latency == null || latency.get() == Long.MAX_VALUE ? -1 : TimeUnit.NANOSECONDS.toMicros(latency.get());
+    }
+
+    private synchronized void startProber() {
+        if (prober != null || closed) {
+            return;
+        }
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("jut-redis-replica-probe"));
+        executor.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                try {
+                    probeAll();
+                } catch (Exception e) {
+                    logger.error(StringUtil.logException(e));
+                }
+            }
+        }, 0L, probeMillis, TimeUnit.MILLISECONDS);
+        prober = executor;
+    }
+
+    /**
+     * 依次PING所有主节点和从节点, 在探测线程执行
+     */
+    private void probeAll() {
+        ClusterTopology topology = resolver.getTopology();
+        if (topology == null) {
+            return;
+        }
+        Map<String, JedisPool> masterPools = jedisCluster.getClusterNodes();
+        for (String master : topology.getMasters()) {
+            probe(master, masterPools.get(master));
+            for (String replica : topology.getReplicas(master)) {
+                probe(replica, pool(replica));
+            }
+        }
+    }
+
+    private void probe(String node, Pool<Jedis> pool) {
+        if (pool == null) {
+            return;
+        }
+        long sample;
+        Jedis jedis = null;
+        try {
+            jedis = pool.getResource();
+            long start = System.nanoTime();
+            jedis.ping();
+            sample = System.nanoTime() - start;
+        } catch (Exception e) {
+            logger.warn("ping cluster node " + node + " failed: " + e);
+            markFailed(node);
+            sample = Long.MAX_VALUE;
+        } finally {
+            if (jedis != null) {
+                jedis.close();
+            }
+        }
+        AtomicLong latency = latencies.get(node);
+        if (latency == null) {
+            latency = new AtomicLong(sample);
+            AtomicLong previous = latencies.putIfAbsent(node, latency);
+            if (previous == null) {
+                return;
+            }
+            latency = previous;
+        }
+        long old = latency.get();
+        //指数移动平均, 新样本权重1/4; 失败或首次成功时直接取样本
+        latency.set(sample == Long.MAX_VALUE || old == Long.MAX_VALUE ? sample : old + (sample - old) / 4);
+    }
+
+    /**
+     * 停止探测和拓扑刷新并关闭从节点连接池
+     */
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            if (prober != null) {
+                prober.shutdownNow();
+            }
+        }
+        resolver.close();
+        for (ReadOnlyJedisPool pool : pools.values()) {
+            try {
+                pool.close();
+            } catch (Exception e) {
+                logger.error(StringUtil.logException(e));
+            }
+        }
+        pools.clear();
+    }
+}
@@ -0,0 +1,204 @@
+package com.jut.redis.coalesce;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/***
+ * 请求合并(single-flight)
+ * 同一个key同时只有一个调用(leader)真正执行, 执行期间到达的调用(follower)等待并共享其结果或异常;
+ * leader执行完即移除, 之后的调用重新执行, 不缓存任何结果
+ * follower最多等待maxWaitMillis, 超时后自己执行, leader变慢时不会拖住所有调用方
+ */
+public class SingleFlight {
+    private final ConcurrentMap<Object, CompletableFuture<Object>> calls = new ConcurrentHashMap<Object, CompletableFuture<Object>>();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    private long maxWaitMillis = 1000L;
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+    public void setMaxWaitMillis(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * 真正执行的次数
+     */
+    public long getExecutedCount() {
+        return executed.sum();
+    }
+
+    /**
+     * 共享了其他调用结果的次数
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * follower等待超时后自己执行的次数
+     */
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    /**
+     * @param copy 结果的复制, 每个调用方(包括leader)拿到各自的副本, 避免共享可变的集合; 结果不可变时传null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(Object key, Supplier<T> command, UnaryOperator<T> copy) {
+        CompletableFuture<Object> call = new CompletableFuture<Object>();
+        CompletableFuture<Object> inFlight = calls.putIfAbsent(key, call);
+        if (inFlight == null) {
+            T value = lead(key, call, command);
+            //原始结果留给follower复制, leader也只拿副本
+            return value == null || copy == null ? value : copy.apply(value);
+        }
+        T value;
+        try {
+            value = (T) inFlight.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            executed.increment();
+            return command.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executed.increment();
+            return command.get();
+        } catch (ExecutionException e) {
+            coalesced.increment();
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+        coalesced.increment();
+        return value == null || copy == null ? value : copy.apply(value);
+    }
+
+    /**
+     * 批量合并: 每个key各自合并, 没有进行中调用的key由本调用以一次command执行(对这些key是leader),
+     * 其余key等待各自的leader, 与execute的同一key互相合并; 先执行自己负责的key再等待, 调用之间不会互相等待
+     * 等待超时的key由本调用再以一次command执行
+     *
+     * @param command 以本调用负责执行的key调用, 返回null或缺少的key视为结果为null
+     * @return 各key的结果, 结果为null的key不包含在内
+     */
+    @SuppressWarnings("unchecked")
+    public <K, T> Map<K, T> executeAll(Collection<K> keys, Function<List<K>, Map<K, T>> command) {
+        Map<K, CompletableFuture<Object>> led = new LinkedHashMap<K, CompletableFuture<Object>>();
+        Map<K, CompletableFuture<Object>> joined = new LinkedHashMap<K, CompletableFuture<Object>>();
+        for (K key : keys) {
+            if (led.containsKey(key) || joined.containsKey(key)) {
+                continue;
+            }
+            CompletableFuture<Object> call = new CompletableFuture<Object>();
+            CompletableFuture<Object> inFlight = calls.putIfAbsent(key, call);
+            if (inFlight == null) {
+                led.put(key, call);
+            } else {
+                joined.put(key, inFlight);
+            }
+        }
+        Map<K, T> res = new HashMap<K, T>();
+        if (!led.isEmpty()) {
+            executed.increment();
+            Map<K, T> values;
+            try {
+                values = command.apply(new ArrayList<K>(led.keySet()));
+            } catch (RuntimeException | Error e) {
+                for (Map.Entry<K, CompletableFuture<Object>> entry : led.entrySet()) {
+                    calls.remove(entry.getKey(), entry.getValue());
+                    entry.getValue().completeExceptionally(e);
+                }
+                throw e;
+            }
+            for (Map.Entry<K, CompletableFuture<Object>> entry : led.entrySet()) {
+                T value = values == null ? null : values.get(entry.getKey());
+                calls.remove(entry.getKey(), entry.getValue());
+                entry.getValue().complete(value);
+                if (value != null) {
+                    res.put(entry.getKey(), value);
+                }
+            }
+        }
+        List<K> retry = new ArrayList<K>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        for (Map.Entry<K, CompletableFuture<Object>> entry : joined.entrySet()) {
+            T value;
+            try {
+                value = (T) entry.getValue().get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                timeouts.increment();
+                retry.add(entry.getKey());
+                continue;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                retry.add(entry.getKey());
+                continue;
+            } catch (ExecutionException e) {
+                coalesced.increment();
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IllegalStateException(cause);
+            }
+            coalesced.increment();
+            if (value != null) {
+                res.put(entry.getKey(), value);
+            }
+        }
+        if (!retry.isEmpty()) {
+            executed.increment();
+            Map<K, T> values = command.apply(retry);
+            for (K key : retry) {
+                T value = values == null ? null : values.get(key);
+                if (value != null) {
+                    res.put(key, value);
+                }
+            }
+        }
+        return res;
+    }
+
+    private <T> T lead(Object key, CompletableFuture<Object> call, Supplier<T> command) {
+        executed.increment();
+        T value;
+        try {
+            value = command.get();
+        } catch (RuntimeException | Error e) {
+            calls.remove(key, call);
+            call.completeExceptionally(e);
+            throw e;
+        }
+        //先移除再完成, 完成之后到达的调用重新执行
+        calls.remove(key, call);
+        call.complete(value);
+        return value;
+    }
+}
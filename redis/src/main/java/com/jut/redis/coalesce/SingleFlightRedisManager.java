@@ -0,0 +1,175 @@
+package com.jut.redis.coalesce;
+
+import com.jut.redis.RedisManager;
+import com.jut.redis.RedisManagerDecorator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/***
+ * 合并并发相同读请求的redis管理接口
+ * 已开启的读命令在同一时刻对同一key(及参数)只发出一个请求, 同时到达的调用共享其结果, 不缓存请求完成后的结果
+ * 用于热点key过期等瞬间大量相同读取的场景, 减少重复请求和连接占用
+ * 开启的命令由commands指定(方法名, 如get、hgetall), 默认为DEFAULT_COMMANDS; follower的最长等待见SingleFlight
+ * 集合类结果为每个调用方各复制一份, 调用方可以修改; 写命令不合并, 写之前已发出的读可能返回写之前的值
+ */
+public class SingleFlightRedisManager extends RedisManagerDecorator {
+    public static final Set<String> DEFAULT_COMMANDS = Collections.unmodifiableSet(new HashSet<String>(
+            Arrays.asList("get", "mget", "hget", "hmget", "hgetall", "lrange", "smembers")));
+
+    /**
+     * 支持合并的命令
+     */
+    public static final Set<String> SUPPORTED_COMMANDS = Collections.unmodifiableSet(new HashSet<String>(
+            Arrays.asList("get", "mget", "exists", "timetolive", "getrange", "hget", "hmget", "hexists", "hlen",
+                    "hkeys", "hvals", "hgetall", "lindex", "llen", "lrange", "sdiff", "sinter", "sunion", "scard",
+                    "sismember", "smembers", "type")));
+
+    private final SingleFlight singleFlight = new SingleFlight();
+    private volatile Set<String> commands = DEFAULT_COMMANDS;
+
+    public SingleFlightRedisManager(RedisManager redisManager) {
+        super(redisManager);
+    }
+
+    /**
+     * 最长等待时间和统计在singleFlight上
+     */
+    public SingleFlight getSingleFlight() {
+        return singleFlight;
+    }
+
+    public Set<String> getCommands() {
+        return commands;
+    }
+    public void setCommands(Set<String> commands) {
+        for (String command : commands) {
+            if (!SUPPORTED_COMMANDS.contains(command)) {
+                throw new IllegalArgumentException("command " + command + " cannot be coalesced, supported: " + SUPPORTED_COMMANDS);
+            }
+        }
+        this.commands = Collections.unmodifiableSet(new HashSet<String>(commands));
+    }
+
+    public String get(String key){
+        return flight(() -> redisManager.get(key), null, "get", key);
+    }
+
+    public List<String> mget(String...keys){
+        return flight(() -> redisManager.mget(keys), ArrayList::new, "mget", keys);
+    }
+
+    public Boolean exists(String key){
+        return flight(() -> redisManager.exists(key), null, "exists", key);
+    }
+
+    public Long timetolive(String key){
+        return flight(() -> redisManager.timetolive(key), null, "timetolive", key);
+    }
+
+    public String getrange(String key, int startOffset ,int endOffset){
+        return flight(() -> redisManager.getrange(key, startOffset, endOffset), null, "getrange", key,
+                String.valueOf(startOffset), String.valueOf(endOffset));
+    }
+
+    public String hget(String key, String field){
+        return flight(() -> redisManager.hget(key, field), null, "hget", key, field);
+    }
+
+    public List<String> hmget(String key,String...fields){
+        return flight(() -> redisManager.hmget(key, fields), ArrayList::new, "hmget", key, fields);
+    }
+
+    public Boolean hexists(String key , String field){
+        return flight(() -> redisManager.hexists(key, field), null, "hexists", key, field);
+    }
+
+    public Long hlen(String key){
+        return flight(() -> redisManager.hlen(key), null, "hlen", key);
+    }
+
+    public Set<String> hkeys(String key){
+        return flight(() -> redisManager.hkeys(key), HashSet::new, "hkeys", key);
+    }
+
+    public List<String> hvals(String key){
+        return flight(() -> redisManager.hvals(key), ArrayList::new, "hvals", key);
+    }
+
+    public Map<String, String> hgetall(String key){
+        return flight(() -> redisManager.hgetall(key), HashMap::new, "hgetall", key);
+    }
+
+    public String lindex(String key,long index){
+        return flight(() -> redisManager.lindex(key, index), null, "lindex", key, String.valueOf(index));
+    }
+
+    public Long llen(String key){
+        return flight(() -> redisManager.llen(key), null, "llen", key);
+    }
+
+    public List<String> lrange(String key, long start, long end){
+        return flight(() -> redisManager.lrange(key, start, end), ArrayList::new, "lrange", key,
+                String.valueOf(start), String.valueOf(end));
+    }
+
+    public Set<String> sdiff(String...keys){
+        return flight(() -> redisManager.sdiff(keys), HashSet::new, "sdiff", keys);
+    }
+
+    public Set<String> sinter(String...keys){
+        return flight(() -> redisManager.sinter(keys), HashSet::new, "sinter", keys);
+    }
+
+    public Set<String> sunion(String... keys){
+        return flight(() -> redisManager.sunion(keys), HashSet::new, "sunion", keys);
+    }
+
+    public Long scard(String key){
+        return flight(() -> redisManager.scard(key), null, "scard", key);
+    }
+
+    public Boolean sismember(String key,String member){
+        return flight(() -> redisManager.sismember(key, member), null, "sismember", key, member);
+    }
+
+    public Set<String> smembers(String key){
+        return flight(() -> redisManager.smembers(key), HashSet::new, "smembers", key);
+    }
+
+    public String type(String key){
+        return flight(() -> redisManager.type(key), null, "type", key);
+    }
+
+    /**
+     * 命令未开启时直接执行, 否则以命令名和参数为key合并
+     */
+    private <T> T flight(Supplier<T> command, UnaryOperator<T> copy, String name, String key, String... args) {
+        if (!commands.contains(name)) {
+            return command.get();
+        }
+        List<String> flightKey = new ArrayList<String>(args.length + 2);
+        flightKey.add(name);
+        flightKey.add(key);
+        Collections.addAll(flightKey, args);
+        return singleFlight.execute(flightKey, command, copy);
+    }
+
+    private <T> T flight(Supplier<T> command, UnaryOperator<T> copy, String name, String[] keys) {
+        if (!commands.contains(name)) {
+            return command.get();
+        }
+        List<String> flightKey = new ArrayList<String>(keys.length + 1);
+        flightKey.add(name);
+        Collections.addAll(flightKey, keys);
+        return singleFlight.execute(flightKey, command, copy);
+    }
+}
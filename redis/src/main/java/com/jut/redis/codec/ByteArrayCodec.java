@@ -0,0 +1,16 @@
+package com.jut.redis.codec;
+
+/***
+ * 原样透传的字节数组编解码器
+ */
+public class ByteArrayCodec implements Codec<byte[]> {
+    public static final ByteArrayCodec INSTANCE = new ByteArrayCodec();
+
+    public byte[] encode(byte[] value) {
+        return value;
+    }
+
+    public byte[] decode(byte[] bytes) {
+        return bytes;
+    }
+}
@@ -0,0 +1,10 @@
+package com.jut.redis.codec;
+
+/***
+ * 值编解码器
+ * 对象与redis中存储的字节之间直接转换, 不经过String中转
+ */
+public interface Codec<T> {
+    public byte[] encode(T value);
+    public T decode(byte[] bytes);
+}
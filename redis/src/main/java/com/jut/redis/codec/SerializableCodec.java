@@ -0,0 +1,48 @@
+package com.jut.redis.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+/***
+ * JDK序列化编解码器
+ * 只适用于可信数据, 反序列化不可信的字节存在安全风险
+ */
+public class SerializableCodec<T extends Serializable> implements Codec<T> {
+    public byte[] encode(T value) {
+        if (value == null) {
+            return null;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try {
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+            out.writeObject(value);
+            out.close();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("serialize failed: " + value.getClass().getName(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    public T decode(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes));
+            try {
+                return (T) in.readObject();
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("deserialize failed", e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("deserialize failed", e);
+        }
+    }
+}
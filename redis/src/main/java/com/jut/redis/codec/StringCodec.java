@@ -0,0 +1,18 @@
+package com.jut.redis.codec;
+
+import java.nio.charset.StandardCharsets;
+
+/***
+ * UTF-8字符串编解码器
+ */
+public class StringCodec implements Codec<String> {
+    public static final StringCodec INSTANCE = new StringCodec();
+
+    public byte[] encode(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public String decode(byte[] bytes) {
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+}
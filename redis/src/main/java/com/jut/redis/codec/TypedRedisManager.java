@@ -0,0 +1,197 @@
+package com.jut.redis.codec;
+
+import com.jut.redis.BinaryRedisManager;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/***
+ * 带类型的redis管理门面
+ * key按UTF-8编码, value通过Codec直接在对象与字节之间转换, 底层走BinaryRedisManager,
+ * 省去对象->String->byte[]的中间拷贝
+ */
+public class TypedRedisManager<V> {
+    private final BinaryRedisManager binaryRedisManager;
+    private final Codec<V> codec;
+
+    public TypedRedisManager(BinaryRedisManager binaryRedisManager, Codec<V> codec) {
+        this.binaryRedisManager = binaryRedisManager;
+        this.codec = codec;
+    }
+
+    public Codec<V> getCodec() {
+        return codec;
+    }
+
+    public V get(String key){
+        return codec.decode(binaryRedisManager.get(SafeEncoder.encode(key)));
+    }
+
+    public String set(String key,V value){
+        return binaryRedisManager.set(SafeEncoder.encode(key), codec.encode(value));
+    }
+
+    public String setex(String key,int seconds,V value){
+        return binaryRedisManager.setex(SafeEncoder.encode(key), seconds, codec.encode(value));
+    }
+
+    public List<V> mget(String...keys){
+        return decodeList(binaryRedisManager.mget(encodeKeys(keys)));
+    }
+
+    public String mset(Map<String, V> keysvalues){
+        byte[][] args = new byte[keysvalues.size() * 2][];
+        int i = 0;
+        for (Map.Entry<String, V> entry : keysvalues.entrySet()) {
+            args[i++] = SafeEncoder.encode(entry.getKey());
+            args[i++] = codec.encode(entry.getValue());
+        }
+        return binaryRedisManager.mset(args);
+    }
+
+    public V getset(String key,V value){
+        return codec.decode(binaryRedisManager.getset(SafeEncoder.encode(key), codec.encode(value)));
+    }
+
+    public Boolean exists(String key){
+        return binaryRedisManager.exists(SafeEncoder.encode(key));
+    }
+
+    public Long expire(String key,int seconds){
+        return binaryRedisManager.expire(SafeEncoder.encode(key), seconds);
+    }
+
+    public Long del(String...keys){
+        return binaryRedisManager.del(encodeKeys(keys));
+    }
+
+    public Long hset(String key,String field,V value){
+        return binaryRedisManager.hset(SafeEncoder.encode(key), SafeEncoder.encode(field), codec.encode(value));
+    }
+
+    public V hget(String key,String field){
+        return codec.decode(binaryRedisManager.hget(SafeEncoder.encode(key), SafeEncoder.encode(field)));
+    }
+
+    public String hmset(String key,Map<String, V> hash){
+        Map<byte[], byte[]> raw = new LinkedHashMap<byte[], byte[]>(hash.size() * 2);
+        for (Map.Entry<String, V> entry : hash.entrySet()) {
+            raw.put(SafeEncoder.encode(entry.getKey()), codec.encode(entry.getValue()));
+        }
+        return binaryRedisManager.hmset(SafeEncoder.encode(key), raw);
+    }
+
+    public List<V> hmget(String key,String...fields){
+        return decodeList(binaryRedisManager.hmget(SafeEncoder.encode(key), encodeKeys(fields)));
+    }
+
+    public Long hdel(String key,String...fields){
+        return binaryRedisManager.hdel(SafeEncoder.encode(key), encodeKeys(fields));
+    }
+
+    public Map<String, V> hgetall(String key){
+        Map<byte[], byte[]> raw = binaryRedisManager.hgetall(SafeEncoder.encode(key));
+        if (raw == null) {
+            return null;
+        }
+        Map<String, V> res = new LinkedHashMap<String, V>(raw.size() * 2);
+        for (Map.Entry<byte[], byte[]> entry : raw.entrySet()) {
+            res.put(SafeEncoder.encode(entry.getKey()), codec.decode(entry.getValue()));
+        }
+        return res;
+    }
+
+    public List<V> hvals(String key){
+        return decodeList(binaryRedisManager.hvals(SafeEncoder.encode(key)));
+    }
+
+    @SafeVarargs
+    public final Long lpush(String key,V...values){
+        //逐个编码, 泛型数组不传给其他方法
+        byte[][] encoded = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            encoded[i] = codec.encode(values[i]);
+        }
+        return binaryRedisManager.lpush(SafeEncoder.encode(key), encoded);
+    }
+
+    @SafeVarargs
+    public final Long rpush(String key,V...values){
+        byte[][] encoded = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            encoded[i] = codec.encode(values[i]);
+        }
+        return binaryRedisManager.rpush(SafeEncoder.encode(key), encoded);
+    }
+
+    public V lpop(String key){
+        return codec.decode(binaryRedisManager.lpop(SafeEncoder.encode(key)));
+    }
+
+    public V rpop(String key){
+        return codec.decode(binaryRedisManager.rpop(SafeEncoder.encode(key)));
+    }
+
+    public List<V> lrange(String key,long start,long end){
+        return decodeList(binaryRedisManager.lrange(SafeEncoder.encode(key), start, end));
+    }
+
+    @SafeVarargs
+    public final Long sadd(String key,V...members){
+        byte[][] encoded = new byte[members.length][];
+        for (int i = 0; i < members.length; i++) {
+            encoded[i] = codec.encode(members[i]);
+        }
+        return binaryRedisManager.sadd(SafeEncoder.encode(key), encoded);
+    }
+
+    @SafeVarargs
+    public final Long srem(String key,V...members){
+        byte[][] encoded = new byte[members.length][];
+        for (int i = 0; i < members.length; i++) {
+            encoded[i] = codec.encode(members[i]);
+        }
+        return binaryRedisManager.srem(SafeEncoder.encode(key), encoded);
+    }
+
+    public Set<V> smembers(String key){
+        Set<byte[]> raw = binaryRedisManager.smembers(SafeEncoder.encode(key));
+        if (raw == null) {
+            return null;
+        }
+        Set<V> res = new HashSet<V>(raw.size() * 2);
+        for (byte[] member : raw) {
+            res.add(codec.decode(member));
+        }
+        return res;
+    }
+
+    public Boolean sismember(String key,V member){
+        return binaryRedisManager.sismember(SafeEncoder.encode(key), codec.encode(member));
+    }
+
+    private static byte[][] encodeKeys(String[] keys) {
+        byte[][] res = new byte[keys.length][];
+        for (int i = 0; i < keys.length; i++) {
+            res[i] = SafeEncoder.encode(keys[i]);
+        }
+        return res;
+    }
+
+    private List<V> decodeList(Collection<byte[]> raw) {
+        if (raw == null) {
+            return null;
+        }
+        List<V> res = new ArrayList<V>(raw.size());
+        for (byte[] bytes : raw) {
+            res.add(codec.decode(bytes));
+        }
+        return res;
+    }
+}
@@ -0,0 +1,201 @@
+package com.jut.redis.compress;
+
+import com.jut.redis.codec.Codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ * 压缩字符串编解码器
+ * UTF-8编码后不小于threshold字节的值用compressor压缩, 压缩后没有变小时原样保存
+ * 压缩值格式: 0xFF + 算法id(1字节) + 原始长度(varint) + 压缩数据
+ * 0xFF不会出现在合法的UTF-8中, 以其开头的值一定是压缩值, 其余按UTF-8解码, 因此压缩与未压缩的数据可以混存
+ * 解压按头部的算法id选择, 更换compressor后旧算法仍在已注册的算法中, 旧数据照常可读
+ * 也可配合TypedRedisManager直接使用
+ */
+public class CompressingCodec implements Codec<String> {
+    public static final byte MAGIC = (byte) 0xFF;
+
+    private final Map<Integer, Compressor> compressors = new ConcurrentHashMap<Integer, Compressor>();
+    private volatile Compressor compressor;
+    private int threshold = 1024;
+
+    private final LongAdder compressed = new LongAdder();
+    private final LongAdder originalBytes = new LongAdder();
+    private final LongAdder compressedBytes = new LongAdder();
+    private final LongAdder incompressible = new LongAdder();
+
+    public CompressingCodec() {
+        this(new DeflateCompressor());
+    }
+
+    public CompressingCodec(Compressor compressor) {
+        setCompressor(compressor);
+    }
+
+    public Compressor getCompressor() {
+        return compressor;
+    }
+    /**
+     * 写入使用的算法, 同时注册为可解压的算法
+     */
+    public void setCompressor(Compressor compressor) {
+        registerCompressor(compressor);
+        this.compressor = compressor;
+    }
+    public int getThreshold() {
+        return threshold;
+    }
+    /**
+     * 压缩阈值, UTF-8字节数
+     */
+    public void setThreshold(int threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * 注册只用于解压的算法, 例如切换算法后仍需读取的旧数据
+     */
+    public void registerCompressor(Compressor compressor) {
+        int id = compressor.getId();
+        if (id < 1 || id > 255) {
+            throw new IllegalArgumentException("compressor id must be in [1, 255], got " + id);
+        }
+        Compressor existing = compressors.putIfAbsent(id, compressor);
+        if (existing != null && existing != compressor && existing.getClass() != compressor.getClass()) {
+            throw new IllegalArgumentException("compressor id " + id + " already registered by " + existing.getClass().getName());
+        }
+    }
+
+    /**
+     * 字符数已经决定不会达到阈值时不需要编码
+     */
+    public boolean mayCompress(String value) {
+        //UTF-8每个字符最多3字节(代理对4字节对应2个字符)
+        return value != null && (long) value.length() * 3 >= threshold;
+    }
+
+    public byte[] encode(String value) {
+        if (value == null) {
+            return null;
+        }
+        return encode(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 压缩UTF-8字节, 未达到阈值或压缩后没有变小时返回原数组
+     */
+    public byte[] encode(byte[] bytes) {
+        if (bytes.length < threshold) {
+            return bytes;
+        }
+        Compressor current = compressor;
+        byte[] payload = current.compress(bytes);
+        int headerLength = 2 + varintLength(bytes.length);
+        if (headerLength + payload.length >= bytes.length) {
+            incompressible.increment();
+            return bytes;
+        }
+        byte[] res = new byte[headerLength + payload.length];
+        res[0] = MAGIC;
+        res[1] = (byte) current.getId();
+        int pos = 2;
+        int n = bytes.length;
+        while ((n & ~0x7F) != 0) {
+            res[pos++] = (byte) ((n & 0x7F) | 0x80);
+            n >>>= 7;
+        }
+        res[pos++] = (byte) n;
+        System.arraycopy(payload, 0, res, pos, payload.length);
+        compressed.increment();
+        originalBytes.add(bytes.length);
+        compressedBytes.add(res.length);
+        return res;
+    }
+
+    public String decode(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        return new String(decompress(bytes), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 是否为压缩值
+     */
+    public static boolean isCompressed(byte[] bytes) {
+        return bytes != null && bytes.length > 0 && bytes[0] == MAGIC;
+    }
+
+    /**
+     * 解压为UTF-8字节, 不是压缩值时返回原数组
+     */
+    public byte[] decompress(byte[] bytes) {
+        if (!isCompressed(bytes)) {
+            return bytes;
+        }
+        if (bytes.length < 3) {
+            throw new IllegalArgumentException("compressed value header truncated");
+        }
+        int id = bytes[1] & 0xFF;
+        Compressor decompressor = compressors.get(id);
+        if (decompressor == null) {
+            throw new IllegalArgumentException("unknown compressor id " + id);
+        }
+        int pos = 2;
+        int originalLength = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (pos >= bytes.length || shift > 28) {
+                throw new IllegalArgumentException("compressed value header corrupted");
+            }
+            byte b = bytes[pos++];
+            originalLength |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+        }
+        if (originalLength < 0) {
+            throw new IllegalArgumentException("compressed value header corrupted");
+        }
+        return decompressor.decompress(bytes, pos, bytes.length - pos, originalLength);
+    }
+
+    /**
+     * 实际压缩的值个数
+     */
+    public long getCompressedCount() {
+        return compressed.sum();
+    }
+
+    /**
+     * 达到阈值但压缩后没有变小、原样保存的值个数
+     */
+    public long getIncompressibleCount() {
+        return incompressible.sum();
+    }
+
+    /**
+     * 压缩值的原始字节数合计
+     */
+    public long getOriginalBytes() {
+        return originalBytes.sum();
+    }
+
+    /**
+     * 压缩值含头部的字节数合计, 与getOriginalBytes之差为节省的传输量和内存
+     */
+    public long getCompressedBytes() {
+        return compressedBytes.sum();
+    }
+
+    private static int varintLength(int n) {
+        int length = 1;
+        while ((n & ~0x7F) != 0) {
+            n >>>= 7;
+            length++;
+        }
+        return length;
+    }
+}
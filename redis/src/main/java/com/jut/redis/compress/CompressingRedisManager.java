@@ -0,0 +1,202 @@
+package com.jut.redis.compress;
+
+import com.jut.redis.BinaryRedisManager;
+import com.jut.redis.RedisManager;
+import com.jut.redis.RedisManagerDecorator;
+import com.jut.redis.utils.StringUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/***
+ * 透明压缩大值的redis管理接口
+ * set/setex/getset/mset/hset/hmset写入的值达到阈值时由CompressingCodec压缩后通过BinaryRedisManager写入,
+ * 未达到阈值的值照常通过被装饰的RedisManager写入; get/mget/getset/hget/hmget/hgetall/hvals通过BinaryRedisManager读取并按需解压,
+ * 压缩值经String转换会损坏, 因此读取必须走二进制接口; 已有的未压缩数据照常可读, 可以直接在现有数据上开启
+ * 阈值和算法在codec上设置; SingleRedisManager和ClusterRedisManager均同时实现两个接口, 可以直接传入
+ * 读取和压缩值的写入不经过redisManager, 其上的其他装饰器(如NearCache、熔断)对这些命令不生效;
+ * ClusterRedisManager的二进制只读命令同样按ReplicaReadRouter的读取偏好路由
+ * 其他命令不做压缩处理: set(带SetOptions)、setnx、hsetnx写入原值, getrange、strlen、append等作用在压缩值上得到的是压缩后的字节,
+ * 管道和异步接口同样不做转换, 需要这些命令的key应保持在阈值以下或不经过本类写入
+ */
+public class CompressingRedisManager extends RedisManagerDecorator {
+    private final static Logger logger = LoggerFactory.getLogger(CompressingRedisManager.class);
+
+    private final BinaryRedisManager binaryRedisManager;
+    private final CompressingCodec codec;
+
+    public <M extends RedisManager & BinaryRedisManager> CompressingRedisManager(M redisManager) {
+        this(redisManager, redisManager, new CompressingCodec());
+    }
+
+    /**
+     * @param redisManager 未压缩的写入, 可以是其他装饰器
+     * @param binaryRedisManager 压缩值的写入和所有读取, 与redisManager指向同一个redis
+     */
+    public CompressingRedisManager(RedisManager redisManager, BinaryRedisManager binaryRedisManager, CompressingCodec codec) {
+        super(redisManager);
+        this.binaryRedisManager = binaryRedisManager;
+        this.codec = codec;
+    }
+
+    /**
+     * 阈值、算法和压缩统计在codec上
+     */
+    public CompressingCodec getCodec() {
+        return codec;
+    }
+
+    public String get(String key){
+        return decode(binaryRedisManager.get(SafeEncoder.encode(key)));
+    }
+
+    public String set(String key,String value){
+        byte[] encoded = compress(value);
+        if (encoded == null) {
+            return redisManager.set(key, value);
+        }
+        return binaryRedisManager.set(SafeEncoder.encode(key), encoded);
+    }
+
+    public String setex(String key,int seconds,String value){
+        byte[] encoded = compress(value);
+        if (encoded == null) {
+            return redisManager.setex(key, seconds, value);
+        }
+        return binaryRedisManager.setex(SafeEncoder.encode(key), seconds, encoded);
+    }
+
+    public List<String> mget(String...keys){
+        byte[][] rawKeys = new byte[keys.length][];
+        for (int i = 0; i < keys.length; i++) {
+            rawKeys[i] = SafeEncoder.encode(keys[i]);
+        }
+        return decodeList(binaryRedisManager.mget(rawKeys));
+    }
+
+    public String mset(String...keysvalues){
+        byte[][] args = null;
+        for (int i = 1; i < keysvalues.length; i += 2) {
+            byte[] encoded = compress(keysvalues[i]);
+            if (encoded == null) {
+                continue;
+            }
+            if (args == null) {
+                args = new byte[keysvalues.length][];
+            }
+            args[i] = encoded;
+        }
+        if (args == null) {
+            return redisManager.mset(keysvalues);
+        }
+        for (int i = 0; i < keysvalues.length; i++) {
+            if (args[i] == null) {
+                args[i] = SafeEncoder.encode(keysvalues[i]);
+            }
+        }
+        return binaryRedisManager.mset(args);
+    }
+
+    public String getset(String key,String value){
+        byte[] encoded = compress(value);
+        return decode(binaryRedisManager.getset(SafeEncoder.encode(key),
+                encoded == null ? SafeEncoder.encode(value) : encoded));
+    }
+
+    public Long hset(String key,String field,String value){
+        byte[] encoded = compress(value);
+        if (encoded == null) {
+            return redisManager.hset(key, field, value);
+        }
+        return binaryRedisManager.hset(SafeEncoder.encode(key), SafeEncoder.encode(field), encoded);
+    }
+
+    public String hmset(String key, Map<String, String> hash){
+        Map<String, byte[]> compressed = null;
+        for (Map.Entry<String, String> entry : hash.entrySet()) {
+            byte[] encoded = compress(entry.getValue());
+            if (encoded == null) {
+                continue;
+            }
+            if (compressed == null) {
+                compressed = new HashMap<String, byte[]>();
+            }
+            compressed.put(entry.getKey(), encoded);
+        }
+        if (compressed == null) {
+            return redisManager.hmset(key, hash);
+        }
+        Map<byte[], byte[]> rawHash = new LinkedHashMap<byte[], byte[]>(hash.size() * 2);
+        for (Map.Entry<String, String> entry : hash.entrySet()) {
+            byte[] encoded = compressed.get(entry.getKey());
+            rawHash.put(SafeEncoder.encode(entry.getKey()), encoded == null ? SafeEncoder.encode(entry.getValue()) : encoded);
+        }
+        return binaryRedisManager.hmset(SafeEncoder.encode(key), rawHash);
+    }
+
+    public String hget(String key, String field){
+        return decode(binaryRedisManager.hget(SafeEncoder.encode(key), SafeEncoder.encode(field)));
+    }
+
+    public List<String> hmget(String key,String...fields){
+        byte[][] rawFields = new byte[fields.length][];
+        for (int i = 0; i < fields.length; i++) {
+            rawFields[i] = SafeEncoder.encode(fields[i]);
+        }
+        return decodeList(binaryRedisManager.hmget(SafeEncoder.encode(key), rawFields));
+    }
+
+    public List<String> hvals(String key){
+        return decodeList(binaryRedisManager.hvals(SafeEncoder.encode(key)));
+    }
+
+    public Map<String, String> hgetall(String key){
+        Map<byte[], byte[]> raw = binaryRedisManager.hgetall(SafeEncoder.encode(key));
+        if (raw == null) {
+            return null;
+        }
+        Map<String, String> res = new HashMap<String, String>(raw.size() * 2);
+        for (Map.Entry<byte[], byte[]> entry : raw.entrySet()) {
+            res.put(SafeEncoder.encode(entry.getKey()), decode(entry.getValue()));
+        }
+        return res;
+    }
+
+    /**
+     * 需要压缩时返回压缩后的字节, 否则返回null, 由调用方按原值写入
+     */
+    private byte[] compress(String value) {
+        if (!codec.mayCompress(value)) {
+            return null;
+        }
+        byte[] bytes = SafeEncoder.encode(value);
+        byte[] encoded = codec.encode(bytes);
+        return encoded == bytes ? null : encoded;
+    }
+
+    private String decode(byte[] raw) {
+        try {
+            return codec.decode(raw);
+        } catch (Exception e) {
+            logger.error(StringUtil.logException(e));
+            return null;
+        }
+    }
+
+    private List<String> decodeList(List<byte[]> raws) {
+        if (raws == null) {
+            return null;
+        }
+        List<String> res = new ArrayList<String>(raws.size());
+        for (byte[] raw : raws) {
+            res.add(decode(raw));
+        }
+        return res;
+    }
+}
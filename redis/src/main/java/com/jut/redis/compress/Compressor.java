@@ -0,0 +1,20 @@
+package com.jut.redis.compress;
+
+/***
+ * 压缩算法
+ * id写入压缩值的头部, 读取时据此选择解压算法, 同一个id必须始终对应同一种格式
+ * 实现需要线程安全
+ */
+public interface Compressor {
+    /**
+     * 算法标识, 1-255, 0保留
+     */
+    public int getId();
+
+    public byte[] compress(byte[] data);
+
+    /**
+     * @param originalLength 压缩前的字节数, 来自头部
+     */
+    public byte[] decompress(byte[] data, int offset, int length, int originalLength);
+}
@@ -0,0 +1,84 @@
+package com.jut.redis.compress;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/***
+ * JDK Deflater压缩
+ * 使用不带zlib头和校验和的原始deflate格式, 长度由外层头部记录
+ * Deflater/Inflater按线程复用, 避免每次分配本地内存
+ */
+public class DeflateCompressor implements Compressor {
+    public static final int ID = 1;
+
+    private final int level;
+    private final ThreadLocal<Deflater> deflaters;
+    private final ThreadLocal<Inflater> inflaters = ThreadLocal.withInitial(() -> new Inflater(true));
+
+    /**
+     * 默认BEST_SPEED, JSON文本在该级别已有较好的压缩率, CPU开销最低
+     */
+    public DeflateCompressor() {
+        this(Deflater.BEST_SPEED);
+    }
+
+    /**
+     * @param level 压缩级别, 0-9或Deflater.DEFAULT_COMPRESSION
+     */
+    public DeflateCompressor(int level) {
+        if ((level < 0 || level > 9) && level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("invalid deflate level " + level);
+        }
+        this.level = level;
+        this.deflaters = ThreadLocal.withInitial(() -> new Deflater(this.level, true));
+    }
+
+    public int getId() {
+        return ID;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public byte[] compress(byte[] data) {
+        Deflater deflater = deflaters.get();
+        deflater.reset();
+        deflater.setInput(data);
+        deflater.finish();
+        byte[] buffer = new byte[Math.max(64, data.length / 2)];
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            length += deflater.deflate(buffer, length, buffer.length - length);
+        }
+        return length == buffer.length ? buffer : Arrays.copyOf(buffer, length);
+    }
+
+    public byte[] decompress(byte[] data, int offset, int length, int originalLength) {
+        Inflater inflater = inflaters.get();
+        inflater.reset();
+        inflater.setInput(data, offset, length);
+        byte[] res = new byte[originalLength];
+        int n = 0;
+        try {
+            while (n < originalLength) {
+                int read = inflater.inflate(res, n, originalLength - n);
+                if (read == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                n += read;
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("corrupted deflate data", e);
+        }
+        if (n != originalLength) {
+            throw new IllegalArgumentException("deflate data truncated, expect " + originalLength + " bytes, got " + n);
+        }
+        return res;
+    }
+}
@@ -0,0 +1,84 @@
+package com.jut.redis.counter;
+
+import com.jut.redis.RedisManager;
+import com.jut.redis.RedisManagerDecorator;
+
+import java.util.function.Predicate;
+
+/***
+ * 计数写回聚合的redis管理接口
+ * 满足keyFilter(默认所有key)的incr/incrBy/decr/decrBy/hincrby交给CounterAggregator在本地累加, 由其定期批量写出,
+ * 调用本身不访问redis, 新值要到写出后才确定, 因此返回null; 其他命令以及不满足keyFilter的key直接转发
+ * 读取这些key得到的是已写出的值, 最多落后一个刷出间隔; del等命令不会清除本地尚未写出的增量
+ * 用于只累加、不依赖返回值的统计和配额计数, 停止时调用destroy写出剩余增量
+ */
+public class CounterAggregatingRedisManager extends RedisManagerDecorator {
+    private final CounterAggregator aggregator;
+    private Predicate<String> keyFilter = key -> true;
+
+    public CounterAggregatingRedisManager(RedisManager redisManager) {
+        super(redisManager);
+        this.aggregator = new CounterAggregator(redisManager);
+    }
+
+    /**
+     * 刷出间隔、阈值等在aggregator上设置
+     */
+    public CounterAggregator getAggregator() {
+        return aggregator;
+    }
+
+    public Predicate<String> getKeyFilter() {
+        return keyFilter;
+    }
+    public void setKeyFilter(Predicate<String> keyFilter) {
+        this.keyFilter = keyFilter;
+    }
+
+    /**
+     * 停止聚合并写出剩余增量, 之后的计数命令直接执行
+     */
+    public void destroy() {
+        aggregator.destroy();
+    }
+
+    public Long incr(String key){
+        if (!keyFilter.test(key)) {
+            return redisManager.incr(key);
+        }
+        aggregator.incrBy(key, 1L);
+        return null;
+    }
+
+    public Long incrBy(String key,Long integer){
+        if (!keyFilter.test(key)) {
+            return redisManager.incrBy(key, integer);
+        }
+        aggregator.incrBy(key, integer);
+        return null;
+    }
+
+    public Long decr(String key){
+        if (!keyFilter.test(key)) {
+            return redisManager.decr(key);
+        }
+        aggregator.incrBy(key, -1L);
+        return null;
+    }
+
+    public Long decrBy(String key,Long integer){
+        if (!keyFilter.test(key)) {
+            return redisManager.decrBy(key, integer);
+        }
+        aggregator.incrBy(key, -integer);
+        return null;
+    }
+
+    public Long hincrby(String key ,String field ,Long value){
+        if (!keyFilter.test(key)) {
+            return redisManager.hincrby(key, field, value);
+        }
+        aggregator.hincrby(key, field, value);
+        return null;
+    }
+}
@@ -0,0 +1,445 @@
+package com.jut.redis.counter;
+
+import com.jut.redis.RedisManager;
+import com.jut.redis.pipeline.PipelineCallback;
+import com.jut.redis.pipeline.RedisPipeline;
+import com.jut.redis.utils.NamedThreadFactory;
+import com.jut.redis.utils.StringUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/***
+ * 计数写回聚合
+ * 增量先累加在本地按key(hash为key+field)划分的分段计数格子中, 由后台刷出线程每intervalMillis,
+ * 或累计增加次数达到flushThreshold时, 把每个格子的合计作为一条INCRBY/HINCRBY, 通过RedisManager的pipelined
+ * 分批(每批最多batchSize条)发出; 集群和分片模式下pipelined按节点分组, 每个节点一次往返
+ * 连续两轮没有增量的格子被退役并移除, 只保留活跃的key
+ * 连接或IO失败的增量加回本地, 下一轮重试; 连接在命令执行后断开时重试会重复计数(至少一次)
+ * redis返回的错误(如WRONGTYPE、值不是整数)重试也不会成功, 丢弃该增量并记录日志
+ * 本地格子数达到maxCells后, 新key的增量不再聚合, 直接执行INCRBY/HINCRBY, 本地内存和每轮刷出的命令数有上限
+ * destroy停止刷出线程并在drainTimeoutMillis内把剩余增量全部写出
+ */
+public class CounterAggregator {
+    private final static Logger logger = LoggerFactory.getLogger(CounterAggregator.class);
+
+    /**
+     * 刷出线程检查阈值的间隔
+     */
+    private static final long TICK_MILLIS = 10L;
+    /**
+     * 连续多少轮没有增量后移除格子
+     */
+    private static final int IDLE_ROUNDS = 2;
+
+    private final RedisManager redisManager;
+    private final ConcurrentMap<CounterKey, Cell> cells = new ConcurrentHashMap<CounterKey, Cell>();
+    /**
+     * 上次刷出以来的增加次数
+     */
+    private final LongAdder pending = new LongAdder();
+    private final int stripes;
+
+    private long intervalMillis = 100L;
+    private long flushThreshold = 10000L;
+    private int batchSize = 500;
+    private long drainTimeoutMillis = 5000L;
+    private int maxCells = 100000;
+
+    private volatile boolean running = true;
+    private volatile Thread flusher;
+
+    public CounterAggregator(RedisManager redisManager) {
+        this.redisManager = redisManager;
+        int n = 1;
+        while (n < Runtime.getRuntime().availableProcessors() && n < 16) {
+            n <<= 1;
+        }
+        this.stripes = n;
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+    public void setIntervalMillis(long intervalMillis) {
+        this.intervalMillis = intervalMillis;
+    }
+    public long getFlushThreshold() {
+        return flushThreshold;
+    }
+    public void setFlushThreshold(long flushThreshold) {
+        this.flushThreshold = flushThreshold;
+    }
+    public int getBatchSize() {
+        return batchSize;
+    }
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+    public long getDrainTimeoutMillis() {
+        return drainTimeoutMillis;
+    }
+    public void setDrainTimeoutMillis(long drainTimeoutMillis) {
+        this.drainTimeoutMillis = drainTimeoutMillis;
+    }
+    public int getMaxCells() {
+        return maxCells;
+    }
+    public void setMaxCells(int maxCells) {
+        this.maxCells = maxCells;
+    }
+
+    /**
+     * 累加key的增量; 已停止时直接执行INCRBY
+     */
+    public void incrBy(String key, long delta) {
+        add(new CounterKey(key, null), delta);
+    }
+
+    /**
+     * 累加hash域的增量; 已停止时直接执行HINCRBY
+     */
+    public void hincrby(String key, String field, long delta) {
+        add(new CounterKey(key, field), delta);
+    }
+
+    /**
+     * 本地尚未写出的key的增量, 不包含正在发送的部分
+     */
+    public long getPending(String key) {
+        Cell cell = cells.get(new CounterKey(key, null));
+        return cell == null ? 0L : cell.sum();
+    }
+
+    /**
+     * 本地尚未写出的hash域的增量
+     */
+    public long getPending(String key, String field) {
+        Cell cell = cells.get(new CounterKey(key, field));
+        return cell == null ? 0L : cell.sum();
+    }
+
+    /**
+     * 立即刷出一轮, 返回写出的命令数
+     */
+    public synchronized int flush() {
+        pending.reset();
+        List<CounterKey> keys = new ArrayList<CounterKey>();
+        List<Long> deltas = new ArrayList<Long>();
+        for (Map.Entry<CounterKey, Cell> entry : cells.entrySet()) {
+            Cell cell = entry.getValue();
+            long delta = cell.drain();
+            if (delta == 0) {
+                if (++cell.idleRounds >= IDLE_ROUNDS) {
+                    //退役后格子不再接受增量, 退役前到达的增量由retire取出
+                    delta = cell.retire();
+                    cells.remove(entry.getKey(), cell);
+                }
+            } else {
+                cell.idleRounds = 0;
+            }
+            if (delta != 0) {
+                keys.add(entry.getKey());
+                deltas.add(delta);
+            }
+        }
+        for (int from = 0; from < keys.size(); from += batchSize) {
+            int to = Math.min(from + batchSize, keys.size());
+            send(keys.subList(from, to), deltas.subList(from, to));
+        }
+        return keys.size();
+    }
+
+    /**
+     * 停止刷出线程并写出剩余增量, 写出失败时在drainTimeoutMillis内重试
+     */
+    public void destroy() {
+        Thread current;
+        synchronized (this) {
+            running = false;
+            current = flusher;
+        }
+        if (current != null) {
+            current.interrupt();
+            try {
+                current.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(drainTimeoutMillis);
+        int remaining;
+        while (true) {
+            flush();
+            remaining = 0;
+            for (Cell cell : cells.values()) {
+                if (cell.sum() != 0) {
+                    remaining++;
+                }
+            }
+            if (remaining == 0 || System.nanoTime() - deadline >= 0) {
+                break;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS));
+        }
+        if (remaining > 0) {
+            logger.error("counter aggregator stopped with " + remaining + " counters not flushed");
+        }
+    }
+
+    private void add(CounterKey key, long delta) {
+        //停止后或格子数已满时新key的增量直接写入, 不再留在本地
+        if (!running || (cells.size() >= maxCells && !cells.containsKey(key))) {
+            if (key.field == null) {
+                redisManager.incrBy(key.key, delta);
+            } else {
+                redisManager.hincrby(key.key, key.field, delta);
+            }
+            return;
+        }
+        accumulate(key, delta);
+        pending.increment();
+        if (!running) {
+            //与destroy并发, 增量可能错过最后一轮刷出
+            flush();
+        } else if (flusher == null) {
+            startFlusher();
+        }
+    }
+
+    /**
+     * 把增量加到key的格子上, 格子刚被退役时换新格子
+     */
+    private void accumulate(CounterKey key, long delta) {
+        while (true) {
+            Cell cell = cells.get(key);
+            if (cell == null) {
+                Cell created = new Cell(stripes);
+                cell = cells.putIfAbsent(key, created);
+                if (cell == null) {
+                    cell = created;
+                }
+            }
+            if (cell.add(delta)) {
+                return;
+            }
+            cells.remove(key, cell);
+        }
+    }
+
+    private synchronized void startFlusher() {
+        if (flusher != null || !running) {
+            return;
+        }
+        flusher = new NamedThreadFactory("jut-redis-counter").newThread(new Flusher());
+        flusher.start();
+    }
+
+    private void send(final List<CounterKey> keys, final List<Long> deltas) {
+        final List<Response<Long>> responses = new ArrayList<Response<Long>>(keys.size());
+        List<Object> synced = null;
+        try {
+            synced = redisManager.pipelined(new PipelineCallback() {
+                public void doInPipeline(RedisPipeline pipeline) {
+                    for (int i = 0; i < keys.size(); i++) {
+                        CounterKey key = keys.get(i);
+                        responses.add(key.field == null ? pipeline.incrBy(key.key, deltas.get(i))
+                                : pipeline.hincrby(key.key, key.field, deltas.get(i)));
+                    }
+                }
+            });
+        } catch (Exception e) {
+            logger.error(StringUtil.logException(e));
+        }
+        //pipelined出错时返回null, 此时未完成的响应无法区分错误类型, 全部按连接失败重试
+        boolean pipelineFailed = synced == null;
+        int failed = 0;
+        int dropped = 0;
+        for (int i = 0; i < keys.size(); i++) {
+            try {
+                if (i < responses.size()) {
+                    responses.get(i).get();
+                    continue;
+                }
+            } catch (JedisDataException e) {
+                if (!pipelineFailed) {
+                    dropped++;
+                    logger.error("counter " + keys.get(i) + " delta " + deltas.get(i) + " dropped: " + e.getMessage());
+                    continue;
+                }
+            } catch (Exception e) {
+                //连接失败等, 加回本地重试
+            }
+            failed++;
+            accumulate(keys.get(i), deltas.get(i));
+        }
+        if (failed > 0) {
+            logger.error("counter flush failed for " + failed + " of " + keys.size() + " counters, retry next round");
+        }
+        if (dropped > 0) {
+            logger.error("counter flush rejected " + dropped + " of " + keys.size() + " counters by redis, deltas dropped");
+        }
+    }
+
+    private class Flusher implements Runnable {
+        public void run() {
+            long next = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+            while (running) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(Math.min(TICK_MILLIS, intervalMillis)));
+                if (!running) {
+                    return;
+                }
+                long now = System.nanoTime();
+                if (now - next < 0 && pending.sum() < flushThreshold) {
+                    continue;
+                }
+                next = now + TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+                try {
+                    flush();
+                } catch (Exception e) {
+                    logger.error(StringUtil.logException(e));
+                }
+            }
+        }
+    }
+
+    /**
+     * 计数目标, field为null时是字符串key
+     */
+    private static final class CounterKey {
+        final String key;
+        final String field;
+        final int hash;
+
+        CounterKey(String key, String field) {
+            this.key = key;
+            this.field = field;
+            this.hash = 31 * key.hashCode() + (field == null ? 0 : field.hashCode());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CounterKey)) {
+                return false;
+            }
+            CounterKey other = (CounterKey) o;
+            return key.equals(other.key) && Objects.equals(field, other.field);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return field == null ? key : key + "/" + field;
+        }
+    }
+
+    /**
+     * 分段计数格子, 与LongAdder一样按线程分散到不同分段, 每个分段独占一个缓存行
+     * 退役时把所有分段置为RETIRED并取出合计, 之后的add返回false, 保证增量不会丢失也不会重复
+     */
+    static final class Cell {
+        private static final long RETIRED = Long.MIN_VALUE;
+        /**
+         * 8个long为64字节, 相邻分段不共享缓存行
+         */
+        private static final int PAD = 8;
+
+        private final AtomicLongArray values;
+        private final int mask;
+        /**
+         * 连续没有增量的轮数, 只由刷出线程访问
+         */
+        int idleRounds;
+
+        Cell(int stripes) {
+            this.values = new AtomicLongArray(stripes * PAD);
+            this.mask = stripes - 1;
+        }
+
+        boolean add(long delta) {
+            int stripe = probe();
+            while (true) {
+                int index = (stripe & mask) * PAD;
+                long value = values.get(index);
+                if (value == RETIRED) {
+                    return false;
+                }
+                if (values.compareAndSet(index, value, value + delta)) {
+                    return true;
+                }
+                //竞争时换一个分段
+                stripe++;
+            }
+        }
+
+        long sum() {
+            long sum = 0;
+            for (int i = 0; i <= mask; i++) {
+                long value = values.get(i * PAD);
+                if (value != RETIRED) {
+                    sum += value;
+                }
+            }
+            return sum;
+        }
+
+        /**
+         * 取出并清零当前合计
+         */
+        long drain() {
+            long sum = 0;
+            for (int i = 0; i <= mask; i++) {
+                int index = i * PAD;
+                while (true) {
+                    long value = values.get(index);
+                    if (value == 0 || value == RETIRED) {
+                        break;
+                    }
+                    if (values.compareAndSet(index, value, 0L)) {
+                        sum += value;
+                        break;
+                    }
+                }
+            }
+            return sum;
+        }
+
+        /**
+         * 退役并取出剩余合计
+         */
+        long retire() {
+            long sum = 0;
+            for (int i = 0; i <= mask; i++) {
+                long value = values.getAndSet(i * PAD, RETIRED);
+                if (value != RETIRED) {
+                    sum += value;
+                }
+            }
+            return sum;
+        }
+
+        private static int probe() {
+            long id = Thread.currentThread().getId();
+            return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.jut.redis.hotkey;
+
+/***
+ * 热点key
+ */
+public class HotKey {
+    private final String key;
+    private final String command;
+    private final String node;
+    private final long count;
+    private final double rate;
+
+    public HotKey(String key, String command, String node, long count, double rate) {
+        this.key = key;
+        this.command = command;
+        this.node = node;
+        this.count = count;
+        this.rate = rate;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * 统计维度的命令名, 全局统计时为null; 回调时为触发阈值的那次访问的命令
+     */
+    public String getCommand() {
+        return command;
+    }
+
+    /**
+     * 所在节点, 未设置NodeResolver时为null
+     */
+    public String getNode() {
+        return node;
+    }
+
+    /**
+     * 窗口内被采样到的次数(估计值)
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * 按采样率换算的每秒访问次数
+     */
+    public double getRate() {
+        return rate;
+    }
+
+    public String toString() {
+        return key + (node == null ? "" : "@" + node) + " " + String.format("%.1f", rate) + "/s";
+    }
+}
@@ -0,0 +1,255 @@
+package com.jut.redis.hotkey;
+
+import com.jut.redis.cluster.NodeResolver;
+import com.jut.redis.utils.CountMinSketch;
+import com.jut.redis.utils.StringUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/***
+ * 客户端热点key探测
+ * 按采样率抽取访问, 在固定时间窗口内用Count-Min Sketch估计每个key的次数, 并维护次数最大的K个key;
+ * 全局、按命令、按节点(设置NodeResolver时)各维护一份
+ * 窗口结束后发布该窗口的top-K并清空计数, 查询返回最近一个完整窗口的结果;
+ * key在当前窗口内按采样率换算的访问速率超过阈值时立即回调, 每个窗口每个key只回调一次
+ * 未被采样的访问只有一次随机数判断, 可常开
+ */
+public class HotKeyDetector {
+    private final static Logger logger = LoggerFactory.getLogger(HotKeyDetector.class);
+
+    public static final double DEFAULT_SAMPLE_RATE = 0.01;
+    public static final int DEFAULT_TOP_K = 20;
+    public static final long DEFAULT_WINDOW_MILLIS = 10000L;
+    public static final int DEFAULT_SKETCH_WIDTH = 1024;
+
+    private final double sampleRate;
+    private final int topK;
+    private final long windowMillis;
+    private final int sketchWidth;
+    private final Tracker global;
+    private final ConcurrentHashMap<String, Tracker> commands = new ConcurrentHashMap<String, Tracker>();
+    private final ConcurrentHashMap<String, Tracker> nodes = new ConcurrentHashMap<String, Tracker>();
+    private final AtomicLong windowEnd = new AtomicLong();
+    private volatile long windowStart;
+    private volatile Set<String> fired = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    private volatile NodeResolver nodeResolver;
+    private volatile HotKeyListener listener;
+    /**
+     * 回调阈值, 每秒访问次数, 小于等于0表示不回调
+     */
+    private volatile double threshold;
+
+    public HotKeyDetector() {
+        this(DEFAULT_SAMPLE_RATE, DEFAULT_TOP_K, DEFAULT_WINDOW_MILLIS);
+    }
+
+    /**
+     * @param sampleRate   采样率, (0, 1]
+     * @param topK         每个维度保留的热点key数
+     * @param windowMillis 统计窗口, 毫秒
+     */
+    public HotKeyDetector(double sampleRate, int topK, long windowMillis) {
+        this(sampleRate, topK, windowMillis, DEFAULT_SKETCH_WIDTH);
+    }
+
+    /**
+     * @param sketchWidth Count-Min Sketch每行计数器个数, 窗口内采样到的不同key越多需要越大
+     */
+    public HotKeyDetector(double sampleRate, int topK, long windowMillis, int sketchWidth) {
+        if (sampleRate <= 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("sampleRate must be in (0, 1]: " + sampleRate);
+        }
+        this.sampleRate = sampleRate;
+        this.topK = topK;
+        this.windowMillis = windowMillis;
+        this.sketchWidth = sketchWidth;
+        this.global = new Tracker(null, null);
+        long now = System.currentTimeMillis();
+        this.windowStart = now;
+        this.windowEnd.set(now + windowMillis);
+    }
+
+    public NodeResolver getNodeResolver() {
+        return nodeResolver;
+    }
+    public void setNodeResolver(NodeResolver nodeResolver) {
+        this.nodeResolver = nodeResolver;
+    }
+    public HotKeyListener getListener() {
+        return listener;
+    }
+    public void setListener(HotKeyListener listener) {
+        this.listener = listener;
+    }
+    public double getThreshold() {
+        return threshold;
+    }
+    /**
+     * @param threshold 每秒访问次数超过该值时回调listener
+     */
+    public void setThreshold(double threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * 一个统计维度
+     */
+    private class Tracker {
+        final String command;
+        final String node;
+        final CountMinSketch sketch = new CountMinSketch(sketchWidth, 0);
+        final TopK top = new TopK(topK);
+        volatile List<HotKey> published = Collections.emptyList();
+
+        Tracker(String command, String node) {
+            this.command = command;
+            this.node = node;
+        }
+
+        long add(String key) {
+            long count = sketch.increment(key);
+            top.offer(key, count);
+            return count;
+        }
+
+        void rotate(double seconds) {
+            List<TopK.Entry> entries = top.drain();
+            sketch.clear();
+            NodeResolver resolver = nodeResolver;
+            List<HotKey> hotKeys = new ArrayList<HotKey>(entries.size());
+            for (TopK.Entry entry : entries) {
+                String keyNode = node != null || resolver == null ? node : resolver.getNode(entry.key);
+                hotKeys.add(new HotKey(entry.key, command, keyNode, entry.count, rate(entry.count, seconds)));
+            }
+            published = Collections.unmodifiableList(hotKeys);
+        }
+    }
+
+    /**
+     * 记录一次访问, 按采样率决定是否统计
+     */
+    public void record(String command, String key) {
+        if (key == null || sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        rotateIfNeeded();
+        NodeResolver resolver = nodeResolver;
+        String node = resolver == null ? null : resolver.getNode(key);
+        long count = global.add(key);
+        tracker(commands, command, command, null).add(key);
+        if (node != null) {
+            tracker(nodes, node, null, node).add(key);
+        }
+        HotKeyListener current = listener;
+        double limit = threshold;
+        if (current != null && limit > 0) {
+            double seconds = Math.max(1, System.currentTimeMillis() - windowStart) / 1000.0;
+            //窗口刚开始时按至少1秒计, 避免少量访问被放大成高速率
+            double rate = rate(count, Math.max(1.0, seconds));
+            if (rate >= limit && fired.add(key)) {
+                try {
+                    current.onHotKey(new HotKey(key, command, node, count, rate));
+                } catch (Exception e) {
+                    logger.error(StringUtil.logException(e));
+                }
+            }
+        }
+    }
+
+    /**
+     * 记录多个key的访问
+     */
+    public void record(String command, String... keys) {
+        if (keys != null) {
+            for (String key : keys) {
+                record(command, key);
+            }
+        }
+    }
+
+    private Tracker tracker(ConcurrentHashMap<String, Tracker> trackers, String name, String command, String node) {
+        Tracker tracker = trackers.get(name);
+        if (tracker == null) {
+            tracker = new Tracker(command, node);
+            Tracker previous = trackers.putIfAbsent(name, tracker);
+            if (previous != null) {
+                tracker = previous;
+            }
+        }
+        return tracker;
+    }
+
+    private double rate(long count, double seconds) {
+        return count / sampleRate / seconds;
+    }
+
+    /**
+     * 窗口到期时由第一个发现的线程发布结果并开始新窗口
+     */
+    private void rotateIfNeeded() {
+        long now = System.currentTimeMillis();
+        long end = windowEnd.get();
+        if (now < end || !windowEnd.compareAndSet(end, now + windowMillis)) {
+            return;
+        }
+        double seconds = Math.max(1, now - windowStart) / 1000.0;
+        windowStart = now;
+        fired = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        global.rotate(seconds);
+        for (Tracker tracker : commands.values()) {
+            tracker.rotate(seconds);
+        }
+        for (Tracker tracker : nodes.values()) {
+            tracker.rotate(seconds);
+        }
+    }
+
+    /**
+     * 最近一个完整窗口的全局热点key, 按次数从大到小
+     */
+    public List<HotKey> getHotKeys() {
+        rotateIfNeeded();
+        return global.published;
+    }
+
+    /**
+     * 最近一个完整窗口中某个命令的热点key
+     */
+    public List<HotKey> getHotKeys(String command) {
+        rotateIfNeeded();
+        Tracker tracker = commands.get(command);
+        return tracker == null ? Collections.<HotKey>emptyList() : tracker.published;
+    }
+
+    /**
+     * 最近一个完整窗口中某个节点的热点key
+     */
+    public List<HotKey> getHotKeysByNode(String node) {
+        rotateIfNeeded();
+        Tracker tracker = nodes.get(node);
+        return tracker == null ? Collections.<HotKey>emptyList() : tracker.published;
+    }
+
+    /**
+     * 出现过的命令名
+     */
+    public Set<String> getCommands() {
+        return Collections.unmodifiableSet(commands.keySet());
+    }
+
+    /**
+     * 出现过的节点
+     */
+    public Set<String> getNodes() {
+        return Collections.unmodifiableSet(nodes.keySet());
+    }
+}
@@ -0,0 +1,12 @@
+package com.jut.redis.hotkey;
+
+/***
+ * 热点key回调
+ */
+public interface HotKeyListener {
+    /**
+     * key在当前窗口内的访问速率超过阈值, 每个窗口每个key只回调一次
+     * 在发起访问的线程上同步调用, 实现应当快速返回
+     */
+    void onHotKey(HotKey hotKey);
+}
@@ -0,0 +1,387 @@
+package com.jut.redis.hotkey;
+
+import com.jut.redis.RedisManager;
+import com.jut.redis.RedisManagerDecorator;
+import com.jut.redis.SetOptions;
+import com.jut.redis.scan.CloseableIterator;
+import com.jut.redis.scan.ScanOptions;
+import com.jut.redis.script.RedisScript;
+import redis.clients.jedis.ListPosition;
+import redis.clients.jedis.Tuple;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/***
+ * 探测热点key的redis管理接口
+ * 每次带key的调用交给HotKeyDetector按采样率统计, 多key命令逐个统计, 命令名与MetricsRedisManager一致
+ * 集群模式下对HotKeyDetector设置ClusterNodeResolver即可按节点查看热点
+ */
+public class HotKeyRedisManager extends RedisManagerDecorator {
+    private final HotKeyDetector detector;
+
+    public HotKeyRedisManager(RedisManager redisManager, HotKeyDetector detector) {
+        super(redisManager);
+        this.detector = detector;
+    }
+
+    public HotKeyDetector getDetector() {
+        return detector;
+    }
+
+    private void recordPairs(String command, String[] keysvalues) {
+        if (keysvalues != null) {
+            for (int i = 0; i < keysvalues.length; i += 2) {
+                detector.record(command, keysvalues[i]);
+            }
+        }
+    }
+
+    public String get(String key){
+        detector.record("get", key);
+        return redisManager.get(key);
+    }
+
+    public String set(String key,String value){
+        detector.record("set", key);
+        return redisManager.set(key, value);
+    }
+
+    public String set(String key, String value, SetOptions options){
+        detector.record("set", key);
+        return redisManager.set(key, value, options);
+    }
+
+    public String setex(String key,int seconds,String value){
+        detector.record("setex", key);
+        return redisManager.setex(key, seconds, value);
+    }
+
+    public Long setrange(String key,int offset,String value){
+        detector.record("setrange", key);
+        return redisManager.setrange(key, offset, value);
+    }
+
+    public List<String> mget(String...keys){
+        detector.record("mget", keys);
+        return redisManager.mget(keys);
+    }
+
+    public String mset(String...keysvalues){
+        recordPairs("mset", keysvalues);
+        return redisManager.mset(keysvalues);
+    }
+
+    public Long append(String key,String value){
+        detector.record("append", key);
+        return redisManager.append(key, value);
+    }
+
+    public Boolean exists(String key){
+        detector.record("exists", key);
+        return redisManager.exists(key);
+    }
+
+    public Long setnx(String key,String value){
+        detector.record("setnx", key);
+        return redisManager.setnx(key, value);
+    }
+
+    public Long expire(String key,int seconds){
+        detector.record("expire", key);
+        return redisManager.expire(key, seconds);
+    }
+
+    public Long del(String...keys){
+        detector.record("del", keys);
+        return redisManager.del(keys);
+    }
+
+    public Long timetolive(String key){
+        detector.record("ttl", key);
+        return redisManager.timetolive(key);
+    }
+
+    public Long msetnx(String...keysvalues){
+        recordPairs("msetnx", keysvalues);
+        return redisManager.msetnx(keysvalues);
+    }
+
+    public String getset(String key,String value){
+        detector.record("getset", key);
+        return redisManager.getset(key, value);
+    }
+
+    public String getrange(String key, int startOffset ,int endOffset){
+        detector.record("getrange", key);
+        return redisManager.getrange(key, startOffset, endOffset);
+    }
+
+    public Long incr(String key){
+        detector.record("incr", key);
+        return redisManager.incr(key);
+    }
+
+    public Long incrBy(String key,Long integer){
+        detector.record("incrby", key);
+        return redisManager.incrBy(key, integer);
+    }
+
+    public Long incrByEx(String key, Long integer, int seconds){
+        detector.record("incrByEx", key);
+        return redisManager.incrByEx(key, integer, seconds);
+    }
+
+    public Long decr(String key){
+        detector.record("decr", key);
+        return redisManager.decr(key);
+    }
+
+    public Long decrBy(String key,Long integer){
+        detector.record("decrby", key);
+        return redisManager.decrBy(key, integer);
+    }
+
+    public Long serlen(String key){
+        detector.record("strlen", key);
+        return redisManager.serlen(key);
+    }
+
+    public Long hset(String key,String field,String value){
+        detector.record("hset", key);
+        return redisManager.hset(key, field, value);
+    }
+
+    public Long hsetnx(String key,String field,String value){
+        detector.record("hsetnx", key);
+        return redisManager.hsetnx(key, field, value);
+    }
+
+    public String hmset(String key, Map<String, String> hash){
+        detector.record("hmset", key);
+        return redisManager.hmset(key, hash);
+    }
+
+    public String hget(String key, String field){
+        detector.record("hget", key);
+        return redisManager.hget(key, field);
+    }
+
+    public List<String> hmget(String key,String...fields){
+        detector.record("hmget", key);
+        return redisManager.hmget(key, fields);
+    }
+
+    public Long hincrby(String key ,String field ,Long value){
+        detector.record("hincrby", key);
+        return redisManager.hincrby(key, field, value);
+    }
+
+    public Long hincrbyEx(String key, String field, Long value, int seconds){
+        detector.record("hincrbyEx", key);
+        return redisManager.hincrbyEx(key, field, value, seconds);
+    }
+
+    public Boolean hexists(String key , String field){
+        detector.record("hexists", key);
+        return redisManager.hexists(key, field);
+    }
+
+    public Long hlen(String key){
+        detector.record("hlen", key);
+        return redisManager.hlen(key);
+    }
+
+    public Long hdel(String key ,String...fields){
+        detector.record("hdel", key);
+        return redisManager.hdel(key, fields);
+    }
+
+    public Set<String> hkeys(String key){
+        detector.record("hkeys", key);
+        return redisManager.hkeys(key);
+    }
+
+    public List<String> hvals(String key){
+        detector.record("hvals", key);
+        return redisManager.hvals(key);
+    }
+
+    public Map<String, String> hgetall(String key){
+        detector.record("hgetall", key);
+        return redisManager.hgetall(key);
+    }
+
+    public Long lpush(String key ,String...strs){
+        detector.record("lpush", key);
+        return redisManager.lpush(key, strs);
+    }
+
+    public Long rpush(String key ,String...strs){
+        detector.record("rpush", key);
+        return redisManager.rpush(key, strs);
+    }
+
+    public Long linsert(String key, ListPosition where,String pivot, String value){
+        detector.record("linsert", key);
+        return redisManager.linsert(key, where, pivot, value);
+    }
+
+    public String lset(String key ,Long index, String value){
+        detector.record("lset", key);
+        return redisManager.lset(key, index, value);
+    }
+
+    public Long lrem(String key,long count,String value){
+        detector.record("lrem", key);
+        return redisManager.lrem(key, count, value);
+    }
+
+    public String ltrim(String key ,long start ,long end){
+        detector.record("ltrim", key);
+        return redisManager.ltrim(key, start, end);
+    }
+
+    public String lpop(String key){
+        detector.record("lpop", key);
+        return redisManager.lpop(key);
+    }
+
+    public String rpop(String key){
+        detector.record("rpop", key);
+        return redisManager.rpop(key);
+    }
+
+    public String rpoplpush(String srckey, String dstkey){
+        detector.record("rpoplpush", srckey);
+        detector.record("rpoplpush", dstkey);
+        return redisManager.rpoplpush(srckey, dstkey);
+    }
+
+    public List<String> blpop(int timeout, String key){
+        detector.record("blpop", key);
+        return redisManager.blpop(timeout, key);
+    }
+
+    public String lindex(String key,long index){
+        detector.record("lindex", key);
+        return redisManager.lindex(key, index);
+    }
+
+    public Long llen(String key){
+        detector.record("llen", key);
+        return redisManager.llen(key);
+    }
+
+    public List<String> lrange(String key, long start, long end){
+        detector.record("lrange", key);
+        return redisManager.lrange(key, start, end);
+    }
+
+    public Long sadd(String key,String...members){
+        detector.record("sadd", key);
+        return redisManager.sadd(key, members);
+    }
+
+    public Long srem(String key,String...members){
+        detector.record("srem", key);
+        return redisManager.srem(key, members);
+    }
+
+    public String spop(String key){
+        detector.record("spop", key);
+        return redisManager.spop(key);
+    }
+
+    public Set<String> sdiff(String...keys){
+        detector.record("sdiff", keys);
+        return redisManager.sdiff(keys);
+    }
+
+    public Long sdiffstore(String dstkey,String... keys){
+        detector.record("sdiffstore", dstkey);
+        detector.record("sdiffstore", keys);
+        return redisManager.sdiffstore(dstkey, keys);
+    }
+
+    public Set<String> sinter(String...keys){
+        detector.record("sinter", keys);
+        return redisManager.sinter(keys);
+    }
+
+    public Long sinterstore(String dstkey,String...keys){
+        detector.record("sinterstore", dstkey);
+        detector.record("sinterstore", keys);
+        return redisManager.sinterstore(dstkey, keys);
+    }
+
+    public Set<String> sunion(String... keys){
+        detector.record("sunion", keys);
+        return redisManager.sunion(keys);
+    }
+
+    public Long sunionstore(String dstkey,String...keys){
+        detector.record("sunionstore", dstkey);
+        detector.record("sunionstore", keys);
+        return redisManager.sunionstore(dstkey, keys);
+    }
+
+    public Long smove(String srckey, String dstkey, String member){
+        detector.record("smove", srckey);
+        detector.record("smove", dstkey);
+        return redisManager.smove(srckey, dstkey, member);
+    }
+
+    public Long scard(String key){
+        detector.record("scard", key);
+        return redisManager.scard(key);
+    }
+
+    public Boolean sismember(String key,String member){
+        detector.record("sismember", key);
+        return redisManager.sismember(key, member);
+    }
+
+    public String srandmember(String key){
+        detector.record("srandmember", key);
+        return redisManager.srandmember(key);
+    }
+
+    public Set<String> smembers(String key){
+        detector.record("smembers", key);
+        return redisManager.smembers(key);
+    }
+
+    public Long zremrangeByRank(String key ,long start, long end){
+        detector.record("zremrangebyrank", key);
+        return redisManager.zremrangeByRank(key, start, end);
+    }
+
+    public Long zremrangeByScore(String key,double start,double end){
+        detector.record("zremrangebyscore", key);
+        return redisManager.zremrangeByScore(key, start, end);
+    }
+
+    public String type(String key){
+        detector.record("type", key);
+        return redisManager.type(key);
+    }
+
+    public CloseableIterator<String> sscan(String key, ScanOptions options){
+        detector.record("sscan", key);
+        return redisManager.sscan(key, options);
+    }
+
+    public CloseableIterator<Tuple> zscan(String key, ScanOptions options){
+        detector.record("zscan", key);
+        return redisManager.zscan(key, options);
+    }
+
+    public <T> T eval(RedisScript<T> script, List<String> keys, List<String> args){
+        for (String key : keys) {
+            detector.record(script.getName(), key);
+        }
+        return redisManager.eval(script, keys, args);
+    }
+}
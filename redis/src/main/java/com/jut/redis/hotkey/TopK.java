@@ -0,0 +1,73 @@
+package com.jut.redis.hotkey;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/***
+ * 计数最大的K个key
+ * K通常只有几十, 用定长数组加线性扫描最小值代替堆, 更新时按key替换计数, 只在采样路径上调用
+ */
+class TopK {
+    private final String[] keys;
+    private final long[] counts;
+    private int size;
+
+    TopK(int k) {
+        this.keys = new String[k];
+        this.counts = new long[k];
+    }
+
+    /**
+     * @param count key的最新估计次数
+     */
+    synchronized void offer(String key, long count) {
+        int min = -1;
+        for (int i = 0; i < size; i++) {
+            if (keys[i].equals(key)) {
+                counts[i] = Math.max(counts[i], count);
+                return;
+            }
+            if (min < 0 || counts[i] < counts[min]) {
+                min = i;
+            }
+        }
+        if (size < keys.length) {
+            keys[size] = key;
+            counts[size] = count;
+            size++;
+        } else if (count > counts[min]) {
+            keys[min] = key;
+            counts[min] = count;
+        }
+    }
+
+    static class Entry {
+        final String key;
+        final long count;
+
+        Entry(String key, long count) {
+            this.key = key;
+            this.count = count;
+        }
+    }
+
+    /**
+     * 按次数从大到小返回并清空
+     */
+    synchronized List<Entry> drain() {
+        List<Entry> entries = new ArrayList<Entry>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(new Entry(keys[i], counts[i]));
+            keys[i] = null;
+        }
+        size = 0;
+        Collections.sort(entries, new Comparator<Entry>() {
+            public int compare(Entry a, Entry b) {
+                return Long.compare(b.count, a.count);
+            }
+        });
+        return entries;
+    }
+}
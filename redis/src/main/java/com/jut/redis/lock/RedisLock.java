@@ -0,0 +1,233 @@
+package com.jut.redis.lock;
+
+import com.jut.redis.RedisManager;
+import com.jut.redis.SetOptions;
+import com.jut.redis.script.Scripts;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/***
+ * 分布式锁, 由RedisLocks.getLock获取, 可重入, 同一线程加锁几次就需要释放几次
+ * 本地用公平锁排队, 持有本地锁的线程才去redis加锁, 释放时先释放redis锁再释放本地锁
+ * 锁因租期到期或被删除而丢失时unlock只记录日志, 不抛出异常
+ * 不支持Condition
+ */
+public class RedisLock implements Lock {
+    private final static Logger logger = LoggerFactory.getLogger(RedisLock.class);
+
+    /**
+     * BLPOP的超时以秒为单位, 短于该值的等待改为休眠
+     */
+    private static final long MIN_BLOCK_MILLIS = 1000L;
+    /**
+     * redis出错时重试的间隔
+     */
+    private static final long RETRY_INTERVAL_MILLIS = 100L;
+
+    private final RedisLocks locks;
+    private final RedisManager redisManager;
+    private final String name;
+    private final String key;
+    private final String wakeKey;
+    private final ReentrantLock local = new ReentrantLock(true);
+    /**
+     * 当前持有的令牌, 未持有时为null
+     */
+    private volatile String token;
+    private volatile ScheduledFuture<?> renewal;
+
+    RedisLock(RedisLocks locks, String name, String key) {
+        this.locks = locks;
+        this.redisManager = locks.getRedisManager();
+        this.name = name;
+        this.key = key;
+        this.wakeKey = key + ":wake";
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isHeldByCurrentThread() {
+        return local.isHeldByCurrentThread();
+    }
+
+    public int getHoldCount() {
+        return local.getHoldCount();
+    }
+
+    public void lock() {
+        local.lock();
+        try {
+            acquireOrRelease(-1L, false);
+        } catch (InterruptedException e) {
+            //不可中断时不会抛出
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void lockInterruptibly() throws InterruptedException {
+        local.lockInterruptibly();
+        acquireOrRelease(-1L, true);
+    }
+
+    /**
+     * 只尝试一次, 不等待
+     */
+    public boolean tryLock() {
+        if (!local.tryLock()) {
+            return false;
+        }
+        try {
+            return acquireOrRelease(0L, false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(time);
+        if (!local.tryLock(time, unit)) {
+            return false;
+        }
+        return acquireOrRelease(Math.max(deadline - System.nanoTime(), 0L), true);
+    }
+
+    public void unlock() {
+        if (!local.isHeldByCurrentThread()) {
+            throw new IllegalMonitorStateException("redis lock " + name + " is not held by current thread");
+        }
+        try {
+            if (local.getHoldCount() == 1) {
+                release();
+            }
+        } finally {
+            local.unlock();
+        }
+    }
+
+    public Condition newCondition() {
+        throw new UnsupportedOperationException("redis lock does not support conditions");
+    }
+
+    /**
+     * 已持有本地锁, 重入时直接返回, 否则去redis加锁; 加锁失败或中断时释放本地锁
+     *
+     * @param timeoutNanos 等待时间, 负数为一直等待
+     */
+    private boolean acquireOrRelease(long timeoutNanos, boolean interruptible) throws InterruptedException {
+        if (local.getHoldCount() > 1) {
+            return true;
+        }
+        boolean acquired = false;
+        try {
+            acquired = acquire(timeoutNanos, interruptible);
+            return acquired;
+        } finally {
+            if (!acquired) {
+                local.unlock();
+            }
+        }
+    }
+
+    /**
+     * 不可中断时记录等待期间的中断, 返回前恢复中断状态
+     */
+    private boolean acquire(long timeoutNanos, boolean interruptible) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        String candidate = locks.newToken();
+        SetOptions options = SetOptions.setOptions().nx().px(locks.getLeaseMillis());
+        boolean interrupted = false;
+        try {
+            while (true) {
+                if ("OK".equals(redisManager.set(key, candidate, options))) {
+                    token = candidate;
+                    renewal = locks.watch(() -> renew(candidate));
+                    return true;
+                }
+                long waitMillis = locks.getLeaseMillis();
+                if (timeoutNanos >= 0) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    waitMillis = Math.min(waitMillis, TimeUnit.NANOSECONDS.toMillis(remaining) + 1);
+                }
+                try {
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                    await(waitMillis);
+                } catch (InterruptedException e) {
+                    if (interruptible) {
+                        throw e;
+                    }
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 阻塞在唤醒列表上直到锁被释放或超时, 短于一秒的等待用休眠代替
+     */
+    private void await(long waitMillis) throws InterruptedException {
+        if (waitMillis < MIN_BLOCK_MILLIS) {
+            Thread.sleep(waitMillis);
+            return;
+        }
+        long start = System.nanoTime();
+        List<String> woken = redisManager.blpop((int) Math.min(waitMillis / 1000, Integer.MAX_VALUE), wakeKey);
+        if (woken == null && System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(MIN_BLOCK_MILLIS)) {
+            //出错时blpop立即返回null, 避免持续重试
+            Thread.sleep(RETRY_INTERVAL_MILLIS);
+        }
+    }
+
+    private void release() {
+        String held = token;
+        token = null;
+        ScheduledFuture<?> current = renewal;
+        renewal = null;
+        if (current != null) {
+            current.cancel(false);
+        }
+        Boolean released = redisManager.eval(Scripts.RELEASE_AND_NOTIFY, Arrays.asList(key, wakeKey),
+                Arrays.asList(held, String.valueOf(locks.getLeaseMillis())));
+        if (Boolean.FALSE.equals(released)) {
+            logger.warn("redis lock " + name + " was lost before unlock, lease " + locks.getLeaseMillis() + "ms expired");
+        }
+    }
+
+    /**
+     * watchdog线程调用, 令牌不匹配说明锁已丢失, 停止续期; 出错(null)时等下次再试
+     */
+    private void renew(String held) {
+        if (!held.equals(token)) {
+            return;
+        }
+        Boolean renewed = redisManager.eval(Scripts.COMPARE_AND_PEXPIRE, Collections.singletonList(key),
+                Arrays.asList(held, String.valueOf(locks.getLeaseMillis())));
+        if (Boolean.FALSE.equals(renewed) && held.equals(token)) {
+            logger.warn("redis lock " + name + " was lost while held, stop renewing");
+            ScheduledFuture<?> current = renewal;
+            if (current != null) {
+                current.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.jut.redis.lock;
+
+import com.jut.redis.RedisManager;
+import com.jut.redis.shard.ConsistentHash;
+import com.jut.redis.utils.NamedThreadFactory;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * 基于RedisManager的分布式锁, 单实例、集群和分片实现都可使用
+ * 加锁用一次SET NX PX, 值为每次加锁生成的令牌; 释放用脚本比较令牌后删除, 不会误删其他持有者的锁
+ * watchdog开启时持有期间每leaseMillis/3按令牌续期一次, 进程宕机后锁最多在一个租期后过期
+ *
+ * 等待者不轮询redis:
+ * 同一进程内按名称共享一个RedisLock, 线程先在本地公平锁上排队, 只有排在最前的线程访问redis
+ * 该线程加锁失败后阻塞在唤醒列表上(BLPOP), 释放锁的脚本向唤醒列表放入一个元素, 只唤醒一个进程;
+ * 释放发生在阻塞之前时元素留在列表中, 不会丢失唤醒. 每次阻塞最多一个租期, 超时后重试, 以覆盖持有者宕机的情况
+ * 锁key为prefix + "{" + name + "}", 唤醒列表在其后加":wake", 两者位于同一槽位(分片)
+ */
+public class RedisLocks {
+    private final RedisManager redisManager;
+    private final ConcurrentMap<String, RedisLock> locks = new ConcurrentHashMap<String, RedisLock>();
+    /**
+     * 区分进程的令牌前缀
+     */
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private String prefix = "lock:";
+    /**
+     * 锁的租期(毫秒), 也是唤醒列表的过期时间和每次阻塞等待的上限
+     */
+    private long leaseMillis = 30000L;
+    /**
+     * 是否在持有期间自动续期; 关闭时锁在leaseMillis后过期, 持有时间不能超过租期
+     */
+    private boolean watchdog = true;
+    private ScheduledExecutorService scheduler;
+
+    public RedisLocks(RedisManager redisManager) {
+        this.redisManager = redisManager;
+    }
+
+    /**
+     * 获取名称对应的锁, 同一名称返回同一实例
+     * 实例按名称缓存以共享本地排队, 名称应是有限的集合
+     */
+    public RedisLock getLock(String name) {
+        RedisLock lock = locks.get(name);
+        if (lock == null) {
+            String key = prefix + "{" + name + "}";
+            if (ConsistentHash.hashTag(key).equals(key)) {
+                //例如以'}'开头的名称, 锁key与唤醒列表可能不在同一槽位
+                throw new IllegalArgumentException("lock key has no hash tag: " + key);
+            }
+            RedisLock created = new RedisLock(this, name, key);
+            lock = locks.putIfAbsent(name, created);
+            if (lock == null) {
+                lock = created;
+            }
+        }
+        return lock;
+    }
+
+    /**
+     * 停止续期线程, 之后持有的锁在租期后过期
+     */
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+    public void setPrefix(String prefix) {
+        this.prefix = prefix;
+    }
+    public long getLeaseMillis() {
+        return leaseMillis;
+    }
+    public void setLeaseMillis(long leaseMillis) {
+        this.leaseMillis = leaseMillis;
+    }
+    public boolean isWatchdog() {
+        return watchdog;
+    }
+    public void setWatchdog(boolean watchdog) {
+        this.watchdog = watchdog;
+    }
+
+    RedisManager getRedisManager() {
+        return redisManager;
+    }
+
+    String newToken() {
+        return instanceId + ":" + UUID.randomUUID();
+    }
+
+    /**
+     * 按租期的1/3定期续期, 未开启watchdog时返回null
+     */
+    synchronized ScheduledFuture<?> watch(Runnable renewal) {
+        if (!watchdog) {
+            return null;
+        }
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("jut-redis-lock-watchdog"));
+        }
+        long period = Math.max(leaseMillis / 3, 1L);
+        return scheduler.scheduleWithFixedDelay(renewal, period, period, TimeUnit.MILLISECONDS);
+    }
+}
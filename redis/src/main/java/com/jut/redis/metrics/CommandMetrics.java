@@ -0,0 +1,51 @@
+package com.jut.redis.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ * 单个命令(或单个节点)的计数器: 调用次数, 错误次数, 发送和接收的数据字节数, 延迟直方图
+ */
+public class CommandMetrics {
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    void record(long micros, boolean failed, long out, long in) {
+        calls.increment();
+        if (failed) {
+            errors.increment();
+        }
+        if (out > 0) {
+            bytesOut.add(out);
+        }
+        if (in > 0) {
+            bytesIn.add(in);
+        }
+        latency.record(micros);
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    void reset() {
+        calls.reset();
+        errors.reset();
+        bytesOut.reset();
+        bytesIn.reset();
+        latency.reset();
+    }
+
+    public CommandStatistics toStatistics() {
+        LatencyHistogram.Snapshot snapshot = latency.snapshot();
+        return new CommandStatistics(calls.sum(), errors.sum(), bytesOut.sum(), bytesIn.sum(),
+                snapshot.getMean(), snapshot.getValueAtQuantile(0.5), snapshot.getValueAtQuantile(0.9),
+                snapshot.getValueAtQuantile(0.99), snapshot.getValueAtQuantile(0.999), snapshot.getMax());
+    }
+}
@@ -0,0 +1,88 @@
+package com.jut.redis.metrics;
+
+import java.beans.ConstructorProperties;
+
+/***
+ * 命令统计的不可变快照, 延迟单位为微秒
+ * 可作为MXBean属性导出为CompositeData
+ */
+public class CommandStatistics {
+    private final long calls;
+    private final long errors;
+    private final long bytesOut;
+    private final long bytesIn;
+    private final double meanMicros;
+    private final long p50Micros;
+    private final long p90Micros;
+    private final long p99Micros;
+    private final long p999Micros;
+    private final long maxMicros;
+
+    @ConstructorProperties({"calls", "errors", "bytesOut", "bytesIn", "meanMicros",
+            "p50Micros", "p90Micros", "p99Micros", "p999Micros", "maxMicros"})
+    public CommandStatistics(long calls, long errors, long bytesOut, long bytesIn, double meanMicros,
+                             long p50Micros, long p90Micros, long p99Micros, long p999Micros, long maxMicros) {
+        this.calls = calls;
+        this.errors = errors;
+        this.bytesOut = bytesOut;
+        this.bytesIn = bytesIn;
+        this.meanMicros = meanMicros;
+        this.p50Micros = p50Micros;
+        this.p90Micros = p90Micros;
+        this.p99Micros = p99Micros;
+        this.p999Micros = p999Micros;
+        this.maxMicros = maxMicros;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * 发送的参数数据字节数, 不含协议开销
+     */
+    public long getBytesOut() {
+        return bytesOut;
+    }
+
+    /**
+     * 接收的返回数据字节数, 不含协议开销
+     */
+    public long getBytesIn() {
+        return bytesIn;
+    }
+
+    public double getMeanMicros() {
+        return meanMicros;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public long getP90Micros() {
+        return p90Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    public long getP999Micros() {
+        return p999Micros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    public String toString() {
+        return "calls=" + calls + ", errors=" + errors + ", bytesOut=" + bytesOut + ", bytesIn=" + bytesIn
+                + ", mean=" + String.format("%.1f", meanMicros) + "us, p50=" + p50Micros + "us, p90=" + p90Micros
+                + "us, p99=" + p99Micros + "us, p999=" + p999Micros + "us, max=" + maxMicros + "us";
+    }
+}
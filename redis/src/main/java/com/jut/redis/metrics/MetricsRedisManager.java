@@ -0,0 +1,974 @@
+package com.jut.redis.metrics;
+
+import com.jut.redis.RedisManager;
+import com.jut.redis.RedisManagerDecorator;
+import com.jut.redis.SetOptions;
+import com.jut.redis.pipeline.PipelineCallback;
+import com.jut.redis.script.RedisScript;
+import redis.clients.jedis.ListPosition;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/***
+ * 记录指标的redis管理接口
+ * 每次调用记录命令名、延迟、收发字节数, 以及是否失败; 集群模式下按第一个key所在节点细分
+ * 被装饰的SingleRedisManager/ClusterRedisManager会吞掉异常, 需同时对其setMetrics(同一个RedisMetrics),
+ * 失败才能归到对应命令, 连接池等待时间也由其上报
+ * scan系列返回惰性迭代器, 不在此记录
+ */
+public class MetricsRedisManager extends RedisManagerDecorator {
+    private final RedisMetrics metrics;
+
+    public MetricsRedisManager(RedisManager redisManager, RedisMetrics metrics) {
+        super(redisManager);
+        this.metrics = metrics;
+    }
+
+    public RedisMetrics getMetrics() {
+        return metrics;
+    }
+
+    private static String first(String[] keys) {
+        return keys == null || keys.length == 0 ? null : keys[0];
+    }
+
+    public String get(String key){
+        RedisMetrics.Call call = metrics.begin("get", key);
+        String ans = null;
+        try {
+            ans = redisManager.get(key);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key), PayloadSize.of(ans));
+        }
+    }
+
+    public String set(String key,String value){
+        RedisMetrics.Call call = metrics.begin("set", key);
+        String ans = null;
+        try {
+            ans = redisManager.set(key, value);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key) + PayloadSize.of(value), PayloadSize.of(ans));
+        }
+    }
+
+    public String set(String key, String value, SetOptions options){
+        RedisMetrics.Call call = metrics.begin("set", key);
+        String ans = null;
+        try {
+            ans = redisManager.set(key, value, options);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key) + PayloadSize.of(value), PayloadSize.of(ans));
+        }
+    }
+
+    public String setex(String key,int seconds,String value){
+        RedisMetrics.Call call = metrics.begin("setex", key);
+        String ans = null;
+        try {
+            ans = redisManager.setex(key, seconds, value);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key) + PayloadSize.of(value), PayloadSize.of(ans));
+        }
+    }
+
+    public Long setrange(String key,int offset,String value){
+        RedisMetrics.Call call = metrics.begin("setrange", key);
+        Long ans = null;
+        try {
+            ans = redisManager.setrange(key, offset, value);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key) + PayloadSize.of(value), PayloadSize.of(ans));
+        }
+    }
+
+    public List<String> mget(String...keys){
+        RedisMetrics.Call call = metrics.begin("mget", first(keys));
+        List<String> ans = null;
+        try {
+            ans = redisManager.mget(keys);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(keys), PayloadSize.of(ans));
+        }
+    }
+
+    public String mset(String...keysvalues){
+        RedisMetrics.Call call = metrics.begin("mset", first(keysvalues));
+        String ans = null;
+        try {
+            ans = redisManager.mset(keysvalues);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(keysvalues), PayloadSize.of(ans));
+        }
+    }
+
+    public Long append(String key,String value){
+        RedisMetrics.Call call = metrics.begin("append", key);
+        Long ans = null;
+        try {
+            ans = redisManager.append(key, value);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key) + PayloadSize.of(value), PayloadSize.of(ans));
+        }
+    }
+
+    public Boolean exists(String key){
+        RedisMetrics.Call call = metrics.begin("exists", key);
+        Boolean ans = null;
+        try {
+            ans = redisManager.exists(key);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key), PayloadSize.of(ans));
+        }
+    }
+
+    public Long setnx(String key,String value){
+        RedisMetrics.Call call = metrics.begin("setnx", key);
+        Long ans = null;
+        try {
+            ans = redisManager.setnx(key, value);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key) + PayloadSize.of(value), PayloadSize.of(ans));
+        }
+    }
+
+    public Long expire(String key,int seconds){
+        RedisMetrics.Call call = metrics.begin("expire", key);
+        Long ans = null;
+        try {
+            ans = redisManager.expire(key, seconds);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key), PayloadSize.of(ans));
+        }
+    }
+
+    public Long del(String...keys){
+        RedisMetrics.Call call = metrics.begin("del", first(keys));
+        Long ans = null;
+        try {
+            ans = redisManager.del(keys);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(keys), PayloadSize.of(ans));
+        }
+    }
+
+    public Long timetolive(String key){
+        RedisMetrics.Call call = metrics.begin("ttl", key);
+        Long ans = null;
+        try {
+            ans = redisManager.timetolive(key);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key), PayloadSize.of(ans));
+        }
+    }
+
+    public Long msetnx(String...keysvalues){
+        RedisMetrics.Call call = metrics.begin("msetnx", first(keysvalues));
+        Long ans = null;
+        try {
+            ans = redisManager.msetnx(keysvalues);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(keysvalues), PayloadSize.of(ans));
+        }
+    }
+
+    public String getset(String key,String value){
+        RedisMetrics.Call call = metrics.begin("getset", key);
+        String ans = null;
+        try {
+            ans = redisManager.getset(key, value);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key) + PayloadSize.of(value), PayloadSize.of(ans));
+        }
+    }
+
+    public String getrange(String key, int startOffset ,int endOffset){
+        RedisMetrics.Call call = metrics.begin("getrange", key);
+        String ans = null;
+        try {
+            ans = redisManager.getrange(key, startOffset, endOffset);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key), PayloadSize.of(ans));
+        }
+    }
+
+    public Long incr(String key){
+        RedisMetrics.Call call = metrics.begin("incr", key);
+        Long ans = null;
+        try {
+            ans = redisManager.incr(key);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key), PayloadSize.of(ans));
+        }
+    }
+
+    public Long incrBy(String key,Long integer){
+        RedisMetrics.Call call = metrics.begin("incrby", key);
+        Long ans = null;
+        try {
+            ans = redisManager.incrBy(key, integer);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key), PayloadSize.of(ans));
+        }
+    }
+
+    public Long incrByEx(String key, Long integer, int seconds){
+        RedisMetrics.Call call = metrics.begin("incrByEx", key);
+        Long ans = null;
+        try {
+            ans = redisManager.incrByEx(key, integer, seconds);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key) + PayloadSize.of(integer), PayloadSize.of(ans));
+        }
+    }
+
+    public Long decr(String key){
+        RedisMetrics.Call call = metrics.begin("decr", key);
+        Long ans = null;
+        try {
+            ans = redisManager.decr(key);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key), PayloadSize.of(ans));
+        }
+    }
+
+    public Long decrBy(String key,Long integer){
+        RedisMetrics.Call call = metrics.begin("decrby", key);
+        Long ans = null;
+        try {
+            ans = redisManager.decrBy(key, integer);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key), PayloadSize.of(ans));
+        }
+    }
+
+    public Long serlen(String key){
+        RedisMetrics.Call call = metrics.begin("strlen", key);
+        Long ans = null;
+        try {
+            ans = redisManager.serlen(key);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key), PayloadSize.of(ans));
+        }
+    }
+
+    public Long hset(String key,String field,String value){
+        RedisMetrics.Call call = metrics.begin("hset", key);
+        Long ans = null;
+        try {
+            ans = redisManager.hset(key, field, value);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key) + PayloadSize.of(field) + PayloadSize.of(value), PayloadSize.of(ans));
+        }
+    }
+
+    public Long hsetnx(String key,String field,String value){
+        RedisMetrics.Call call = metrics.begin("hsetnx", key);
+        Long ans = null;
+        try {
+            ans = redisManager.hsetnx(key, field, value);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key) + PayloadSize.of(field) + PayloadSize.of(value), PayloadSize.of(ans));
+        }
+    }
+
+    public String hmset(String key, Map<String, String> hash){
+        RedisMetrics.Call call = metrics.begin("hmset", key);
+        String ans = null;
+        try {
+            ans = redisManager.hmset(key, hash);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key) + PayloadSize.of(hash), PayloadSize.of(ans));
+        }
+    }
+
+    public String hget(String key, String field){
+        RedisMetrics.Call call = metrics.begin("hget", key);
+        String ans = null;
+        try {
+            ans = redisManager.hget(key, field);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key) + PayloadSize.of(field), PayloadSize.of(ans));
+        }
+    }
+
+    public List<String> hmget(String key,String...fields){
+        RedisMetrics.Call call = metrics.begin("hmget", key);
+        List<String> ans = null;
+        try {
+            ans = redisManager.hmget(key, fields);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key) + PayloadSize.of(fields), PayloadSize.of(ans));
+        }
+    }
+
+    public Long hincrby(String key ,String field ,Long value){
+        RedisMetrics.Call call = metrics.begin("hincrby", key);
+        Long ans = null;
+        try {
+            ans = redisManager.hincrby(key, field, value);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key) + PayloadSize.of(field), PayloadSize.of(ans));
+        }
+    }
+
+    public Long hincrbyEx(String key, String field, Long value, int seconds){
+        RedisMetrics.Call call = metrics.begin("hincrbyEx", key);
+        Long ans = null;
+        try {
+            ans = redisManager.hincrbyEx(key, field, value, seconds);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key) + PayloadSize.of(field) + PayloadSize.of(value), PayloadSize.of(ans));
+        }
+    }
+
+    public Boolean hexists(String key , String field){
+        RedisMetrics.Call call = metrics.begin("hexists", key);
+        Boolean ans = null;
+        try {
+            ans = redisManager.hexists(key, field);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key) + PayloadSize.of(field), PayloadSize.of(ans));
+        }
+    }
+
+    public Long hlen(String key){
+        RedisMetrics.Call call = metrics.begin("hlen", key);
+        Long ans = null;
+        try {
+            ans = redisManager.hlen(key);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key), PayloadSize.of(ans));
+        }
+    }
+
+    public Long hdel(String key ,String...fields){
+        RedisMetrics.Call call = metrics.begin("hdel", key);
+        Long ans = null;
+        try {
+            ans = redisManager.hdel(key, fields);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key) + PayloadSize.of(fields), PayloadSize.of(ans));
+        }
+    }
+
+    public Set<String> hkeys(String key){
+        RedisMetrics.Call call = metrics.begin("hkeys", key);
+        Set<String> ans = null;
+        try {
+            ans = redisManager.hkeys(key);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key), PayloadSize.of(ans));
+        }
+    }
+
+    public List<String> hvals(String key){
+        RedisMetrics.Call call = metrics.begin("hvals", key);
+        List<String> ans = null;
+        try {
+            ans = redisManager.hvals(key);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key), PayloadSize.of(ans));
+        }
+    }
+
+    public Map<String, String> hgetall(String key){
+        RedisMetrics.Call call = metrics.begin("hgetall", key);
+        Map<String, String> ans = null;
+        try {
+            ans = redisManager.hgetall(key);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key), PayloadSize.of(ans));
+        }
+    }
+
+    public Long lpush(String key ,String...strs){
+        RedisMetrics.Call call = metrics.begin("lpush", key);
+        Long ans = null;
+        try {
+            ans = redisManager.lpush(key, strs);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key) + PayloadSize.of(strs), PayloadSize.of(ans));
+        }
+    }
+
+    public Long rpush(String key ,String...strs){
+        RedisMetrics.Call call = metrics.begin("rpush", key);
+        Long ans = null;
+        try {
+            ans = redisManager.rpush(key, strs);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key) + PayloadSize.of(strs), PayloadSize.of(ans));
+        }
+    }
+
+    public Long linsert(String key, ListPosition where,String pivot, String value){
+        RedisMetrics.Call call = metrics.begin("linsert", key);
+        Long ans = null;
+        try {
+            ans = redisManager.linsert(key, where, pivot, value);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key) + PayloadSize.of(pivot) + PayloadSize.of(value), PayloadSize.of(ans));
+        }
+    }
+
+    public String lset(String key ,Long index, String value){
+        RedisMetrics.Call call = metrics.begin("lset", key);
+        String ans = null;
+        try {
+            ans = redisManager.lset(key, index, value);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key) + PayloadSize.of(value), PayloadSize.of(ans));
+        }
+    }
+
+    public Long lrem(String key,long count,String value){
+        RedisMetrics.Call call = metrics.begin("lrem", key);
+        Long ans = null;
+        try {
+            ans = redisManager.lrem(key, count, value);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key) + PayloadSize.of(value), PayloadSize.of(ans));
+        }
+    }
+
+    public String ltrim(String key ,long start ,long end){
+        RedisMetrics.Call call = metrics.begin("ltrim", key);
+        String ans = null;
+        try {
+            ans = redisManager.ltrim(key, start, end);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key), PayloadSize.of(ans));
+        }
+    }
+
+    public String lpop(String key){
+        RedisMetrics.Call call = metrics.begin("lpop", key);
+        String ans = null;
+        try {
+            ans = redisManager.lpop(key);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key), PayloadSize.of(ans));
+        }
+    }
+
+    public String rpop(String key){
+        RedisMetrics.Call call = metrics.begin("rpop", key);
+        String ans = null;
+        try {
+            ans = redisManager.rpop(key);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key), PayloadSize.of(ans));
+        }
+    }
+
+    public String rpoplpush(String srckey, String dstkey){
+        RedisMetrics.Call call = metrics.begin("rpoplpush", srckey);
+        String ans = null;
+        try {
+            ans = redisManager.rpoplpush(srckey, dstkey);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(srckey) + PayloadSize.of(dstkey), PayloadSize.of(ans));
+        }
+    }
+
+    public List<String> blpop(int timeout, String key){
+        RedisMetrics.Call call = metrics.begin("blpop", key);
+        List<String> ans = null;
+        try {
+            ans = redisManager.blpop(timeout, key);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key), PayloadSize.of(ans));
+        }
+    }
+
+    public String lindex(String key,long index){
+        RedisMetrics.Call call = metrics.begin("lindex", key);
+        String ans = null;
+        try {
+            ans = redisManager.lindex(key, index);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key), PayloadSize.of(ans));
+        }
+    }
+
+    public Long llen(String key){
+        RedisMetrics.Call call = metrics.begin("llen", key);
+        Long ans = null;
+        try {
+            ans = redisManager.llen(key);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key), PayloadSize.of(ans));
+        }
+    }
+
+    public List<String> lrange(String key, long start, long end){
+        RedisMetrics.Call call = metrics.begin("lrange", key);
+        List<String> ans = null;
+        try {
+            ans = redisManager.lrange(key, start, end);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key), PayloadSize.of(ans));
+        }
+    }
+
+    public Long sadd(String key,String...members){
+        RedisMetrics.Call call = metrics.begin("sadd", key);
+        Long ans = null;
+        try {
+            ans = redisManager.sadd(key, members);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key) + PayloadSize.of(members), PayloadSize.of(ans));
+        }
+    }
+
+    public Long srem(String key,String...members){
+        RedisMetrics.Call call = metrics.begin("srem", key);
+        Long ans = null;
+        try {
+            ans = redisManager.srem(key, members);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key) + PayloadSize.of(members), PayloadSize.of(ans));
+        }
+    }
+
+    public String spop(String key){
+        RedisMetrics.Call call = metrics.begin("spop", key);
+        String ans = null;
+        try {
+            ans = redisManager.spop(key);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key), PayloadSize.of(ans));
+        }
+    }
+
+    public Set<String> sdiff(String...keys){
+        RedisMetrics.Call call = metrics.begin("sdiff", first(keys));
+        Set<String> ans = null;
+        try {
+            ans = redisManager.sdiff(keys);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(keys), PayloadSize.of(ans));
+        }
+    }
+
+    public Long sdiffstore(String dstkey,String... keys){
+        RedisMetrics.Call call = metrics.begin("sdiffstore", dstkey);
+        Long ans = null;
+        try {
+            ans = redisManager.sdiffstore(dstkey, keys);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(dstkey) + PayloadSize.of(keys), PayloadSize.of(ans));
+        }
+    }
+
+    public Set<String> sinter(String...keys){
+        RedisMetrics.Call call = metrics.begin("sinter", first(keys));
+        Set<String> ans = null;
+        try {
+            ans = redisManager.sinter(keys);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(keys), PayloadSize.of(ans));
+        }
+    }
+
+    public Long sinterstore(String dstkey,String...keys){
+        RedisMetrics.Call call = metrics.begin("sinterstore", dstkey);
+        Long ans = null;
+        try {
+            ans = redisManager.sinterstore(dstkey, keys);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(dstkey) + PayloadSize.of(keys), PayloadSize.of(ans));
+        }
+    }
+
+    public Set<String> sunion(String... keys){
+        RedisMetrics.Call call = metrics.begin("sunion", first(keys));
+        Set<String> ans = null;
+        try {
+            ans = redisManager.sunion(keys);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(keys), PayloadSize.of(ans));
+        }
+    }
+
+    public Long sunionstore(String dstkey,String...keys){
+        RedisMetrics.Call call = metrics.begin("sunionstore", dstkey);
+        Long ans = null;
+        try {
+            ans = redisManager.sunionstore(dstkey, keys);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(dstkey) + PayloadSize.of(keys), PayloadSize.of(ans));
+        }
+    }
+
+    public Long smove(String srckey, String dstkey, String member){
+        RedisMetrics.Call call = metrics.begin("smove", srckey);
+        Long ans = null;
+        try {
+            ans = redisManager.smove(srckey, dstkey, member);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(srckey) + PayloadSize.of(dstkey) + PayloadSize.of(member), PayloadSize.of(ans));
+        }
+    }
+
+    public Long scard(String key){
+        RedisMetrics.Call call = metrics.begin("scard", key);
+        Long ans = null;
+        try {
+            ans = redisManager.scard(key);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key), PayloadSize.of(ans));
+        }
+    }
+
+    public Boolean sismember(String key,String member){
+        RedisMetrics.Call call = metrics.begin("sismember", key);
+        Boolean ans = null;
+        try {
+            ans = redisManager.sismember(key, member);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key) + PayloadSize.of(member), PayloadSize.of(ans));
+        }
+    }
+
+    public String srandmember(String key){
+        RedisMetrics.Call call = metrics.begin("srandmember", key);
+        String ans = null;
+        try {
+            ans = redisManager.srandmember(key);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key), PayloadSize.of(ans));
+        }
+    }
+
+    public Set<String> smembers(String key){
+        RedisMetrics.Call call = metrics.begin("smembers", key);
+        Set<String> ans = null;
+        try {
+            ans = redisManager.smembers(key);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key), PayloadSize.of(ans));
+        }
+    }
+
+    public Long zremrangeByRank(String key ,long start, long end){
+        RedisMetrics.Call call = metrics.begin("zremrangebyrank", key);
+        Long ans = null;
+        try {
+            ans = redisManager.zremrangeByRank(key, start, end);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key), PayloadSize.of(ans));
+        }
+    }
+
+    public Long zremrangeByScore(String key,double start,double end){
+        RedisMetrics.Call call = metrics.begin("zremrangebyscore", key);
+        Long ans = null;
+        try {
+            ans = redisManager.zremrangeByScore(key, start, end);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key), PayloadSize.of(ans));
+        }
+    }
+
+    public String type(String key){
+        RedisMetrics.Call call = metrics.begin("type", key);
+        String ans = null;
+        try {
+            ans = redisManager.type(key);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(key), PayloadSize.of(ans));
+        }
+    }
+
+    public List<Object> pipelined(PipelineCallback callback){
+        RedisMetrics.Call call = metrics.begin("pipeline", null);
+        List<Object> ans = null;
+        try {
+            ans = redisManager.pipelined(callback);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(0, PayloadSize.of(ans));
+        }
+    }
+
+    public <T> T eval(RedisScript<T> script, List<String> keys, List<String> args){
+        RedisMetrics.Call call = metrics.begin("eval", keys.isEmpty() ? null : keys.get(0));
+        T ans = null;
+        try {
+            ans = redisManager.eval(script, keys, args);
+            return ans;
+        } catch (RuntimeException e) {
+            call.fail();
+            throw e;
+        } finally {
+            call.end(PayloadSize.of(keys) + PayloadSize.of(args), PayloadSize.of(ans));
+        }
+    }
+}
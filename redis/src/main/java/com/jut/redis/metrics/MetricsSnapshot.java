@@ -0,0 +1,79 @@
+package com.jut.redis.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+
+/***
+ * 某一时刻的指标快照
+ * 计数均为累计值, 两次快照的差值除以时间间隔即为吞吐量
+ */
+public class MetricsSnapshot {
+    private final long timestamp;
+    private final Map<String, CommandStatistics> commands;
+    private final Map<String, CommandStatistics> nodes;
+    private final Map<String, Map<String, CommandStatistics>> nodeCommands;
+    private final CommandStatistics poolWait;
+    private final long unattributedErrors;
+
+    MetricsSnapshot(long timestamp, Map<String, CommandStatistics> commands, Map<String, CommandStatistics> nodes,
+                    Map<String, Map<String, CommandStatistics>> nodeCommands, CommandStatistics poolWait,
+                    long unattributedErrors) {
+        this.timestamp = timestamp;
+        this.commands = Collections.unmodifiableMap(commands);
+        this.nodes = Collections.unmodifiableMap(nodes);
+        this.nodeCommands = Collections.unmodifiableMap(nodeCommands);
+        this.poolWait = poolWait;
+        this.unattributedErrors = unattributedErrors;
+    }
+
+    /**
+     * 快照时间, 毫秒
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * 命令名到统计
+     */
+    public Map<String, CommandStatistics> getCommands() {
+        return commands;
+    }
+
+    /**
+     * 节点到该节点所有命令的汇总统计
+     */
+    public Map<String, CommandStatistics> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * 节点到该节点上各命令的统计
+     */
+    public Map<String, Map<String, CommandStatistics>> getNodeCommands() {
+        return nodeCommands;
+    }
+
+    public CommandStatistics getPoolWait() {
+        return poolWait;
+    }
+
+    /**
+     * 不在MetricsRedisManager调用期间上报的错误数
+     */
+    public long getUnattributedErrors() {
+        return unattributedErrors;
+    }
+
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, CommandStatistics> entry : commands.entrySet()) {
+            sb.append(entry.getKey()).append(": ").append(entry.getValue()).append("\r\n");
+        }
+        for (Map.Entry<String, CommandStatistics> entry : nodes.entrySet()) {
+            sb.append('[').append(entry.getKey()).append("]: ").append(entry.getValue()).append("\r\n");
+        }
+        sb.append("pool wait: ").append(poolWait).append("\r\n");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,78 @@
+package com.jut.redis.metrics;
+
+import java.util.Collection;
+import java.util.Map;
+
+/***
+ * 估算参数和返回值的数据字节数(字符串按UTF-8长度), 不含RESP协议开销
+ * 只遍历不复制, 不分配对象
+ */
+final class PayloadSize {
+    private PayloadSize() {
+    }
+
+    static long of(String value) {
+        if (value == null) {
+            return 0;
+        }
+        long size = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                size++;
+            } else if (c < 0x800) {
+                size += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()) {
+                size += 4;
+                i++;
+            } else {
+                size += 3;
+            }
+        }
+        return size;
+    }
+
+    static long of(String[] values) {
+        long size = 0;
+        if (values != null) {
+            for (String value : values) {
+                size += of(value);
+            }
+        }
+        return size;
+    }
+
+    static long of(Object value) {
+        if (value == null) {
+            return 0;
+        } else if (value instanceof String) {
+            return of((String) value);
+        } else if (value instanceof byte[]) {
+            return ((byte[]) value).length;
+        } else if (value instanceof Long || value instanceof Integer) {
+            return digits(((Number) value).longValue());
+        } else if (value instanceof Collection) {
+            long size = 0;
+            for (Object element : (Collection<?>) value) {
+                size += of(element);
+            }
+            return size;
+        } else if (value instanceof Map) {
+            long size = 0;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                size += of(entry.getKey()) + of(entry.getValue());
+            }
+            return size;
+        }
+        return 0;
+    }
+
+    private static int digits(long value) {
+        int digits = value < 0 ? 2 : 1;
+        while (value >= 10 || value <= -10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+}
@@ -0,0 +1,249 @@
+package com.jut.redis.metrics;
+
+import com.jut.redis.cluster.NodeResolver;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ * redis命令指标
+ * 按命令记录调用次数、错误次数、收发字节数和延迟直方图, 设置NodeResolver后再按节点细分
+ * 调用由MetricsRedisManager通过begin/end界定; SingleRedisManager/ClusterRedisManager设置metrics后,
+ * 上报被吞掉的异常(归到当前线程正在执行的调用)和连接池借出等待时间
+ * 记录路径只有ConcurrentHashMap读取和原子自增, 命令首次出现时创建计数器, 之后不加锁也不分配对象
+ * 可通过snapshot拉取, 也可注册为JMX MXBean
+ */
+public class RedisMetrics implements RedisMetricsMXBean {
+    private final ConcurrentHashMap<String, CommandMetrics> commands = new ConcurrentHashMap<String, CommandMetrics>();
+    private final ConcurrentHashMap<String, NodeMetrics> nodes = new ConcurrentHashMap<String, NodeMetrics>();
+    private final LatencyHistogram poolWait = new LatencyHistogram();
+    private final LongAdder unattributedErrors = new LongAdder();
+    private final ThreadLocal<Call> calls = new ThreadLocal<Call>() {
+        protected Call initialValue() {
+            return new Call(RedisMetrics.this);
+        }
+    };
+    private volatile NodeResolver nodeResolver;
+    private ObjectName objectName;
+
+    public NodeResolver getNodeResolver() {
+        return nodeResolver;
+    }
+    /**
+     * 集群模式下设置ClusterNodeResolver以按节点统计
+     */
+    public void setNodeResolver(NodeResolver nodeResolver) {
+        this.nodeResolver = nodeResolver;
+    }
+
+    private static class NodeMetrics {
+        final CommandMetrics total = new CommandMetrics();
+        final ConcurrentHashMap<String, CommandMetrics> commands = new ConcurrentHashMap<String, CommandMetrics>();
+    }
+
+    /**
+     * 一次调用的上下文, 每个线程复用同一个对象
+     * 嵌套调用(例如多层装饰)只由最外层记录
+     */
+    public static final class Call {
+        private final RedisMetrics metrics;
+        private int depth;
+        private String command;
+        private String key;
+        private long start;
+        private boolean failed;
+
+        private Call(RedisMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        /**
+         * 标记本次调用失败
+         */
+        public void fail() {
+            failed = true;
+        }
+
+        /**
+         * @param bytesOut 发送的数据字节数
+         * @param bytesIn  接收的数据字节数
+         */
+        public void end(long bytesOut, long bytesIn) {
+            if (--depth > 0) {
+                return;
+            }
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+            metrics.record(command, key, micros, failed, bytesOut, bytesIn);
+            command = null;
+            key = null;
+        }
+    }
+
+    /**
+     * 开始一次调用
+     *
+     * @param command 命令名
+     * @param key     用于确定节点的key, 无key的命令为null
+     */
+    public Call begin(String command, String key) {
+        Call call = calls.get();
+        if (call.depth++ == 0) {
+            call.command = command;
+            call.key = key;
+            call.failed = false;
+            call.start = System.nanoTime();
+        }
+        return call;
+    }
+
+    /**
+     * 记录一次被吞掉的异常, 归到当前线程正在执行的调用
+     */
+    public void recordError() {
+        Call call = calls.get();
+        if (call.depth > 0) {
+            call.failed = true;
+        } else {
+            unattributedErrors.increment();
+        }
+    }
+
+    /**
+     * 记录一次从连接池借出连接的等待时间
+     */
+    public void recordPoolWait(long nanos) {
+        poolWait.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    private void record(String command, String key, long micros, boolean failed, long bytesOut, long bytesIn) {
+        metrics(commands, command).record(micros, failed, bytesOut, bytesIn);
+        NodeResolver resolver = nodeResolver;
+        String node = key == null || resolver == null ? null : resolver.getNode(key);
+        if (node != null) {
+            NodeMetrics nodeMetrics = nodes.get(node);
+            if (nodeMetrics == null) {
+                nodeMetrics = new NodeMetrics();
+                NodeMetrics previous = nodes.putIfAbsent(node, nodeMetrics);
+                if (previous != null) {
+                    nodeMetrics = previous;
+                }
+            }
+            nodeMetrics.total.record(micros, failed, bytesOut, bytesIn);
+            metrics(nodeMetrics.commands, command).record(micros, failed, bytesOut, bytesIn);
+        }
+    }
+
+    private static CommandMetrics metrics(ConcurrentHashMap<String, CommandMetrics> map, String command) {
+        CommandMetrics metrics = map.get(command);
+        if (metrics == null) {
+            metrics = new CommandMetrics();
+            CommandMetrics previous = map.putIfAbsent(command, metrics);
+            if (previous != null) {
+                metrics = previous;
+            }
+        }
+        return metrics;
+    }
+
+    public MetricsSnapshot snapshot() {
+        Map<String, CommandStatistics> nodeTotals = new TreeMap<String, CommandStatistics>();
+        Map<String, Map<String, CommandStatistics>> nodeCommands = new TreeMap<String, Map<String, CommandStatistics>>();
+        for (Map.Entry<String, NodeMetrics> entry : nodes.entrySet()) {
+            nodeTotals.put(entry.getKey(), entry.getValue().total.toStatistics());
+            nodeCommands.put(entry.getKey(), statistics(entry.getValue().commands));
+        }
+        return new MetricsSnapshot(System.currentTimeMillis(), statistics(commands), nodeTotals, nodeCommands,
+                getPoolWaitStatistics(), unattributedErrors.sum());
+    }
+
+    private static Map<String, CommandStatistics> statistics(Map<String, CommandMetrics> metrics) {
+        Map<String, CommandStatistics> result = new TreeMap<String, CommandStatistics>();
+        for (Map.Entry<String, CommandMetrics> entry : metrics.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().toStatistics());
+        }
+        return result;
+    }
+
+    public long getCalls() {
+        long total = 0;
+        for (CommandMetrics metrics : commands.values()) {
+            total += metrics.getCalls();
+        }
+        return total;
+    }
+
+    public long getErrors() {
+        long total = unattributedErrors.sum();
+        for (CommandMetrics metrics : commands.values()) {
+            total += metrics.getErrors();
+        }
+        return total;
+    }
+
+    public Map<String, CommandStatistics> getCommandStatistics() {
+        return statistics(commands);
+    }
+
+    public Map<String, CommandStatistics> getNodeStatistics() {
+        Map<String, CommandStatistics> result = new TreeMap<String, CommandStatistics>();
+        for (Map.Entry<String, NodeMetrics> entry : nodes.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().total.toStatistics());
+        }
+        return result;
+    }
+
+    public CommandStatistics getPoolWaitStatistics() {
+        LatencyHistogram.Snapshot snapshot = poolWait.snapshot();
+        return new CommandStatistics(snapshot.getCount(), 0, 0, 0, snapshot.getMean(),
+                snapshot.getValueAtQuantile(0.5), snapshot.getValueAtQuantile(0.9), snapshot.getValueAtQuantile(0.99),
+                snapshot.getValueAtQuantile(0.999), snapshot.getMax());
+    }
+
+    public void reset() {
+        for (CommandMetrics metrics : commands.values()) {
+            metrics.reset();
+        }
+        for (NodeMetrics metrics : nodes.values()) {
+            metrics.total.reset();
+            for (CommandMetrics command : metrics.commands.values()) {
+                command.reset();
+            }
+        }
+        poolWait.reset();
+        unattributedErrors.reset();
+    }
+
+    /**
+     * 注册到平台MBeanServer, 名为com.jut.redis:type=RedisMetrics,name=name
+     */
+    public synchronized void registerMBean(String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("com.jut.redis:type=RedisMetrics,name=" + ObjectName.quote(name));
+            server.registerMBean(this, objectName);
+            this.objectName = objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("register redis metrics mbean failed: " + name, e);
+        }
+    }
+
+    public synchronized void unregisterMBean() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("unregister redis metrics mbean failed: " + objectName, e);
+        } finally {
+            objectName = null;
+        }
+    }
+}
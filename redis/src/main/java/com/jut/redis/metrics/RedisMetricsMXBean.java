@@ -0,0 +1,35 @@
+package com.jut.redis.metrics;
+
+import java.util.Map;
+
+/***
+ * redis指标的JMX接口, 注册名为com.jut.redis:type=RedisMetrics,name=...
+ */
+public interface RedisMetricsMXBean {
+    /**
+     * 总调用次数
+     */
+    long getCalls();
+
+    /**
+     * 总错误次数, 包括无法归属到命令的错误
+     */
+    long getErrors();
+
+    /**
+     * 按命令统计
+     */
+    Map<String, CommandStatistics> getCommandStatistics();
+
+    /**
+     * 按节点汇总统计, 未设置NodeResolver时为空
+     */
+    Map<String, CommandStatistics> getNodeStatistics();
+
+    /**
+     * 从连接池借出连接的等待时间
+     */
+    CommandStatistics getPoolWaitStatistics();
+
+    void reset();
+}
@@ -0,0 +1,261 @@
+package com.jut.redis.pipeline;
+
+import redis.clients.jedis.ListPosition;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/***
+ * 管道操作基础实现
+ * 按入队顺序记录所有Response, 子类只负责为key选择对应的jedis管道
+ */
+public abstract class AbstractRedisPipeline implements RedisPipeline, Closeable {
+    /**
+     * 按入队顺序记录的响应
+     */
+    private final List<Response<?>> responses = new ArrayList<Response<?>>();
+
+    /**
+     * 获取key所在连接的管道
+     */
+    protected abstract Pipeline pipeline(String key);
+
+    /**
+     * 把所有管道中排队的命令一次性刷出并读取响应
+     */
+    protected abstract void flush();
+
+    /**
+     * 同步所有管道, 按入队顺序返回响应, 出错的命令以异常对象的形式返回
+     */
+    public List<Object> sync() {
+        flush();
+        List<Object> res = new ArrayList<Object>(responses.size());
+        for (Response<?> response : responses) {
+            try {
+                res.add(response.get());
+            } catch (JedisDataException e) {
+                res.add(e);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * 入队数量
+     */
+    public int size() {
+        return responses.size();
+    }
+
+    private <T> Response<T> track(Response<T> response) {
+        responses.add(response);
+        return response;
+    }
+
+    public Response<String> get(String key){
+        return track(pipeline(key).get(key));
+    }
+
+    public Response<String> set(String key,String value){
+        return track(pipeline(key).set(key, value));
+    }
+
+    public Response<String> setex(String key,int seconds,String value){
+        return track(pipeline(key).setex(key, seconds, value));
+    }
+
+    public Response<Long> setrange(String key,int offset,String value){
+        return track(pipeline(key).setrange(key, offset, value));
+    }
+
+    public Response<Long> append(String key,String value){
+        return track(pipeline(key).append(key, value));
+    }
+
+    public Response<Boolean> exists(String key){
+        return track(pipeline(key).exists(key));
+    }
+
+    public Response<Long> setnx(String key,String value){
+        return track(pipeline(key).setnx(key, value));
+    }
+
+    public Response<Long> expire(String key,int seconds){
+        return track(pipeline(key).expire(key, seconds));
+    }
+
+    public Response<Long> del(String key){
+        return track(pipeline(key).del(key));
+    }
+
+    public Response<Long> timetolive(String key){
+        return track(pipeline(key).ttl(key));
+    }
+
+    public Response<String> getset(String key,String value){
+        return track(pipeline(key).getSet(key, value));
+    }
+
+    public Response<String> getrange(String key, int startOffset ,int endOffset){
+        return track(pipeline(key).getrange(key, startOffset, endOffset));
+    }
+
+    public Response<Long> incr(String key){
+        return track(pipeline(key).incr(key));
+    }
+
+    public Response<Long> incrBy(String key,Long integer){
+        return track(pipeline(key).incrBy(key, integer));
+    }
+
+    public Response<Long> decr(String key){
+        return track(pipeline(key).decr(key));
+    }
+
+    public Response<Long> decrBy(String key,Long integer){
+        return track(pipeline(key).decrBy(key, integer));
+    }
+
+    public Response<Long> serlen(String key){
+        return track(pipeline(key).strlen(key));
+    }
+
+    public Response<Long> hset(String key,String field,String value){
+        return track(pipeline(key).hset(key, field, value));
+    }
+
+    public Response<Long> hsetnx(String key,String field,String value){
+        return track(pipeline(key).hsetnx(key, field, value));
+    }
+
+    public Response<String> hmset(String key, Map<String, String> hash){
+        return track(pipeline(key).hmset(key, hash));
+    }
+
+    public Response<String> hget(String key, String field){
+        return track(pipeline(key).hget(key, field));
+    }
+
+    public Response<List<String>> hmget(String key,String...fields){
+        return track(pipeline(key).hmget(key, fields));
+    }
+
+    public Response<Long> hincrby(String key ,String field ,Long value){
+        return track(pipeline(key).hincrBy(key, field, value));
+    }
+
+    public Response<Boolean> hexists(String key , String field){
+        return track(pipeline(key).hexists(key, field));
+    }
+
+    public Response<Long> hlen(String key){
+        return track(pipeline(key).hlen(key));
+    }
+
+    public Response<Long> hdel(String key ,String...fields){
+        return track(pipeline(key).hdel(key, fields));
+    }
+
+    public Response<Set<String>> hkeys(String key){
+        return track(pipeline(key).hkeys(key));
+    }
+
+    public Response<List<String>> hvals(String key){
+        return track(pipeline(key).hvals(key));
+    }
+
+    public Response<Map<String, String>> hgetall(String key){
+        return track(pipeline(key).hgetAll(key));
+    }
+
+    public Response<Long> lpush(String key ,String...strs){
+        return track(pipeline(key).lpush(key, strs));
+    }
+
+    public Response<Long> rpush(String key ,String...strs){
+        return track(pipeline(key).rpush(key, strs));
+    }
+
+    public Response<Long> linsert(String key, ListPosition where,String pivot, String value){
+        return track(pipeline(key).linsert(key, where, pivot, value));
+    }
+
+    public Response<String> lset(String key ,Long index, String value){
+        return track(pipeline(key).lset(key, index, value));
+    }
+
+    public Response<Long> lrem(String key,long count,String value){
+        return track(pipeline(key).lrem(key, count, value));
+    }
+
+    public Response<String> ltrim(String key ,long start ,long end){
+        return track(pipeline(key).ltrim(key, start, end));
+    }
+
+    public Response<String> lpop(String key){
+        return track(pipeline(key).lpop(key));
+    }
+
+    public Response<String> rpop(String key){
+        return track(pipeline(key).rpop(key));
+    }
+
+    public Response<String> lindex(String key,long index){
+        return track(pipeline(key).lindex(key, index));
+    }
+
+    public Response<Long> llen(String key){
+        return track(pipeline(key).llen(key));
+    }
+
+    public Response<List<String>> lrange(String key, long start, long end){
+        return track(pipeline(key).lrange(key, start, end));
+    }
+
+    public Response<Long> sadd(String key,String...members){
+        return track(pipeline(key).sadd(key, members));
+    }
+
+    public Response<Long> srem(String key,String...members){
+        return track(pipeline(key).srem(key, members));
+    }
+
+    public Response<String> spop(String key){
+        return track(pipeline(key).spop(key));
+    }
+
+    public Response<Long> scard(String key){
+        return track(pipeline(key).scard(key));
+    }
+
+    public Response<Boolean> sismember(String key,String member){
+        return track(pipeline(key).sismember(key, member));
+    }
+
+    public Response<String> srandmember(String key){
+        return track(pipeline(key).srandmember(key));
+    }
+
+    public Response<Set<String>> smembers(String key){
+        return track(pipeline(key).smembers(key));
+    }
+
+    public Response<Long> zremrangeByRank(String key ,long start, long end){
+        return track(pipeline(key).zremrangeByRank(key, start, end));
+    }
+
+    public Response<Long> zremrangeByScore(String key,double start,double end){
+        return track(pipeline(key).zremrangeByScore(key, start, end));
+    }
+
+    public Response<String> type(String key){
+        return track(pipeline(key).type(key));
+    }
+}
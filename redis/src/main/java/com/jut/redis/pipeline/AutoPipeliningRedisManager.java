@@ -0,0 +1,263 @@
+package com.jut.redis.pipeline;
+
+import com.jut.redis.RedisManager;
+import com.jut.redis.RedisManagerDecorator;
+import com.jut.redis.utils.NamedThreadFactory;
+import com.jut.redis.utils.StringUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Response;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/***
+ * 自动管道的redis管理接口
+ * 多线程并发调用的单key命令先进入队列, 由少量刷出线程按时间窗口或批量大小攒成一批,
+ * 通过被装饰RedisManager的pipelined一次写出(集群模式下按节点分组), 再把每条响应交还给等待的调用线程
+ * 调用方仍然是同步接口, 单次调用的延迟最多增加一个时间窗口, 高并发时吞吐量显著提升
+ */
+public class AutoPipeliningRedisManager extends RedisManagerDecorator {
+    private final static Logger logger = LoggerFactory.getLogger(AutoPipeliningRedisManager.class);
+
+    public static final int DEFAULT_CONNECTIONS = 2;
+    public static final int DEFAULT_BATCH_SIZE = 128;
+    public static final long DEFAULT_WINDOW_MICROS = 100L;
+
+    private final int batchSize;
+    private final long windowNanos;
+    private final LinkedBlockingQueue<QueuedCommand<?>> queue = new LinkedBlockingQueue<QueuedCommand<?>>();
+    private final List<Thread> flushers = new ArrayList<Thread>();
+    private volatile boolean running = true;
+
+    public AutoPipeliningRedisManager(RedisManager redisManager) {
+        this(redisManager, DEFAULT_CONNECTIONS, DEFAULT_BATCH_SIZE, DEFAULT_WINDOW_MICROS);
+    }
+
+    /**
+     * @param connections 刷出线程数, 即同时占用的连接数
+     * @param batchSize 一批最多包含的命令数
+     * @param windowMicros 攒批的最长等待时间, 微秒
+     */
+    public AutoPipeliningRedisManager(RedisManager redisManager, int connections, int batchSize, long windowMicros) {
+        super(redisManager);
+        this.batchSize = batchSize;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        NamedThreadFactory threadFactory = new NamedThreadFactory("jut-redis-auto-pipeline");
+        for (int i = 0; i < connections; i++) {
+            Thread flusher = threadFactory.newThread(new Flusher());
+            flushers.add(flusher);
+            flusher.start();
+        }
+    }
+
+    /**
+     * 停止刷出线程, 队列中剩余的命令执行完毕后返回
+     */
+    public void destroy() {
+        running = false;
+        for (Thread flusher : flushers) {
+            flusher.interrupt();
+        }
+        for (Thread flusher : flushers) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        List<QueuedCommand<?>> batch = new ArrayList<QueuedCommand<?>>();
+        while (queue.drainTo(batch, batchSize) > 0) {
+            execute(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * 排队中的命令
+     */
+    private static class QueuedCommand<T> {
+        final Function<RedisPipeline, Response<T>> command;
+        final CompletableFuture<T> future = new CompletableFuture<T>();
+        Response<T> response;
+
+        QueuedCommand(Function<RedisPipeline, Response<T>> command) {
+            this.command = command;
+        }
+
+        void queue(RedisPipeline pipeline) {
+            response = command.apply(pipeline);
+        }
+
+        void complete() {
+            T value = null;
+            try {
+                value = response == null ? null : response.get();
+            } catch (Exception e) {
+                logger.error(StringUtil.logException(e));
+            }
+            future.complete(value);
+        }
+    }
+
+    /**
+     * 入队并等待响应; 已停止时直接同步执行
+     */
+    private <T> T submit(Function<RedisPipeline, Response<T>> command) {
+        QueuedCommand<T> queued = new QueuedCommand<T>(command);
+        if (running) {
+            queue.offer(queued);
+            //入队时恰好停止, 命令可能已错过最后一次清空
+            if (!running && queue.remove(queued)) {
+                List<QueuedCommand<?>> batch = new ArrayList<QueuedCommand<?>>(1);
+                batch.add(queued);
+                execute(batch);
+            }
+        } else {
+            List<QueuedCommand<?>> batch = new ArrayList<QueuedCommand<?>>(1);
+            batch.add(queued);
+            execute(batch);
+        }
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return queued.future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (Exception e) {
+                    logger.error(StringUtil.logException(e));
+                    return null;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void execute(final List<QueuedCommand<?>> batch) {
+        try {
+            redisManager.pipelined(new PipelineCallback() {
+                public void doInPipeline(RedisPipeline pipeline) {
+                    for (QueuedCommand<?> command : batch) {
+                        command.queue(pipeline);
+                    }
+                }
+            });
+        } finally {
+            for (QueuedCommand<?> command : batch) {
+                command.complete();
+            }
+        }
+    }
+
+    private class Flusher implements Runnable {
+        public void run() {
+            List<QueuedCommand<?>> batch = new ArrayList<QueuedCommand<?>>(batchSize);
+            while (running) {
+                try {
+                    QueuedCommand<?> first = queue.take();
+                    batch.add(first);
+                    long deadline = System.nanoTime() + windowNanos;
+                    while (batch.size() < batchSize) {
+                        if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                            continue;
+                        }
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0) {
+                            break;
+                        }
+                        QueuedCommand<?> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                    }
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        //已取出的命令仍需执行
+                        if (!batch.isEmpty()) {
+                            execute(batch);
+                        }
+                        return;
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    try {
+                        execute(batch);
+                    } catch (Exception e) {
+                        logger.error(StringUtil.logException(e));
+                    }
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+    public String get(String key){
+        return submit(pipeline -> pipeline.get(key));
+    }
+
+    public String set(String key,String value){
+        return submit(pipeline -> pipeline.set(key, value));
+    }
+
+    public String setex(String key,int seconds,String value){
+        return submit(pipeline -> pipeline.setex(key, seconds, value));
+    }
+
+    public Boolean exists(String key){
+        return submit(pipeline -> pipeline.exists(key));
+    }
+
+    public Long expire(String key,int seconds){
+        return submit(pipeline -> pipeline.expire(key, seconds));
+    }
+
+    public Long timetolive(String key){
+        return submit(pipeline -> pipeline.timetolive(key));
+    }
+
+    public Long incr(String key){
+        return submit(pipeline -> pipeline.incr(key));
+    }
+
+    public Long incrBy(String key,Long integer){
+        return submit(pipeline -> pipeline.incrBy(key, integer));
+    }
+
+    public Long decr(String key){
+        return submit(pipeline -> pipeline.decr(key));
+    }
+
+    public Long decrBy(String key,Long integer){
+        return submit(pipeline -> pipeline.decrBy(key, integer));
+    }
+
+    public Long hset(String key,String field,String value){
+        return submit(pipeline -> pipeline.hset(key, field, value));
+    }
+
+    public String hget(String key,String field){
+        return submit(pipeline -> pipeline.hget(key, field));
+    }
+
+    public Long hincrby(String key ,String field ,Long value){
+        return submit(pipeline -> pipeline.hincrby(key, field, value));
+    }
+
+    public Boolean hexists(String key ,String field){
+        return submit(pipeline -> pipeline.hexists(key, field));
+    }
+
+    public Boolean sismember(String key,String member){
+        return submit(pipeline -> pipeline.sismember(key, member));
+    }
+}
@@ -0,0 +1,195 @@
+package com.jut.redis.pipeline;
+
+import com.jut.redis.utils.StringUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisClusterInfoCache;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+import redis.clients.jedis.util.JedisClusterCRC16;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/***
+ * 集群跨槽位多key命令分发
+ * 按槽位拆分参数, 同一节点的各槽位命令写入一个管道, 各节点并行执行, 结果带回参数位置以便按原顺序组装
+ */
+public class ClusterFanout {
+    private final static Logger logger = LoggerFactory.getLogger(ClusterFanout.class);
+
+    /**
+     * 单槽位命令, 参数为String或byte[]
+     */
+    public interface SlotCommand<K, T> {
+        /**
+         * 把同一槽位的参数写入管道
+         */
+        public Response<T> queue(Pipeline pipeline, K[] args);
+
+        /**
+         * 槽位迁移(MOVED/ASK)时通过JedisCluster重试, 由其负责重定向和刷新槽位缓存
+         */
+        public T redirect(JedisCluster jedisCluster, K[] args);
+    }
+
+    /**
+     * 单槽位执行结果
+     */
+    public static class SlotResult<T> {
+        /**
+         * 该槽位每个key在原参数数组中的下标
+         */
+        public final int[] positions;
+        public final T result;
+
+        SlotResult(int[] positions, T result) {
+            this.positions = positions;
+            this.result = result;
+        }
+    }
+
+    private final JedisCluster jedisCluster;
+    private final ExecutorService executor;
+
+    public ClusterFanout(JedisCluster jedisCluster, ExecutorService executor) {
+        this.jedisCluster = jedisCluster;
+        this.executor = executor;
+    }
+
+    /**
+     * 所有key是否位于同一槽位
+     * @param step 每个key占用的参数个数, mget/del为1, mset为2
+     */
+    public static boolean sameSlot(Object[] args, int step) {
+        if (args.length <= step) {
+            return true;
+        }
+        int slot = slot(args[0]);
+        for (int i = step; i < args.length; i += step) {
+            if (slot(args[i]) != slot) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 分槽位执行命令
+     * @param step 每个key占用的参数个数, mget/del为1, mset为2
+     */
+    public <K, T> List<SlotResult<T>> execute(final K[] args, final int step, final SlotCommand<K, T> command) throws Exception {
+        final Map<Integer, List<Integer>> slotPositions = new LinkedHashMap<Integer, List<Integer>>();
+        for (int i = 0; i < args.length; i += step) {
+            int slot = slot(args[i]);
+            List<Integer> positions = slotPositions.get(slot);
+            if (positions == null) {
+                positions = new ArrayList<Integer>();
+                slotPositions.put(slot, positions);
+            }
+            positions.add(i);
+        }
+
+        Map<String, Jedis> connections = new LinkedHashMap<String, Jedis>();
+        Map<String, List<Integer>> nodeSlots = new LinkedHashMap<String, List<Integer>>();
+        try {
+            for (Integer slot : slotPositions.keySet()) {
+                Jedis jedis = jedisCluster.getConnectionFromSlot(slot);
+                String node = JedisClusterInfoCache.getNodeKey(jedis.getClient());
+                if (connections.containsKey(node)) {
+                    jedis.close();
+                } else {
+                    connections.put(node, jedis);
+                    nodeSlots.put(node, new ArrayList<Integer>());
+                }
+                nodeSlots.get(node).add(slot);
+            }
+
+            List<Future<List<SlotResult<T>>>> futures = new ArrayList<Future<List<SlotResult<T>>>>();
+            List<SlotResult<T>> res = new ArrayList<SlotResult<T>>();
+            String last = null;
+            for (final String node : nodeSlots.keySet()) {
+                if (last != null) {
+                    final Jedis jedis = connections.get(last);
+                    final List<Integer> slots = nodeSlots.get(last);
+                    //提交后连接由任务自己关闭, 调用线程出错返回时其他节点的命令可能仍在该连接上执行
+                    futures.add(executor.submit(() -> {
+                        try {
+                            return executeOnNode(jedis, slots, slotPositions, args, step, command);
+                        } finally {
+                            close(jedis);
+                        }
+                    }));
+                    connections.remove(last);
+                }
+                last = node;
+            }
+            //最后一个节点在调用线程上执行, 少一次线程切换
+            res.addAll(executeOnNode(connections.get(last), nodeSlots.get(last), slotPositions, args, step, command));
+            for (Future<List<SlotResult<T>>> future : futures) {
+                res.addAll(future.get());
+            }
+            return res;
+        } finally {
+            //只剩调用线程使用的连接和未能提交的连接
+            for (Jedis jedis : connections.values()) {
+                close(jedis);
+            }
+        }
+    }
+
+    private static void close(Jedis jedis) {
+        try {
+            jedis.close();
+        } catch (Exception e) {
+            logger.error(StringUtil.logException(e));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <K, T> List<SlotResult<T>> executeOnNode(Jedis jedis, List<Integer> slots, Map<Integer, List<Integer>> slotPositions,
+                                                     K[] args, int step, SlotCommand<K, T> command) {
+        Pipeline pipeline = jedis.pipelined();
+        List<K[]> slotArgs = new ArrayList<K[]>(slots.size());
+        List<Response<T>> responses = new ArrayList<Response<T>>(slots.size());
+        for (Integer slot : slots) {
+            List<Integer> positions = slotPositions.get(slot);
+            K[] sub = (K[]) Array.newInstance(args.getClass().getComponentType(), positions.size() * step);
+            for (int i = 0; i < positions.size(); i++) {
+                System.arraycopy(args, positions.get(i), sub, i * step, step);
+            }
+            slotArgs.add(sub);
+            responses.add(command.queue(pipeline, sub));
+        }
+        pipeline.sync();
+
+        List<SlotResult<T>> res = new ArrayList<SlotResult<T>>(slots.size());
+        for (int i = 0; i < slots.size(); i++) {
+            T result;
+            try {
+                result = responses.get(i).get();
+            } catch (JedisRedirectionException e) {
+                result = command.redirect(jedisCluster, slotArgs.get(i));
+            }
+            List<Integer> positions = slotPositions.get(slots.get(i));
+            int[] pos = new int[positions.size()];
+            for (int j = 0; j < pos.length; j++) {
+                pos[j] = positions.get(j);
+            }
+            res.add(new SlotResult<T>(pos, result));
+        }
+        return res;
+    }
+
+    private static int slot(Object key) {
+        return key instanceof byte[] ? JedisClusterCRC16.getSlot((byte[]) key) : JedisClusterCRC16.getSlot((String) key);
+    }
+}
@@ -0,0 +1,85 @@
+package com.jut.redis.pipeline;
+
+import com.jut.redis.utils.StringUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisClusterInfoCache;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.util.JedisClusterCRC16;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/***
+ * 集群管道实现
+ * 按key的槽位找到所属节点, 每个节点只借出一个连接和一个管道, 同步时逐个节点刷出
+ */
+public class ClusterRedisPipeline extends AbstractRedisPipeline {
+    private final static Logger logger = LoggerFactory.getLogger(ClusterRedisPipeline.class);
+
+    private final JedisCluster jedisCluster;
+
+    /**
+     * 槽位 -> 管道
+     */
+    private final Map<Integer, Pipeline> slotPipelines = new HashMap<Integer, Pipeline>();
+
+    /**
+     * 节点 -> 管道
+     */
+    private final Map<String, Pipeline> nodePipelines = new LinkedHashMap<String, Pipeline>();
+
+    /**
+     * 节点 -> 连接
+     */
+    private final Map<String, Jedis> connections = new LinkedHashMap<String, Jedis>();
+
+    public ClusterRedisPipeline(JedisCluster jedisCluster) {
+        this.jedisCluster = jedisCluster;
+    }
+
+    protected Pipeline pipeline(String key) {
+        int slot = JedisClusterCRC16.getSlot(key);
+        Pipeline pipeline = slotPipelines.get(slot);
+        if (pipeline == null) {
+            Jedis jedis = jedisCluster.getConnectionFromSlot(slot);
+            String node = JedisClusterInfoCache.getNodeKey(jedis.getClient());
+            pipeline = nodePipelines.get(node);
+            if (pipeline == null) {
+                pipeline = jedis.pipelined();
+                nodePipelines.put(node, pipeline);
+                connections.put(node, jedis);
+            } else {
+                //同一节点已有连接, 归还多借出的连接
+                jedis.close();
+            }
+            slotPipelines.put(slot, pipeline);
+        }
+        return pipeline;
+    }
+
+    protected void flush() {
+        for (Pipeline pipeline : nodePipelines.values()) {
+            pipeline.sync();
+        }
+    }
+
+    /**
+     * 归还所有节点连接
+     */
+    public void close() {
+        for (Jedis jedis : connections.values()) {
+            try {
+                jedis.close();
+            } catch (Exception e) {
+                logger.error(StringUtil.logException(e));
+            }
+        }
+        connections.clear();
+        nodePipelines.clear();
+        slotPipelines.clear();
+    }
+}
@@ -0,0 +1,9 @@
+package com.jut.redis.pipeline;
+
+/***
+ * 管道回调接口
+ * 在回调中通过RedisPipeline排队命令, 回调结束后统一发送并读取响应
+ */
+public interface PipelineCallback {
+    public void doInPipeline(RedisPipeline pipeline);
+}
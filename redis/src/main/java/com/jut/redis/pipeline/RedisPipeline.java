@@ -0,0 +1,66 @@
+package com.jut.redis.pipeline;
+
+import redis.clients.jedis.ListPosition;
+import redis.clients.jedis.Response;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/***
+ * redis管道操作接口
+ * 命令只入队不等待响应, 返回的Response在管道同步之后才能取值
+ * 方法与RedisManager一一对应, 只包含单key命令, 以便集群模式下按节点分组
+ */
+public interface RedisPipeline {
+    public Response<String> get(String key);
+    public Response<String> set(String key,String value);
+    public Response<String> setex(String key,int seconds,String value);
+    public Response<Long> setrange(String key,int offset,String value);
+    public Response<Long> append(String key,String value);
+    public Response<Boolean> exists(String key);
+    public Response<Long> setnx(String key,String value);
+    public Response<Long> expire(String key,int seconds);
+    public Response<Long> del(String key);
+    public Response<Long> timetolive(String key);
+    public Response<String> getset(String key,String value);
+    public Response<String> getrange(String key, int startOffset ,int endOffset);
+    public Response<Long> incr(String key);
+    public Response<Long> incrBy(String key,Long integer);
+    public Response<Long> decr(String key);
+    public Response<Long> decrBy(String key,Long integer);
+    public Response<Long> serlen(String key);
+    public Response<Long> hset(String key,String field,String value);
+    public Response<Long> hsetnx(String key,String field,String value);
+    public Response<String> hmset(String key, Map<String, String> hash);
+    public Response<String> hget(String key, String field);
+    public Response<List<String>> hmget(String key,String...fields);
+    public Response<Long> hincrby(String key ,String field ,Long value);
+    public Response<Boolean> hexists(String key , String field);
+    public Response<Long> hlen(String key);
+    public Response<Long> hdel(String key ,String...fields);
+    public Response<Set<String>> hkeys(String key);
+    public Response<List<String>> hvals(String key);
+    public Response<Map<String, String>> hgetall(String key);
+    public Response<Long> lpush(String key ,String...strs);
+    public Response<Long> rpush(String key ,String...strs);
+    public Response<Long> linsert(String key, ListPosition where,String pivot, String value);
+    public Response<String> lset(String key ,Long index, String value);
+    public Response<Long> lrem(String key,long count,String value);
+    public Response<String> ltrim(String key ,long start ,long end);
+    public Response<String> lpop(String key);
+    public Response<String> rpop(String key);
+    public Response<String> lindex(String key,long index);
+    public Response<Long> llen(String key);
+    public Response<List<String>> lrange(String key, long start, long end);
+    public Response<Long> sadd(String key,String...members);
+    public Response<Long> srem(String key,String...members);
+    public Response<String> spop(String key);
+    public Response<Long> scard(String key);
+    public Response<Boolean> sismember(String key,String member);
+    public Response<String> srandmember(String key);
+    public Response<Set<String>> smembers(String key);
+    public Response<Long> zremrangeByRank(String key ,long start, long end);
+    public Response<Long> zremrangeByScore(String key,double start,double end);
+    public Response<String> type(String key);
+}
@@ -0,0 +1,220 @@
+package com.jut.redis.pipeline;
+
+import redis.clients.jedis.ListPosition;
+import redis.clients.jedis.Response;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/***
+ * 管道操作装饰基类
+ * 所有方法直接委托给被装饰的RedisPipeline, 子类只覆盖需要增强的方法
+ */
+public abstract class RedisPipelineDecorator implements RedisPipeline {
+    protected final RedisPipeline pipeline;
+
+    protected RedisPipelineDecorator(RedisPipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    public Response<String> get(String key){
+        return pipeline.get(key);
+    }
+
+    public Response<String> set(String key,String value){
+        return pipeline.set(key, value);
+    }
+
+    public Response<String> setex(String key,int seconds,String value){
+        return pipeline.setex(key, seconds, value);
+    }
+
+    public Response<Long> setrange(String key,int offset,String value){
+        return pipeline.setrange(key, offset, value);
+    }
+
+    public Response<Long> append(String key,String value){
+        return pipeline.append(key, value);
+    }
+
+    public Response<Boolean> exists(String key){
+        return pipeline.exists(key);
+    }
+
+    public Response<Long> setnx(String key,String value){
+        return pipeline.setnx(key, value);
+    }
+
+    public Response<Long> expire(String key,int seconds){
+        return pipeline.expire(key, seconds);
+    }
+
+    public Response<Long> del(String key){
+        return pipeline.del(key);
+    }
+
+    public Response<Long> timetolive(String key){
+        return pipeline.timetolive(key);
+    }
+
+    public Response<String> getset(String key,String value){
+        return pipeline.getset(key, value);
+    }
+
+    public Response<String> getrange(String key, int startOffset ,int endOffset){
+        return pipeline.getrange(key, startOffset, endOffset);
+    }
+
+    public Response<Long> incr(String key){
+        return pipeline.incr(key);
+    }
+
+    public Response<Long> incrBy(String key,Long integer){
+        return pipeline.incrBy(key, integer);
+    }
+
+    public Response<Long> decr(String key){
+        return pipeline.decr(key);
+    }
+
+    public Response<Long> decrBy(String key,Long integer){
+        return pipeline.decrBy(key, integer);
+    }
+
+    public Response<Long> serlen(String key){
+        return pipeline.serlen(key);
+    }
+
+    public Response<Long> hset(String key,String field,String value){
+        return pipeline.hset(key, field, value);
+    }
+
+    public Response<Long> hsetnx(String key,String field,String value){
+        return pipeline.hsetnx(key, field, value);
+    }
+
+    public Response<String> hmset(String key, Map<String, String> hash){
+        return pipeline.hmset(key, hash);
+    }
+
+    public Response<String> hget(String key, String field){
+        return pipeline.hget(key, field);
+    }
+
+    public Response<List<String>> hmget(String key,String...fields){
+        return pipeline.hmget(key, fields);
+    }
+
+    public Response<Long> hincrby(String key ,String field ,Long value){
+        return pipeline.hincrby(key, field, value);
+    }
+
+    public Response<Boolean> hexists(String key , String field){
+        return pipeline.hexists(key, field);
+    }
+
+    public Response<Long> hlen(String key){
+        return pipeline.hlen(key);
+    }
+
+    public Response<Long> hdel(String key ,String...fields){
+        return pipeline.hdel(key, fields);
+    }
+
+    public Response<Set<String>> hkeys(String key){
+        return pipeline.hkeys(key);
+    }
+
+    public Response<List<String>> hvals(String key){
+        return pipeline.hvals(key);
+    }
+
+    public Response<Map<String, String>> hgetall(String key){
+        return pipeline.hgetall(key);
+    }
+
+    public Response<Long> lpush(String key ,String...strs){
+        return pipeline.lpush(key, strs);
+    }
+
+    public Response<Long> rpush(String key ,String...strs){
+        return pipeline.rpush(key, strs);
+    }
+
+    public Response<Long> linsert(String key, ListPosition where,String pivot, String value){
+        return pipeline.linsert(key, where, pivot, value);
+    }
+
+    public Response<String> lset(String key ,Long index, String value){
+        return pipeline.lset(key, index, value);
+    }
+
+    public Response<Long> lrem(String key,long count,String value){
+        return pipeline.lrem(key, count, value);
+    }
+
+    public Response<String> ltrim(String key ,long start ,long end){
+        return pipeline.ltrim(key, start, end);
+    }
+
+    public Response<String> lpop(String key){
+        return pipeline.lpop(key);
+    }
+
+    public Response<String> rpop(String key){
+        return pipeline.rpop(key);
+    }
+
+    public Response<String> lindex(String key,long index){
+        return pipeline.lindex(key, index);
+    }
+
+    public Response<Long> llen(String key){
+        return pipeline.llen(key);
+    }
+
+    public Response<List<String>> lrange(String key, long start, long end){
+        return pipeline.lrange(key, start, end);
+    }
+
+    public Response<Long> sadd(String key,String...members){
+        return pipeline.sadd(key, members);
+    }
+
+    public Response<Long> srem(String key,String...members){
+        return pipeline.srem(key, members);
+    }
+
+    public Response<String> spop(String key){
+        return pipeline.spop(key);
+    }
+
+    public Response<Long> scard(String key){
+        return pipeline.scard(key);
+    }
+
+    public Response<Boolean> sismember(String key,String member){
+        return pipeline.sismember(key, member);
+    }
+
+    public Response<String> srandmember(String key){
+        return pipeline.srandmember(key);
+    }
+
+    public Response<Set<String>> smembers(String key){
+        return pipeline.smembers(key);
+    }
+
+    public Response<Long> zremrangeByRank(String key ,long start, long end){
+        return pipeline.zremrangeByRank(key, start, end);
+    }
+
+    public Response<Long> zremrangeByScore(String key,double start,double end){
+        return pipeline.zremrangeByScore(key, start, end);
+    }
+
+    public Response<String> type(String key){
+        return pipeline.type(key);
+    }
+}
@@ -0,0 +1,72 @@
+package com.jut.redis.pipeline;
+
+import com.jut.redis.utils.StringUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/***
+ * 分片管道实现
+ * 按key找到所属分片, 每个分片只借出一个连接和一个管道, 同步时逐个分片刷出
+ */
+public class ShardedRedisPipeline extends AbstractRedisPipeline {
+    private final static Logger logger = LoggerFactory.getLogger(ShardedRedisPipeline.class);
+
+    private final Function<String, JedisPool> router;
+
+    /**
+     * 分片连接池 -> 管道
+     */
+    private final Map<JedisPool, Pipeline> pipelines = new LinkedHashMap<JedisPool, Pipeline>();
+
+    /**
+     * 分片连接池 -> 连接
+     */
+    private final Map<JedisPool, Jedis> connections = new LinkedHashMap<JedisPool, Jedis>();
+
+    /**
+     * @param router key -> 所属分片的连接池
+     */
+    public ShardedRedisPipeline(Function<String, JedisPool> router) {
+        this.router = router;
+    }
+
+    protected Pipeline pipeline(String key) {
+        JedisPool pool = router.apply(key);
+        Pipeline pipeline = pipelines.get(pool);
+        if (pipeline == null) {
+            Jedis jedis = pool.getResource();
+            pipeline = jedis.pipelined();
+            pipelines.put(pool, pipeline);
+            connections.put(pool, jedis);
+        }
+        return pipeline;
+    }
+
+    protected void flush() {
+        for (Pipeline pipeline : pipelines.values()) {
+            pipeline.sync();
+        }
+    }
+
+    /**
+     * 归还所有分片连接
+     */
+    public void close() {
+        for (Jedis jedis : connections.values()) {
+            try {
+                jedis.close();
+            } catch (Exception e) {
+                logger.error(StringUtil.logException(e));
+            }
+        }
+        connections.clear();
+        pipelines.clear();
+    }
+}
@@ -0,0 +1,28 @@
+package com.jut.redis.pipeline;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+
+/***
+ * 单实例管道实现
+ * 所有命令写入同一个连接的管道, 连接由调用方负责借出和归还
+ */
+public class SingleRedisPipeline extends AbstractRedisPipeline {
+    private final Pipeline pipeline;
+
+    public SingleRedisPipeline(Jedis jedis) {
+        this.pipeline = jedis.pipelined();
+    }
+
+    protected Pipeline pipeline(String key) {
+        return pipeline;
+    }
+
+    protected void flush() {
+        pipeline.sync();
+    }
+
+    public void close() {
+        //连接归还连接池时会清理未读取的管道响应
+    }
+}
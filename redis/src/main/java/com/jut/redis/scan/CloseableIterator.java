@@ -0,0 +1,24 @@
+package com.jut.redis.scan;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/***
+ * 可关闭的迭代器
+ * 提前结束遍历时应调用close释放连接或后台线程
+ */
+public interface CloseableIterator<T> extends Iterator<T>, Closeable {
+    public void close();
+
+    /**
+     * 转换为顺序流, 流关闭时关闭迭代器
+     */
+    public default Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED), false)
+                .onClose(this::close);
+    }
+}
@@ -0,0 +1,200 @@
+package com.jut.redis.scan;
+
+import com.jut.redis.utils.NamedThreadFactory;
+import com.jut.redis.utils.StringUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/***
+ * 集群key遍历迭代器
+ * 每个主节点一个后台线程并行scan, 结果写入该节点的有界缓冲区, 缓冲区满时暂停scan等待消费
+ * 节点遍历顺序不确定, 同一个key可能被返回多次(与scan命令本身的语义一致)
+ * 某个节点scan失败时, 该节点已取到的key消费完后hasNext/next抛出JedisException, 不会当作遍历完成返回部分结果
+ * 调用方放弃迭代器而未close时, 后台线程在缓冲区连续abandonMillis没有被消费后自行退出, 之后再读取同样抛出异常
+ */
+public class ClusterScanIterator implements CloseableIterator<String> {
+    private final static Logger logger = LoggerFactory.getLogger(ClusterScanIterator.class);
+
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    /**
+     * 默认的缓冲区无人消费的最长等待
+     */
+    public static final long DEFAULT_ABANDON_MILLIS = 60000L;
+
+    private final ScanOptions options;
+    private final List<NodeScanner> scanners = new ArrayList<NodeScanner>();
+    private volatile boolean cancelled;
+    private volatile Thread consumer;
+    private boolean started;
+    private String next;
+    private long abandonMillis = DEFAULT_ABANDON_MILLIS;
+
+    /**
+     * @param masters 需要遍历的主节点连接池
+     * @param bufferSize 每个节点的缓冲key数
+     */
+    public ClusterScanIterator(Map<String, JedisPool> masters, ScanOptions options, int bufferSize) {
+        this.options = options;
+        for (Map.Entry<String, JedisPool> entry : masters.entrySet()) {
+            scanners.add(new NodeScanner(entry.getKey(), entry.getValue(), bufferSize));
+        }
+    }
+
+    public ClusterScanIterator(Map<String, JedisPool> masters, ScanOptions options) {
+        this(masters, options, Math.max(options.getCount(), ScanOptions.DEFAULT_COUNT) * 2);
+    }
+
+    public long getAbandonMillis() {
+        return abandonMillis;
+    }
+    /**
+     * 需在开始遍历之前设置
+     */
+    public void setAbandonMillis(long abandonMillis) {
+        this.abandonMillis = abandonMillis;
+    }
+
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        if (!started) {
+            started = true;
+            NamedThreadFactory threadFactory = new NamedThreadFactory("jut-redis-cluster-scan");
+            for (NodeScanner scanner : scanners) {
+                scanner.thread = threadFactory.newThread(scanner);
+                scanner.thread.start();
+            }
+        }
+        consumer = Thread.currentThread();
+        while (!scanners.isEmpty() && !cancelled) {
+            for (Iterator<NodeScanner> it = scanners.iterator(); it.hasNext(); ) {
+                NodeScanner scanner = it.next();
+                //先读finished再判空: finished为true时该节点的所有key都已写入缓冲区
+                boolean finished = scanner.finished;
+                String key = scanner.buffer.poll();
+                if (key != null) {
+                    next = key;
+                    return true;
+                }
+                if (finished) {
+                    if (scanner.failure != null) {
+                        close();
+                        throw new JedisException("scan cluster node " + scanner.node + " failed", scanner.failure);
+                    }
+                    it.remove();
+                }
+            }
+            if (!scanners.isEmpty()) {
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+        }
+        return false;
+    }
+
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String key = next;
+        next = null;
+        return key;
+    }
+
+    /**
+     * 停止所有节点的scan
+     */
+    public void close() {
+        cancelled = true;
+        for (NodeScanner scanner : scanners) {
+            if (scanner.thread != null) {
+                scanner.thread.interrupt();
+            }
+            scanner.buffer.clear();
+        }
+        scanners.clear();
+        next = null;
+    }
+
+    private void signal() {
+        Thread thread = consumer;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * 单节点scan任务
+     */
+    private class NodeScanner implements Runnable {
+        final String node;
+        final JedisPool pool;
+        final ArrayBlockingQueue<String> buffer;
+        volatile boolean finished;
+        /**
+         * 失败原因, 在finished之前写入
+         */
+        volatile Exception failure;
+        Thread thread;
+
+        NodeScanner(String node, JedisPool pool, int bufferSize) {
+            this.node = node;
+            this.pool = pool;
+            this.buffer = new ArrayBlockingQueue<String>(bufferSize);
+        }
+
+        public void run() {
+            String cursor = ScanParams.SCAN_POINTER_START;
+            ScanResult<String> page;
+            try {
+                do {
+                    Jedis jedis = pool.getResource();
+                    try {
+                        page = options.scan(jedis, cursor);
+                    } finally {
+                        jedis.close();
+                    }
+                    for (String key : page.getResult()) {
+                        long waitStart = System.nanoTime();
+                        while (!buffer.offer(key, 100, TimeUnit.MILLISECONDS)) {
+                            if (cancelled) {
+                                return;
+                            }
+                            if (System.nanoTime() - waitStart > TimeUnit.MILLISECONDS.toNanos(abandonMillis)) {
+                                //调用方很可能已放弃迭代器且未close, 退出以免线程泄漏
+                                failure = new IllegalStateException("cluster scan buffer of node " + node
+                                        + " not consumed for " + abandonMillis + "ms, scan abandoned");
+                                logger.warn(failure.getMessage());
+                                return;
+                            }
+                        }
+                        signal();
+                    }
+                    cursor = page.getCursor();
+                } while (!page.isCompleteIteration() && !cancelled);
+            } catch (InterruptedException e) {
+                //close时中断
+            } catch (Exception e) {
+                failure = e;
+                logger.error("scan cluster node " + node + " failed" + StringUtil.logException(e));
+            } finally {
+                finished = true;
+                signal();
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.jut.redis.scan;
+
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/***
+ * 基于游标的惰性迭代器
+ * 当前页遍历完才请求下一页, 内存中只保留一页数据, 游标回到0时结束
+ * 请求某页失败时hasNext/next抛出JedisException并结束遍历, 不会当作遍历完成返回部分结果
+ */
+public abstract class ScanIterator<T> implements CloseableIterator<T> {
+    private String cursor = ScanParams.SCAN_POINTER_START;
+    private Iterator<T> page;
+    private boolean finished;
+
+    /**
+     * 请求一页数据, 失败时抛出异常
+     */
+    protected abstract ScanResult<T> scan(String cursor) throws Exception;
+
+    public boolean hasNext() {
+        while (page == null || !page.hasNext()) {
+            if (finished) {
+                return false;
+            }
+            ScanResult<T> result;
+            try {
+                result = scan(cursor);
+            } catch (Exception e) {
+                close();
+                throw new JedisException("scan failed at cursor " + cursor, e);
+            }
+            cursor = result.getCursor();
+            finished = result.isCompleteIteration();
+            page = result.getResult().iterator();
+        }
+        return true;
+    }
+
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+
+    /**
+     * 提前结束遍历
+     */
+    public void close() {
+        finished = true;
+        page = null;
+    }
+}
@@ -0,0 +1,89 @@
+package com.jut.redis.scan;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/***
+ * scan参数
+ * match为匹配模式, count为每页数量提示, type为key类型过滤(需要redis 6.0及以上)
+ */
+public class ScanOptions {
+    public static final int DEFAULT_COUNT = 100;
+
+    private String match;
+    private int count = DEFAULT_COUNT;
+    private String type;
+
+    public static ScanOptions scanOptions() {
+        return new ScanOptions();
+    }
+
+    public ScanOptions match(String match) {
+        this.match = match;
+        return this;
+    }
+    public ScanOptions count(int count) {
+        this.count = count;
+        return this;
+    }
+    public ScanOptions type(String type) {
+        this.type = type;
+        return this;
+    }
+
+    public String getMatch() {
+        return match;
+    }
+    public int getCount() {
+        return count;
+    }
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * 转换为jedis的scan参数, 不包含type
+     */
+    public ScanParams toScanParams() {
+        ScanParams params = new ScanParams().count(count);
+        if (match != null) {
+            params.match(match);
+        }
+        return params;
+    }
+
+    /**
+     * 在指定连接上执行一页scan
+     * jedis 3.0不支持TYPE参数, 指定type时直接发送原始命令
+     */
+    @SuppressWarnings("unchecked")
+    public ScanResult<String> scan(Jedis jedis, String cursor) {
+        if (type == null) {
+            return jedis.scan(cursor, toScanParams());
+        }
+        List<String> args = new ArrayList<String>();
+        args.add(cursor);
+        if (match != null) {
+            args.add("MATCH");
+            args.add(match);
+        }
+        args.add("COUNT");
+        args.add(String.valueOf(count));
+        args.add("TYPE");
+        args.add(type);
+        jedis.getClient().sendCommand(Protocol.Command.SCAN, args.toArray(new String[args.size()]));
+        List<Object> reply = jedis.getClient().getObjectMultiBulkReply();
+        List<byte[]> raw = (List<byte[]>) reply.get(1);
+        List<String> keys = new ArrayList<String>(raw.size());
+        for (byte[] key : raw) {
+            keys.add(SafeEncoder.encode(key));
+        }
+        return new ScanResult<String>((byte[]) reply.get(0), keys);
+    }
+}
@@ -0,0 +1,85 @@
+package com.jut.redis.script;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/***
+ * lua脚本
+ * 创建时计算SHA1, 执行时优先EVALSHA, 节点上没有该脚本时由RedisManager先SCRIPT LOAD再重试
+ * resultType决定返回值的转换: Long/String/List原样返回, Boolean把整数1转为true, Object不转换
+ */
+public class RedisScript<T> {
+    private final String name;
+    private final String source;
+    private final String sha1;
+    private final Class<T> resultType;
+
+    public RedisScript(String name, String source, Class<T> resultType) {
+        this.name = name;
+        this.source = source;
+        this.sha1 = sha1(source);
+        this.resultType = resultType;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getSha1() {
+        return sha1;
+    }
+
+    public Class<T> getResultType() {
+        return resultType;
+    }
+
+    /**
+     * 把EVALSHA的返回值转换为resultType
+     */
+    @SuppressWarnings("unchecked")
+    public T convert(Object result) {
+        if (result == null || resultType == Object.class) {
+            return (T) result;
+        }
+        if (resultType == Boolean.class) {
+            if (result instanceof Long) {
+                return (T) Boolean.valueOf((Long) result == 1L);
+            }
+            return (T) Boolean.valueOf("OK".equals(result));
+        }
+        if (resultType == String.class && !(result instanceof String)) {
+            return (T) String.valueOf(result);
+        }
+        if (resultType == Long.class && result instanceof String) {
+            return (T) Long.valueOf((String) result);
+        }
+        if (resultType == List.class && !(result instanceof List)) {
+            throw new IllegalStateException("script " + name + " returned " + result.getClass().getSimpleName() + ", expected list");
+        }
+        return resultType.cast(result);
+    }
+
+    private static String sha1(String source) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(source.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name + "(" + sha1 + ")";
+    }
+}
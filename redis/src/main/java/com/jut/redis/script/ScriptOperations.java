@@ -0,0 +1,65 @@
+package com.jut.redis.script;
+
+import com.jut.redis.RedisManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/***
+ * 基于Scripts的复合操作, 每个操作一次往返且在服务端原子执行
+ * 单实例和集群的RedisManager都可使用, 出错时与RedisManager的其他命令一样记录日志并返回null
+ */
+public class ScriptOperations {
+    private final RedisManager redisManager;
+
+    public ScriptOperations(RedisManager redisManager) {
+        this.redisManager = redisManager;
+    }
+
+    /**
+     * key不存在时写入并设置过期时间
+     */
+    public Boolean setnxExpire(String key, String value, int seconds) {
+        return redisManager.eval(Scripts.SETNX_EXPIRE, Collections.singletonList(key),
+                Arrays.asList(value, String.valueOf(seconds)));
+    }
+
+    /**
+     * 值等于expected时改为value, 保留原过期时间
+     */
+    public Boolean compareAndSet(String key, String expected, String value) {
+        return redisManager.eval(Scripts.COMPARE_AND_SET, Collections.singletonList(key), Arrays.asList(expected, value));
+    }
+
+    /**
+     * 值等于expected时删除
+     */
+    public Boolean compareAndDelete(String key, String expected) {
+        return redisManager.eval(Scripts.COMPARE_AND_DELETE, Collections.singletonList(key),
+                Collections.singletonList(expected));
+    }
+
+    /**
+     * 值等于expected时把过期时间设为millis毫秒
+     */
+    public Boolean compareAndPexpire(String key, String expected, long millis) {
+        return redisManager.eval(Scripts.COMPARE_AND_PEXPIRE, Collections.singletonList(key),
+                Arrays.asList(expected, String.valueOf(millis)));
+    }
+
+    /**
+     * 增加计数, key由本次增加创建时设置过期时间
+     */
+    public Long incrByExpire(String key, long increment, int seconds) {
+        return redisManager.eval(Scripts.INCRBY_EXPIRE, Collections.singletonList(key),
+                Arrays.asList(String.valueOf(increment), String.valueOf(seconds)));
+    }
+
+    /**
+     * 增加hash域的计数并重置整个hash的过期时间
+     */
+    public Long hincrbyExpire(String key, String field, long increment, int seconds) {
+        return redisManager.eval(Scripts.HINCRBY_EXPIRE, Collections.singletonList(key),
+                Arrays.asList(field, String.valueOf(increment), String.valueOf(seconds)));
+    }
+}
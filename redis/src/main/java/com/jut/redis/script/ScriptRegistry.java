@@ -0,0 +1,55 @@
+package com.jut.redis.script;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+
+/***
+ * 按名称登记的lua脚本
+ * 业务脚本在启动时登记一次, 使用时按名称取出交给RedisManager.eval执行
+ */
+public class ScriptRegistry {
+    private final ConcurrentHashMap<String, RedisScript<?>> scripts = new ConcurrentHashMap<String, RedisScript<?>>();
+
+    /**
+     * 包含Scripts中所有脚本的登记表
+     */
+    public static ScriptRegistry defaults() {
+        ScriptRegistry registry = new ScriptRegistry();
+        for (RedisScript<?> script : Scripts.all()) {
+            registry.register(script);
+        }
+        return registry;
+    }
+
+    /**
+     * 登记脚本, 同名脚本的内容不同时抛出IllegalArgumentException
+     */
+    public <T> RedisScript<T> register(RedisScript<T> script) {
+        RedisScript<?> previous = scripts.putIfAbsent(script.getName(), script);
+        if (previous != null && !previous.getSha1().equals(script.getSha1())) {
+            throw new IllegalArgumentException("script already registered with different source: " + script.getName());
+        }
+        return script;
+    }
+
+    public <T> RedisScript<T> register(String name, String source, Class<T> resultType) {
+        return register(new RedisScript<T>(name, source, resultType));
+    }
+
+    /**
+     * 按名称取出脚本, 未登记时抛出IllegalArgumentException
+     */
+    @SuppressWarnings("unchecked")
+    public <T> RedisScript<T> get(String name) {
+        RedisScript<?> script = scripts.get(name);
+        if (script == null) {
+            throw new IllegalArgumentException("script not registered: " + name);
+        }
+        return (RedisScript<T>) script;
+    }
+
+    public Collection<RedisScript<?>> getScripts() {
+        return Collections.unmodifiableCollection(scripts.values());
+    }
+}
@@ -0,0 +1,107 @@
+package com.jut.redis.script;
+
+/***
+ * 常用复合操作的lua脚本
+ * 把多次往返且不原子的命令组合(setnx+expire、get+比较+set、incr+expire等)合并为一次原子执行
+ * 调用方式见ScriptOperations
+ */
+public final class Scripts {
+    private Scripts() {
+    }
+
+    /**
+     * KEYS[1]不存在时写入ARGV[1]并设置ARGV[2]秒过期, 返回是否写入
+     */
+    public static final RedisScript<Boolean> SETNX_EXPIRE = new RedisScript<Boolean>("setnxExpire",
+            "if redis.call('setnx', KEYS[1], ARGV[1]) == 1 then\n"
+                    + "  redis.call('expire', KEYS[1], ARGV[2])\n"
+                    + "  return 1\n"
+                    + "end\n"
+                    + "return 0", Boolean.class);
+
+    /**
+     * KEYS[1]的值等于ARGV[1]时改为ARGV[2](保留过期时间), 返回是否修改
+     */
+    public static final RedisScript<Boolean> COMPARE_AND_SET = new RedisScript<Boolean>("compareAndSet",
+            "if redis.call('get', KEYS[1]) == ARGV[1] then\n"
+                    + "  local ttl = redis.call('pttl', KEYS[1])\n"
+                    + "  if ttl > 0 then\n"
+                    + "    redis.call('psetex', KEYS[1], ttl, ARGV[2])\n"
+                    + "  else\n"
+                    + "    redis.call('set', KEYS[1], ARGV[2])\n"
+                    + "  end\n"
+                    + "  return 1\n"
+                    + "end\n"
+                    + "return 0", Boolean.class);
+
+    /**
+     * KEYS[1]的值等于ARGV[1]时删除, 返回是否删除; 用于按令牌释放锁
+     */
+    public static final RedisScript<Boolean> COMPARE_AND_DELETE = new RedisScript<Boolean>("compareAndDelete",
+            "if redis.call('get', KEYS[1]) == ARGV[1] then\n"
+                    + "  return redis.call('del', KEYS[1])\n"
+                    + "end\n"
+                    + "return 0", Boolean.class);
+
+    /**
+     * KEYS[1]的值等于ARGV[1]时删除, 并向唤醒列表KEYS[2]放入一个元素(最多保留一个, ARGV[2]毫秒过期), 返回是否删除;
+     * 用于释放锁并唤醒一个阻塞在KEYS[2]上的等待者, KEYS[1]与KEYS[2]需在同一槽位
+     */
+    public static final RedisScript<Boolean> RELEASE_AND_NOTIFY = new RedisScript<Boolean>("releaseAndNotify",
+            "if redis.call('get', KEYS[1]) == ARGV[1] then\n"
+                    + "  redis.call('del', KEYS[1])\n"
+                    + "  redis.call('lpush', KEYS[2], ARGV[1])\n"
+                    + "  redis.call('ltrim', KEYS[2], 0, 0)\n"
+                    + "  redis.call('pexpire', KEYS[2], ARGV[2])\n"
+                    + "  return 1\n"
+                    + "end\n"
+                    + "return 0", Boolean.class);
+
+    /**
+     * KEYS[1]的值等于ARGV[1]时把过期时间设为ARGV[2]毫秒, 返回是否设置; 用于按令牌续期锁
+     */
+    public static final RedisScript<Boolean> COMPARE_AND_PEXPIRE = new RedisScript<Boolean>("compareAndPexpire",
+            "if redis.call('get', KEYS[1]) == ARGV[1] then\n"
+                    + "  return redis.call('pexpire', KEYS[1], ARGV[2])\n"
+                    + "end\n"
+                    + "return 0", Boolean.class);
+
+    /**
+     * KEYS[1]增加ARGV[1], 由本次增加创建时设置ARGV[2]秒过期, 返回增加后的值; 用于固定窗口计数
+     * 按增加前是否存在判断, 不按ttl == -1判断, 已存在的永久计数器不会被设置过期时间
+     */
+    public static final RedisScript<Long> INCRBY_EXPIRE = new RedisScript<Long>("incrByExpire",
+            "local created = redis.call('exists', KEYS[1]) == 0\n"
+                    + "local value = redis.call('incrby', KEYS[1], ARGV[1])\n"
+                    + "if created then\n"
+                    + "  redis.call('expire', KEYS[1], ARGV[2])\n"
+                    + "end\n"
+                    + "return value", Long.class);
+
+    /**
+     * KEYS[1]的域ARGV[1]增加ARGV[2], 并把整个hash的过期时间重置为ARGV[3]秒, 返回增加后的值
+     */
+    public static final RedisScript<Long> HINCRBY_EXPIRE = new RedisScript<Long>("hincrbyExpire",
+            "local value = redis.call('hincrby', KEYS[1], ARGV[1], ARGV[2])\n"
+                    + "redis.call('expire', KEYS[1], ARGV[3])\n"
+                    + "return value", Long.class);
+
+    /**
+     * KEYS[1]的域ARGV[1]增加ARGV[2], hash由本次增加创建时设置ARGV[3]秒过期, 返回增加后的值
+     */
+    public static final RedisScript<Long> HINCRBY_EXPIRE_NX = new RedisScript<Long>("hincrbyExpireNx",
+            "local created = redis.call('exists', KEYS[1]) == 0\n"
+                    + "local value = redis.call('hincrby', KEYS[1], ARGV[1], ARGV[2])\n"
+                    + "if created then\n"
+                    + "  redis.call('expire', KEYS[1], ARGV[3])\n"
+                    + "end\n"
+                    + "return value", Long.class);
+
+    /**
+     * 库中所有脚本
+     */
+    public static RedisScript<?>[] all() {
+        return new RedisScript<?>[]{SETNX_EXPIRE, COMPARE_AND_SET, COMPARE_AND_DELETE, RELEASE_AND_NOTIFY,
+                COMPARE_AND_PEXPIRE, INCRBY_EXPIRE, HINCRBY_EXPIRE, HINCRBY_EXPIRE_NX};
+    }
+}
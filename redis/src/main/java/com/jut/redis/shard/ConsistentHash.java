@@ -0,0 +1,99 @@
+package com.jut.redis.shard;
+
+import redis.clients.jedis.util.Hashing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/***
+ * 一致性哈希环
+ * 每个分片按名称生成virtualNodes个虚拟节点, 哈希使用与Jedis分片相同的64位MurmurHash
+ * key中包含非空的{tag}时只对tag计算哈希(规则与集群相同), 相同tag的key落在同一分片
+ * 虚拟节点排序后存放在数组中, 查找为一次二分; 环不可变, 增加分片时生成新的环, 只有约1/N的key换到新分片
+ */
+public class ConsistentHash {
+    public static final int DEFAULT_VIRTUAL_NODES = 160;
+
+    private final List<String> shards;
+    private final int virtualNodes;
+    private final long[] hashes;
+    private final String[] owners;
+
+    public ConsistentHash(Collection<String> shards) {
+        this(shards, DEFAULT_VIRTUAL_NODES);
+    }
+
+    public ConsistentHash(Collection<String> shards, int virtualNodes) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("at least one shard is required");
+        }
+        this.shards = Collections.unmodifiableList(new ArrayList<String>(shards));
+        this.virtualNodes = virtualNodes;
+        int size = shards.size() * virtualNodes;
+        long[][] nodes = new long[size][2];
+        int i = 0;
+        for (int shard = 0; shard < this.shards.size(); shard++) {
+            for (int n = 0; n < virtualNodes; n++) {
+                nodes[i][0] = Hashing.MURMUR_HASH.hash(this.shards.get(shard) + "*" + n);
+                nodes[i][1] = shard;
+                i++;
+            }
+        }
+        Arrays.sort(nodes, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        this.hashes = new long[size];
+        this.owners = new String[size];
+        for (i = 0; i < size; i++) {
+            hashes[i] = nodes[i][0];
+            owners[i] = this.shards.get((int) nodes[i][1]);
+        }
+    }
+
+    /**
+     * key所在的分片
+     */
+    public String getShard(String key) {
+        long hash = Hashing.MURMUR_HASH.hash(hashTag(key));
+        int index = Arrays.binarySearch(hashes, hash);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == hashes.length ? 0 : index];
+    }
+
+    /**
+     * 增加一个分片后的新环
+     */
+    public ConsistentHash addShard(String shard) {
+        if (shards.contains(shard)) {
+            throw new IllegalArgumentException("shard already exists: " + shard);
+        }
+        List<String> updated = new ArrayList<String>(shards);
+        updated.add(shard);
+        return new ConsistentHash(updated, virtualNodes);
+    }
+
+    public List<String> getShards() {
+        return shards;
+    }
+
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+
+    /**
+     * 参与哈希的部分: 第一个{之后到其后第一个}之间的非空内容, 否则为整个key
+     */
+    public static String hashTag(String key) {
+        int open = key.indexOf('{');
+        if (open >= 0) {
+            int close = key.indexOf('}', open + 1);
+            if (close > open + 1) {
+                return key.substring(open + 1, close);
+            }
+        }
+        return key;
+    }
+}
@@ -0,0 +1,80 @@
+package com.jut.redis.shard;
+
+import com.jut.redis.ShardedRedisManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+
+import java.util.Map;
+
+/***
+ * 增加分片后的数据迁移
+ * 增加分片使ShardedRedisManager进入迁移状态, 访问到的key随用随迁; 再逐个SCAN原有分片,
+ * 把归属变为新分片的key用DUMP/RESTORE移过去, 全部完成后结束迁移状态
+ * 迁移期间读写不停止, 每个key的移动与ShardedRedisManager的按访问迁移使用相同逻辑
+ */
+public class ShardMigrator {
+    private final static Logger logger = LoggerFactory.getLogger(ShardMigrator.class);
+
+    private final ShardedRedisManager redisManager;
+
+    /**
+     * 每次SCAN的数量
+     */
+    private int batchSize = 1000;
+
+    public ShardMigrator(ShardedRedisManager redisManager) {
+        this.redisManager = redisManager;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 增加分片并迁移数据, 返回时迁移已结束
+     *
+     * @return 移动的key数
+     */
+    public long addShard(String name, JedisPool pool) {
+        Map<String, JedisPool> existing = redisManager.getShards();
+        redisManager.addShard(name, pool);
+        long moved = migrate(existing);
+        redisManager.finishMigration();
+        logger.info("redis shard {} added, {} keys moved", name, moved);
+        return moved;
+    }
+
+    /**
+     * 遍历原有分片, 迁移归属已改变的key; 迁移状态由调用方结束
+     *
+     * @param shards 增加分片前的分片
+     * @return 移动的key数
+     */
+    public long migrate(Map<String, JedisPool> shards) {
+        long moved = 0;
+        ScanParams params = new ScanParams().count(batchSize);
+        for (Map.Entry<String, JedisPool> entry : shards.entrySet()) {
+            String cursor = ScanParams.SCAN_POINTER_START;
+            do {
+                ScanResult<String> result;
+                try (Jedis jedis = entry.getValue().getResource()) {
+                    result = jedis.scan(cursor, params);
+                }
+                for (String key : result.getResult()) {
+                    if (entry.getKey().equals(redisManager.getPreviousShard(key)) && redisManager.migrateKey(key)) {
+                        moved++;
+                    }
+                }
+                cursor = result.getCursor();
+            } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+        }
+        return moved;
+    }
+}
@@ -0,0 +1,117 @@
+package com.jut.redis.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/***
+ * Count-Min Sketch频率估计
+ * 固定内存估计任意key的出现次数, 估计值只会偏大不会偏小
+ * 计数器使用原子数组, 多线程并发累加无锁; 累加次数达到采样上限后所有计数减半, 让旧的热点逐渐衰减
+ */
+public class CountMinSketch {
+    private static final long[] SEEDS = {0x97cb3127L, 0xb7a6d1e5L, 0x85ebca6bL, 0xc2b2ae35L};
+
+    private final int width;
+    private final int mask;
+    private final AtomicLongArray table;
+    private final long sampleSize;
+    private final AtomicLong additions = new AtomicLong();
+
+    /**
+     * @param width 每行计数器个数, 向上取整为2的幂
+     * @param sampleSize 累加次数达到该值时计数减半, 小于等于0表示不衰减
+     */
+    public CountMinSketch(int width, long sampleSize) {
+        int w = 1;
+        while (w < width) {
+            w <<= 1;
+        }
+        this.width = w;
+        this.mask = w - 1;
+        this.table = new AtomicLongArray(w * SEEDS.length);
+        this.sampleSize = sampleSize;
+    }
+
+    /**
+     * 累加一次并返回累加后的估计值
+     */
+    public long increment(Object key) {
+        return add(key, 1);
+    }
+
+    /**
+     * 累加指定次数并返回累加后的估计值
+     */
+    public long add(Object key, long count) {
+        int hash = spread(key.hashCode());
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < SEEDS.length; i++) {
+            long value = table.addAndGet(index(hash, i), count);
+            if (value < min) {
+                min = value;
+            }
+        }
+        if (sampleSize > 0) {
+            long n = additions.addAndGet(count);
+            //只有把计数清零成功的线程执行衰减, 避免并发重复减半
+            if (n >= sampleSize && additions.compareAndSet(n, 0)) {
+                decay();
+            }
+        }
+        return min;
+    }
+
+    /**
+     * 估计key的出现次数
+     */
+    public long estimate(Object key) {
+        int hash = spread(key.hashCode());
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < SEEDS.length; i++) {
+            long value = table.get(index(hash, i));
+            if (value < min) {
+                min = value;
+            }
+        }
+        return min;
+    }
+
+    /**
+     * 所有计数减半
+     */
+    public void halve() {
+        additions.set(0);
+        decay();
+    }
+
+    private void decay() {
+        for (int i = 0; i < table.length(); i++) {
+            long value;
+            do {
+                value = table.get(i);
+            } while (value != 0 && !table.compareAndSet(i, value, value >>> 1));
+        }
+    }
+
+    /**
+     * 清空所有计数
+     */
+    public void clear() {
+        additions.set(0);
+        for (int i = 0; i < table.length(); i++) {
+            table.set(i, 0);
+        }
+    }
+
+    private int index(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+        return row * width + ((int) h & mask);
+    }
+
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+}
@@ -0,0 +1,227 @@
+package com.jut.redis;
+
+import com.jut.redis.cluster.ReadPreference;
+import com.jut.redis.cluster.ReplicaReadRouter;
+import com.jut.redis.embedded.EmbeddedRedisCluster;
+import com.jut.redis.embedded.EmbeddedRedisServer;
+import com.jut.redis.scan.CloseableIterator;
+import com.jut.redis.scan.ScanOptions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ClusterRedisManagerTest {
+    private EmbeddedRedisCluster cluster;
+    private JedisCluster jedisCluster;
+    private ClusterRedisManager redisManager;
+
+    @Before
+    public void setUp() throws Exception {
+        cluster = new EmbeddedRedisCluster(3);
+        cluster.start();
+        jedisCluster = new JedisCluster(cluster.getHostAndPorts());
+        redisManager = new ClusterRedisManager();
+        redisManager.setJedisCluster(jedisCluster);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        redisManager.getExecutor().shutdownNow();
+        jedisCluster.close();
+        cluster.close();
+    }
+
+    @Test
+    public void crossSlotCommandsKeepArgumentOrder() {
+        String[] keys = new String[100];
+        String[] keysvalues = new String[200];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "k" + i;
+            keysvalues[2 * i] = keys[i];
+            keysvalues[2 * i + 1] = "v" + i;
+        }
+        assertEquals("OK", redisManager.mset(keysvalues));
+        List<String> values = redisManager.mget(keys);
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals("v" + i, values.get(i));
+        }
+        assertEquals(Long.valueOf(0L), redisManager.msetnx("k0", "x", "fresh", "y"));
+        assertNull(redisManager.get("fresh"));
+        assertEquals(Long.valueOf(100L), redisManager.del(keys));
+        for (EmbeddedRedisServer master : cluster.getMasters()) {
+            assertEquals(0, master.dbSize(0));
+        }
+    }
+
+    @Test
+    public void scanVisitsEveryMaster() {
+        for (int i = 0; i < 1000; i++) {
+            redisManager.set("scan:" + i, "v");
+        }
+        redisManager.set("other", "v");
+        Set<String> keys = redisManager.keys("scan:*");
+        assertEquals(1000, keys.size());
+    }
+
+    @Test
+    public void scanNodeFailureIsThrown() {
+        for (int i = 0; i < 1000; i++) {
+            redisManager.set("scan:" + i, "v");
+        }
+        cluster.getMasters().get(1).close();
+        try (CloseableIterator<String> it = redisManager.scan(ScanOptions.scanOptions().count(10))) {
+            while (it.hasNext()) {
+                it.next();
+            }
+            fail("expected scan failure");
+        } catch (JedisException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(cluster.getMasters().get(1).getHostAndPort().toString()));
+        }
+        assertNull(redisManager.keys("scan:*"));
+    }
+
+    @Test
+    public void scanDiscoveryFailureIsThrown() {
+        redisManager.set("scan:0", "v");
+        for (EmbeddedRedisServer master : cluster.getMasters()) {
+            master.close();
+        }
+        CloseableIterator<String> it = redisManager.scan(ScanOptions.scanOptions());
+        try {
+            it.hasNext();
+            fail("expected scan failure");
+        } catch (JedisException e) {
+            assertFalse(it.hasNext());
+        }
+        assertNull(redisManager.keys("*"));
+    }
+
+    @Test
+    public void collectionScanNodeFailureIsThrown() {
+        for (int i = 0; i < 100; i++) {
+            redisManager.hset("hash", "f" + i, "v");
+        }
+        int fields = 0;
+        try (CloseableIterator<Map.Entry<String, String>> it = redisManager.hscan("hash", ScanOptions.scanOptions().count(10))) {
+            while (it.hasNext()) {
+                it.next();
+                fields++;
+            }
+        }
+        assertEquals(100, fields);
+        CloseableIterator<Map.Entry<String, String>> it = redisManager.hscan("hash", ScanOptions.scanOptions().count(10));
+        assertTrue(it.hasNext());
+        cluster.getMasterForKey("hash").close();
+        try {
+            while (it.hasNext()) {
+                it.next();
+            }
+            fail("expected scan failure");
+        } catch (JedisException e) {
+            assertFalse(it.hasNext());
+        }
+    }
+
+    /**
+     * 调用线程上的节点失败时, 其他节点的命令尚未执行完, 其连接不能提前归还给连接池
+     */
+    @Test
+    public void failedNodeDoesNotReleaseConnectionsInUse() throws Exception {
+        List<EmbeddedRedisServer> masters = cluster.getMasters();
+        String[] keys = new String[masters.size()];
+        for (int m = 0; m < masters.size(); m++) {
+            keys[m] = keyOn(masters.get(m), "key");
+            redisManager.set(keys[m], "value" + m);
+        }
+        //每个节点的连接池中留下空闲连接, 关闭服务后借出的连接在执行时才失败
+        assertEquals(Arrays.asList("value0", "value1", "value2"), redisManager.mget(keys));
+        //其他节点的命令在放行前不会开始, 最后一个key的节点在调用线程上执行并失败
+        final CountDownLatch gate = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        for (int i = 0; i < 2; i++) {
+            executor.submit(() -> {
+                gate.await();
+                return null;
+            });
+        }
+        redisManager.setExecutor(executor);
+        masters.get(2).close();
+
+        assertNull(redisManager.mget(keys));
+        assertEquals(1, pool(masters.get(0)).getNumActive());
+        assertEquals(1, pool(masters.get(1)).getNumActive());
+        gate.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(0, pool(masters.get(0)).getNumActive());
+        assertEquals(0, pool(masters.get(1)).getNumActive());
+        assertEquals("value0", redisManager.get(keys[0]));
+        assertEquals("value1", redisManager.get(keys[1]));
+    }
+
+    @Test
+    public void binaryReadsGoToReplica() throws Exception {
+        EmbeddedRedisCluster replicated = new EmbeddedRedisCluster(3, 1);
+        replicated.start();
+        JedisCluster replicatedCluster = new JedisCluster(replicated.getHostAndPorts());
+        ReplicaReadRouter router = new ReplicaReadRouter(replicatedCluster, ReadPreference.REPLICA);
+        ClusterRedisManager manager = new ClusterRedisManager();
+        manager.setJedisCluster(replicatedCluster);
+        manager.setReplicaReadRouter(router);
+        try {
+            byte[] key = SafeEncoder.encode("binary");
+            byte[] field = SafeEncoder.encode("f");
+            byte[] value = SafeEncoder.encode("v");
+            manager.set(key, value);
+            manager.hset(SafeEncoder.encode("hash"), field, value);
+            EmbeddedRedisServer keyReplica = replicated.getReplicas(replicated.getMasterForKey("binary")).get(0);
+            EmbeddedRedisServer hashReplica = replicated.getReplicas(replicated.getMasterForKey("hash")).get(0);
+            replicated.resetStats();
+            assertArrayEquals(value, manager.get(key));
+            assertArrayEquals(value, manager.hget(SafeEncoder.encode("hash"), field));
+            assertEquals(1, manager.hgetall(SafeEncoder.encode("hash")).size());
+            assertEquals(1L, keyReplica.getCommandCount("GET"));
+            assertEquals(1L, hashReplica.getCommandCount("HGET"));
+            assertEquals(1L, hashReplica.getCommandCount("HGETALL"));
+            assertEquals(0L, replicated.getMasterForKey("hash").getCommandCount("HGETALL"));
+        } finally {
+            router.close();
+            manager.getExecutor().shutdownNow();
+            replicatedCluster.close();
+            replicated.close();
+        }
+    }
+
+    private JedisPool pool(EmbeddedRedisServer master) {
+        return jedisCluster.getClusterNodes().get(master.getHostAndPort().toString());
+    }
+
+    private String keyOn(EmbeddedRedisServer master, String prefix) {
+        for (int i = 0; ; i++) {
+            String key = prefix + i;
+            if (cluster.getMasterForKey(key) == master) {
+                return key;
+            }
+        }
+    }
+}
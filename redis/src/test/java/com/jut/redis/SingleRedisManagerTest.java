@@ -0,0 +1,143 @@
+package com.jut.redis;
+
+import com.jut.redis.embedded.EmbeddedRedisServer;
+import com.jut.redis.scan.CloseableIterator;
+import com.jut.redis.scan.ScanOptions;
+import com.jut.redis.script.EmbeddedScripts;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SingleRedisManagerTest {
+    private EmbeddedRedisServer server;
+    private JedisPool pool;
+    private SingleRedisManager redisManager;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new EmbeddedRedisServer();
+        server.start();
+        EmbeddedScripts.register(server);
+        pool = new JedisPool(server.getHost(), server.getPort());
+        redisManager = new SingleRedisManager();
+        redisManager.setJedisPool(pool);
+    }
+
+    @After
+    public void tearDown() {
+        pool.close();
+        server.close();
+    }
+
+    @Test
+    public void incrByExSetsTtlOnCreationOnly() {
+        assertEquals(Long.valueOf(2L), redisManager.incrByEx("window", 2L, 100));
+        server.resetStats();
+        assertEquals(Long.valueOf(5L), redisManager.incrByEx("window", 3L, 500));
+        long ttl = redisManager.timetolive("window");
+        assertTrue("ttl " + ttl, ttl > 90 && ttl <= 100);
+        //一次EVALSHA, 不再单独发送INCRBY和EXPIRE
+        assertEquals(1L, server.getCommandCount("EVALSHA"));
+        assertEquals(0L, server.getCommandCount("INCRBY"));
+    }
+
+    @Test
+    public void hincrbyExSetsTtlOnCreationOnly() {
+        assertEquals(Long.valueOf(2L), redisManager.hincrbyEx("window:h", "f", 2L, 100));
+        assertEquals(Long.valueOf(5L), redisManager.hincrbyEx("window:h", "f", 3L, 500));
+        long ttl = redisManager.timetolive("window:h");
+        assertTrue("ttl " + ttl, ttl > 90 && ttl <= 100);
+    }
+
+    @Test
+    public void incrByExLeavesExistingPersistentCounter() {
+        redisManager.incrBy("total", 1L);
+        redisManager.hincrby("total:h", "f", 1L);
+        assertEquals(Long.valueOf(3L), redisManager.incrByEx("total", 2L, 100));
+        assertEquals(Long.valueOf(3L), redisManager.hincrbyEx("total:h", "f", 2L, 100));
+        assertEquals(Long.valueOf(-1L), redisManager.timetolive("total"));
+        assertEquals(Long.valueOf(-1L), redisManager.timetolive("total:h"));
+    }
+
+    @Test
+    public void incrByExRejectsNonPositiveSeconds() {
+        try {
+            redisManager.incrByEx("window", 1L, 0);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+        }
+        try {
+            redisManager.hincrbyEx("window:h", "f", 1L, -1);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+        }
+        assertNull(redisManager.get("window"));
+        assertEquals(0L, server.getCommandCount("EVALSHA") + server.getCommandCount("EVAL"));
+    }
+
+    @Test
+    public void scanPageFailureIsThrown() {
+        for (int i = 0; i < 100; i++) {
+            redisManager.set("scan:" + i, "v");
+        }
+        assertEquals(100, redisManager.keys("scan:*").size());
+        CloseableIterator<String> it = redisManager.scan(ScanOptions.scanOptions().count(10));
+        assertTrue(it.hasNext());
+        server.close();
+        try {
+            while (it.hasNext()) {
+                it.next();
+            }
+            fail("expected scan failure");
+        } catch (JedisException e) {
+            assertFalse(it.hasNext());
+        }
+        assertNull(redisManager.keys("scan:*"));
+    }
+
+    @Test
+    public void collectionScanPageFailureIsThrown() {
+        try (Jedis jedis = pool.getResource()) {
+            for (int i = 0; i < 100; i++) {
+                jedis.hset("hash", "f" + i, "v");
+                jedis.sadd("set", "m" + i);
+                jedis.zadd("zset", i, "m" + i);
+            }
+        }
+        List<CloseableIterator<?>> iterators = Arrays.<CloseableIterator<?>>asList(
+                redisManager.hscan("hash", ScanOptions.scanOptions().count(10)),
+                redisManager.sscan("set", ScanOptions.scanOptions().count(10)),
+                redisManager.zscan("zset", ScanOptions.scanOptions().count(10)));
+        for (CloseableIterator<?> it : iterators) {
+            assertTrue(it.hasNext());
+        }
+        server.close();
+        for (CloseableIterator<?> it : iterators) {
+            try {
+                while (it.hasNext()) {
+                    it.next();
+                }
+                fail("expected scan failure");
+            } catch (JedisException e) {
+                assertFalse(it.hasNext());
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setOptionsRejectNonPositiveExpire() {
+        SetOptions.setOptions().ex(0);
+    }
+}
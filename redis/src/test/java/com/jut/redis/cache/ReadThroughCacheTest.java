@@ -0,0 +1,105 @@
+package com.jut.redis.cache;
+
+import com.jut.redis.SingleRedisManager;
+import com.jut.redis.embedded.EmbeddedRedisServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.JedisPool;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReadThroughCacheTest {
+    private EmbeddedRedisServer server;
+    private JedisPool pool;
+    private ReadThroughCache cache;
+    private ExecutorService callers;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new EmbeddedRedisServer();
+        server.start();
+        pool = new JedisPool(server.getHost(), server.getPort());
+        SingleRedisManager redisManager = new SingleRedisManager();
+        redisManager.setJedisPool(pool);
+        cache = new ReadThroughCache(redisManager);
+        callers = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        callers.shutdownNow();
+        cache.destroy();
+        pool.close();
+        server.close();
+    }
+
+    @Test
+    public void concurrentGetAllLoadsEachMissOnce() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<List<String>> batches = Collections.synchronizedList(new ArrayList<List<String>>());
+        final CacheLoader loader = new CacheLoader() {
+            public String load(String key) {
+                return "v" + key;
+            }
+
+            public Map<String, String> loadAll(Collection<String> keys) throws Exception {
+                batches.add(new ArrayList<String>(keys));
+                if (keys.contains("a")) {
+                    started.countDown();
+                    release.await();
+                }
+                Map<String, String> res = new LinkedHashMap<String, String>();
+                for (String key : keys) {
+                    res.put(key, load(key));
+                }
+                return res;
+            }
+        };
+        Future<Map<String, String>> first = callers.submit(() -> cache.getAll(Arrays.asList("a", "b"), loader));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Future<Map<String, String>> second = callers.submit(() -> cache.getAll(Arrays.asList("b", "c"), loader));
+        //第二个调用只加载c, b等待第一个调用的结果
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (batches.size() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        assertEquals(Arrays.asList("a", "b"), new ArrayList<String>(first.get(5, TimeUnit.SECONDS).keySet()));
+        Map<String, String> res = second.get(5, TimeUnit.SECONDS);
+        assertEquals(Arrays.asList("b", "c"), new ArrayList<String>(res.keySet()));
+        assertEquals("vb", res.get("b"));
+        assertEquals(Arrays.asList(Arrays.asList("a", "b"), Collections.singletonList("c")), batches);
+    }
+
+    @Test
+    public void nullLoadAllResultMeansAbsent() {
+        CacheLoader loader = new CacheLoader() {
+            public String load(String key) {
+                return null;
+            }
+
+            public Map<String, String> loadAll(Collection<String> keys) {
+                return null;
+            }
+        };
+        assertTrue(cache.getAll(Arrays.asList("a", "b"), loader).isEmpty());
+        assertEquals(2L, cache.missCount());
+    }
+}
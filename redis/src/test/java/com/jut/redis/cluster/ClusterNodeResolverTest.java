@@ -0,0 +1,74 @@
+package com.jut.redis.cluster;
+
+import com.jut.redis.embedded.EmbeddedRedisCluster;
+import com.jut.redis.embedded.EmbeddedRedisServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.JedisCluster;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ClusterNodeResolverTest {
+    private EmbeddedRedisCluster cluster;
+    private JedisCluster jedisCluster;
+    private ClusterNodeResolver resolver;
+
+    @Before
+    public void setUp() throws Exception {
+        cluster = new EmbeddedRedisCluster(3);
+        cluster.start();
+        jedisCluster = new JedisCluster(cluster.getHostAndPorts());
+        //周期刷新足够长, 拓扑变化只能由首次拉取和refresh发现
+        resolver = new ClusterNodeResolver(jedisCluster, 3600000L);
+    }
+
+    @After
+    public void tearDown() {
+        resolver.close();
+        jedisCluster.close();
+        cluster.close();
+    }
+
+    @Test
+    public void firstLookupDoesNotWaitForDiscovery() throws Exception {
+        cluster.setLatency(500, TimeUnit.MILLISECONDS);
+        long start = System.nanoTime();
+        assertNull(resolver.getNode("key"));
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(250));
+        cluster.setLatency(0, TimeUnit.MILLISECONDS);
+
+        String master = cluster.getMasterForKey("key").getHostAndPort().toString();
+        assertEquals(master, awaitNode("key", master));
+    }
+
+    @Test
+    public void refreshRunsInBackground() throws Exception {
+        EmbeddedRedisServer owner = cluster.getMasterForKey("key");
+        assertEquals(owner.getHostAndPort().toString(), awaitNode("key", owner.getHostAndPort().toString()));
+        EmbeddedRedisServer target = cluster.getMasters().get((cluster.getMasters().indexOf(owner) + 1) % 3);
+        cluster.moveSlot(ClusterTopology.slot("key"), target);
+        String moved = target.getHostAndPort().toString();
+        assertEquals(owner.getHostAndPort().toString(), resolver.getNode("key"));
+
+        cluster.setLatency(500, TimeUnit.MILLISECONDS);
+        long start = System.nanoTime();
+        resolver.refresh();
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(250));
+        assertEquals(moved, awaitNode("key", moved));
+    }
+
+    private String awaitNode(String key, String expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        String node = resolver.getNode(key);
+        while (!expected.equals(node) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            node = resolver.getNode(key);
+        }
+        return node;
+    }
+}
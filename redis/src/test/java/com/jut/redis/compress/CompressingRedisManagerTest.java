@@ -0,0 +1,106 @@
+package com.jut.redis.compress;
+
+import com.jut.redis.SingleRedisManager;
+import com.jut.redis.embedded.EmbeddedRedisServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CompressingRedisManagerTest {
+    private EmbeddedRedisServer server;
+    private JedisPool pool;
+    private SingleRedisManager plain;
+    private CompressingRedisManager redisManager;
+    private String large;
+    private String small;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new EmbeddedRedisServer();
+        server.start();
+        pool = new JedisPool(server.getHost(), server.getPort());
+        plain = new SingleRedisManager();
+        plain.setJedisPool(pool);
+        redisManager = new CompressingRedisManager(plain);
+        StringBuilder builder = new StringBuilder();
+        while (builder.length() < 50000) {
+            builder.append("{\"name\":\"张三\",\"status\":\"paid\",\"n\":").append(builder.length() % 97).append("},");
+        }
+        large = builder.toString();
+        small = "small";
+    }
+
+    @After
+    public void tearDown() {
+        pool.close();
+        server.close();
+    }
+
+    @Test
+    public void largeValuesStoredCompressed() {
+        redisManager.set("large", large);
+        redisManager.set("small", small);
+        byte[] stored = raw("large");
+        assertTrue(CompressingCodec.isCompressed(stored));
+        assertTrue(stored.length < SafeEncoder.encode(large).length / 5);
+        assertFalse(CompressingCodec.isCompressed(raw("small")));
+        assertEquals(small, plain.get("small"));
+        assertEquals(large, redisManager.get("large"));
+        assertEquals(small, redisManager.get("small"));
+    }
+
+    @Test
+    public void mixedCompressedAndPlainReads() {
+        //开启压缩前写入的未压缩大值
+        plain.set("old", large);
+        plain.hset("h", "old", large);
+        redisManager.set("new", large);
+        redisManager.setex("expiring", 100, large);
+        redisManager.set("small", small);
+
+        assertEquals(large, redisManager.get("old"));
+        assertEquals(Arrays.asList(large, large, large, small, null),
+                redisManager.mget("old", "new", "expiring", "small", "missing"));
+        assertTrue(redisManager.timetolive("expiring") > 90);
+        assertEquals(large, redisManager.getset("new", small));
+        assertEquals(small, redisManager.get("new"));
+
+        Map<String, String> hash = new HashMap<String, String>();
+        hash.put("large", large);
+        hash.put("small", small);
+        redisManager.hmset("h", hash);
+        assertEquals(large, redisManager.hget("h", "large"));
+        assertEquals(Arrays.asList(large, small, large, null), redisManager.hmget("h", "large", "small", "old", "missing"));
+        Map<String, String> all = redisManager.hgetall("h");
+        assertEquals(3, all.size());
+        assertEquals(large, all.get("old"));
+        assertEquals(large, all.get("large"));
+        assertEquals(small, all.get("small"));
+        assertEquals(3, redisManager.hvals("h").size());
+    }
+
+    @Test
+    public void msetCompressesEachLargeValue() {
+        redisManager.mset("a", large, "b", small, "c", large);
+        assertTrue(CompressingCodec.isCompressed(raw("a")));
+        assertFalse(CompressingCodec.isCompressed(raw("b")));
+        assertEquals(Arrays.asList(large, small, large), redisManager.mget("a", "b", "c"));
+    }
+
+    private byte[] raw(String key) {
+        try (Jedis jedis = pool.getResource()) {
+            return jedis.get(SafeEncoder.encode(key));
+        }
+    }
+}
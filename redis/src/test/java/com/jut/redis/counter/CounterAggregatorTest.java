@@ -0,0 +1,123 @@
+package com.jut.redis.counter;
+
+import com.jut.redis.SingleRedisManager;
+import com.jut.redis.embedded.EmbeddedRedisServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.JedisPool;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class CounterAggregatorTest {
+    private EmbeddedRedisServer server;
+    private JedisPool pool;
+    private SingleRedisManager redisManager;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new EmbeddedRedisServer();
+        server.start();
+        pool = new JedisPool(server.getHost(), server.getPort());
+        redisManager = new SingleRedisManager();
+        redisManager.setJedisPool(pool);
+    }
+
+    @After
+    public void tearDown() {
+        pool.close();
+        server.close();
+    }
+
+    @Test
+    public void destroyDrainsPendingIncrements() throws Exception {
+        final CounterAggregator aggregator = new CounterAggregator(redisManager);
+        //刷出间隔足够长, 写出只能发生在destroy中
+        aggregator.setIntervalMillis(3600000L);
+        aggregator.setFlushThreshold(Long.MAX_VALUE);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    aggregator.incrBy("c:" + (i % 4), 1L);
+                    aggregator.hincrby("c:h", "f" + (i % 2), 2L);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(redisManager.get("c:0"));
+        assertEquals(20000L, aggregator.getPending("c:0"));
+
+        aggregator.destroy();
+        for (int k = 0; k < 4; k++) {
+            assertEquals("20000", redisManager.get("c:" + k));
+            assertEquals(0L, aggregator.getPending("c:" + k));
+        }
+        assertEquals("80000", redisManager.hget("c:h", "f0"));
+        assertEquals("80000", redisManager.hget("c:h", "f1"));
+        //每个格子合并为一条命令
+        assertEquals(4L, server.getCommandCount("INCRBY"));
+        assertEquals(2L, server.getCommandCount("HINCRBY"));
+    }
+
+    @Test
+    public void flushWritesMergedCommands() {
+        CounterAggregator aggregator = new CounterAggregator(redisManager);
+        aggregator.setIntervalMillis(3600000L);
+        aggregator.setFlushThreshold(Long.MAX_VALUE);
+        try {
+            for (int i = 0; i < 100; i++) {
+                aggregator.incrBy("views", 1L);
+            }
+            aggregator.incrBy("views", -10L);
+            aggregator.flush();
+            assertEquals("90", redisManager.get("views"));
+            assertEquals(1L, server.getCommandCount("INCRBY"));
+        } finally {
+            aggregator.destroy();
+        }
+    }
+
+    @Test
+    public void redisErrorDropsIncrement() {
+        CounterAggregator aggregator = new CounterAggregator(redisManager);
+        aggregator.setIntervalMillis(3600000L);
+        aggregator.setFlushThreshold(Long.MAX_VALUE);
+        try {
+            redisManager.sadd("wrongtype", "member");
+            aggregator.incrBy("wrongtype", 5L);
+            aggregator.incrBy("ok", 5L);
+            aggregator.flush();
+            assertEquals(0L, aggregator.getPending("wrongtype"));
+            assertEquals("5", redisManager.get("ok"));
+        } finally {
+            aggregator.destroy();
+        }
+    }
+
+    @Test
+    public void keysBeyondMaxCellsGoDirect() {
+        CounterAggregator aggregator = new CounterAggregator(redisManager);
+        aggregator.setIntervalMillis(3600000L);
+        aggregator.setFlushThreshold(Long.MAX_VALUE);
+        aggregator.setMaxCells(1);
+        try {
+            aggregator.incrBy("first", 1L);
+            aggregator.incrBy("second", 1L);
+            assertEquals(1L, aggregator.getPending("first"));
+            assertEquals("1", redisManager.get("second"));
+        } finally {
+            aggregator.destroy();
+        }
+        assertEquals("1", redisManager.get("first"));
+    }
+}
@@ -0,0 +1,132 @@
+package com.jut.redis.lock;
+
+import com.jut.redis.SingleRedisManager;
+import com.jut.redis.embedded.EmbeddedRedisServer;
+import com.jut.redis.script.EmbeddedScripts;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RedisLockTest {
+    private EmbeddedRedisServer server;
+    private final List<JedisPool> pools = new ArrayList<JedisPool>();
+    private final List<RedisLocks> locks = new ArrayList<RedisLocks>();
+
+    @Before
+    public void setUp() throws Exception {
+        server = new EmbeddedRedisServer();
+        server.start();
+        EmbeddedScripts.register(server);
+    }
+
+    @After
+    public void tearDown() {
+        for (RedisLocks redisLocks : locks) {
+            redisLocks.shutdown();
+        }
+        for (JedisPool pool : pools) {
+            pool.close();
+        }
+        server.close();
+    }
+
+    /**
+     * 每个RedisLocks模拟一个进程, 各自使用独立的连接池
+     */
+    private RedisLocks newLocks() {
+        JedisPool pool = new JedisPool(server.getHost(), server.getPort());
+        pools.add(pool);
+        SingleRedisManager redisManager = new SingleRedisManager();
+        redisManager.setJedisPool(pool);
+        RedisLocks redisLocks = new RedisLocks(redisManager);
+        redisLocks.setLeaseMillis(3000L);
+        locks.add(redisLocks);
+        return redisLocks;
+    }
+
+    @Test
+    public void mutualExclusionAcrossProcesses() throws Exception {
+        final AtomicInteger inside = new AtomicInteger();
+        final AtomicInteger violations = new AtomicInteger();
+        final AtomicInteger completed = new AtomicInteger();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int p = 0; p < 3; p++) {
+            final RedisLock lock = newLocks().getLock("order:1");
+            for (int t = 0; t < 3; t++) {
+                threads.add(new Thread(() -> {
+                    for (int i = 0; i < 5; i++) {
+                        lock.lock();
+                        try {
+                            if (inside.incrementAndGet() != 1) {
+                                violations.incrementAndGet();
+                            }
+                            Thread.sleep(5);
+                            inside.decrementAndGet();
+                            completed.incrementAndGet();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        } finally {
+                            lock.unlock();
+                        }
+                    }
+                }));
+            }
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(60));
+        }
+        assertEquals(0, violations.get());
+        assertEquals(45, completed.get());
+        try (Jedis jedis = pools.get(0).getResource()) {
+            assertFalse(jedis.exists("lock:{order:1}"));
+        }
+    }
+
+    @Test
+    public void otherProcessCannotAcquireUntilReleased() throws Exception {
+        RedisLock held = newLocks().getLock("job");
+        RedisLock other = newLocks().getLock("job");
+        held.lock();
+        try {
+            assertFalse(other.tryLock());
+            assertFalse(other.tryLock(100, TimeUnit.MILLISECONDS));
+        } finally {
+            held.unlock();
+        }
+        assertTrue(other.tryLock(1, TimeUnit.SECONDS));
+        other.unlock();
+    }
+
+    @Test
+    public void reentrantHoldCount() {
+        RedisLock lock = newLocks().getLock("reentrant");
+        RedisLock other = newLocks().getLock("reentrant");
+        lock.lock();
+        lock.lock();
+        assertEquals(2, lock.getHoldCount());
+        lock.unlock();
+        assertFalse(other.tryLock());
+        lock.unlock();
+        assertTrue(other.tryLock());
+        other.unlock();
+    }
+
+    @Test(expected = IllegalMonitorStateException.class)
+    public void unlockWithoutHolding() {
+        newLocks().getLock("none").unlock();
+    }
+}
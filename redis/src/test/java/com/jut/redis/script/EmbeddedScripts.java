@@ -0,0 +1,96 @@
+package com.jut.redis.script;
+
+import com.jut.redis.embedded.EmbeddedRedisServer;
+import com.jut.redis.embedded.EmbeddedScript;
+
+import java.util.List;
+
+/***
+ * 为嵌入式服务登记Scripts中各脚本的Java实现
+ * 嵌入式服务不包含lua解释器, 测试中需要执行脚本的服务启动后调用register
+ */
+public final class EmbeddedScripts {
+    private EmbeddedScripts() {
+    }
+
+    public static void register(EmbeddedRedisServer server) {
+        server.registerScript(Scripts.SETNX_EXPIRE.getSource(), EmbeddedScripts::setnxExpire);
+        server.registerScript(Scripts.COMPARE_AND_SET.getSource(), EmbeddedScripts::compareAndSet);
+        server.registerScript(Scripts.COMPARE_AND_DELETE.getSource(), EmbeddedScripts::compareAndDelete);
+        server.registerScript(Scripts.RELEASE_AND_NOTIFY.getSource(), EmbeddedScripts::releaseAndNotify);
+        server.registerScript(Scripts.COMPARE_AND_PEXPIRE.getSource(), EmbeddedScripts::compareAndPexpire);
+        server.registerScript(Scripts.INCRBY_EXPIRE.getSource(), EmbeddedScripts::incrByExpire);
+        server.registerScript(Scripts.HINCRBY_EXPIRE.getSource(), EmbeddedScripts::hincrbyExpire);
+        server.registerScript(Scripts.HINCRBY_EXPIRE_NX.getSource(), EmbeddedScripts::hincrbyExpireNx);
+    }
+
+    private static Object setnxExpire(EmbeddedScript.Context redis, List<String> keys, List<String> args) {
+        if (Long.valueOf(1L).equals(redis.call("setnx", keys.get(0), args.get(0)))) {
+            redis.call("expire", keys.get(0), args.get(1));
+            return 1L;
+        }
+        return 0L;
+    }
+
+    private static Object compareAndSet(EmbeddedScript.Context redis, List<String> keys, List<String> args) {
+        if (args.get(0).equals(redis.call("get", keys.get(0)))) {
+            long ttl = (Long) redis.call("pttl", keys.get(0));
+            if (ttl > 0) {
+                redis.call("psetex", keys.get(0), String.valueOf(ttl), args.get(1));
+            } else {
+                redis.call("set", keys.get(0), args.get(1));
+            }
+            return 1L;
+        }
+        return 0L;
+    }
+
+    private static Object compareAndDelete(EmbeddedScript.Context redis, List<String> keys, List<String> args) {
+        if (args.get(0).equals(redis.call("get", keys.get(0)))) {
+            return redis.call("del", keys.get(0));
+        }
+        return 0L;
+    }
+
+    private static Object releaseAndNotify(EmbeddedScript.Context redis, List<String> keys, List<String> args) {
+        if (args.get(0).equals(redis.call("get", keys.get(0)))) {
+            redis.call("del", keys.get(0));
+            redis.call("lpush", keys.get(1), args.get(0));
+            redis.call("ltrim", keys.get(1), "0", "0");
+            redis.call("pexpire", keys.get(1), args.get(1));
+            return 1L;
+        }
+        return 0L;
+    }
+
+    private static Object compareAndPexpire(EmbeddedScript.Context redis, List<String> keys, List<String> args) {
+        if (args.get(0).equals(redis.call("get", keys.get(0)))) {
+            return redis.call("pexpire", keys.get(0), args.get(1));
+        }
+        return 0L;
+    }
+
+    private static Object incrByExpire(EmbeddedScript.Context redis, List<String> keys, List<String> args) {
+        boolean created = Long.valueOf(0L).equals(redis.call("exists", keys.get(0)));
+        Object value = redis.call("incrby", keys.get(0), args.get(0));
+        if (created) {
+            redis.call("expire", keys.get(0), args.get(1));
+        }
+        return value;
+    }
+
+    private static Object hincrbyExpire(EmbeddedScript.Context redis, List<String> keys, List<String> args) {
+        Object value = redis.call("hincrby", keys.get(0), args.get(0), args.get(1));
+        redis.call("expire", keys.get(0), args.get(2));
+        return value;
+    }
+
+    private static Object hincrbyExpireNx(EmbeddedScript.Context redis, List<String> keys, List<String> args) {
+        boolean created = Long.valueOf(0L).equals(redis.call("exists", keys.get(0)));
+        Object value = redis.call("hincrby", keys.get(0), args.get(0), args.get(1));
+        if (created) {
+            redis.call("expire", keys.get(0), args.get(2));
+        }
+        return value;
+    }
+}
@@ -0,0 +1,134 @@
+package com.jut.redis.shard;
+
+import com.jut.redis.ShardedRedisManager;
+import com.jut.redis.embedded.EmbeddedRedisServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ShardMigratorTest {
+    private static final int KEYS = 300;
+    private static final int TTL_SECONDS = 600;
+
+    private final List<EmbeddedRedisServer> servers = new ArrayList<EmbeddedRedisServer>();
+    private final Map<String, JedisPool> pools = new LinkedHashMap<String, JedisPool>();
+    private ShardedRedisManager redisManager;
+
+    @Before
+    public void setUp() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            EmbeddedRedisServer server = new EmbeddedRedisServer();
+            server.start();
+            servers.add(server);
+            pools.put("shard" + i, new JedisPool(server.getHost(), server.getPort()));
+        }
+        Map<String, JedisPool> initial = new LinkedHashMap<String, JedisPool>(pools);
+        initial.remove("shard3");
+        redisManager = new ShardedRedisManager(initial);
+        for (int i = 0; i < KEYS; i++) {
+            redisManager.setex("t:" + i, TTL_SECONDS, "v" + i);
+            redisManager.set("p:" + i, "v" + i);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        for (JedisPool pool : pools.values()) {
+            pool.close();
+        }
+        for (EmbeddedRedisServer server : servers) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void addShardPreservesTtl() {
+        long moved = new ShardMigrator(redisManager).addShard("shard3", pools.get("shard3"));
+        assertFalse(redisManager.isMigrating());
+        assertTrue(moved > 0);
+        assertEquals(moved, dbSize("shard3"));
+        assertEquals(2 * KEYS, dbSize("shard0") + dbSize("shard1") + dbSize("shard2") + dbSize("shard3"));
+        for (int i = 0; i < KEYS; i++) {
+            assertStored("t:" + i, "v" + i, true);
+            assertStored("p:" + i, "v" + i, false);
+        }
+    }
+
+    @Test
+    public void accessDuringMigrationMovesKey() {
+        redisManager.addShard("shard3", pools.get("shard3"));
+        int accessed = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "t:" + i;
+            if ("shard3".equals(redisManager.getShard(key))) {
+                assertEquals("v" + i, redisManager.get(key));
+                assertStored(key, "v" + i, true);
+                accessed++;
+            }
+        }
+        assertTrue(accessed > 0);
+        assertEquals(accessed, dbSize("shard3"));
+        new ShardMigrator(redisManager).migrate(redisManager.getShards());
+        redisManager.finishMigration();
+        for (int i = 0; i < KEYS; i++) {
+            assertStored("p:" + i, "v" + i, false);
+        }
+    }
+
+    @Test
+    public void migratedKeyIsDumpedOnce() {
+        redisManager.addShard("shard3", pools.get("shard3"));
+        String key = null;
+        for (int i = 0; key == null; i++) {
+            if ("shard3".equals(redisManager.getShard("t:" + i))) {
+                key = "t:" + i;
+            }
+        }
+        redisManager.get(key);
+        redisManager.get(key);
+        redisManager.timetolive(key);
+        assertEquals(1L, dumpCount());
+        assertStored(key, "v" + key.substring(2), true);
+        redisManager.finishMigration();
+    }
+
+    /**
+     * 直接在key归属的分片上检查值和过期时间
+     */
+    private void assertStored(String key, String value, boolean expiring) {
+        try (Jedis jedis = pools.get(redisManager.getShard(key)).getResource()) {
+            assertEquals(key, value, jedis.get(key));
+            long ttl = jedis.pttl(key);
+            if (expiring) {
+                assertTrue(key + " ttl " + ttl, ttl > (TTL_SECONDS - 60) * 1000L && ttl <= TTL_SECONDS * 1000L);
+            } else {
+                assertEquals(key, -1L, ttl);
+            }
+        }
+    }
+
+    private long dbSize(String shard) {
+        try (Jedis jedis = pools.get(shard).getResource()) {
+            return jedis.dbSize();
+        }
+    }
+
+    private long dumpCount() {
+        long count = 0;
+        for (EmbeddedRedisServer server : servers) {
+            count += server.getCommandCount("DUMP");
+        }
+        return count;
+    }
+}